@@ -0,0 +1,39 @@
+package dev.bratskov.raspisanie.controller;
+
+import dev.bratskov.raspisanie.dto.ServiceDayDto;
+import dev.bratskov.raspisanie.service.CalendarService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/calendar")
+@Tag(name = "CALENDAR-CONTROLLER")
+public class CalendarController {
+    private final CalendarService calendarService;
+
+    @GetMapping
+    @Operation(
+            summary = "Сервисы календаря на дату",
+            description = "Сервисы календаря обслуживания, по которым транспорт ходит в указанную дату: " +
+                    "будни или выходные с учётом праздников и переносов рабочих дней, для GTFS — service_id. " +
+                    "Без даты — на сегодня."
+    )
+    public ResponseEntity<ServiceDayDto> getServiceDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        return ResponseEntity.ok(ServiceDayDto.builder()
+                .date(day)
+                .services(calendarService.findServices(day))
+                .build());
+    }
+}
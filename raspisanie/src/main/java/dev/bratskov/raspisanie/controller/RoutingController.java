@@ -1,16 +1,26 @@
 package dev.bratskov.raspisanie.controller;
 
+import dev.bratskov.raspisanie.dto.MatrixRequestDto;
+import dev.bratskov.raspisanie.dto.ReachRequestDto;
+import dev.bratskov.raspisanie.dto.ReachResponseDto;
+import dev.bratskov.raspisanie.dto.RoutingArrivalRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingGroupRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingRangeRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingResponseDto;
+import dev.bratskov.raspisanie.service.MatrixService;
 import dev.bratskov.raspisanie.service.RoutingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,6 +30,7 @@ import java.util.List;
 @Tag(name = "ROUTING-CONTROLLER")
 public class RoutingController {
     private final RoutingService routingService;
+    private final MatrixService matrixService;
 
     @PostMapping("/plan")
     @Operation(
@@ -30,6 +41,27 @@ public class RoutingController {
         return routingService.findPath(requestDto);
     }
 
+    @PostMapping("/plan/group")
+    @Operation(
+            summary = "Найти маршрут между остановками по названию",
+            description = "Учитывает все платформы с одинаковым названием: поиск начинается сразу со всех " +
+                    "платформ отправления и заканчивается на любой платформе назначения. " +
+                    "Остановка задаётся названием или ID любой её платформы."
+    )
+    public RoutingResponseDto getGroupPlan(@Valid @RequestBody RoutingGroupRequestDto requestDto) {
+        return routingService.findGroupPath(requestDto);
+    }
+
+    @PostMapping("/plan/arrive-by")
+    @Operation(
+            summary = "Найти маршрут с прибытием к заданному времени",
+            description = "Возвращает маршрут с самым поздним отправлением, " +
+                    "при котором пассажир прибывает не позже указанного времени"
+    )
+    public RoutingResponseDto getArriveByPlan(@Valid @RequestBody RoutingArrivalRequestDto requestDto) {
+        return routingService.findArriveByPath(requestDto);
+    }
+
     @PostMapping("/plan/all")
     @Operation(
             summary = "Найти все варианты маршрута",
@@ -39,4 +71,49 @@ public class RoutingController {
     public List<RoutingResponseDto> getAllPlans(@Valid @RequestBody RoutingRequestDto requestDto) {
         return routingService.findAllPaths(requestDto);
     }
+
+    @PostMapping("/plan/pareto")
+    @Operation(
+            summary = "Найти Парето-оптимальные варианты маршрута",
+            description = "Возвращает за один поиск все варианты, не уступающие друг другу одновременно " +
+                    "по времени прибытия, количеству пересадок, времени в транспорте и времени пешком. " +
+                    "Варианты отсортированы по времени прибытия."
+    )
+    public List<RoutingResponseDto> getParetoPlans(@Valid @RequestBody RoutingRequestDto requestDto) {
+        return routingService.findParetoPaths(requestDto);
+    }
+
+    @PostMapping("/plan/range")
+    @Operation(
+            summary = "Найти варианты маршрута в интервале отправления",
+            description = "Возвращает все Парето-оптимальные варианты (время отправления, время прибытия, " +
+                    "количество пересадок) для отправления в заданном интервале, отсортированные по отправлению."
+    )
+    public List<RoutingResponseDto> getRangePlans(@Valid @RequestBody RoutingRangeRequestDto requestDto) {
+        return routingService.findPathsInRange(requestDto);
+    }
+
+    @PostMapping("/reach")
+    @Operation(
+            summary = "Найти остановки, достижимые за заданное время",
+            description = "Возвращает все остановки, до которых можно доехать от начальной не дольше " +
+                    "указанного времени, с самым ранним временем в пути и количеством пересадок. " +
+                    "Ответ — параллельные массивы, отсортированные по времени в пути."
+    )
+    public ReachResponseDto getReachableStops(@Valid @RequestBody ReachRequestDto requestDto) {
+        return routingService.findReachableStops(requestDto);
+    }
+
+    @PostMapping("/matrix")
+    @Operation(
+            summary = "Рассчитать матрицу времени в пути",
+            description = "Для каждой начальной остановки возвращает время в пути и количество пересадок " +
+                    "до всех целевых остановок. Строки считаются параллельно и передаются по мере готовности " +
+                    "в формате NDJSON (одна строка JSON на начальную остановку), порядок строк не гарантируется."
+    )
+    public ResponseEntity<StreamingResponseBody> getMatrix(@Valid @RequestBody MatrixRequestDto requestDto) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(matrixService.streamMatrix(requestDto));
+    }
 }
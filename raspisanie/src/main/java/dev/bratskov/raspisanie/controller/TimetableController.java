@@ -0,0 +1,68 @@
+package dev.bratskov.raspisanie.controller;
+
+import dev.bratskov.raspisanie.dto.TimetableReloadDto;
+import dev.bratskov.raspisanie.dto.TimetableVersionDto;
+import dev.bratskov.raspisanie.exception.AccessDeniedException;
+import dev.bratskov.raspisanie.service.TimetableReloadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/timetable")
+@Tag(name = "TIMETABLE-CONTROLLER")
+public class TimetableController {
+    static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private final TimetableReloadService reloadService;
+
+    // токен для перезагрузки; без него перезагрузка по запросу запрещена
+    @Value("${data.reload.admin-token:}")
+    private String adminToken;
+
+    @GetMapping
+    @Operation(
+            summary = "Текущая версия расписания",
+            description = "Номер и время загрузки версии данных, по которой выполняются запросы"
+    )
+    public ResponseEntity<TimetableVersionDto> getVersion() {
+        return ResponseEntity.ok(reloadService.currentVersion());
+    }
+
+    @PostMapping("/reload")
+    @Operation(
+            summary = "Перезагрузить расписание",
+            description = "Ставит в очередь чтение файлов данных и построение расписания в фоне, не останавливая " +
+                    "обработку запросов, и сразу отвечает номером будущей версии; её публикацию видно через " +
+                    "GET /api/v1/timetable. После публикации новые запросы выполняются по новой версии, начатые " +
+                    "завершаются по прежней. При ошибке в данных остаётся прежняя версия. " +
+                    "Требует заголовок " + ADMIN_TOKEN_HEADER + " с токеном из data.reload.admin-token."
+    )
+    public ResponseEntity<TimetableReloadDto> reload(
+            @RequestHeader(name = ADMIN_TOKEN_HEADER, required = false) String token) {
+        checkAdminToken(token);
+        long version = reloadService.requestReload();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/timetable"))
+                .body(TimetableReloadDto.builder().version(version).build());
+    }
+
+    private void checkAdminToken(String token) {
+        if (adminToken == null || adminToken.isBlank() || token == null
+                || !MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new AccessDeniedException("Перезагрузка расписания запрещена: неверный или отсутствующий токен");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+@Builder
+public record MatrixRequestDto(
+        @NotEmpty(message = "Список начальных остановок не может быть пустым")
+        @Size(max = 1000, message = "Не больше 1000 начальных остановок")
+        @Schema(description = "ID начальных остановок (строки матрицы)")
+        List<UUID> originStopIds,
+
+        @NotEmpty(message = "Список целевых остановок не может быть пустым")
+        @Size(max = 1000, message = "Не больше 1000 целевых остановок")
+        @Schema(description = "ID целевых остановок (столбцы матрицы)")
+        List<UUID> targetStopIds,
+
+        @NotNull(message = "Время отправления обязательно")
+        @Schema(
+                description = "Время отправления в формате ISO 8601 (HH:mm:ss). " +
+                        "**ПРИМЕР: 08:30:00**",
+                type = "string",
+                format = "time",
+                example = "08:30:00"
+        )
+        LocalTime time,
+
+        @Schema(
+                description = "Дата поездки в формате ISO 8601 (yyyy-MM-dd), по умолчанию — сегодня. " +
+                        "Рейсы берутся по календарю обслуживания на эту дату",
+                type = "string",
+                format = "date",
+                example = "2026-10-14"
+        )
+        LocalDate date
+) {
+}
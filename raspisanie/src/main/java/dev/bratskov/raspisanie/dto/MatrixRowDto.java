@@ -0,0 +1,20 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.UUID;
+
+@Builder
+@Schema(description = "Строка матрицы: значения по целевым остановкам в порядке запроса")
+public record MatrixRowDto(
+        @Schema(description = "ID начальной остановки строки")
+        UUID originStopId,
+
+        @Schema(description = "Время в пути в секундах; -1, если остановка недостижима")
+        int[] travelTimes,
+
+        @Schema(description = "Количество пересадок; -1, если остановка недостижима")
+        int[] transfers
+) {
+}
@@ -0,0 +1,44 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Builder
+public record ReachRequestDto(
+        @NotNull(message = "ID начальной остановки обязателен")
+        @Schema(description = "ID начальной остановки")
+        UUID originStopId,
+
+        @NotNull(message = "Время отправления обязательно")
+        @Schema(
+                description = "Время отправления в формате ISO 8601 (HH:mm:ss). " +
+                        "**ПРИМЕР: 08:30:00**",
+                type = "string",
+                format = "time",
+                example = "08:30:00"
+        )
+        LocalTime time,
+
+        @Schema(
+                description = "Дата поездки в формате ISO 8601 (yyyy-MM-dd), по умолчанию — сегодня. " +
+                        "Рейсы берутся по календарю обслуживания на эту дату",
+                type = "string",
+                format = "date",
+                example = "2026-10-14"
+        )
+        LocalDate date,
+
+        @NotNull(message = "Максимальное время в пути обязательно")
+        @Positive(message = "Максимальное время в пути должно быть положительным")
+        @Max(value = 24 * 60, message = "Максимальное время в пути не больше суток")
+        @Schema(description = "Максимальное время в пути в минутах", example = "30")
+        Integer maxTravelMinutes
+) {
+}
@@ -0,0 +1,27 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Builder
+@Schema(description = "Достижимые остановки в виде параллельных массивов, отсортированных по времени в пути")
+public record ReachResponseDto(
+        @Schema(description = "ID начальной остановки")
+        UUID originStopId,
+
+        @Schema(description = "Время отправления", type = "string", format = "time", example = "08:30:00")
+        LocalTime departureTime,
+
+        @Schema(description = "ID достижимых остановок")
+        UUID[] stopIds,
+
+        @Schema(description = "Время в пути до остановки с тем же индексом, в секундах")
+        int[] travelTimes,
+
+        @Schema(description = "Количество пересадок до остановки с тем же индексом")
+        int[] transfers
+) {
+}
@@ -0,0 +1,40 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Builder
+public record RoutingArrivalRequestDto(
+        @NotNull(message = "ID начальной остановки обязателен")
+        @Schema(description = "ID начальной остановки")
+        UUID originStopId,
+
+        @NotNull(message = "ID целевой остановки обязателен")
+        @Schema(description = "ID целевой остановки")
+        UUID targetStopId,
+
+        @NotNull(message = "Время прибытия обязательно")
+        @Schema(
+                description = "Крайнее время прибытия в формате ISO 8601 (HH:mm:ss). " +
+                        "**ПРИМЕР: 08:50:00**",
+                type = "string",
+                format = "time",
+                example = "08:50:00"
+        )
+        LocalTime arrivalTime,
+
+        @Schema(
+                description = "Дата поездки в формате ISO 8601 (yyyy-MM-dd), по умолчанию — сегодня. " +
+                        "Рейсы берутся по календарю обслуживания на эту дату",
+                type = "string",
+                format = "date",
+                example = "2026-10-14"
+        )
+        LocalDate date
+) {
+}
@@ -0,0 +1,44 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Builder
+public record RoutingGroupRequestDto(
+        @Schema(description = "Название начальной остановки; учитываются все её платформы", example = "ПОЧТА")
+        String originName,
+
+        @Schema(description = "ID любой платформы начальной остановки, если название не указано")
+        UUID originGroupId,
+
+        @Schema(description = "Название целевой остановки; учитываются все её платформы", example = "ЦЕНТР")
+        String targetName,
+
+        @Schema(description = "ID любой платформы целевой остановки, если название не указано")
+        UUID targetGroupId,
+
+        @NotNull(message = "Время отправления обязательно")
+        @Schema(
+                description = "Время отправления в формате ISO 8601 (HH:mm:ss). " +
+                        "**ПРИМЕР: 08:30:00**",
+                type = "string",
+                format = "time",
+                example = "08:30:00"
+        )
+        LocalTime time,
+
+        @Schema(
+                description = "Дата поездки в формате ISO 8601 (yyyy-MM-dd), по умолчанию — сегодня. " +
+                        "Рейсы берутся по календарю обслуживания на эту дату",
+                type = "string",
+                format = "date",
+                example = "2026-10-14"
+        )
+        LocalDate date
+) {
+}
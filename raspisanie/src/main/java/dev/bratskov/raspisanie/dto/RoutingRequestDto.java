@@ -1,10 +1,10 @@
 package dev.bratskov.raspisanie.dto;
 
-import dev.bratskov.raspisanie.model.enums.Day;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.UUID;
 
@@ -28,12 +28,13 @@ public record RoutingRequestDto(
         )
         LocalTime time,
 
-        @NotNull(message = "День недели обязателен")
         @Schema(
-                description = "Тип дня (будни или выходные)",
-                example = "WEEKDAY",
-                allowableValues = {"WEEKDAY", "WEEKEND"}
+                description = "Дата поездки в формате ISO 8601 (yyyy-MM-dd), по умолчанию — сегодня. " +
+                        "Рейсы берутся по календарю обслуживания на эту дату",
+                type = "string",
+                format = "date",
+                example = "2026-10-14"
         )
-        Day day
+        LocalDate date
 ) {
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package dev.bratskov.raspisanie.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Builder
+public record ServiceDayDto(
+        LocalDate date,
+        List<String> services
+) {
+}
@@ -0,0 +1,13 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+@Builder
+@Schema(description = "Принятая перезагрузка расписания")
+public record TimetableReloadDto(
+        @Schema(description = "Номер версии, которую опубликует перезагрузка; готовность проверяется через " +
+                "GET /api/v1/timetable. Если загрузка не удалась, версия не публикуется и остаётся прежняя")
+        long version
+) {
+}
@@ -0,0 +1,26 @@
+package dev.bratskov.raspisanie.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.Instant;
+
+@Builder
+@Schema(description = "Версия данных расписания, по которой выполняются запросы")
+public record TimetableVersionDto(
+        @Schema(description = "Номер версии: 1 при старте, увеличивается при каждой перезагрузке")
+        long version,
+
+        @Schema(description = "Момент загрузки версии")
+        Instant loadedAt,
+
+        @Schema(description = "Количество остановок")
+        int stops,
+
+        @Schema(description = "Количество маршрутов")
+        int routes,
+
+        @Schema(description = "Количество рейсов")
+        int trips
+) {
+}
@@ -0,0 +1,7 @@
+package dev.bratskov.raspisanie.exception;
+
+public class AccessDeniedException extends RuntimeException {
+    public AccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -30,6 +30,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.FORBIDDEN.value())
+                .error("Forbidden")
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ErrorResponse> handleNoSuchElement(NoSuchElementException ex) {
         ErrorResponse error = ErrorResponse.builder()
@@ -72,8 +83,8 @@ public class GlobalExceptionHandler {
                 message = "Неверный формат UUID. Ожидается формат: xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx";
             } else if (ex.getMessage().contains("LocalTime")) {
                 message = "Неверный формат времени. Ожидается формат: HH:mm:ss (например, 08:30:00)";
-            } else if (ex.getMessage().contains("Day")) {
-                message = "Неверное значение дня. Допустимые значения: WEEKDAY, WEEKEND";
+            } else if (ex.getMessage().contains("LocalDate")) {
+                message = "Неверный формат даты. Ожидается формат: yyyy-MM-dd (например, 2026-10-14)";
             }
         }
 
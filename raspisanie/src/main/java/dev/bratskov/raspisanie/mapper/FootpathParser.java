@@ -0,0 +1,178 @@
+package dev.bratskov.raspisanie.mapper;
+
+import dev.bratskov.raspisanie.exception.DataInitializationException;
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Строит пешеходные переходы между остановками: внутри групп остановок с одинаковым
+ * названием (противоположные стороны улицы) и из необязательного файла {@code data.footpaths-file}.
+ * <p>
+ * Формат файла, по одной записи в строке:
+ * <pre>
+ * # комментарий
+ * ПОЧТА _ВИШНЕВЕЦ-1;53.6853;23.8012          — координаты остановки
+ * ПОЧТА _ВИШНЕВЕЦ-1 -> ПОЧТА _ЦЕНТР;3        — переход с явным временем в минутах
+ * </pre>
+ * Между остановками с координатами ближе {@link #MAX_WALK_DISTANCE} метров переход строится автоматически.
+ * Все переходы двусторонние.
+ */
+@Slf4j
+@Component
+public class FootpathParser {
+    private static final double EARTH_RADIUS = 6_371_000;
+    private static final double MAX_WALK_DISTANCE = 400;
+    private static final double WALKING_SPEED = 1.2;
+
+    private final Parser parser;
+    private final TextFileReader reader;
+    private final Map<String, Footpath> footpaths;
+    @Value("${data.footpaths-file:}")
+    private String filePath;
+    @Value("${data.same-name-walk-minutes:5}")
+    private int sameNameWalkMinutes;
+
+    public FootpathParser(Parser parser, TextFileReader reader) {
+        this.parser = parser;
+        this.reader = reader;
+        this.footpaths = new LinkedHashMap<>();
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, Stop> stopMap = parser.getStopMap();
+        generateSameNameFootpaths(stopMap);
+
+        if (filePath != null && !filePath.isBlank()) {
+            try {
+                log.info("Загрузка пешеходных переходов из файла: {}", filePath);
+                parse(reader.read(filePath), stopMap);
+            } catch (IOException e) {
+                log.error("Ошибка при чтении файла переходов: {}", filePath, e);
+                throw new DataInitializationException(
+                        "Не удалось загрузить пешеходные переходы из файла: " + filePath, e);
+            } catch (RuntimeException e) {
+                log.error("Ошибка при парсинге файла переходов: {}", filePath, e);
+                throw new DataInitializationException(
+                        "Ошибка при обработке пешеходных переходов из файла: " + filePath, e);
+            }
+        }
+
+        log.info("Пешеходные переходы построены: {}", footpaths.size());
+    }
+
+    // переходы для заново загруженных данных parser с теми же настройками
+    public FootpathParser reload(Parser parser) {
+        FootpathParser fresh = new FootpathParser(parser, reader);
+        fresh.filePath = filePath;
+        fresh.sameNameWalkMinutes = sameNameWalkMinutes;
+        fresh.init();
+        return fresh;
+    }
+
+    public List<Footpath> getFootpaths() {
+        return new ArrayList<>(footpaths.values());
+    }
+
+    private void generateSameNameFootpaths(Map<String, Stop> stopMap) {
+        Map<String, List<Stop>> groups = stopMap.values().stream()
+                .collect(Collectors.groupingBy(Stop::name));
+
+        Duration walk = Duration.ofMinutes(sameNameWalkMinutes);
+        for (List<Stop> group : groups.values()) {
+            for (Stop from : group) {
+                for (Stop to : group) {
+                    addFootpath(from, to, walk);
+                }
+            }
+        }
+    }
+
+    private void parse(String text, Map<String, Stop> stopMap) {
+        Map<Stop, double[]> coordinates = new HashMap<>();
+
+        for (String line : text.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split(";");
+            if (parts[0].contains(" -> ")) {
+                String[] ends = parts[0].split(" -> ");
+                Stop from = findStop(stopMap, ends[0]);
+                Stop to = findStop(stopMap, ends[1]);
+                if (from != null && to != null) {
+                    Duration walk = Duration.ofMinutes(Long.parseLong(parts[1].trim()));
+                    addFootpath(from, to, walk);
+                    addFootpath(to, from, walk);
+                }
+            } else {
+                Stop stop = findStop(stopMap, parts[0]);
+                if (stop != null) {
+                    coordinates.put(stop, new double[]{
+                            Double.parseDouble(parts[1].trim()),
+                            Double.parseDouble(parts[2].trim())
+                    });
+                }
+            }
+        }
+
+        generateNearbyFootpaths(coordinates);
+    }
+
+    private void generateNearbyFootpaths(Map<Stop, double[]> coordinates) {
+        for (var from : coordinates.entrySet()) {
+            for (var to : coordinates.entrySet()) {
+                double distance = distance(from.getValue(), to.getValue());
+                if (distance <= MAX_WALK_DISTANCE) {
+                    addFootpath(from.getKey(), to.getKey(),
+                            Duration.ofSeconds(Math.round(distance / WALKING_SPEED)));
+                }
+            }
+        }
+    }
+
+    // расстояние по большой окружности в метрах
+    private double distance(double[] a, double[] b) {
+        double lat1 = Math.toRadians(a[0]);
+        double lat2 = Math.toRadians(b[0]);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(b[1] - a[1]);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(h));
+    }
+
+    private Stop findStop(Map<String, Stop> stopMap, String description) {
+        Stop stop = stopMap.get(description.trim());
+        if (stop == null) {
+            log.warn("Остановка из файла переходов не найдена: {}", description.trim());
+        }
+        return stop;
+    }
+
+    // из нескольких переходов между одной парой остановок остаётся самый быстрый
+    private void addFootpath(Stop from, Stop to, Duration duration) {
+        if (from.equals(to)) {
+            return;
+        }
+        footpaths.merge(from.id() + "_" + to.id(),
+                Footpath.builder().from(from).to(to).duration(duration).build(),
+                (existing, added) -> added.duration().compareTo(existing.duration()) < 0 ? added : existing);
+    }
+}
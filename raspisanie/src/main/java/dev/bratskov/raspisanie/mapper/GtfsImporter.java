@@ -0,0 +1,681 @@
+package dev.bratskov.raspisanie.mapper;
+
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Импорт расписания из zip-архива GTFS в ту же модель, что {@link Parser} строит из trips.txt:
+ * остановки, маршруты по направлениям, рейсы и календарь обслуживания их сервисов.
+ * <p>
+ * Файлы stops.txt, routes.txt, trips.txt, calendar.txt / calendar_dates.txt и stop_times.txt читаются
+ * построчно прямо из архива. Строки stop_times.txt не хранятся: по каждому рейсу копятся только номер
+ * остановки, порядковый номер и время в секундах в массиве int, объекты рейсов собираются после чтения.
+ * <p>
+ * Соответствие модели:
+ * <ul>
+ * <li>остановка — запись stops.txt с location_type 0, описание — "название _stop_id";</li>
+ * <li>маршрут — маршрут GTFS в одном направлении (trip_headsign, иначе конечная остановка рейса),
+ *     номер — первое число в route_short_name, вид транспорта — троллейбус для route_type 11 и 800,
+ *     остальные маршруты загружаются как автобусные;</li>
+ * <li>рейс — один на каждый рейс trips.txt, сервис — его service_id; даты сервиса в календаре —
+ *     дни недели calendar.txt с start_date по end_date, плюс добавленные и минус отменённые даты
+ *     calendar_dates.txt; вне этих дат рейс не ходит;</li>
+ * <li>день рейса (для расписания по остановке) — будний, если сервис действует хотя бы в один день
+ *     с понедельника по пятницу, иначе выходной;</li>
+ * <li>время — departure_time, иначе arrival_time; рейс с отправлением в 24:00 и позже идёт после
+ *     полуночи следующих суток.</li>
+ * </ul>
+ */
+@Slf4j
+public class GtfsImporter {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int NO_TIME = -1;
+    private static final int WEEKDAY_MASK = 0b0011111;
+    private static final int ADDED = 1;
+    private static final int REMOVED = 2;
+    private static final String[] WEEK = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+    private static final int[] NO_ROWS = new int[0];
+    // значение на строку stop_times: остановка, порядковый номер, время
+    private static final int ROW = 3;
+
+    private final TextFileReader reader;
+    // один экземпляр LocalTime на каждую секунду суток, создаётся при первом обращении
+    private final LocalTime[] times = new LocalTime[SECONDS_PER_DAY];
+
+    public GtfsImporter(TextFileReader reader) {
+        this.reader = reader;
+    }
+
+    public record Feed(Map<String, Stop> stopMap, Map<String, Route> routeMap, List<Trip> trips,
+                       ServiceCalendar calendar) {
+    }
+
+    public Feed read(String location) throws IOException {
+        Services services = readServices(location);
+        List<Stop> stops = new ArrayList<>();
+        Map<String, Integer> stopIndex = readStops(location, stops);
+        Map<String, GtfsRoute> routes = readRoutes(location);
+        Map<String, PendingTrip> pending = readTrips(location, routes, services.weekdays());
+        long rows = readStopTimes(location, pending, stopIndex);
+
+        Feed feed = build(pending.values(), stops, services.calendar());
+        log.info("GTFS: остановок {}, маршрутов {}, рейсов {}, сервисов {}, строк stop_times {}",
+                feed.stopMap().size(), feed.routeMap().size(), feed.trips().size(),
+                feed.calendar().services().size(), rows);
+        return feed;
+    }
+
+    // только календарь обслуживания: для данных, загруженных из снимка
+    public ServiceCalendar readCalendar(String location) throws IOException {
+        return readServices(location).calendar();
+    }
+
+    private Services readServices(String location) throws IOException {
+        List<WeeklyService> weekly = new ArrayList<>();
+        Optional<Table> calendar = table(location, "calendar.txt");
+        if (calendar.isPresent()) {
+            try (Table table = calendar.get()) {
+                int serviceCol = table.column("service_id");
+                int startCol = table.column("start_date");
+                int endCol = table.column("end_date");
+                int[] dayCols = new int[WEEK.length];
+                for (int i = 0; i < WEEK.length; i++) {
+                    dayCols[i] = table.column(WEEK[i]);
+                }
+                while (table.next()) {
+                    int mask = 0;
+                    for (int i = 0; i < WEEK.length; i++) {
+                        if (table.integer(dayCols[i], 0) == 1) {
+                            mask |= 1 << i;
+                        }
+                    }
+                    weekly.add(new WeeklyService(table.get(serviceCol), mask,
+                            table.date(startCol), table.date(endCol)));
+                }
+            }
+        }
+
+        List<ServiceDate> exceptions = new ArrayList<>();
+        Optional<Table> calendarDates = table(location, "calendar_dates.txt");
+        if (calendarDates.isEmpty() && calendar.isEmpty()) {
+            throw new IllegalArgumentException("В архиве GTFS нет ни calendar.txt, ни calendar_dates.txt");
+        }
+        if (calendarDates.isPresent()) {
+            try (Table table = calendarDates.get()) {
+                int serviceCol = table.column("service_id");
+                int dateCol = table.column("date");
+                int typeCol = table.column("exception_type");
+                while (table.next()) {
+                    int type = table.integer(typeCol, 0);
+                    if (type != ADDED && type != REMOVED) {
+                        throw table.invalid(typeCol, "exception_type 1 или 2");
+                    }
+                    exceptions.add(new ServiceDate(table.get(serviceCol), table.date(dateCol), type == ADDED));
+                }
+            }
+        }
+
+        // период календаря — от самой ранней до самой поздней даты фида
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (WeeklyService service : weekly) {
+            from = min(from, service.start());
+            to = max(to, service.end());
+        }
+        for (ServiceDate exception : exceptions) {
+            from = min(from, exception.date());
+            to = max(to, exception.date());
+        }
+        ServiceCalendar.Builder builder = from.isAfter(to)
+                ? ServiceCalendar.builder(LocalDate.EPOCH, LocalDate.EPOCH.minusDays(1))
+                : ServiceCalendar.builder(from, to);
+
+        // дни недели каждого сервиса битами от понедельника до воскресенья, с днями добавленных дат
+        Map<String, Integer> weekdays = new HashMap<>();
+        for (WeeklyService service : weekly) {
+            builder.weekly(service.id(), daysOfWeek(service.mask()), service.start(), service.end());
+            weekdays.merge(service.id(), service.mask(), (a, b) -> a | b);
+        }
+        for (ServiceDate exception : exceptions) {
+            if (exception.added()) {
+                builder.add(exception.service(), exception.date());
+                weekdays.merge(exception.service(), 1 << exception.date().getDayOfWeek().ordinal(), (a, b) -> a | b);
+            } else {
+                builder.remove(exception.service(), exception.date());
+                weekdays.putIfAbsent(exception.service(), 0);
+            }
+        }
+        return new Services(builder.build(), weekdays);
+    }
+
+    private Map<String, Integer> readStops(String location, List<Stop> stops) throws IOException {
+        Map<String, Integer> stopIndex = new HashMap<>();
+        try (Table table = requiredTable(location, "stops.txt")) {
+            int idCol = table.column("stop_id");
+            int nameCol = table.column("stop_name");
+            int typeCol = table.optionalColumn("location_type");
+            while (table.next()) {
+                // станции, входы и узлы не участвуют в рейсах
+                if (table.integer(typeCol, 0) != 0) {
+                    continue;
+                }
+                String id = table.get(idCol);
+                String name = table.get(nameCol);
+                String description = name + " _" + id;
+                stopIndex.put(id, stops.size());
+                stops.add(Stop.builder()
+                        .id(Parser.stableId("stop", description))
+                        .name(name)
+                        .description(description)
+                        .build());
+            }
+        }
+        return stopIndex;
+    }
+
+    private Map<String, GtfsRoute> readRoutes(String location) throws IOException {
+        List<String> ids = new ArrayList<>();
+        List<Integer> numbers = new ArrayList<>();
+        List<Transport> transports = new ArrayList<>();
+        int maxNumber = 0;
+        try (Table table = requiredTable(location, "routes.txt")) {
+            int idCol = table.column("route_id");
+            int shortNameCol = table.optionalColumn("route_short_name");
+            int typeCol = table.column("route_type");
+            while (table.next()) {
+                Integer number = firstNumber(table.get(shortNameCol));
+                int type = table.integer(typeCol, 3);
+                ids.add(table.get(idCol));
+                numbers.add(number);
+                transports.add(type == 11 || type == 800 ? Transport.TROLLEYBUS : Transport.BUS);
+                if (number != null) {
+                    maxNumber = Math.max(maxNumber, number);
+                }
+            }
+        }
+
+        // маршрутам без числа в названии номера выдаются по порядку после наибольшего
+        Map<String, GtfsRoute> routes = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            int number = numbers.get(i) != null ? numbers.get(i) : ++maxNumber;
+            routes.put(ids.get(i), new GtfsRoute(ids.get(i), number, transports.get(i)));
+        }
+        return routes;
+    }
+
+    private Map<String, PendingTrip> readTrips(String location, Map<String, GtfsRoute> routes,
+                                               Map<String, Integer> weekdays) throws IOException {
+        Map<String, PendingTrip> pending = new LinkedHashMap<>();
+        int skipped = 0;
+        try (Table table = requiredTable(location, "trips.txt")) {
+            int idCol = table.column("trip_id");
+            int routeCol = table.column("route_id");
+            int serviceCol = table.column("service_id");
+            int headsignCol = table.optionalColumn("trip_headsign");
+            while (table.next()) {
+                GtfsRoute route = routes.get(table.get(routeCol));
+                String service = table.get(serviceCol);
+                int mask = weekdays.getOrDefault(service, 0);
+                if (route == null || mask == 0) {
+                    skipped++;
+                    continue;
+                }
+                String id = table.get(idCol);
+                Day day = (mask & WEEKDAY_MASK) != 0 ? Day.WEEKDAY : Day.WEEKEND;
+                pending.put(id, new PendingTrip(id, route, service, day, table.get(headsignCol)));
+            }
+        }
+        if (skipped > 0) {
+            log.warn("GTFS: пропущено рейсов без маршрута или дней действия: {}", skipped);
+        }
+        return pending;
+    }
+
+    private long readStopTimes(String location, Map<String, PendingTrip> pending,
+                               Map<String, Integer> stopIndex) throws IOException {
+        long rows = 0;
+        try (Table table = requiredTable(location, "stop_times.txt")) {
+            int tripCol = table.column("trip_id");
+            int stopCol = table.column("stop_id");
+            int sequenceCol = table.column("stop_sequence");
+            int arrivalCol = table.column("arrival_time");
+            int departureCol = table.column("departure_time");
+            // строки одного рейса обычно идут подряд: рейс ищется в карте, только когда trip_id сменился
+            String tripId = null;
+            PendingTrip trip = null;
+            while (table.next()) {
+                rows++;
+                if (tripId == null || !table.matches(tripCol, tripId)) {
+                    tripId = table.get(tripCol);
+                    trip = pending.get(tripId);
+                }
+                if (trip == null) {
+                    continue;
+                }
+                Integer stop = stopIndex.get(table.get(stopCol));
+                if (stop == null) {
+                    throw new IllegalArgumentException("Неизвестная остановка " + table.get(stopCol)
+                            + " в файле stop_times.txt, строка " + table.lineNumber());
+                }
+                int time = table.seconds(departureCol);
+                if (time == NO_TIME) {
+                    time = table.seconds(arrivalCol);
+                }
+                trip.add(stop, table.integer(sequenceCol, 0), time);
+            }
+        }
+        return rows;
+    }
+
+    private Feed build(Iterable<PendingTrip> pending, List<Stop> stops, ServiceCalendar calendar) {
+        Map<String, Stop> stopMap = new HashMap<>();
+        Map<String, Route> routeMap = new HashMap<>();
+        List<Trip> trips = new ArrayList<>();
+
+        for (PendingTrip trip : pending) {
+            int[] rows = trip.sortedRows();
+            trip.rows = NO_ROWS;
+            int first = firstTime(rows);
+            if (first == NO_TIME) {
+                continue;
+            }
+            int shift = first / SECONDS_PER_DAY * SECONDS_PER_DAY;
+
+            List<Stop> tripStops = new ArrayList<>(rows.length / ROW);
+            List<StopTime> stopTimes = new ArrayList<>(rows.length / ROW);
+            for (int row = 0; row < rows.length; row += ROW) {
+                Stop stop = stops.get(rows[row]);
+                int time = rows[row + 2];
+                stopMap.putIfAbsent(stop.description(), stop);
+                tripStops.add(stop);
+                stopTimes.add(StopTime.builder()
+                        .stop(stop)
+                        .time(time == NO_TIME ? null : time(time - shift))
+                        .build());
+            }
+
+            String direction = trip.headsign.isEmpty() ? tripStops.getLast().name() : trip.headsign;
+            GtfsRoute gtfsRoute = trip.route;
+            Route route = routeMap.computeIfAbsent(gtfsRoute.id() + "_" + direction, k -> Route.builder()
+                    .id(Parser.stableId("route", gtfsRoute.id() + "|" + direction))
+                    .direction(direction)
+                    .number(gtfsRoute.number())
+                    .stops(tripStops)
+                    .transport(gtfsRoute.transport())
+                    .build());
+
+            trips.add(Trip.builder()
+                    .id(Parser.stableId("trip", trip.id))
+                    .route(route)
+                    .stops(stopTimes)
+                    .day(trip.day)
+                    .afterMidnight(shift > 0)
+                    .service(trip.service)
+                    .build());
+        }
+        return new Feed(stopMap, routeMap, trips, calendar);
+    }
+
+    private static int firstTime(int[] rows) {
+        for (int row = 2; row < rows.length; row += ROW) {
+            if (rows[row] != NO_TIME) {
+                return rows[row];
+            }
+        }
+        return NO_TIME;
+    }
+
+    private static Set<DayOfWeek> daysOfWeek(int mask) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((mask & 1 << day.ordinal()) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private LocalTime time(int seconds) {
+        int secondOfDay = Math.floorMod(seconds, SECONDS_PER_DAY);
+        LocalTime time = times[secondOfDay];
+        if (time == null) {
+            time = LocalTime.ofSecondOfDay(secondOfDay);
+            times[secondOfDay] = time;
+        }
+        return time;
+    }
+
+    // первое число в названии маршрута: "12А" — 12, "Т3" — 3
+    private static Integer firstNumber(String name) {
+        int start = 0;
+        while (start < name.length() && !Character.isDigit(name.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < name.length() && end - start < 9 && Character.isDigit(name.charAt(end))) {
+            end++;
+        }
+        return end > start ? Integer.parseInt(name, start, end, 10) : null;
+    }
+
+    private Table requiredTable(String location, String name) throws IOException {
+        return table(location, name).orElseThrow(
+                () -> new IllegalArgumentException("В архиве GTFS нет файла " + name));
+    }
+
+    private Optional<Table> table(String location, String name) throws IOException {
+        Optional<BufferedReader> lines = reader.openZipEntry(location, name);
+        if (lines.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new Table(name, lines.get()));
+        } catch (RuntimeException | IOException e) {
+            lines.get().close();
+            throw e;
+        }
+    }
+
+    private record GtfsRoute(String id, int number, Transport transport) {
+    }
+
+    // календарь фида и дни недели каждого сервиса битами от понедельника до воскресенья
+    private record Services(ServiceCalendar calendar, Map<String, Integer> weekdays) {
+    }
+
+    private record WeeklyService(String id, int mask, LocalDate start, LocalDate end) {
+    }
+
+    private record ServiceDate(String service, LocalDate date, boolean added) {
+    }
+
+    // рейс trips.txt и его строки stop_times в компактном виде до сборки модели
+    private static final class PendingTrip {
+        private final String id;
+        private final GtfsRoute route;
+        private final String service;
+        private final Day day;
+        private final String headsign;
+        private int[] rows = NO_ROWS;
+        private int size;
+
+        PendingTrip(String id, GtfsRoute route, String service, Day day, String headsign) {
+            this.id = id;
+            this.route = route;
+            this.service = service;
+            this.day = day;
+            this.headsign = headsign;
+        }
+
+        void add(int stop, int sequence, int time) {
+            if (size + ROW > rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(rows.length * 2, 16 * ROW));
+            }
+            rows[size] = stop;
+            rows[size + 1] = sequence;
+            rows[size + 2] = time;
+            size += ROW;
+        }
+
+        // строки по stop_sequence; в большинстве фидов они уже упорядочены
+        int[] sortedRows() {
+            boolean sorted = true;
+            for (int row = ROW; row < size && sorted; row += ROW) {
+                sorted = rows[row + 1] >= rows[row + 1 - ROW];
+            }
+            if (sorted) {
+                return Arrays.copyOf(rows, size);
+            }
+            long[] order = new long[size / ROW];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = (long) rows[i * ROW + 1] << 32 | i;
+            }
+            Arrays.sort(order);
+            int[] result = new int[size];
+            for (int i = 0; i < order.length; i++) {
+                System.arraycopy(rows, (int) order[i] * ROW, result, i * ROW, ROW);
+            }
+            return result;
+        }
+    }
+
+    // Построчное чтение CSV-файла GTFS: первая строка — заголовок, поля через запятую, в кавычках
+    // могут быть запятые и удвоенные кавычки. Поля строки хранятся границами внутри неё, без подстрок.
+    private static final class Table implements Closeable {
+        private final String name;
+        private final BufferedReader lines;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private String line;
+        private int lineNumber = 1;
+        private int count;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] escaped = new boolean[16];
+
+        Table(String name, BufferedReader lines) throws IOException {
+            this.name = name;
+            this.lines = lines;
+            line = lines.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("Пустой файл " + name + " в архиве GTFS");
+            }
+            if (line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            split();
+            for (int i = 0; i < count; i++) {
+                columns.put(get(i), i);
+            }
+        }
+
+        int column(String column) {
+            Integer index = columns.get(column);
+            if (index == null) {
+                throw new IllegalArgumentException("В файле " + name + " нет столбца " + column);
+            }
+            return index;
+        }
+
+        // -1, если столбца нет: значения такого столбца пустые
+        int optionalColumn(String column) {
+            return columns.getOrDefault(column, -1);
+        }
+
+        int lineNumber() {
+            return lineNumber;
+        }
+
+        boolean next() throws IOException {
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    split();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String get(int column) {
+            if (column < 0 || column >= count) {
+                return "";
+            }
+            String value = line.substring(start(column), end(column));
+            return escaped[column] ? value.replace("\"\"", "\"") : value;
+        }
+
+        // значение поля равно строке, без создания подстроки
+        boolean matches(int column, String value) {
+            if (column < 0 || column >= count || escaped[column]) {
+                return get(column).equals(value);
+            }
+            int start = start(column);
+            return end(column) - start == value.length() && line.startsWith(value, start);
+        }
+
+        int integer(int column, int defaultValue) {
+            if (column < 0 || column >= count) {
+                return defaultValue;
+            }
+            int start = start(column);
+            int end = end(column);
+            if (start == end) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(line, start, end, 10);
+            } catch (NumberFormatException e) {
+                throw invalid(column, "число");
+            }
+        }
+
+        // время "Ч:ММ:СС" в секундах от начала дня обслуживания, часы могут быть больше 23; -1 для пустого поля
+        int seconds(int column) {
+            if (column < 0 || column >= count) {
+                return NO_TIME;
+            }
+            int start = start(column);
+            int end = end(column);
+            if (start == end) {
+                return NO_TIME;
+            }
+            int value = 0;
+            int part = 0;
+            int parts = 1;
+            int digits = 0;
+            for (int i = start; i < end; i++) {
+                char c = line.charAt(i);
+                if (c == ':') {
+                    if (digits == 0 || parts == 3 || (parts > 1 && part > 59)) {
+                        throw invalid(column, "время");
+                    }
+                    value = value * 60 + part;
+                    part = 0;
+                    digits = 0;
+                    parts++;
+                } else if (c >= '0' && c <= '9' && digits < 6) {
+                    part = part * 10 + (c - '0');
+                    digits++;
+                } else {
+                    throw invalid(column, "время");
+                }
+            }
+            if (parts != 3 || digits == 0 || part > 59) {
+                throw invalid(column, "время");
+            }
+            return value * 60 + part;
+        }
+
+        LocalDate date(int column) {
+            try {
+                return LocalDate.parse(get(column), DateTimeFormatter.BASIC_ISO_DATE);
+            } catch (DateTimeParseException e) {
+                throw invalid(column, "дата");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lines.close();
+        }
+
+        IllegalArgumentException invalid(int column, String expected) {
+            return new IllegalArgumentException("Неверное значение '" + get(column) + "' (" + expected
+                    + ") в файле " + name + ", строка " + lineNumber);
+        }
+
+        private int start(int column) {
+            int start = starts[column];
+            while (start < ends[column] && line.charAt(start) == ' ') {
+                start++;
+            }
+            return start;
+        }
+
+        private int end(int column) {
+            int end = ends[column];
+            while (end > starts[column] && line.charAt(end - 1) == ' ') {
+                end--;
+            }
+            return end;
+        }
+
+        private void split() {
+            count = 0;
+            int i = 0;
+            int length = line.length();
+            while (true) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                    escaped = Arrays.copyOf(escaped, count * 2);
+                }
+                int comma;
+                if (i < length && line.charAt(i) == '"') {
+                    int quote = i + 1;
+                    boolean doubled = false;
+                    while (true) {
+                        quote = line.indexOf('"', quote);
+                        if (quote < 0) {
+                            throw new IllegalArgumentException("Незакрытые кавычки в файле " + name
+                                    + ", строка " + lineNumber);
+                        }
+                        if (quote + 1 < length && line.charAt(quote + 1) == '"') {
+                            doubled = true;
+                            quote += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    starts[count] = i + 1;
+                    ends[count] = quote;
+                    escaped[count] = doubled;
+                    comma = line.indexOf(',', quote + 1);
+                } else {
+                    comma = line.indexOf(',', i);
+                    starts[count] = i;
+                    ends[count] = comma < 0 ? length : comma;
+                    escaped[count] = false;
+                }
+                count++;
+                if (comma < 0) {
+                    return;
+                }
+                i = comma + 1;
+            }
+        }
+    }
+}
@@ -4,34 +4,70 @@ import dev.bratskov.raspisanie.exception.DataInitializationException;
 import dev.bratskov.raspisanie.model.enums.Day;
 import dev.bratskov.raspisanie.model.Stop;
 import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
 import dev.bratskov.raspisanie.model.enums.Transport;
 import dev.bratskov.raspisanie.model.Trip;
 import dev.bratskov.raspisanie.model.StopTime;
 import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.reader.WorkdayCalendarReader;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.Arrays;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Component
 public class Parser {
+    private static final String TRANSPORT_MARKER = "ТРАНСПОРТ: ";
+    private static final String FIELD_SEPARATOR = "--";
+    private static final int HEADER_FIELDS = 5;
+    private static final int MIDNIGHT_WRAP = 12 * 60 * 60;
+    private static final int NO_DEPARTURE = -1;
+    private static final String TEXT_FORMAT = "text";
+    private static final String GTFS_FORMAT = "gtfs";
+    // один экземпляр LocalTime на каждую минуту суток вместо нового на каждое время рейса
+    private static final LocalTime[] MINUTES = IntStream.range(0, 24 * 60)
+            .mapToObj(minute -> LocalTime.of(minute / 60, minute % 60))
+            .toArray(LocalTime[]::new);
+
     private final Map<String, Stop> stopMap;
     private final Map<String, Route> routeMap;
     private final TextFileReader reader;
+    private final TimetableSnapshot snapshot;
+    private final WorkdayCalendarReader workdays;
     private final List<Trip> trips;
+    private ServiceCalendar calendar = ServiceCalendar.weekly();
+    // снимок, из которого загружены данные, или отметка, что его нужно записать; передаётся в TimetableRepo
+    private TimetableSnapshot.Handle snapshotHandle = TimetableSnapshot.Handle.none();
+    // следующий порядковый номер рейса маршрута по дням, в порядке рейсов в файле
+    private final Map<String, Integer> tripOrdinals;
     @Value("${data.trips-file}")
     private String filePath;
+    // text — собственный формат trips.txt, gtfs — zip-архив GTFS (см. GtfsImporter)
+    @Value("${data.format:text}")
+    private String format = TEXT_FORMAT;
+    // потоки разбора блоков маршрутов; 1 — последовательное чтение файла без загрузки целиком в память
+    @Value("${data.parse-parallelism:1}")
+    private int parallelism = 1;
 
     @PostConstruct
     public void init() {
@@ -40,11 +76,35 @@ public class Parser {
                     "Не указан путь к файлу данных. Проверьте параметр 'data.trips-file'"
             );
         }
+        if (!TEXT_FORMAT.equals(format) && !GTFS_FORMAT.equals(format)) {
+            throw new DataInitializationException(
+                    "Неизвестный формат данных '" + format + "'. Проверьте параметр 'data.format': text или gtfs"
+            );
+        }
 
         try {
             log.info("Загрузка данных из файла: {}", filePath);
-            String text = reader.read(filePath);
-            parse(text);
+            snapshotHandle = snapshot.isEnabled()
+                    ? snapshot.loadModel(reader.checksum(filePath))
+                    : TimetableSnapshot.Handle.none();
+            Optional<TimetableSnapshot.Model> model = snapshotHandle.loaded();
+            if (model.isPresent()) {
+                stopMap.putAll(model.get().stopMap());
+                routeMap.putAll(model.get().routeMap());
+                trips.addAll(model.get().trips());
+            } else if (GTFS_FORMAT.equals(format)) {
+                GtfsImporter.Feed feed = new GtfsImporter(reader).read(filePath);
+                stopMap.putAll(feed.stopMap());
+                routeMap.putAll(feed.routeMap());
+                trips.addAll(feed.trips());
+                calendar = feed.calendar();
+            } else if (parallelism > 1) {
+                parseParallel(reader.read(filePath));
+            } else {
+                try (BufferedReader lines = reader.open(filePath)) {
+                    parse(lines);
+                }
+            }
 
             if (stopMap.isEmpty()) {
                 throw new DataInitializationException(
@@ -63,6 +123,12 @@ public class Parser {
                         "Не найдено ни одного рейса в файле: " + filePath
                 );
             }
+            if (!GTFS_FORMAT.equals(format)) {
+                calendar = loadCalendar();
+            } else if (model.isPresent()) {
+                // календарь фида в снимок не пишется: даты сервисов читаются из архива заново
+                calendar = new GtfsImporter(reader).readCalendar(filePath);
+            }
 
             log.info("Данные успешно загружены. Остановок: {}, Маршрутов: {}, Рейсов: {}",
                     stopMap.size(), routeMap.size(), trips.size());
@@ -80,10 +146,28 @@ public class Parser {
     }
 
     public Parser(TextFileReader reader) {
+        this(reader, new TimetableSnapshot(), new WorkdayCalendarReader());
+    }
+
+    @Autowired
+    public Parser(TextFileReader reader, TimetableSnapshot snapshot, WorkdayCalendarReader workdays) {
         this.routeMap = new HashMap<>();
         this.stopMap = new HashMap<>();
         this.trips = new ArrayList<>();
+        this.tripOrdinals = new HashMap<>();
         this.reader = reader;
+        this.snapshot = snapshot;
+        this.workdays = workdays;
+    }
+
+    // новый экземпляр с теми же настройками, загруженный из текущего содержимого файла
+    public Parser reload() {
+        Parser fresh = new Parser(reader, snapshot, workdays);
+        fresh.filePath = filePath;
+        fresh.format = format;
+        fresh.parallelism = parallelism;
+        fresh.init();
+        return fresh;
     }
 
     public Map<String, Stop> getStopMap() {
@@ -98,42 +182,290 @@ public class Parser {
         return new ArrayList<>(List.copyOf(this.trips));
     }
 
-    private void parse(String text) {
-        String[] splitByTransport = text.split("ТРАНСПОРТ: ");
-        for (String s : splitByTransport) {
-            String[] block = s.split("--");
-            if (block.length == 1)
-                continue;
+    public ServiceCalendar getCalendar() {
+        return calendar;
+    }
+
+    public TimetableSnapshot.Handle getSnapshot() {
+        return snapshotHandle;
+    }
+
+    // будни и выходные с праздниками и переносами производственного календаря из настроек на покрытые им годы;
+    // остальные даты обслуживаются по дням недели
+    private ServiceCalendar loadCalendar() {
+        Map<LocalDate, Day> days = workdays.read();
+        if (days.isEmpty()) {
+            return ServiceCalendar.weekly();
+        }
+        return ServiceCalendar.weekly(workdays.firstDate(), workdays.lastDate(), days);
+    }
+
+    // Файл читается построчно: блок маршрута начинается с "ТРАНСПОРТ: ", первые пять полей блока
+    // (транспорт, номер, направление, день, остановки) разделены "--", за ними идут строки времён рейсов.
+    // Каждый блок сразу добавляется в данные, весь файл в памяти не держится.
+    private void parse(BufferedReader lines) throws IOException {
+        Block block = null;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            int from = 0;
+            int marker;
+            while ((marker = line.indexOf(TRANSPORT_MARKER, from)) >= 0) {
+                if (block != null) {
+                    block.accept(line, from, marker, false);
+                    complete(block);
+                }
+                block = new Block();
+                from = marker + TRANSPORT_MARKER.length();
+            }
+            if (block != null) {
+                block.accept(line, from, line.length(), true);
+            }
+        }
+        if (block != null) {
+            complete(block);
+        }
+    }
+
+    private void complete(Block block) {
+        block.finish();
+        block.intern();
+        trips.addAll(block.trips());
+    }
+
+    // Параллельный разбор: блоки независимы, кроме общих остановок и маршрутов. Тексты блоков разбираются
+    // в пуле, затем остановки и маршруты заводятся по порядку блоков в файле — те же объекты, что и при
+    // последовательном разборе, — и рейсы снова собираются в пуле.
+    private void parseParallel(String text) {
+        List<Block> blocks = new ArrayList<>();
+        List<ForkJoinTask<?>> reads = new ArrayList<>();
+        int marker = text.indexOf(TRANSPORT_MARKER);
+        while (marker >= 0) {
+            int from = marker + TRANSPORT_MARKER.length();
+            marker = text.indexOf(TRANSPORT_MARKER, from);
+            int to = marker >= 0 ? marker : text.length();
+            Block block = new Block();
+            blocks.add(block);
+            reads.add(ForkJoinTask.adapt(() -> {
+                block.read(text, from, to);
+                block.finish();
+            }));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(reads)));
+            blocks.forEach(Block::intern);
+
+            List<ForkJoinTask<List<Trip>>> builds = blocks.stream()
+                    .map(block -> ForkJoinTask.adapt(block::trips))
+                    .toList();
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(builds)));
+            builds.forEach(build -> trips.addAll(build.join()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Блок маршрута. Заголовок и строки времён разбираются без обращения к общим картам Parser,
+    // остановки и маршрут заводятся в intern(), рейсы собираются в trips().
+    private final class Block {
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> header = new ArrayList<>(HEADER_FIELDS);
+        private final List<LocalTime[]> tripTimes = new ArrayList<>();
+        private Transport transport;
+        private int number;
+        private String direction;
+        private Day day;
+        private List<String> stopNames;
+        private boolean timesEnded;
+        private int previousDeparture = NO_DEPARTURE;
+        // рейсы начиная с этого уходят после полуночи
+        private int firstAfterMidnight = Integer.MAX_VALUE;
+        private List<Stop> stops;
+        private Route route;
+        // порядковый номер первого рейса блока среди рейсов маршрута в этот день
+        private int firstTripOrdinal;
+
+        // участок текста [from, to) построчно, с теми же участками строк, что и при чтении через BufferedReader
+        void read(String text, int from, int to) {
+            int lineStart = from;
+            while (true) {
+                int lineEnd = lineStart;
+                while (lineEnd < to && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+                    lineEnd++;
+                }
+                if (lineEnd == to) {
+                    // у последней строки файла нет перевода строки, перед следующим блоком строка продолжается
+                    boolean fileEnd = to == text.length();
+                    if (!fileEnd || lineEnd > lineStart || lineStart == from) {
+                        accept(text, lineStart, lineEnd, fileEnd);
+                    }
+                    return;
+                }
+                accept(text, lineStart, lineEnd, true);
+                lineStart = text.charAt(lineEnd) == '\r' && lineEnd + 1 < to && text.charAt(lineEnd + 1) == '\n'
+                        ? lineEnd + 2
+                        : lineEnd + 1;
+            }
+        }
+
+        // участок строки [from, to); lineEnd — участок заканчивается переводом строки
+        void accept(String line, int from, int to, boolean lineEnd) {
+            while (stopNames == null) {
+                int separator = separatorIndex(line, from, to);
+                if (separator < 0) {
+                    field.append(line, from, to);
+                    if (lineEnd) {
+                        field.append('\n');
+                    }
+                    return;
+                }
+                field.append(line, from, separator);
+                header.add(field.toString());
+                field.setLength(0);
+                from = separator + FIELD_SEPARATOR.length();
+                if (header.size() == HEADER_FIELDS) {
+                    start();
+                }
+            }
+
+            if (timesEnded) {
+                return;
+            }
+            int separator = separatorIndex(line, from, to);
+            if (separator >= 0) {
+                to = separator;
+                timesEnded = true;
+            }
+            parseTimes(line, from, to);
+        }
 
-            Transport transportType = block[0].trim().length() == 7 ? Transport.BUS : Transport.TROLLEYBUS;
+        void finish() {
+            if (stopNames == null && !header.isEmpty()) {
+                throw new IllegalArgumentException("Неполный блок маршрута: " + String.join("--", header));
+            }
+        }
 
-            int number = Integer.parseInt(block[1].split("НОМЕР:")[1].trim());
+        // остановки и маршрут блока в общих картах; вызывается по порядку блоков в файле
+        void intern() {
+            if (stopNames == null) {
+                return;
+            }
+            stops = generateStops(stopNames);
+            route = routeMap.computeIfAbsent(number + "_" + direction, k -> Route.builder()
+                    .id(stableId("route", number + "|" + direction + "|" + transport))
+                    .direction(direction)
+                    .number(number)
+                    .stops(stops)
+                    .transport(transport)
+                    .build());
+            firstTripOrdinal = tripOrdinals.merge(route.id() + "|" + day, tripTimes.size(), Integer::sum) - tripTimes.size();
+        }
 
-            String direction = block[2].split("НАПРАВЛЕНИЕ: ")[1].trim();
+        List<Trip> trips() {
+            List<Trip> blockTrips = new ArrayList<>(tripTimes.size());
+            for (int t = 0; t < tripTimes.size(); t++) {
+                LocalTime[] times = tripTimes.get(t);
+                List<StopTime> stopTimes = new ArrayList<>(times.length);
+                for (int i = 0; i < times.length; i++) {
+                    stopTimes.add(
+                            StopTime.builder()
+                                    .stop(stops.get(i))
+                                    .time(times[i])
+                                    .build()
+                    );
+                }
+                blockTrips.add(generateTrip(route, day, firstTripOrdinal + t, stopTimes, t >= firstAfterMidnight));
+            }
+            return blockTrips;
+        }
 
-            Day day = block[3].split("ДЕНЬ: ")[1].trim().length() == 6 ? Day.WEEKDAY : Day.WEEKEND;
+        private void start() {
+            transport = header.get(0).trim().length() == 7 ? Transport.BUS : Transport.TROLLEYBUS;
+
+            number = Integer.parseInt(header.get(1).split("НОМЕР:")[1].trim());
+
+            direction = header.get(2).split("НАПРАВЛЕНИЕ: ")[1].trim();
+
+            day = header.get(3).split("ДЕНЬ: ")[1].trim().length() == 6 ? Day.WEEKDAY : Day.WEEKEND;
+
+            stopNames = Arrays.stream(header.get(4).split("ОСТАНОВКИ: ")[1].split(" -> ")).toList();
+        }
+
+        // строка времён рейса "ЧЧ:ММ-ЧЧ:ММ-(XXX)-...", по времени на каждую остановку; строки
+        // с другим числом времён пропускаются
+        private void parseTimes(String line, int from, int to) {
+            // как у split("-"): пустые части в конце строки не считаются
+            int end = to;
+            while (end > from && line.charAt(end - 1) == '-') {
+                end--;
+            }
+            int parts = end == from && end < to ? 0 : 1;
+            for (int i = from; i < end; i++) {
+                if (line.charAt(i) == '-') {
+                    parts++;
+                }
+            }
+            if (parts != stopNames.size()) {
+                return;
+            }
 
-            List<String> stringStops = Arrays.stream(block[4].split("ОСТАНОВКИ: ")[1].split(" -> ")).toList();
-            List<Stop> stops = generateStops(stringStops);
+            LocalTime[] times = new LocalTime[parts];
+            LocalTime departure = null;
+            int partStart = from;
+            for (int i = 0; i < parts; i++) {
+                int partEnd = line.indexOf('-', partStart, end);
+                if (partEnd < 0) {
+                    partEnd = end;
+                }
+                times[i] = parseTime(line, partStart, partEnd);
+                if (departure == null) {
+                    departure = times[i];
+                }
+                partStart = partEnd + 1;
+            }
 
-            List<String> stringTimes = Arrays.stream(block[5].split("\n")).toList();
+            // рейсы в таблице идут по порядку отправления: если отправление вдруг оказалось намного раньше
+            // предыдущего, этот и следующие рейсы уходят уже после полуночи
+            if (departure != null) {
+                int seconds = departure.toSecondOfDay();
+                if (previousDeparture != NO_DEPARTURE && previousDeparture - seconds > MIDNIGHT_WRAP) {
+                    firstAfterMidnight = Math.min(firstAfterMidnight, tripTimes.size());
+                }
+                previousDeparture = seconds;
+            }
 
-            String uniqKey = number + "_" + direction;
-            Route route = routeMap.computeIfAbsent(uniqKey, k -> Route.builder().id(UUID.randomUUID()).direction(direction).number(number).stops(stops).transport(transportType).build());
+            tripTimes.add(times);
+        }
+    }
 
-            generateStopTimes(stops, stringTimes, route, day);
+    // "--" внутри [from, to) строки, -1 если разделителя нет
+    private static int separatorIndex(String line, int from, int to) {
+        int index = line.indexOf(FIELD_SEPARATOR.charAt(0), from, to);
+        while (index >= 0 && index + FIELD_SEPARATOR.length() <= to) {
+            if (line.startsWith(FIELD_SEPARATOR, index)) {
+                return index;
+            }
+            index = line.indexOf(FIELD_SEPARATOR.charAt(0), index + 1, to);
         }
+        return -1;
     }
 
-    private void generateTrips(Route route, Day day, List<StopTime> stopTimes) {
-        this.trips.add(
-                Trip.builder()
-                        .id(UUID.randomUUID())
-                        .route(route)
-                        .stops(stopTimes)
-                        .day(day)
-                        .build()
-        );
+    // Идентификаторы строятся по именам (UUID версии 3) из устойчивых ключей: остановка — по описанию,
+    // маршрут — по номеру, направлению и виду транспорта, рейс — по маршруту, дню и порядковому номеру.
+    // Одни и те же данные дают одни и те же id после перезапуска, перезагрузки и на любом экземпляре сервиса.
+    static UUID stableId(String kind, String key) {
+        return UUID.nameUUIDFromBytes((kind + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Trip generateTrip(Route route, Day day, int ordinal, List<StopTime> stopTimes, boolean afterMidnight) {
+        return Trip.builder()
+                .id(stableId("trip", route.id() + "|" + day + "|" + ordinal))
+                .route(route)
+                .stops(stopTimes)
+                .day(day)
+                .afterMidnight(afterMidnight)
+                .build();
     }
 
     private List<Stop> generateStops(List<String> stringStops) {
@@ -148,7 +480,7 @@ public class Parser {
                             String finalStringStop = stringStop;
 
                             Stop stop = stopMap.computeIfAbsent(uniqueStopDescription, description -> Stop.builder()
-                                    .id(UUID.randomUUID())
+                                    .id(stableId("stop", description))
                                     .name(finalStringStop)
                                     .description(description)
                                     .build()
@@ -159,31 +491,28 @@ public class Parser {
         return stops;
     }
 
-    private void generateStopTimes(List<Stop> stops, List<String> stringTimes, Route route, Day day) {
-        for (String stringTime : stringTimes) {
-
-            List<String> parts = Arrays.stream(stringTime.split("-"))
-                    .map(String::trim)
-                    .toList();
-
-            if (parts.size() != stops.size()) {
-                continue;
-            }
-
-            List<StopTime> stopTimes = new ArrayList<>();
-
-            for (int i = 0; i < parts.size(); i++) {
-                LocalTime time = parseTimeOrNull(parts.get(i));
-
-                stopTimes.add(
-                        StopTime.builder()
-                                .stop(stops.get(i))
-                                .time(time)
-                                .build()
-                );
+    // время "ЧЧ:ММ" разбирается без промежуточной строки, остальное — как раньше через LocalTime.parse
+    private LocalTime parseTime(String line, int from, int to) {
+        while (from < to && line.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && line.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (to - from == 5 && line.charAt(from + 2) == ':') {
+            int hours = digit(line, from) * 10 + digit(line, from + 1);
+            int minutes = digit(line, from + 3) * 10 + digit(line, from + 4);
+            if (hours >= 0 && hours < 24 && minutes >= 0 && minutes < 60) {
+                return MINUTES[hours * 60 + minutes];
             }
-            generateTrips(route, day, stopTimes);
         }
+        return parseTimeOrNull(line.substring(from, to));
+    }
+
+    // -100 для нецифры, чтобы значение часов или минут ушло за допустимые пределы
+    private static int digit(String line, int index) {
+        char c = line.charAt(index);
+        return c >= '0' && c <= '9' ? c - '0' : -100;
     }
 
     private LocalTime parseTimeOrNull(String value) {
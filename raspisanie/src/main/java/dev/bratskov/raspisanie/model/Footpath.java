@@ -0,0 +1,13 @@
+package dev.bratskov.raspisanie.model;
+
+import lombok.Builder;
+
+import java.time.Duration;
+
+@Builder
+public record Footpath(
+        Stop from,
+        Stop to,
+        Duration duration
+        ) {
+}
@@ -0,0 +1,169 @@
+package dev.bratskov.raspisanie.model;
+
+import dev.bratskov.raspisanie.model.enums.Day;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Календарь обслуживания: для каждого сервиса (набора дат, в которые ходят его рейсы) — битовая маска
+ * дат периода действия календаря. Проверка даты — один бит. Вне периода сервис действует по своим дням
+ * недели, если они заданы: так расписание из trips.txt работает и за пределами загруженного
+ * производственного календаря, а сервис GTFS вне дат фида не действует.
+ * <p>
+ * Экземпляр неизменяем; строится через {@link #builder}.
+ */
+public final class ServiceCalendar {
+
+    private static final ServiceCalendar WEEKLY = weekly(LocalDate.EPOCH, LocalDate.EPOCH.minusDays(1), Map.of());
+
+    private final LocalDate start;
+    private final int days;
+    private final Map<String, Service> services;
+
+    private ServiceCalendar(LocalDate start, int days, Map<String, Service> services) {
+        this.start = start;
+        this.days = days;
+        this.services = services;
+    }
+
+    // будни и выходные по дням недели, без праздников и переносов
+    public static ServiceCalendar weekly() {
+        return WEEKLY;
+    }
+
+    // будни и выходные на период [from, to]: тип дня даты берётся из days, остальные даты — по дню недели
+    public static ServiceCalendar weekly(LocalDate from, LocalDate to, Map<LocalDate, Day> days) {
+        Builder builder = builder(from, to);
+        for (Day day : Day.values()) {
+            builder.weekly(day.name(), day.daysOfWeek());
+        }
+        days.forEach((date, day) -> {
+            for (Day other : Day.values()) {
+                if (other == day) {
+                    builder.add(other.name(), date);
+                } else {
+                    builder.remove(other.name(), date);
+                }
+            }
+        });
+        return builder.build();
+    }
+
+    public static Builder builder(LocalDate from, LocalDate to) {
+        return new Builder(from, to);
+    }
+
+    public boolean runs(String service, LocalDate date) {
+        Service dates = services.get(service);
+        if (dates == null) {
+            return false;
+        }
+        long index = ChronoUnit.DAYS.between(start, date);
+        if (index < 0 || index >= days) {
+            return (dates.weekdays() & (1 << date.getDayOfWeek().ordinal())) != 0;
+        }
+        return (dates.dates()[(int) (index / Long.SIZE)] & (1L << index)) != 0;
+    }
+
+    // сервисы, действующие в дату, в порядке их добавления в календарь
+    public List<String> servicesOn(LocalDate date) {
+        return services.keySet().stream()
+                .filter(service -> runs(service, date))
+                .toList();
+    }
+
+    public Set<String> services() {
+        return Collections.unmodifiableSet(services.keySet());
+    }
+
+    public LocalDate start() {
+        return start;
+    }
+
+    public LocalDate end() {
+        return start.plusDays(days - 1L);
+    }
+
+    // weekdays — маска дней недели по DayOfWeek.ordinal() для дат вне периода
+    private record Service(long[] dates, int weekdays) {
+    }
+
+    public static final class Builder {
+        private final LocalDate start;
+        private final int days;
+        private final Map<String, long[]> dates = new LinkedHashMap<>();
+        private final Map<String, Integer> weekdays = new HashMap<>();
+
+        private Builder(LocalDate from, LocalDate to) {
+            this.start = from;
+            this.days = (int) Math.max(ChronoUnit.DAYS.between(from, to) + 1, 0);
+        }
+
+        // сервис по дням недели на весь период и за его пределами
+        public Builder weekly(String service, Set<DayOfWeek> daysOfWeek) {
+            weekly(service, daysOfWeek, start, start.plusDays(days - 1L));
+            int mask = 0;
+            for (DayOfWeek day : daysOfWeek) {
+                mask |= 1 << day.ordinal();
+            }
+            weekdays.put(service, mask);
+            return this;
+        }
+
+        // сервис по дням недели на даты [from, to]; за их пределами не действует
+        public Builder weekly(String service, Set<DayOfWeek> daysOfWeek, LocalDate from, LocalDate to) {
+            long[] bits = bits(service);
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                int index = index(date);
+                if (index >= 0 && daysOfWeek.contains(date.getDayOfWeek())) {
+                    bits[index / Long.SIZE] |= 1L << index;
+                }
+            }
+            return this;
+        }
+
+        // даты вне периода календаря пропускаются
+        public Builder add(String service, LocalDate date) {
+            long[] bits = bits(service);
+            int index = index(date);
+            if (index >= 0) {
+                bits[index / Long.SIZE] |= 1L << index;
+            }
+            return this;
+        }
+
+        public Builder remove(String service, LocalDate date) {
+            long[] bits = bits(service);
+            int index = index(date);
+            if (index >= 0) {
+                bits[index / Long.SIZE] &= ~(1L << index);
+            }
+            return this;
+        }
+
+        public ServiceCalendar build() {
+            Map<String, Service> services = new LinkedHashMap<>();
+            dates.forEach((service, bits) ->
+                    services.put(service, new Service(bits.clone(), weekdays.getOrDefault(service, 0))));
+            return new ServiceCalendar(start, days, services);
+        }
+
+        private long[] bits(String service) {
+            return dates.computeIfAbsent(service, k -> new long[(days + Long.SIZE - 1) / Long.SIZE]);
+        }
+
+        // номер даты в периоде, -1 вне периода
+        private int index(LocalDate date) {
+            long index = ChronoUnit.DAYS.between(start, date);
+            return index < 0 || index >= days ? -1 : (int) index;
+        }
+    }
+}
@@ -11,6 +11,16 @@ public record Trip(
         UUID id,
         Route route,
         List<StopTime> stops,
-        Day day
+        Day day,
+        // рейс начинается после полуночи, в следующие сутки дня расписания
+        boolean afterMidnight,
+        // сервис календаря, в даты которого ходит рейс; по умолчанию — расписание его типа дня
+        String service
         ) {
+
+    public Trip {
+        if (service == null && day != null) {
+            service = day.name();
+        }
+    }
 }
@@ -1,6 +1,21 @@
 package dev.bratskov.raspisanie.model.enums;
 
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum Day {
-    WEEKDAY,
-    WEEKEND
+    WEEKDAY(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)),
+    WEEKEND(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+
+    // дни недели, в которые расписание действует без праздников и переносов
+    private final Set<DayOfWeek> daysOfWeek;
+
+    Day(Set<DayOfWeek> daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    public Set<DayOfWeek> daysOfWeek() {
+        return EnumSet.copyOf(daysOfWeek);
+    }
 }
@@ -2,5 +2,6 @@ package dev.bratskov.raspisanie.model.enums;
 
 public enum Transport {
     BUS,
-    TROLLEYBUS
+    TROLLEYBUS,
+    WALK
 }
@@ -5,8 +5,16 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 @Component
 @RequiredArgsConstructor
@@ -21,4 +29,63 @@ public class TextFileReader {
             return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
         }
     }
-}
\ No newline at end of file
+
+    // построчное чтение без загрузки всего файла в одну строку
+    public BufferedReader open(String location) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        return new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    // контрольная сумма содержимого файла: по ней проверяется, что снимок расписания построен из этого файла
+    public long checksum(String location) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (var inputStream = resource.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // построчное чтение файла из zip-архива без распаковки; файл ищется и во вложенной папке архива.
+    // Архив в файловой системе читается с произвольным доступом, иначе поток архива читается до нужного файла
+    public Optional<BufferedReader> openZipEntry(String location, String name) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        if (resource.isFile()) {
+            ZipFile zip = new ZipFile(resource.getFile());
+            ZipEntry entry = zip.stream().filter(e -> isEntry(e, name)).findFirst().orElse(null);
+            if (entry == null) {
+                zip.close();
+                return Optional.empty();
+            }
+            InputStream inputStream = zip.getInputStream(entry);
+            return Optional.of(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zip.close();
+                    }
+                }
+            });
+        }
+
+        ZipInputStream zip = new ZipInputStream(resource.getInputStream(), StandardCharsets.UTF_8);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (isEntry(entry, name)) {
+                return Optional.of(new BufferedReader(new InputStreamReader(zip, StandardCharsets.UTF_8)));
+            }
+        }
+        zip.close();
+        return Optional.empty();
+    }
+
+    private static boolean isEntry(ZipEntry entry, String name) {
+        return !entry.isDirectory() && (entry.getName().equals(name) || entry.getName().endsWith("/" + name));
+    }
+}
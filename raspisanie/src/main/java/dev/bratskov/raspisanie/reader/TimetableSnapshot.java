@@ -0,0 +1,405 @@
+package dev.bratskov.raspisanie.reader;
+
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Двоичный снимок данных расписания в файле {@code data.snapshot-file}: остановки, маршруты и рейсы,
+ * которые строит {@code Parser}, и массивы скомпилированного {@link Timetable}.
+ * <p>
+ * Снимок пишется после первого успешного разбора и компиляции расписания, а на следующих стартах
+ * читается через отображение файла в память вместо разбора trips.txt и построения шаблонов.
+ * В заголовке хранятся версия формата и контрольные суммы исходного файла рейсов и пешеходных
+ * переходов: при несовпадении любой из них снимок не используется и перезаписывается.
+ * <p>
+ * Компонент не хранит состояния между вызовами: {@link #loadModel} при разборе данных возвращает
+ * {@link Handle}, который Parser передаёт дальше, а при построении расписания по нему вызывается
+ * {@link #loadTimetable} либо {@link #save}. Так параллельные перезагрузки не делят прочитанный снимок.
+ */
+@Slf4j
+@Component
+public class TimetableSnapshot {
+
+    private static final int MAGIC = 0x52535054;
+    // увеличивать при любом изменении формата снимка, разбора данных или компиляции расписания
+    private static final int VERSION = 4;
+    private static final int NO_NUMBER = Integer.MIN_VALUE;
+    private static final long NO_CHECKSUM = -1;
+
+    @Value("${data.snapshot-file:}")
+    private String filePath;
+
+    // данные снимка; stops и routes — все остановки и маршруты в порядке записи, на них ссылаются массивы расписания
+    public record Model(Map<String, Stop> stopMap,
+                        Map<String, Route> routeMap,
+                        List<Trip> trips,
+                        List<Stop> stops,
+                        List<Route> routes) {
+    }
+
+    // Результат чтения снимка для исходного файла с контрольной суммой sourceChecksum: model — данные,
+    // если снимок подошёл, иначе null; timetablePosition — начало массивов расписания в файле.
+    public record Handle(long sourceChecksum, Model model, long footpathChecksum, int timetablePosition) {
+
+        // снимок не используется: данные разбираются из файла и снимок не записывается
+        public static Handle none() {
+            return missing(NO_CHECKSUM);
+        }
+
+        // снимок не подошёл: данные разбираются из файла, после построения расписания снимок перезаписывается
+        public static Handle missing(long sourceChecksum) {
+            return new Handle(sourceChecksum, null, NO_CHECKSUM, 0);
+        }
+
+        public Optional<Model> loaded() {
+            return Optional.ofNullable(model);
+        }
+    }
+
+    public boolean isEnabled() {
+        return filePath != null && !filePath.isBlank();
+    }
+
+    // данные из снимка, если он построен из исходного файла с той же контрольной суммой
+    public Handle loadModel(long sourceChecksum) {
+        if (!isEnabled() || !Files.isRegularFile(Path.of(filePath))) {
+            return Handle.missing(sourceChecksum);
+        }
+
+        long start = System.nanoTime();
+        try {
+            Optional<ByteBuffer> header = open(sourceChecksum);
+            if (header.isEmpty()) {
+                return Handle.missing(sourceChecksum);
+            }
+            ByteBuffer in = header.get();
+            long footpathChecksum = in.getLong();
+            Model model = readModel(in);
+            log.info("Данные загружены из снимка {} за {} мс", filePath, (System.nanoTime() - start) / 1_000_000);
+            return new Handle(sourceChecksum, model, footpathChecksum, in.position());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось прочитать снимок расписания: {}", filePath, e);
+            return Handle.missing(sourceChecksum);
+        }
+    }
+
+    // расписание из снимка, данные которого загружены через loadModel, если переходы не менялись
+    public Optional<Timetable> loadTimetable(Handle handle, long footpathChecksum, ServiceCalendar calendar) {
+        if (handle.model() == null || footpathChecksum != handle.footpathChecksum()) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        try {
+            // файл могли перезаписать после loadModel: заголовок проверяется заново
+            Optional<ByteBuffer> header = open(handle.sourceChecksum());
+            if (header.isEmpty() || header.get().getLong() != footpathChecksum) {
+                return Optional.empty();
+            }
+            ByteBuffer in = header.get().position(handle.timetablePosition());
+            Timetable timetable = new Timetable(in, handle.model().stops(), handle.model().routes(), calendar);
+            log.info("Расписание загружено из снимка за {} мс", (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(timetable);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось прочитать расписание из снимка: {}", filePath, e);
+            return Optional.empty();
+        }
+    }
+
+    // файл снимка, отображённый в память, с позицией после контрольной суммы исходного файла;
+    // пусто, если файл обрезан или построен другой версией либо из другого исходного файла
+    private Optional<ByteBuffer> open(long sourceChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.limit() < Integer.BYTES || in.getInt(in.limit() - Integer.BYTES) != MAGIC) {
+                log.warn("Снимок расписания {} повреждён и будет перестроен", filePath);
+                return Optional.empty();
+            }
+            if (in.getInt() != MAGIC || in.getInt() != VERSION || in.getLong() != sourceChecksum) {
+                log.info("Снимок расписания {} устарел и будет перестроен", filePath);
+                return Optional.empty();
+            }
+            return Optional.of(in);
+        }
+    }
+
+    // запись во временный файл с последующей заменой, чтобы параллельный старт не прочитал снимок наполовину
+    public void save(Handle handle,
+                     Map<String, Stop> stopMap,
+                     Map<String, Route> routeMap,
+                     List<Trip> trips,
+                     Timetable timetable,
+                     long footpathChecksum) {
+        if (!isEnabled() || handle.sourceChecksum() == NO_CHECKSUM) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Path target = Path.of(filePath).toAbsolutePath();
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(handle.sourceChecksum());
+                out.writeLong(footpathChecksum);
+                Map<Route, Integer> routeIndexes = writeModel(out, stopMap, routeMap, trips, timetable);
+                timetable.write(out, routeIndexes);
+                // метка конца: по ней отличается недописанный или обрезанный файл
+                out.writeInt(MAGIC);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Снимок расписания записан в {} за {} мс", target, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать снимок расписания: {}", target, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    // контрольная сумма пешеходных переходов: остановки по описанию и время перехода
+    public static long checksum(List<Footpath> footpaths) {
+        CRC32 crc = new CRC32();
+        ByteBuffer duration = ByteBuffer.allocate(Long.BYTES);
+        for (Footpath footpath : footpaths) {
+            crc.update(footpath.from().description().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+            crc.update(footpath.to().description().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+            crc.update(duration.clear().putLong(footpath.duration().toSeconds()).flip());
+        }
+        return crc.getValue();
+    }
+
+    // Остановки пишутся в порядке расписания, затем остальные остановки данных; у остановки и маршрута
+    // хранится ключ карты Parser либо null, если объект встречается только в маршрутах или рейсах.
+    private Map<Route, Integer> writeModel(DataOutputStream out,
+                                           Map<String, Stop> stopMap,
+                                           Map<String, Route> routeMap,
+                                           List<Trip> trips,
+                                           Timetable timetable) throws IOException {
+        Map<Stop, String> stopKeys = new HashMap<>();
+        stopMap.forEach((key, stop) -> stopKeys.put(stop, key));
+        Map<Stop, Integer> stopIndexes = new LinkedHashMap<>();
+        for (int s = 0; s < timetable.stopCount(); s++) {
+            stopIndexes.putIfAbsent(timetable.stop(s), stopIndexes.size());
+        }
+        if (stopIndexes.size() != timetable.stopCount()) {
+            throw new IllegalStateException("Остановки расписания повторяются");
+        }
+        stopMap.values().forEach(stop -> stopIndexes.putIfAbsent(stop, stopIndexes.size()));
+        routeMap.values().forEach(route -> route.stops().forEach(stop -> stopIndexes.putIfAbsent(stop, stopIndexes.size())));
+        trips.forEach(trip -> trip.stops().forEach(st -> stopIndexes.putIfAbsent(st.stop(), stopIndexes.size())));
+
+        Map<Route, String> routeKeys = new HashMap<>();
+        routeMap.forEach((key, route) -> routeKeys.put(route, key));
+        Map<Route, Integer> routeIndexes = new LinkedHashMap<>();
+        routeMap.values().forEach(route -> routeIndexes.putIfAbsent(route, routeIndexes.size()));
+        trips.forEach(trip -> routeIndexes.putIfAbsent(trip.route(), routeIndexes.size()));
+        for (int p = 0; p < timetable.patternCount(); p++) {
+            routeIndexes.putIfAbsent(timetable.patternRoute(p), routeIndexes.size());
+        }
+
+        out.writeInt(stopIndexes.size());
+        for (Stop stop : stopIndexes.keySet()) {
+            writeString(out, stopKeys.get(stop));
+            writeUuid(out, stop.id());
+            writeString(out, stop.name());
+            writeString(out, stop.description());
+        }
+
+        out.writeInt(routeIndexes.size());
+        for (Route route : routeIndexes.keySet()) {
+            writeString(out, routeKeys.get(route));
+            writeUuid(out, route.id());
+            out.writeByte(route.transport() == null ? -1 : route.transport().ordinal());
+            out.writeInt(route.number() == null ? NO_NUMBER : route.number());
+            writeString(out, route.direction());
+            out.writeInt(route.stops().size());
+            for (Stop stop : route.stops()) {
+                out.writeInt(stopIndexes.get(stop));
+            }
+        }
+
+        out.writeInt(trips.size());
+        for (Trip trip : trips) {
+            writeUuid(out, trip.id());
+            out.writeInt(routeIndexes.get(trip.route()));
+            out.writeByte(trip.day().ordinal());
+            writeString(out, trip.service());
+            out.writeBoolean(trip.afterMidnight());
+            out.writeInt(trip.stops().size());
+            for (StopTime st : trip.stops()) {
+                out.writeInt(stopIndexes.get(st.stop()));
+                out.writeInt(Timetable.toSeconds(st.time()));
+            }
+        }
+        return routeIndexes;
+    }
+
+    private Model readModel(ByteBuffer in) {
+        Map<String, Stop> stopMap = new HashMap<>();
+        int stopCount = in.getInt();
+        List<Stop> stopList = new ArrayList<>(stopCount);
+        for (int s = 0; s < stopCount; s++) {
+            String key = readString(in);
+            Stop stop = Stop.builder()
+                    .id(readUuid(in))
+                    .name(readString(in))
+                    .description(readString(in))
+                    .build();
+            stopList.add(stop);
+            if (key != null) {
+                stopMap.put(key, stop);
+            }
+        }
+
+        Map<String, Route> routeMap = new HashMap<>();
+        int routeCount = in.getInt();
+        List<Route> routeList = new ArrayList<>(routeCount);
+        for (int r = 0; r < routeCount; r++) {
+            String key = readString(in);
+            UUID id = readUuid(in);
+            int transport = in.get();
+            int number = in.getInt();
+            String direction = readString(in);
+            int size = in.getInt();
+            List<Stop> routeStops = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                routeStops.add(stopList.get(in.getInt()));
+            }
+            Route route = Route.builder()
+                    .id(id)
+                    .transport(transport < 0 ? null : Transport.values()[transport])
+                    .number(number == NO_NUMBER ? null : number)
+                    .direction(direction)
+                    .stops(routeStops)
+                    .build();
+            routeList.add(route);
+            if (key != null) {
+                routeMap.put(key, route);
+            }
+        }
+
+        // одно и то же время у разных рейсов — один экземпляр LocalTime
+        LocalTime[] times = new LocalTime[Timetable.SECONDS_PER_DAY];
+        int tripCount = in.getInt();
+        List<Trip> trips = new ArrayList<>(tripCount);
+        for (int t = 0; t < tripCount; t++) {
+            UUID id = readUuid(in);
+            Route route = routeList.get(in.getInt());
+            Day day = Day.values()[in.get()];
+            String service = readString(in);
+            boolean afterMidnight = in.get() != 0;
+            int size = in.getInt();
+            List<StopTime> stopTimes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Stop stop = stopList.get(in.getInt());
+                int seconds = in.getInt();
+                LocalTime time = null;
+                if (seconds != Timetable.NO_TIME) {
+                    if (times[seconds] == null) {
+                        times[seconds] = LocalTime.ofSecondOfDay(seconds);
+                    }
+                    time = times[seconds];
+                }
+                stopTimes.add(StopTime.builder().stop(stop).time(time).build());
+            }
+            trips.add(Trip.builder()
+                    .id(id)
+                    .route(route)
+                    .stops(stopTimes)
+                    .day(day)
+                    .afterMidnight(afterMidnight)
+                    .service(service)
+                    .build());
+        }
+
+        return new Model(stopMap, routeMap, trips, stopList, routeList);
+    }
+
+    public static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Не удалось удалить временный файл снимка: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package dev.bratskov.raspisanie.reader;
+
+import dev.bratskov.raspisanie.exception.DataInitializationException;
+import dev.bratskov.raspisanie.model.enums.Day;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Производственный календарь из настроек: государственные праздники ({@code data.calendar.holidays})
+ * обслуживаются по расписанию выходного дня, субботы и воскресенья, объявленные рабочими при переносе
+ * выходных ({@code data.calendar.working-days}), — по будничному. Даты в формате yyyy-MM-dd через запятую;
+ * список разбирается один раз при создании, без обращения к внешним сервисам при загрузке расписания.
+ */
+@Slf4j
+@Component
+public class WorkdayCalendarReader {
+
+    private final Map<LocalDate, Day> days;
+
+    // без праздников и переносов: все даты по дням недели
+    public WorkdayCalendarReader() {
+        this.days = Map.of();
+    }
+
+    @Autowired
+    public WorkdayCalendarReader(@Value("${data.calendar.holidays:}") String[] holidays,
+                                 @Value("${data.calendar.working-days:}") String[] workingDays) {
+        Map<LocalDate, Day> parsed = new HashMap<>();
+        parseDates(holidays, Day.WEEKEND, parsed);
+        parseDates(workingDays, Day.WEEKDAY, parsed);
+        this.days = Collections.unmodifiableMap(parsed);
+        if (!days.isEmpty()) {
+            log.info("Производственный календарь: {} — {}, дат с особым типом дня: {}",
+                    firstDate(), lastDate(), days.size());
+        }
+    }
+
+    // тип дня для праздников и перенесённых рабочих дней; остальные даты идут по дням недели
+    public Map<LocalDate, Day> read() {
+        return days;
+    }
+
+    // период, который покрывают праздники и переносы: с 1 января первого до 31 декабря последнего года
+    public LocalDate firstDate() {
+        return days.keySet().stream().min(LocalDate::compareTo)
+                .map(date -> date.withDayOfYear(1))
+                .orElse(null);
+    }
+
+    public LocalDate lastDate() {
+        return days.keySet().stream().max(LocalDate::compareTo)
+                .map(date -> date.withMonth(12).withDayOfMonth(31))
+                .orElse(null);
+    }
+
+    private static void parseDates(String[] values, Day day, Map<LocalDate, Day> days) {
+        Arrays.stream(values)
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .map(WorkdayCalendarReader::parseDate)
+                .forEach(date -> {
+                    Day previous = days.put(date, day);
+                    if (previous != null && previous != day) {
+                        throw new DataInitializationException(
+                                "Дата " + date + " указана и праздником, и рабочим днём. Проверьте параметры 'data.calendar'");
+                    }
+                    if (day == Day.WEEKDAY && !Day.WEEKEND.daysOfWeek().contains(date.getDayOfWeek())) {
+                        throw new DataInitializationException(
+                                "Перенесённый рабочий день " + date + " не приходится на выходной. Проверьте параметр 'data.calendar.working-days'");
+                    }
+                });
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new DataInitializationException(
+                    "Неверная дата производственного календаря: " + value + ". Ожидается формат yyyy-MM-dd");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package dev.bratskov.raspisanie.repo;
+
+import dev.bratskov.raspisanie.model.Footpath;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+@Component
+public class FootpathRepo {
+    private final Supplier<TimetableData> data;
+
+    public FootpathRepo(TimetableRepo timetableRepo) {
+        this.data = timetableRepo::getData;
+    }
+
+    public List<Footpath> getFootpaths() {
+        return data.get().footpaths();
+    }
+}
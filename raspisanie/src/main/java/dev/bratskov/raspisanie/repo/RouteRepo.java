@@ -1,19 +1,20 @@
 package dev.bratskov.raspisanie.repo;
 
-import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Route;
-import lombok.Getter;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @Component
-@Getter
 public class RouteRepo {
-    private final Set<Route> routes;
+    private final Supplier<TimetableData> data;
 
-    public RouteRepo(Parser parser) {
-        this.routes = new HashSet<>(parser.getRouteMap().values());
+    public RouteRepo(TimetableRepo timetableRepo) {
+        this.data = timetableRepo::getData;
+    }
+
+    public Set<Route> getRoutes() {
+        return data.get().routes();
     }
 }
@@ -1,29 +1,32 @@
 package dev.bratskov.raspisanie.repo;
 
-import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Stop;
-import lombok.Getter;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
-@Getter
 @Component
 public class StopRepo {
 
-    private final Set<Stop> stops;
-    private final Map<String, Stop> stopsMap;
+    private final Supplier<TimetableData> data;
 
-    public StopRepo(Parser parser) {
-        this.stops = new HashSet<>(parser.getStopMap().values());
-        this.stopsMap = parser.getStopMap();
+    public StopRepo(TimetableRepo timetableRepo) {
+        this.data = timetableRepo::getData;
+    }
+
+    public Set<Stop> getStops() {
+        return data.get().stops();
+    }
+
+    public Map<String, Stop> getStopsMap() {
+        return data.get().stopsMap();
     }
 
     public Stop getStopById(UUID id) {
-        return stops.stream()
+        return getStops().stream()
                 .filter(s -> s.id().equals(id))
                 .findFirst()
                 .orElse(null);
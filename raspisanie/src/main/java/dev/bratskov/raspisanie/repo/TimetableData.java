@@ -0,0 +1,30 @@
+package dev.bratskov.raspisanie.repo;
+
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Одна версия данных: разобранные остановки, маршруты, рейсы, пешеходные переходы и
+ * скомпилированное по ним расписание. Версия не меняется после публикации в {@link TimetableRepo}.
+ */
+@Builder
+public record TimetableData(
+        long version,
+        Instant loadedAt,
+        Set<Stop> stops,
+        Map<String, Stop> stopsMap,
+        Set<Route> routes,
+        List<Trip> trips,
+        List<Footpath> footpaths,
+        Timetable timetable
+) {
+}
@@ -0,0 +1,81 @@
+package dev.bratskov.raspisanie.repo;
+
+import dev.bratskov.raspisanie.mapper.FootpathParser;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Текущая версия данных и скомпилированного расписания, общего для всех алгоритмов маршрутизации.
+ * Расписание берётся из снимка, если он соответствует данным, иначе строится заново и сохраняется в снимок.
+ * <p>
+ * При перезагрузке новая версия собирается целиком и публикуется одной атомарной заменой ссылки:
+ * чтение не блокируется, а запрос, уже получивший версию, до конца работает с ней.
+ */
+@Component
+public class TimetableRepo {
+    private final TimetableSnapshot snapshot;
+    private final AtomicReference<TimetableData> current;
+    // последний выданный номер версии; номер версии, которая не загрузилась, пропускается
+    private final AtomicLong versions = new AtomicLong();
+
+    public TimetableRepo(Parser parser, FootpathParser footpathParser, TimetableSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.current = new AtomicReference<>(build(parser, footpathParser, nextVersion()));
+    }
+
+    public TimetableData getData() {
+        return current.get();
+    }
+
+    public Timetable getTimetable() {
+        return current.get().timetable();
+    }
+
+    // номер для следующей версии: выдаётся до загрузки, чтобы его можно было сообщить заранее
+    public long nextVersion() {
+        return versions.incrementAndGet();
+    }
+
+    public void publish(TimetableData data) {
+        current.set(data);
+    }
+
+    // версия с номером version из заново загруженных данных; до publish её никто не видит
+    public TimetableData build(Parser parser, FootpathParser footpathParser, long version) {
+        Map<String, Stop> stopMap = parser.getStopMap();
+        List<Trip> trips = parser.getTrips();
+        List<Footpath> footpaths = footpathParser.getFootpaths();
+        long footpathChecksum = TimetableSnapshot.checksum(footpaths);
+        ServiceCalendar calendar = parser.getCalendar();
+        TimetableSnapshot.Handle handle = parser.getSnapshot();
+        Timetable timetable = snapshot.loadTimetable(handle, footpathChecksum, calendar).orElseGet(() -> {
+            Timetable compiled = new Timetable(stopMap, trips, footpaths, calendar);
+            snapshot.save(handle, stopMap, parser.getRouteMap(), trips, compiled, footpathChecksum);
+            return compiled;
+        });
+
+        return TimetableData.builder()
+                .version(version)
+                .loadedAt(Instant.now())
+                .stops(new HashSet<>(stopMap.values()))
+                .stopsMap(stopMap)
+                .routes(new HashSet<>(parser.getRouteMap().values()))
+                .trips(trips)
+                .footpaths(footpaths)
+                .timetable(timetable)
+                .build();
+    }
+}
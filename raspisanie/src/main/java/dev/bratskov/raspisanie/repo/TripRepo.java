@@ -1,18 +1,20 @@
 package dev.bratskov.raspisanie.repo;
 
-import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Trip;
-import lombok.Getter;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @Component
-@Getter
 public class TripRepo {
-    private final List<Trip> trips;
+    private final Supplier<TimetableData> data;
 
-    public TripRepo(Parser parser) {
-        this.trips = parser.getTrips();
+    public TripRepo(TimetableRepo timetableRepo) {
+        this.data = timetableRepo::getData;
+    }
+
+    public List<Trip> getTrips() {
+        return data.get().trips();
     }
 }
@@ -0,0 +1,24 @@
+package dev.bratskov.raspisanie.service;
+
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Календарь обслуживания текущей версии расписания: какие сервисы действуют в дату. Для trips.txt это
+ * будни или выходные по производственному календарю (праздники — по расписанию выходного дня,
+ * перенесённые рабочие дни — по будничному), для GTFS — сервисы calendar.txt и calendar_dates.txt.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalendarService {
+
+    private final TimetableRepo timetableRepo;
+
+    public List<String> findServices(LocalDate date) {
+        return timetableRepo.getTimetable().calendar().servicesOn(date);
+    }
+}
@@ -0,0 +1,120 @@
+package dev.bratskov.raspisanie.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.bratskov.raspisanie.dto.MatrixRequestDto;
+import dev.bratskov.raspisanie.dto.MatrixRowDto;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.service.raptor.Raptor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * OD-матрица времени в пути. Каждая строка — отдельный поиск RAPTOR от одной начальной остановки;
+ * строки считаются параллельно в собственном пуле, рабочее состояние поиска каждый поток
+ * берёт из пула контекстов {@link Raptor}. Строки отдаются по мере готовности (в формате NDJSON),
+ * а в работе одновременно держится не больше {@link #ROWS_PER_WORKER} строк на поток.
+ */
+@Service
+public class MatrixService {
+
+    private static final int ROWS_PER_WORKER = 2;
+
+    private final Raptor raptor;
+    private final StopService stopService;
+    private final ObjectMapper objectMapper;
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    // задачи пула с фиксированным числом потоков прерываются при отмене, задачи ForkJoinPool — нет
+    private final ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+
+    public MatrixService(Raptor raptor, StopService stopService, ObjectMapper objectMapper) {
+        this.raptor = raptor;
+        this.stopService = stopService;
+        this.objectMapper = objectMapper;
+    }
+
+    // остановки проверяются до начала передачи, чтобы ошибка пришла обычным ответом, а не обрывом потока
+    public StreamingResponseBody streamMatrix(MatrixRequestDto query) {
+        List<Stop> origins = findStops(query.originStopIds());
+        List<Stop> targets = findStops(query.targetStopIds());
+
+        return output -> computeRows(origins, targets, query.time(),
+                query.date() != null ? query.date() : LocalDate.now(), row -> {
+            try {
+                output.write(objectMapper.writeValueAsBytes(row));
+                output.write('\n');
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // строки приходят в порядке готовности, а не в порядке запроса
+    public void computeRows(List<Stop> origins,
+                            List<Stop> targets,
+                            LocalTime time,
+                            LocalDate date,
+                            Consumer<MatrixRowDto> sink) {
+        CompletionService<MatrixRowDto> completion = new ExecutorCompletionService<>(pool);
+        Set<Future<MatrixRowDto>> inFlight = new HashSet<>();
+        int window = parallelism * ROWS_PER_WORKER;
+        int submitted = 0;
+
+        try {
+            for (int completed = 0; completed < origins.size(); completed++) {
+                while (submitted < origins.size() && submitted - completed < window) {
+                    Stop origin = origins.get(submitted++);
+                    inFlight.add(completion.submit(() -> raptor.travelTimesFrom(origin, targets, time, date)));
+                }
+                sink.accept(takeRow(completion, inFlight));
+            }
+        } finally {
+            // клиент отключился или строка не посчиталась: оставшиеся поиски уже никому не нужны
+            inFlight.forEach(row -> row.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private MatrixRowDto takeRow(CompletionService<MatrixRowDto> completion, Set<Future<MatrixRowDto>> inFlight) {
+        try {
+            Future<MatrixRowDto> row = completion.take();
+            inFlight.remove(row);
+            return row.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Расчёт матрицы прерван", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ошибка при расчёте строки матрицы", e.getCause());
+        }
+    }
+
+    private List<Stop> findStops(List<UUID> ids) {
+        return ids.stream()
+                .map(stopService::findById)
+                .toList();
+    }
+}
@@ -1,18 +1,28 @@
 package dev.bratskov.raspisanie.service;
 
+import dev.bratskov.raspisanie.dto.ReachRequestDto;
+import dev.bratskov.raspisanie.dto.ReachResponseDto;
+import dev.bratskov.raspisanie.dto.RoutingArrivalRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingGroupRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingRangeRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingResponseDto;
 import dev.bratskov.raspisanie.dto.PathDto;
 import dev.bratskov.raspisanie.dto.SegmentDto;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.enums.Transport;
 import dev.bratskov.raspisanie.service.raptor.Raptor;
+import dev.bratskov.raspisanie.service.raptor.RoutingEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 
 
 @Service
@@ -20,22 +30,67 @@ import java.util.List;
 public class RoutingService {
 
     private final Raptor raptor;
+    private final RoutingEngine routingEngine;
+    private final StopService stopService;
 
     public RoutingResponseDto findPath(RoutingRequestDto query) {
-        var list = raptor.plan(query.originStopId(),
+        var list = routingEngine.plan(query.originStopId(),
                 query.targetStopId(),
                 query.time(),
-                query.day()
+                dateOf(query.date())
         );
         return buildResponse(list);
     }
 
+    public RoutingResponseDto findArriveByPath(RoutingArrivalRequestDto query) {
+        var list = raptor.planArriveBy(query.originStopId(),
+                query.targetStopId(),
+                query.arrivalTime(),
+                dateOf(query.date())
+        );
+        return buildResponse(list);
+    }
+
+    public RoutingResponseDto findGroupPath(RoutingGroupRequestDto query) {
+        var list = raptor.planBetweenGroups(
+                resolveGroup(query.originName(), query.originGroupId(), "начальной"),
+                resolveGroup(query.targetName(), query.targetGroupId(), "целевой"),
+                query.time(),
+                dateOf(query.date())
+        );
+        return buildResponse(list);
+    }
+
+    // без даты поездка ищется на сегодня
+    private static LocalDate dateOf(LocalDate date) {
+        return date != null ? date : LocalDate.now();
+    }
+
+    // название важнее ID: по ID берутся все платформы с названием этой остановки
+    private List<Stop> resolveGroup(String name, UUID groupId, String role) {
+        if (name != null && !name.isBlank()) {
+            return stopService.findGroupByName(name);
+        }
+        if (groupId != null) {
+            return stopService.findGroupById(groupId);
+        }
+        throw new IllegalArgumentException("Укажите название или ID " + role + " остановки");
+    }
+
+    public ReachResponseDto findReachableStops(ReachRequestDto query) {
+        return raptor.reach(query.originStopId(),
+                query.time(),
+                dateOf(query.date()),
+                Duration.ofMinutes(query.maxTravelMinutes())
+        );
+    }
+
     public List<RoutingResponseDto> findAllPaths(RoutingRequestDto query) {
-        List<List<PathDto>> paths = raptor.planAllPaths(
+        List<List<PathDto>> paths = routingEngine.planAllPaths(
                 query.originStopId(),
                 query.targetStopId(),
                 query.time(),
-                query.day()
+                dateOf(query.date())
         );
 
         return paths.stream()
@@ -49,6 +104,29 @@ public class RoutingService {
                 .toList();
     }
 
+    public List<RoutingResponseDto> findParetoPaths(RoutingRequestDto query) {
+        return raptor.planPareto(
+                        query.originStopId(),
+                        query.targetStopId(),
+                        query.time(),
+                        dateOf(query.date())
+                ).stream()
+                .map(this::buildResponse)
+                .toList();
+    }
+
+    public List<RoutingResponseDto> findPathsInRange(RoutingRangeRequestDto query) {
+        return raptor.planRange(
+                        query.originStopId(),
+                        query.targetStopId(),
+                        query.from(),
+                        query.to(),
+                        dateOf(query.date())
+                ).stream()
+                .map(this::buildResponse)
+                .toList();
+    }
+
     private RoutingResponseDto buildResponse(List<PathDto> fullPath) {
         if (fullPath.isEmpty()) {
             throw new IllegalStateException("Путь не может быть пустым");
@@ -64,12 +142,20 @@ public class RoutingService {
         return RoutingResponseDto.builder()
                 .fullPath(fullPath)
                 .segments(segments)
-                .transfers(segments.size() - 1)
+                .transfers(countTransfers(segments))
                 .totalStops((int) fullPath.stream().map(PathDto::stop).distinct().count())
                 .routeTime(formatDuration(duration))
                 .build();
     }
 
+    // пешие участки пересадками не считаются
+    private int countTransfers(List<SegmentDto> segments) {
+        long rides = segments.stream()
+                .filter(segment -> segment.transport() != Transport.WALK)
+                .count();
+        return (int) Math.max(rides - 1, 0);
+    }
+
     private List<SegmentDto> buildSegments(List<PathDto> fullPath) {
         List<SegmentDto> segments = new ArrayList<>();
 
@@ -38,6 +38,23 @@ public class StopService {
         }
     }
 
+    // группа остановки: все платформы с тем же названием
+    public List<Stop> findGroupById(UUID id) {
+        return findGroupByName(findById(id).name());
+    }
+
+    public List<Stop> findGroupByName(String name) {
+        String groupName = name.trim();
+        List<Stop> group = stopRepo.getStops().stream()
+                .filter(stop -> stop.name().equalsIgnoreCase(groupName))
+                .sorted(Comparator.comparing(Stop::description))
+                .toList();
+        if (group.isEmpty()) {
+            throw new ResourceNotFoundException("остановка с названием: " + groupName + " не найдена");
+        }
+        return group;
+    }
+
     public List<List<Stop>> findByRouteIdAndTransportType(int number, Transport type) {
         return routeService.findByNumber(number, type)
                 .stream()
@@ -0,0 +1,147 @@
+package dev.bratskov.raspisanie.service;
+
+import dev.bratskov.raspisanie.dto.TimetableVersionDto;
+import dev.bratskov.raspisanie.mapper.FootpathParser;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.raptor.RoutingEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перезагрузка расписания без перезапуска: по запросу или при изменении файла рейсов.
+ * Новая версия данных, расписание и индексы движков строятся в отдельном потоке, пока запросы
+ * продолжают выполняться по текущей версии, затем версия публикуется в {@link TimetableRepo}.
+ * Перезагрузки выполняются по одной; при ошибке остаётся прежняя версия.
+ */
+@Slf4j
+@Service
+public class TimetableReloadService {
+
+    private final Parser parser;
+    private final FootpathParser footpathParser;
+    private final TimetableRepo timetableRepo;
+    private final List<RoutingEngine> engines;
+    private final TextFileReader reader;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("timetable-reload").daemon().factory());
+    private ScheduledExecutorService watcher;
+    private long watchedChecksum;
+
+    @Value("${data.trips-file}")
+    private String filePath;
+
+    // период проверки файла рейсов на изменения; 0 — только перезагрузка по запросу
+    @Value("${data.reload.watch-interval:0s}")
+    private Duration watchInterval = Duration.ZERO;
+
+    public TimetableReloadService(Parser parser,
+                                  FootpathParser footpathParser,
+                                  TimetableRepo timetableRepo,
+                                  List<RoutingEngine> engines,
+                                  TextFileReader reader) {
+        this.parser = parser;
+        this.footpathParser = footpathParser;
+        this.timetableRepo = timetableRepo;
+        this.engines = engines;
+        this.reader = reader;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (watchInterval.isZero() || watchInterval.isNegative()) {
+            return;
+        }
+        watchedChecksum = reader.checksum(filePath);
+        watcher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("timetable-watch").daemon().factory());
+        long period = watchInterval.toMillis();
+        watcher.scheduleWithFixedDelay(this::reloadIfChanged, period, period, TimeUnit.MILLISECONDS);
+        log.info("Проверка изменений файла рейсов каждые {} с: {}", watchInterval.toSeconds(), filePath);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+        executor.shutdownNow();
+    }
+
+    public TimetableVersionDto currentVersion() {
+        return toDto(timetableRepo.getData());
+    }
+
+    // ставит перезагрузку в очередь, не дожидаясь её; возвращает номер версии, которую она опубликует
+    public long requestReload() {
+        long version = timetableRepo.nextVersion();
+        reload(version);
+        return version;
+    }
+
+    public CompletableFuture<TimetableData> reload() {
+        return reload(timetableRepo.nextVersion());
+    }
+
+    // перезагрузки выполняются по одной в порядке номеров версий
+    private CompletableFuture<TimetableData> reload(long version) {
+        return CompletableFuture.supplyAsync(() -> rebuild(version), executor);
+    }
+
+    private TimetableData rebuild(long version) {
+        long start = System.nanoTime();
+        try {
+            Parser freshParser = parser.reload();
+            TimetableData data = timetableRepo.build(freshParser, footpathParser.reload(freshParser), version);
+            // индексы движков строятся до публикации, чтобы первые запросы к новой версии их не ждали
+            engines.forEach(engine -> engine.prepare(data.timetable()));
+            timetableRepo.publish(data);
+            log.info("Расписание перезагружено: версия {}, остановок {}, рейсов {} за {} мс",
+                    data.version(), data.stops().size(), data.trips().size(), (System.nanoTime() - start) / 1_000_000);
+            return data;
+        } catch (RuntimeException e) {
+            log.error("Не удалось загрузить версию {} расписания, остаётся версия {}",
+                    version, timetableRepo.getData().version(), e);
+            throw e;
+        }
+    }
+
+    private void reloadIfChanged() {
+        try {
+            long checksum = reader.checksum(filePath);
+            if (checksum == watchedChecksum) {
+                return;
+            }
+            // файл может быть ещё не дописан: тогда загрузка упадёт, а следующая проверка увидит новую сумму
+            watchedChecksum = checksum;
+            log.info("Файл рейсов изменился: {}", filePath);
+            reload().join();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Проверка изменений файла рейсов не удалась: {}", e.getMessage());
+        }
+    }
+
+    private TimetableVersionDto toDto(TimetableData data) {
+        return TimetableVersionDto.builder()
+                .version(data.version())
+                .loadedAt(data.loadedAt())
+                .stops(data.stops().size())
+                .routes(data.routes().size())
+                .trips(data.trips().size())
+                .build();
+    }
+}
@@ -0,0 +1,391 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static dev.bratskov.raspisanie.service.raptor.ConnectionScanContext.NO_CONNECTION;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
+
+/**
+ * Connection Scan Algorithm. Все перегоны рейсов между соседними остановками (соединения)
+ * упакованы в один {@code int[]} на набор сервисов дня и отсортированы по времени отправления,
+ * поиск — один последовательный проход по массиву начиная с времени старта.
+ * <p>
+ * Метки хранятся по числу поездок, как раунды в {@link Raptor}, поэтому движки взаимозаменяемы:
+ * пересадки, пешие переходы и ответы {@link #plan} и {@link #planAllPaths} те же, что у RAPTOR.
+ * Включается настройкой {@code routing.engine=csa}.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "routing.engine", havingValue = "csa")
+public class ConnectionScan implements RoutingEngine {
+
+    // поля соединения в упакованном массиве
+    static final int DEP_STOP = 0;
+    static final int ARR_STOP = 1;
+    static final int DEP_TIME = 2;
+    static final int ARR_TIME = 3;
+    static final int TRIP = 4;
+    static final int CONNECTION_SIZE = 5;
+
+    private final Supplier<Timetable> timetables;
+    private final StopService stopService;
+
+    public ConnectionScan(TimetableRepo timetableRepo, StopService stopService) {
+        this.timetables = timetableRepo::getTimetable;
+        this.stopService = stopService;
+        prepare(timetables.get());
+    }
+
+    @Override
+    public void prepare(Timetable timetable) {
+        indexes(timetable);
+        connections(timetable.serviceDay(LocalDate.now()));
+    }
+
+    private static Indexes indexes(Timetable timetable) {
+        return timetable.index(Indexes.class, Indexes::new);
+    }
+
+    private static int[] connections(ServiceDay day) {
+        return day.index(Connections.class, Connections::new).packed();
+    }
+
+    // соединения соседних остановок рейсов; при равном отправлении раньше идёт то,
+    // что раньше прибывает, а внутри рейса сохраняется порядок остановок
+    private static int[] buildConnections(ServiceDay day) {
+        Timetable timetable = day.timetable();
+        List<int[]> rows = new ArrayList<>();
+        for (int pattern = 0; pattern < timetable.patternCount(); pattern++) {
+            if (!day.runs(pattern)) {
+                continue;
+            }
+            for (int trip = timetable.firstTrip(pattern); trip < timetable.endTrip(pattern); trip++) {
+                for (int i = 1; i < timetable.patternSize(pattern); i++) {
+                    rows.add(new int[]{
+                            timetable.patternStop(pattern, i - 1),
+                            timetable.patternStop(pattern, i),
+                            timetable.stopTime(trip, i - 1),
+                            timetable.stopTime(trip, i),
+                            trip,
+                            rows.size()
+                    });
+                }
+            }
+        }
+        rows.sort(Comparator.<int[]>comparingInt(c -> c[DEP_TIME])
+                .thenComparingInt(c -> c[ARR_TIME])
+                .thenComparingInt(c -> c[CONNECTION_SIZE]));
+
+        int[] packed = new int[rows.size() * CONNECTION_SIZE];
+        for (int i = 0; i < rows.size(); i++) {
+            System.arraycopy(rows.get(i), 0, packed, i * CONNECTION_SIZE, CONNECTION_SIZE);
+        }
+        return packed;
+    }
+
+    @Override
+    public List<PathDto> plan(UUID originId, UUID targetId, LocalTime startTime, LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
+
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
+
+        ConnectionScanContext context = acquireContext(timetable);
+        try {
+            int[] conns = connections(timetable.serviceDay(date));
+            run(context, conns, origin, target, Timetable.toSeconds(startTime), true);
+
+            for (int k = 0; k < context.getRounds(); k++) {
+                if (improvedInRound(context, k, target)) {
+                    return buildPath(context, conns, target, k);
+                }
+            }
+            throw new NoSuchElementException("Маршрут не найден");
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    @Override
+    public List<List<PathDto>> planAllPaths(UUID originId, UUID targetId, LocalTime startTime, LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
+
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
+
+        ConnectionScanContext context = acquireContext(timetable);
+        try {
+            int[] conns = connections(timetable.serviceDay(date));
+            run(context, conns, origin, target, Timetable.toSeconds(startTime), false);
+
+            List<List<PathDto>> paths = new ArrayList<>();
+            for (int k = 0; k < context.getRounds(); k++) {
+                if (improvedInRound(context, k, target)) {
+                    paths.add(buildPath(context, conns, target, k));
+                }
+            }
+            if (paths.isEmpty()) {
+                throw new NoSuchElementException(
+                        "Маршрут между остановками не найден. Возможно, они не связаны транспортом или нет рейсов в указанное время"
+                );
+            }
+            return paths;
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    private ConnectionScanContext acquireContext(Timetable timetable) {
+        ConnectionScanContext context = indexes(timetable).contextPool().poll();
+        return context != null
+                ? context
+                : new ConnectionScanContext(timetable);
+    }
+
+    private void releaseContext(ConnectionScanContext context) {
+        context.clear();
+        indexes(context.getTimetable()).contextPool().offer(context);
+    }
+
+    // fewestTrips: нужна только поездка с наименьшим числом пересадок, раунды больше первого
+    // достигшего цель не рассматриваются
+    private void run(ConnectionScanContext context,
+                     int[] conns,
+                     int origin,
+                     int target,
+                     int startTime,
+                     boolean fewestTrips) {
+        context.clear();
+        context.ensureRound(0);
+        if (origin == NO_STOP || target == NO_STOP) {
+            return;
+        }
+
+        context.label(0, origin, startTime, NO_CONNECTION, NO_CONNECTION, NO_STOP);
+        relaxFootpaths(context, 0, origin, target);
+
+        int[] bestTimes = context.getBestTimes();
+        int[] firstRounds = context.getFirstRounds();
+        int[] tripRounds = context.getTripRounds();
+        int[] tripBoardings = context.getTripBoardings();
+
+        // позже прибытия с одной поездкой ни одно соединение уже ничего не улучшит
+        int scanEnd = context.bestWithin(1, target);
+        int roundCap = fewestTrips && scanEnd != UNREACHED ? 0 : UNREACHED;
+        for (int c = firstDeparture(conns, startTime); c < conns.length; c += CONNECTION_SIZE) {
+            int departure = conns[c + DEP_TIME];
+            if (departure >= scanEnd) {
+                break;
+            }
+
+            int trip = conns[c + TRIP];
+            int depStop = conns[c + DEP_STOP];
+            int round = tripRounds[trip];
+
+            // посадка имеет смысл, только если она экономит поездки относительно уже найденной
+            if (bestTimes[depStop] <= departure && firstRounds[depStop] + 1 < round) {
+                int boardRound = boardingRound(context, conns, depStop, departure, trip, round);
+                if (boardRound < round) {
+                    round = boardRound;
+                    tripRounds[trip] = boardRound;
+                    tripBoardings[trip] = c;
+                }
+            }
+            if (round == UNREACHED || round > roundCap) {
+                continue;
+            }
+
+            int arrStop = conns[c + ARR_STOP];
+            int arrival = conns[c + ARR_TIME];
+            // чаще всего остановка уже достигнута не позже и не большим числом поездок в своём первом раунде
+            int firstRound = firstRounds[arrStop];
+            if (firstRound <= round && context.arrivals(firstRound)[arrStop] <= arrival) {
+                continue;
+            }
+            if (arrival < context.bestWithin(round, target) && arrival < context.bestWithin(round, arrStop)) {
+                context.ensureRound(round);
+                context.label(round, arrStop, arrival, c, tripBoardings[trip], NO_STOP);
+                relaxFootpaths(context, round, arrStop, target);
+                if (round == 1) {
+                    scanEnd = context.bestWithin(1, target);
+                }
+                if (fewestTrips && context.arrivals(round)[target] != UNREACHED) {
+                    roundCap = Math.min(roundCap, round);
+                }
+            }
+        }
+    }
+
+    // наименьший раунд меньше limit, с которым можно сесть на рейс на остановке stop; limit, если такого нет
+    private int boardingRound(ConnectionScanContext context, int[] conns, int stop, int departure, int trip, int limit) {
+        Timetable timetable = context.getTimetable();
+        int pattern = timetable.tripPattern(trip);
+        int lastRound = Math.min(limit - 1, context.getRounds());
+        for (int k = 1; k <= lastRound; k++) {
+            int arrival = context.arrivals(k - 1)[stop];
+            if (arrival == UNREACHED || arrival > departure) {
+                continue;
+            }
+
+            int alight = context.alightConnections(k - 1)[stop];
+            int previousTrip = alight == NO_CONNECTION ? NO_TRIP : conns[alight + TRIP];
+            if (arrival + Transfers.boardingTime(timetable, pattern, previousTrip, stop) <= departure) {
+                return k;
+            }
+        }
+        return limit;
+    }
+
+    // переходы только от меток, поставленных рейсом (или от начальной остановки), пешком дальше не продолжаются
+    private void relaxFootpaths(ConnectionScanContext context, int k, int stop, int target) {
+        Timetable timetable = context.getTimetable();
+        int arrival = context.arrivals(k)[stop];
+        for (int i = timetable.footpathStart(stop); i < timetable.footpathEnd(stop); i++) {
+            int to = timetable.footpathTarget(i);
+            int time = arrival + timetable.footpathDuration(i);
+
+            if (time < context.bestWithin(k, target) && time < context.bestWithin(k, to)) {
+                context.label(k, to, time, NO_CONNECTION, NO_CONNECTION, stop);
+            }
+        }
+    }
+
+    // метка целевой остановки раунда k лучше всех меток с меньшим числом поездок
+    private boolean improvedInRound(ConnectionScanContext context, int k, int target) {
+        int arrival = context.arrivals(k)[target];
+        return arrival != UNREACHED && (k == 0 || arrival < context.bestWithin(k - 1, target));
+    }
+
+    // первое соединение с отправлением не раньше time (индекс начала записи в упакованном массиве)
+    private static int firstDeparture(int[] conns, int time) {
+        int low = 0;
+        int high = conns.length / CONNECTION_SIZE;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (conns[mid * CONNECTION_SIZE + DEP_TIME] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low * CONNECTION_SIZE;
+    }
+
+    private List<PathDto> buildPath(ConnectionScanContext context, int[] conns, int target, int k) {
+        Timetable timetable = context.getTimetable();
+        LinkedList<PathDto> path = new LinkedList<>();
+
+        int current = target;
+        while (true) {
+            int walkSource = context.walkSources(k)[current];
+            if (walkSource != NO_STOP) {
+                path.addFirst(walkPoint(timetable, current, context.arrivals(k)[current]));
+                path.addFirst(walkPoint(timetable, walkSource, context.arrivals(k)[walkSource]));
+                current = walkSource;
+                continue;
+            }
+
+            int alight = context.alightConnections(k)[current];
+            if (alight == NO_CONNECTION) {
+                if (k == 0) {
+                    break;
+                }
+                throw new IllegalStateException("Не удалось восстановить маршрут");
+            }
+
+            int board = context.boardConnections(k)[current];
+            int trip = conns[alight + TRIP];
+            int pattern = timetable.tripPattern(trip);
+            Route route = timetable.patternRoute(pattern);
+            int entryIndex = position(timetable, trip, conns[board + DEP_STOP], conns[board + DEP_TIME]);
+            int exitIndex = position(timetable, trip, conns[alight + ARR_STOP], conns[alight + ARR_TIME]);
+
+            for (int i = exitIndex; i >= entryIndex; i--) {
+                Stop stop = timetable.stop(timetable.patternStop(pattern, i));
+                path.addFirst(
+                        PathDto.builder()
+                                .stop(stop)
+                                .time(Timetable.toLocalTime(timetable.stopTime(trip, i)))
+                                .transport(route.transport())
+                                .number(route.number())
+                                .directionName(route.direction())
+                                .build()
+                );
+            }
+            current = conns[board + DEP_STOP];
+            k--;
+        }
+        return path;
+    }
+
+    // позиция остановки в рейсе; время различает повторные заезды кольцевых маршрутов
+    private int position(Timetable timetable, int trip, int stop, int time) {
+        int pattern = timetable.tripPattern(trip);
+        for (int i = 0; i < timetable.patternSize(pattern); i++) {
+            if (timetable.patternStop(pattern, i) == stop && timetable.stopTime(trip, i) == time) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Не удалось восстановить маршрут");
+    }
+
+    private PathDto walkPoint(Timetable timetable, int stop, int time) {
+        return PathDto.builder()
+                .stop(timetable.stop(stop))
+                .time(Timetable.toLocalTime(time))
+                .transport(Transport.WALK)
+                .number(0)
+                .directionName(Raptor.WALK_DIRECTION)
+                .build();
+    }
+
+    // пул контекстов поиска по одной версии расписания
+    private record Indexes(Queue<ConnectionScanContext> contextPool) {
+
+        Indexes(Timetable timetable) {
+            this(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    // соединения шаблонов одного дня
+    private record Connections(int[] packed) {
+
+        Connections(ServiceDay day) {
+            this(buildConnections(day));
+        }
+    }
+}
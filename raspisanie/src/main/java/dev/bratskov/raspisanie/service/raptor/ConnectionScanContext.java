@@ -0,0 +1,124 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
+
+/**
+ * Рабочее состояние одного поиска CSA. Как и в {@link RaptorContext}, метки хранятся
+ * по раундам (числу поездок) в массивах, индексированных id остановки; для рейсов хранится
+ * наименьший раунд, с которым на них удалось сесть, и соединение посадки.
+ * Контекст относится к одной версии расписания.
+ */
+class ConnectionScanContext {
+
+    static final int NO_CONNECTION = -1;
+
+    private static final int INITIAL_ROUNDS = 8;
+
+    @Getter
+    private final Timetable timetable;
+    private final int stopCount;
+
+    // лучшее прибытие на остановку за любое число поездок, для быстрой проверки возможности посадки
+    @Getter
+    private final int[] bestTimes;
+    // наименьший раунд, в котором у остановки есть метка
+    @Getter
+    private final int[] firstRounds;
+    @Getter
+    private final int[] tripRounds;
+    @Getter
+    private final int[] tripBoardings;
+
+    private int[][] arrivals = new int[INITIAL_ROUNDS][];
+    private int[][] alightConnections = new int[INITIAL_ROUNDS][];
+    private int[][] boardConnections = new int[INITIAL_ROUNDS][];
+    private int[][] walkSources = new int[INITIAL_ROUNDS][];
+
+    @Getter
+    private int rounds;
+
+    ConnectionScanContext(Timetable timetable) {
+        int stopCount = timetable.stopCount();
+        int tripCount = timetable.tripCount();
+        this.timetable = timetable;
+        this.stopCount = stopCount;
+        this.bestTimes = new int[stopCount];
+        this.firstRounds = new int[stopCount];
+        this.tripRounds = new int[tripCount];
+        this.tripBoardings = new int[tripCount];
+        clear();
+    }
+
+    void clear() {
+        Arrays.fill(bestTimes, UNREACHED);
+        Arrays.fill(firstRounds, UNREACHED);
+        Arrays.fill(tripRounds, UNREACHED);
+        rounds = 0;
+    }
+
+    void ensureRound(int k) {
+        while (rounds <= k) {
+            startRound();
+        }
+    }
+
+    private void startRound() {
+        int k = rounds++;
+        if (k == arrivals.length) {
+            int capacity = arrivals.length * 2;
+            arrivals = Arrays.copyOf(arrivals, capacity);
+            alightConnections = Arrays.copyOf(alightConnections, capacity);
+            boardConnections = Arrays.copyOf(boardConnections, capacity);
+            walkSources = Arrays.copyOf(walkSources, capacity);
+        }
+        if (arrivals[k] == null) {
+            arrivals[k] = new int[stopCount];
+            alightConnections[k] = new int[stopCount];
+            boardConnections[k] = new int[stopCount];
+            walkSources[k] = new int[stopCount];
+        }
+        Arrays.fill(arrivals[k], UNREACHED);
+        Arrays.fill(alightConnections[k], NO_CONNECTION);
+        Arrays.fill(walkSources[k], NO_STOP);
+    }
+
+    void label(int k, int stop, int time, int alightConnection, int boardConnection, int walkSource) {
+        arrivals[k][stop] = time;
+        alightConnections[k][stop] = alightConnection;
+        boardConnections[k][stop] = boardConnection;
+        walkSources[k][stop] = walkSource;
+        bestTimes[stop] = Math.min(bestTimes[stop], time);
+        firstRounds[stop] = Math.min(firstRounds[stop], k);
+    }
+
+    // лучшее прибытие на остановку не более чем за k поездок
+    int bestWithin(int k, int stop) {
+        int best = UNREACHED;
+        for (int r = 0; r <= k && r < rounds; r++) {
+            best = Math.min(best, arrivals[r][stop]);
+        }
+        return best;
+    }
+
+    int[] arrivals(int k) {
+        return arrivals[k];
+    }
+
+    int[] alightConnections(int k) {
+        return alightConnections[k];
+    }
+
+    int[] boardConnections(int k) {
+        return boardConnections[k];
+    }
+
+    int[] walkSources(int k) {
+        return walkSources[k];
+    }
+}
@@ -0,0 +1,30 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+
+/**
+ * Участок поездки в плотных индексах расписания: проезд рейсом {@code trip} шаблона {@code pattern}
+ * от позиции {@code board} до позиции {@code alight}, либо пеший переход ({@code trip == NO_TRIP})
+ * с остановки {@code board} на остановку {@code alight}. Времена — секунды от полуночи дня расписания.
+ * Поездка из таких участков сравнивается и хешируется как значение, а {@code PathDto} по ней
+ * строятся только при выдаче ответа.
+ */
+record Leg(int pattern, int trip, int board, int alight, int departure, int arrival) {
+
+    static Leg ride(int pattern, int trip, int board, int alight, int departure, int arrival) {
+        return new Leg(pattern, trip, board, alight, departure, arrival);
+    }
+
+    static Leg walk(int from, int to, int departure, int arrival) {
+        return new Leg(NO_TRIP, NO_TRIP, from, to, departure, arrival);
+    }
+
+    boolean isWalk() {
+        return trip == NO_TRIP;
+    }
+
+    // число точек пути: все остановки проезда либо начало и конец перехода
+    int pointCount() {
+        return isWalk() ? 2 : alight - board + 1;
+    }
+}
@@ -0,0 +1,189 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+
+/**
+ * Нижние оценки времени в пути от каждой остановки до цели, для отсечения меток {@link Raptor},
+ * и от начальной остановки до каждой, для отсечения меток {@link ReverseRaptor}.
+ * Для каждого набора сервисов дня ({@link ServiceDay}) один раз строится граф остановок: ребро — самый
+ * быстрый перегон среди рейсов этого дня либо пеший переход. Оценки считаются Дейкстрой по этому графу (до цели — по обратным
+ * рёбрам) без ожиданий и пересадок, поэтому никогда не превышают реальное время, и кэшируются по остановке
+ * или группе целей. Размер кэша задан бюджетом в элементах массивов, а не числом записей: на большой сети
+ * записей меньше, на маленькой больше.
+ */
+final class LowerBounds {
+
+    // 4M int — 16 МБ оценок на набор сервисов дня
+    private static final int CACHE_BUDGET = 4 * 1024 * 1024;
+    private static final int MIN_CACHE_SIZE = 16;
+
+    private final int stopCount;
+    private final int cacheSize;
+    private final Graph graph;
+    private final Graph forwardGraph;
+    private final int[] none;
+    private final Map<Key, int[]> cache = new LinkedHashMap<>(MIN_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private LowerBounds(ServiceDay day) {
+        this.stopCount = day.timetable().stopCount();
+        this.cacheSize = Math.max(MIN_CACHE_SIZE, CACHE_BUDGET / Math.max(stopCount, 1));
+        this.none = new int[stopCount];
+        Map<Long, Integer> edges = collectEdges(day);
+        this.graph = toGraph(edges, true);
+        this.forwardGraph = toGraph(edges, false);
+    }
+
+    static LowerBounds of(ServiceDay day) {
+        return day.index(LowerBounds.class, LowerBounds::new);
+    }
+
+    // оценки до ближайшей из целей; без целей отсекать нечего. Для группы целей — одна Дейкстра
+    // от всех целей сразу, результат кэшируется по набору остановок группы
+    int[] to(int[] targets) {
+        if (targets.length == 0) {
+            return none;
+        }
+        int[] stops = targets.clone();
+        Arrays.sort(stops);
+        return bounds(new Key(stops, true));
+    }
+
+    // оценки от начальной остановки до каждой
+    int[] from(int origin) {
+        return bounds(new Key(new int[]{origin}, false));
+    }
+
+    private int[] bounds(Key key) {
+        synchronized (cache) {
+            int[] bounds = cache.get(key);
+            if (bounds != null) {
+                return bounds;
+            }
+        }
+
+        // считаем вне блокировки: два потока могут посчитать одну остановку, результат одинаковый
+        int[] bounds = (key.toTarget() ? graph : forwardGraph).distancesFrom(key.stops());
+        synchronized (cache) {
+            cache.put(key, bounds);
+        }
+        return bounds;
+    }
+
+    // минимальное время перегона для каждой пары (откуда, куда), ключ — пара остановок в long
+    private Map<Long, Integer> collectEdges(ServiceDay day) {
+        Timetable timetable = day.timetable();
+        Map<Long, Integer> edges = new HashMap<>();
+        for (int pattern = 0; pattern < timetable.patternCount(); pattern++) {
+            if (!day.runs(pattern)) {
+                continue;
+            }
+            for (int trip = timetable.firstTrip(pattern); trip < timetable.endTrip(pattern); trip++) {
+                for (int i = 1; i < timetable.patternSize(pattern); i++) {
+                    int from = timetable.patternStop(pattern, i - 1);
+                    int to = timetable.patternStop(pattern, i);
+                    int duration = timetable.stopTime(trip, i) - timetable.stopTime(trip, i - 1);
+                    if (from != to) {
+                        edges.merge(edgeKey(from, to), duration, Math::min);
+                    }
+                }
+            }
+        }
+        for (int from = 0; from < stopCount; from++) {
+            for (int w = timetable.footpathStart(from); w < timetable.footpathEnd(from); w++) {
+                edges.merge(edgeKey(from, timetable.footpathTarget(w)), timetable.footpathDuration(w), Math::min);
+            }
+        }
+        return edges;
+    }
+
+    // CSR рёбер: в обратном графе по остановке прибытия со списком остановок отправления, в прямом — наоборот
+    private Graph toGraph(Map<Long, Integer> edges, boolean reversed) {
+        int[] offsets = new int[stopCount + 1];
+        for (long key : edges.keySet()) {
+            offsets[owner(key, reversed) + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] neighbours = new int[edges.size()];
+        int[] durations = new int[edges.size()];
+        int[] fill = Arrays.copyOf(offsets, stopCount);
+        for (Map.Entry<Long, Integer> edge : edges.entrySet()) {
+            long key = edge.getKey();
+            int index = fill[owner(key, reversed)]++;
+            neighbours[index] = owner(key, !reversed);
+            durations[index] = edge.getValue();
+        }
+        return new Graph(offsets, neighbours, durations);
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    // остановка прибытия для обратного графа, отправления — для прямого
+    private static int owner(long key, boolean reversed) {
+        return reversed ? (int) key : (int) (key >>> 32);
+    }
+
+    // stops отсортированы; у record с массивом сравнение по ссылке, поэтому equals и hashCode свои
+    private record Key(int[] stops, boolean toTarget) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && toTarget == other.toTarget && Arrays.equals(stops, other.stops);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(stops) + Boolean.hashCode(toTarget);
+        }
+    }
+
+    private record Graph(int[] offsets, int[] neighbours, int[] durations) {
+
+        // расстояние до ближайшей из начальных остановок
+        int[] distancesFrom(int[] starts) {
+            int[] distances = new int[offsets.length - 1];
+            Arrays.fill(distances, UNREACHED);
+
+            // в очереди расстояние и остановка упакованы в long
+            PriorityQueue<Long> queue = new PriorityQueue<>();
+            for (int start : starts) {
+                distances[start] = 0;
+                queue.add((long) start);
+            }
+            while (!queue.isEmpty()) {
+                long entry = queue.poll();
+                int stop = (int) entry;
+                int distance = (int) (entry >>> 32);
+                if (distance > distances[stop]) {
+                    continue;
+                }
+                for (int e = offsets[stop]; e < offsets[stop + 1]; e++) {
+                    int next = neighbours[e];
+                    int candidate = distance + durations[e];
+                    if (candidate < distances[next]) {
+                        distances[next] = candidate;
+                        queue.add(((long) candidate << 32) | next);
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+}
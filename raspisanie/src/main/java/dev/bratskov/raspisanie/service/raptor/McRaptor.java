@@ -0,0 +1,275 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static dev.bratskov.raspisanie.service.raptor.McRaptorContext.BAG_CAPACITY;
+import static dev.bratskov.raspisanie.service.raptor.McRaptorContext.NO_LABEL;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
+
+/**
+ * Многокритериальный RAPTOR (McRAPTOR). За один поиск строит Парето-фронт поездок
+ * по времени прибытия, количеству рейсов, времени в транспорте и времени пешком.
+ */
+class McRaptor {
+
+    private final Timetable timetable;
+    private final Queue<McRaptorContext> contextPool = new ConcurrentLinkedQueue<>();
+
+    McRaptor(Timetable timetable) {
+        this.timetable = timetable;
+    }
+
+    // варианты отсортированы по времени прибытия, затем по количеству рейсов;
+    // как и в RAPTOR, поездки с числом пересадок больше maxTransfers не ищутся
+    List<List<PathDto>> search(int origin, int target, int startTime, ServiceDay day, int maxTransfers) {
+        if (origin == NO_STOP || target == NO_STOP) {
+            return List.of();
+        }
+
+        McRaptorContext context = acquireContext();
+        try {
+            run(context, origin, target, startTime, day, maxTransfers);
+            return collectPaths(context, target);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    private McRaptorContext acquireContext() {
+        McRaptorContext context = contextPool.poll();
+        return context != null
+                ? context
+                : new McRaptorContext(timetable.stopCount(), timetable.patternCount());
+    }
+
+    private void releaseContext(McRaptorContext context) {
+        context.clear();
+        contextPool.offer(context);
+    }
+
+    private void run(McRaptorContext context, int origin, int target, int startTime, ServiceDay day, int maxTransfers) {
+        int start = context.newLabel(startTime, 0, 0, 0, NO_LABEL, NO_TRIP, 0, 0, origin);
+        context.addToBag(origin, start);
+        context.getMarkedStops()[origin] = true;
+        relaxFootpaths(context, 0, target, context.getMarkedStops());
+
+        for (int k = 1; k <= maxTransfers + 1; k++) {
+            int queued = queuePatterns(context, day);
+            int[] patternQueue = context.getPatternQueue();
+            int[] startPositions = context.getPatternStartPositions();
+            for (int q = 0; q < queued; q++) {
+                scanPattern(context, k, patternQueue[q], startPositions[patternQueue[q]], target);
+            }
+            relaxFootpaths(context, k, target, context.getNextMarkedStops());
+
+            if (!context.swapMarkedStops()) {
+                break;
+            }
+        }
+    }
+
+    // каждый шаблон сканируется один раз за раунд, начиная с самой ранней отмеченной остановки
+    private int queuePatterns(McRaptorContext context, ServiceDay day) {
+        boolean[] markedStops = context.getMarkedStops();
+        int[] patternQueue = context.getPatternQueue();
+        int[] startPositions = context.getPatternStartPositions();
+        int stamp = context.nextQueueStamp();
+        int queued = 0;
+
+        for (int stop = 0; stop < markedStops.length; stop++) {
+            if (!markedStops[stop]) {
+                continue;
+            }
+            markedStops[stop] = false;
+
+            for (int i = timetable.stopPatternStart(stop); i < timetable.stopPatternEnd(stop); i++) {
+                int pattern = timetable.stopPattern(i);
+                if (!day.runs(pattern)) {
+                    continue;
+                }
+
+                int position = timetable.stopPatternPosition(i);
+                if (context.queuePattern(pattern, stamp)) {
+                    patternQueue[queued++] = pattern;
+                    startPositions[pattern] = position;
+                } else if (position < startPositions[pattern]) {
+                    startPositions[pattern] = position;
+                }
+            }
+        }
+        return queued;
+    }
+
+    private void scanPattern(McRaptorContext context, int k, int pattern, int startPosition, int target) {
+        int[] routeParents = context.getRouteParents();
+        int[] routeTrips = context.getRouteTrips();
+        int[] routeBoardPositions = context.getRouteBoardPositions();
+        boolean[] marked = context.getNextMarkedStops();
+        int routeSize = 0;
+
+        for (int i = startPosition; i < timetable.patternSize(pattern); i++) {
+            int stop = timetable.patternStop(pattern, i);
+
+            // сначала выходим из уже занятых рейсов
+            for (int r = 0; r < routeSize; r++) {
+                int trip = routeTrips[r];
+                int time = timetable.stopTime(trip, i);
+
+                int departure = timetable.stopTime(trip, routeBoardPositions[r]);
+                int parent = routeParents[r];
+                int ride = context.rideTime(parent) + time - departure;
+                int walk = context.walkTime(parent);
+                if (context.isDominated(target, time, k, ride, walk)
+                        || context.isDominated(stop, time, k, ride, walk)) {
+                    continue;
+                }
+
+                int label = context.newLabel(time, k, ride, walk, parent, trip, routeBoardPositions[r], i, stop);
+                if (context.addToBag(stop, label)) {
+                    marked[stop] = true;
+                }
+            }
+
+            // затем садимся с меток предыдущего раунда
+            for (int b = 0; b < context.bagSize(stop); b++) {
+                int label = context.bagLabel(stop, b);
+                if (context.round(label) != k - 1) {
+                    continue;
+                }
+
+                int departure = context.arrival(label)
+                        + Transfers.boardingTime(timetable, pattern, context.trip(label), stop);
+                int trip = timetable.earliestTrip(pattern, i, departure);
+                if (trip != NO_TRIP) {
+                    routeSize = addToRouteBag(context, routeSize, label, trip, i);
+                }
+            }
+        }
+    }
+
+    // пешком идём только с меток, полученных в этом раунде рейсом (или со старта),
+    // чтобы переходы не складывались в цепочки
+    private void relaxFootpaths(McRaptorContext context, int k, int target, boolean[] marked) {
+        for (int stop = 0; stop < marked.length; stop++) {
+            if (!marked[stop]) {
+                continue;
+            }
+
+            int bagSize = context.bagSize(stop);
+            for (int b = 0; b < bagSize; b++) {
+                int parent = context.bagLabel(stop, b);
+                if (context.round(parent) != k
+                        || (context.trip(parent) == NO_TRIP && context.parent(parent) != NO_LABEL)) {
+                    continue;
+                }
+
+                for (int i = timetable.footpathStart(stop); i < timetable.footpathEnd(stop); i++) {
+                    int to = timetable.footpathTarget(i);
+                    int duration = timetable.footpathDuration(i);
+                    int time = context.arrival(parent) + duration;
+                    int ride = context.rideTime(parent);
+                    int walk = context.walkTime(parent) + duration;
+                    if (context.isDominated(target, time, k, ride, walk)
+                            || context.isDominated(to, time, k, ride, walk)) {
+                        continue;
+                    }
+
+                    int label = context.newLabel(time, k, ride, walk, parent, NO_TRIP, 0, 0, to);
+                    if (context.addToBag(to, label)) {
+                        marked[to] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // на одном рейсе метка доминирует, если накопила не больше времени в транспорте и пешком к моменту посадки
+    private int addToRouteBag(McRaptorContext context, int size, int label, int trip, int boardPosition) {
+        int[] routeParents = context.getRouteParents();
+        int[] routeTrips = context.getRouteTrips();
+        int[] routeBoardPositions = context.getRouteBoardPositions();
+
+        int ride = context.rideTime(label) - timetable.stopTime(trip, boardPosition);
+        int walk = context.walkTime(label);
+        for (int r = 0; r < size; r++) {
+            if (routeTrips[r] != trip) {
+                continue;
+            }
+            int otherRide = context.rideTime(routeParents[r]) - timetable.stopTime(trip, routeBoardPositions[r]);
+            int otherWalk = context.walkTime(routeParents[r]);
+            if (otherRide <= ride && otherWalk <= walk) {
+                return size;
+            }
+            if (ride <= otherRide && walk <= otherWalk) {
+                routeParents[r] = label;
+                routeBoardPositions[r] = boardPosition;
+                return size;
+            }
+        }
+
+        // в заполненном мешке место уступает самый поздний рейс
+        if (size == BAG_CAPACITY) {
+            int latest = 0;
+            for (int r = 1; r < size; r++) {
+                if (routeTrips[r] > routeTrips[latest]) {
+                    latest = r;
+                }
+            }
+            if (routeTrips[latest] > trip) {
+                routeParents[latest] = label;
+                routeTrips[latest] = trip;
+                routeBoardPositions[latest] = boardPosition;
+            }
+            return size;
+        }
+        routeParents[size] = label;
+        routeTrips[size] = trip;
+        routeBoardPositions[size] = boardPosition;
+        return size + 1;
+    }
+
+    private List<List<PathDto>> collectPaths(McRaptorContext context, int target) {
+        List<Integer> labels = new ArrayList<>();
+        for (int b = 0; b < context.bagSize(target); b++) {
+            labels.add(context.bagLabel(target, b));
+        }
+        labels.sort(Comparator.<Integer>comparingInt(context::arrival).thenComparingInt(context::round));
+
+        List<List<PathDto>> paths = new ArrayList<>();
+        for (int label : labels) {
+            if (context.parent(label) != NO_LABEL) {
+                paths.add(buildPath(context, label));
+            }
+        }
+        return paths;
+    }
+
+    // участки восстанавливаются по цепочке родительских меток от цели к старту
+    private List<PathDto> buildPath(McRaptorContext context, int label) {
+        List<Leg> legs = new ArrayList<>();
+
+        for (int current = label; context.parent(current) != NO_LABEL; current = context.parent(current)) {
+            int parent = context.parent(current);
+            int trip = context.trip(current);
+            if (trip == NO_TRIP) {
+                legs.add(Leg.walk(context.stop(parent), context.stop(current),
+                        context.arrival(parent), context.arrival(current)));
+                continue;
+            }
+
+            int board = context.boardPosition(current);
+            legs.add(Leg.ride(timetable.tripPattern(trip), trip, board, context.alightPosition(current),
+                    timetable.stopTime(trip, board), context.arrival(current)));
+        }
+        return Raptor.toPath(timetable, legs.reversed());
+    }
+}
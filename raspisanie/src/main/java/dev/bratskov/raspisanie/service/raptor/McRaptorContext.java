@@ -0,0 +1,220 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Рабочее состояние одного поиска McRAPTOR. Метки хранятся в параллельных
+ * примитивных массивах и адресуются индексом; у каждой остановки есть мешок
+ * (bag) фиксированной ёмкости из индексов Парето-оптимальных меток.
+ * Экземпляр переиспользуется через пул, массивы меток растут только при нехватке места.
+ */
+class McRaptorContext {
+
+    static final int BAG_CAPACITY = 16;
+    static final int NO_LABEL = -1;
+
+    private static final int INITIAL_LABELS = 1 << 12;
+
+    // критерии метки
+    private int[] arrival = new int[INITIAL_LABELS];
+    private int[] round = new int[INITIAL_LABELS];
+    private int[] rideTime = new int[INITIAL_LABELS];
+    private int[] walkTime = new int[INITIAL_LABELS];
+    // восстановление пути
+    private int[] stop = new int[INITIAL_LABELS];
+    private int[] parent = new int[INITIAL_LABELS];
+    private int[] trip = new int[INITIAL_LABELS];
+    private int[] boardPosition = new int[INITIAL_LABELS];
+    private int[] alightPosition = new int[INITIAL_LABELS];
+    private int labelCount;
+
+    private final int[] bags;
+    private final int[] bagSizes;
+
+    @Getter
+    private boolean[] markedStops;
+    @Getter
+    private boolean[] nextMarkedStops;
+
+    @Getter
+    private final int[] patternQueue;
+    @Getter
+    private final int[] patternStartPositions;
+    private final int[] queuedPatternStamp;
+    private int queueStamp;
+
+    // мешок маршрута: метки, с которых сели на рейс текущего сканируемого шаблона
+    @Getter
+    private final int[] routeParents = new int[BAG_CAPACITY];
+    @Getter
+    private final int[] routeTrips = new int[BAG_CAPACITY];
+    @Getter
+    private final int[] routeBoardPositions = new int[BAG_CAPACITY];
+
+    McRaptorContext(int stopCount, int patternCount) {
+        this.bags = new int[stopCount * BAG_CAPACITY];
+        this.bagSizes = new int[stopCount];
+        this.markedStops = new boolean[stopCount];
+        this.nextMarkedStops = new boolean[stopCount];
+        this.patternQueue = new int[patternCount];
+        this.patternStartPositions = new int[patternCount];
+        this.queuedPatternStamp = new int[patternCount];
+        clear();
+    }
+
+    void clear() {
+        labelCount = 0;
+        Arrays.fill(bagSizes, 0);
+        Arrays.fill(markedStops, false);
+        Arrays.fill(nextMarkedStops, false);
+        Arrays.fill(queuedPatternStamp, -1);
+        queueStamp = 0;
+    }
+
+    int newLabel(int arrivalTime, int labelRound, int ride, int walk,
+                 int parentLabel, int labelTrip, int board, int alight, int labelStop) {
+        if (labelCount == arrival.length) {
+            int capacity = arrival.length * 2;
+            arrival = Arrays.copyOf(arrival, capacity);
+            round = Arrays.copyOf(round, capacity);
+            rideTime = Arrays.copyOf(rideTime, capacity);
+            walkTime = Arrays.copyOf(walkTime, capacity);
+            stop = Arrays.copyOf(stop, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            trip = Arrays.copyOf(trip, capacity);
+            boardPosition = Arrays.copyOf(boardPosition, capacity);
+            alightPosition = Arrays.copyOf(alightPosition, capacity);
+        }
+        int label = labelCount++;
+        arrival[label] = arrivalTime;
+        round[label] = labelRound;
+        rideTime[label] = ride;
+        walkTime[label] = walk;
+        stop[label] = labelStop;
+        parent[label] = parentLabel;
+        trip[label] = labelTrip;
+        boardPosition[label] = board;
+        alightPosition[label] = alight;
+        return label;
+    }
+
+    // true, если в мешке остановки есть метка, не худшая по всем критериям
+    boolean isDominated(int stop, int arrivalTime, int labelRound, int ride, int walk) {
+        int offset = stop * BAG_CAPACITY;
+        for (int i = 0; i < bagSizes[stop]; i++) {
+            int label = bags[offset + i];
+            if (arrival[label] <= arrivalTime && round[label] <= labelRound
+                    && rideTime[label] <= ride && walkTime[label] <= walk) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // добавляет недоминируемую метку в мешок остановки, вытесняя доминируемые ею;
+    // в заполненном мешке место освобождает метка с самым поздним прибытием
+    boolean addToBag(int stop, int label) {
+        int offset = stop * BAG_CAPACITY;
+        int size = 0;
+        for (int i = 0; i < bagSizes[stop]; i++) {
+            int other = bags[offset + i];
+            boolean dominated = arrival[label] <= arrival[other] && round[label] <= round[other]
+                    && rideTime[label] <= rideTime[other] && walkTime[label] <= walkTime[other];
+            if (!dominated) {
+                bags[offset + size++] = other;
+            }
+        }
+
+        if (size == BAG_CAPACITY) {
+            int latest = 0;
+            for (int i = 1; i < size; i++) {
+                if (arrival[bags[offset + i]] > arrival[bags[offset + latest]]) {
+                    latest = i;
+                }
+            }
+            if (arrival[bags[offset + latest]] <= arrival[label]) {
+                bagSizes[stop] = size;
+                return false;
+            }
+            bags[offset + latest] = bags[offset + --size];
+        }
+
+        bags[offset + size++] = label;
+        bagSizes[stop] = size;
+        return true;
+    }
+
+    int bagSize(int stop) {
+        return bagSizes[stop];
+    }
+
+    int bagLabel(int stop, int index) {
+        return bags[stop * BAG_CAPACITY + index];
+    }
+
+    int nextQueueStamp() {
+        return ++queueStamp;
+    }
+
+    // true, если шаблон впервые попал в очередь с этой меткой
+    boolean queuePattern(int pattern, int stamp) {
+        if (queuedPatternStamp[pattern] == stamp) {
+            return false;
+        }
+        queuedPatternStamp[pattern] = stamp;
+        return true;
+    }
+
+    boolean swapMarkedStops() {
+        boolean[] processed = markedStops;
+        markedStops = nextMarkedStops;
+        nextMarkedStops = processed;
+
+        boolean anyMarked = false;
+        for (boolean marked : markedStops) {
+            if (marked) {
+                anyMarked = true;
+                break;
+            }
+        }
+        return anyMarked;
+    }
+
+    int arrival(int label) {
+        return arrival[label];
+    }
+
+    int round(int label) {
+        return round[label];
+    }
+
+    int rideTime(int label) {
+        return rideTime[label];
+    }
+
+    int walkTime(int label) {
+        return walkTime[label];
+    }
+
+    int stop(int label) {
+        return stop[label];
+    }
+
+    int parent(int label) {
+        return parent[label];
+    }
+
+    int trip(int label) {
+        return trip[label];
+    }
+
+    int boardPosition(int label) {
+        return boardPosition[label];
+    }
+
+    int alightPosition(int label) {
+        return alightPosition[label];
+    }
+}
@@ -1,406 +1,932 @@
 package dev.bratskov.raspisanie.service.raptor;
 
+import dev.bratskov.raspisanie.dto.MatrixRowDto;
 import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.dto.ReachResponseDto;
 import dev.bratskov.raspisanie.model.Route;
-import dev.bratskov.raspisanie.model.StopTime;
 import dev.bratskov.raspisanie.model.Stop;
-import dev.bratskov.raspisanie.model.Trip;
-import dev.bratskov.raspisanie.model.enums.Day;
-import dev.bratskov.raspisanie.repo.StopRepo;
-import dev.bratskov.raspisanie.repo.TripRepo;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
 import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import dev.bratskov.raspisanie.service.raptor.RaptorContext.Labels;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.UUID;
-import java.util.Set;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.ArrayList;
-import java.util.ArrayDeque;
-import java.util.LinkedList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+import static dev.bratskov.raspisanie.service.raptor.Transfers.MIN_TRANSFER_TIME;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
 
 @Component
-public class Raptor {
-
-    private static final int MIN_TRANSFER_TIME = 4;
-    private final Map<Stop, Set<Route>> routesAtStop;
-    private final Map<Route, List<Trip>> tripsByRouteAtWeekend;
-    private final Map<Route, List<Trip>> tripsByRouteAtWeekday;
-    private final Map<Route, Map<Stop, Integer>> routeStopIndex;
-    private final Map<Integer, Map<Stop, LocalTime>> kBestTimes = new HashMap<>();
-    private final Map<Integer, Map<Stop, Trip>> previousTrip = new HashMap<>();
-    private final Map<Integer, Map<Stop, Stop>> boardingStop = new HashMap<>();
+public class Raptor implements RoutingEngine {
+
+    static final String WALK_DIRECTION = "Пешком";
+    private static final int NOT_REACHED = -1;
+    // меньше шаблонов в раунде дешевле просканировать в одном потоке
+    private static final int MIN_PARALLEL_PATTERNS = 64;
+
+    // текущая версия расписания; запрос читает её один раз и до конца работает с ней
+    private final Supplier<Timetable> timetables;
     private final StopService stopService;
 
-    public Raptor(StopRepo stopRepo,
-                  StopService stopService,
-                  TripRepo tripRepo) {
+    // раунд k соответствует k поездкам, т.е. k - 1 пересадкам
+    @Value("${routing.max-transfers:8}")
+    private int maxTransfers = 8;
+
+    // потоки сканирования шаблонов внутри одного поиска; 1 — сканирование в потоке запроса
+    @Value("${routing.parallelism:1}")
+    private int parallelism = 1;
+    private ForkJoinPool scanPool;
+
+    public Raptor(TimetableRepo timetableRepo, StopService stopService) {
+        this.timetables = timetableRepo::getTimetable;
         this.stopService = stopService;
-        Map<String, Stop> stopMap = stopRepo.getStopsMap();
-        Map<Stop, Set<Route>> routesAtStopTmp = new HashMap<>();
-        Map<Route, List<Trip>> tripsByRouteTmp = new HashMap<>();
-        Map<Route, Map<Stop, Integer>> routeStopIndexTmp = new HashMap<>();
-        Map<Route, List<Trip>> tripsByRouteWeekendTmp = new HashMap<>();
-        Map<Route, List<Trip>> tripsByRouteWeekdayTmp = new HashMap<>();
+        prepare(timetables.get());
+    }
 
-        for (Trip original : tripRepo.getTrips()) {
+    @Override
+    public void prepare(Timetable timetable) {
+        indexes(timetable);
+        LowerBounds.of(timetable.serviceDay(LocalDate.now()));
+    }
 
-            Route route = original.route();
-            List<StopTime> unifiedStops = new ArrayList<>();
+    private static Indexes indexes(Timetable timetable) {
+        return timetable.index(Indexes.class, Indexes::new);
+    }
 
-            Map<Stop, Integer> indexMap =
-                    routeStopIndexTmp.computeIfAbsent(route, k -> new HashMap<>());
+    @PostConstruct
+    public void init() {
+        if (parallelism > 1) {
+            scanPool = new ForkJoinPool(parallelism);
+        }
+    }
 
-            int index = 0;
-            for (StopTime st : original.stops()) {
+    @PreDestroy
+    public void shutdown() {
+        if (scanPool != null) {
+            scanPool.shutdownNow();
+        }
+    }
 
-                Stop unified = stopMap.get(st.stop().description());
-                unifiedStops.add(
-                        StopTime.builder()
-                                .stop(unified)
-                                .time(st.time())
-                                .build()
-                );
+    @Override
+    public List<List<PathDto>> planAllPaths(UUID originId,
+                                            UUID targetId,
+                                            LocalTime startTime,
+                                            LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
 
-                routesAtStopTmp
-                        .computeIfAbsent(unified, k -> new HashSet<>())
-                        .add(route);
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
 
-                indexMap.putIfAbsent(unified, index++);
-            }
+        RaptorContext context = acquireContext(timetable);
+        try {
+            runRaptorAlgorithm(context, stops(origin), stops(target), Timetable.toSeconds(startTime), timetable.serviceDay(date), UNREACHED, false);
+            return buildAllPaths(context, stops(target));
+        } finally {
+            releaseContext(context);
+        }
+    }
 
-            Trip trip = Trip.builder()
-                    .id(original.id())
-                    .day(original.day())
-                    .route(route)
-                    .stops(unifiedStops)
-                    .build();
+    @Override
+    public List<PathDto> plan(UUID originId, UUID targetId, LocalTime startTime, LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
 
-            tripsByRouteTmp
-                    .computeIfAbsent(route, k -> new ArrayList<>())
-                    .add(trip);
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
 
-            if (trip.day() == Day.WEEKDAY) {
-                tripsByRouteWeekdayTmp.computeIfAbsent(route, k -> new ArrayList<>()).add(trip);
-            } else {
-                tripsByRouteWeekendTmp.computeIfAbsent(route, k -> new ArrayList<>()).add(trip);
+        return planFirstReached(timetable, stops(origin), stops(target), Timetable.toSeconds(startTime), timetable.serviceDay(date));
+    }
+
+    // группы остановок (платформы с одним названием): поиск стартует сразу со всех платформ отправления
+    // и заканчивается на любой платформе назначения, вместо N×M отдельных запросов
+    public List<PathDto> planBetweenGroups(List<Stop> origins,
+                                           List<Stop> targets,
+                                           LocalTime startTime,
+                                           LocalDate date) {
+        if (origins.stream().anyMatch(targets::contains)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
+
+        Timetable timetable = timetables.get();
+        return planFirstReached(timetable, indexesOf(timetable, origins), indexesOf(timetable, targets),
+                Timetable.toSeconds(startTime), timetable.serviceDay(date));
+    }
+
+    private List<PathDto> planFirstReached(Timetable timetable, int[] origins, int[] targets, int startTime, ServiceDay day) {
+        RaptorContext context = acquireContext(timetable);
+        try {
+            runRaptorAlgorithm(context, origins, targets, startTime, day, UNREACHED, true);
+
+            for (int k = 0; k < context.getRounds(); k++) {
+                int target = closestTarget(context, k, targets);
+                if (target != NO_STOP) {
+                    return toPath(timetable, buildLegs(context, target, k));
+                }
             }
+            throw new NoSuchElementException("Маршрут не найден");
+        } finally {
+            releaseContext(context);
         }
+    }
 
-        this.routesAtStop = Collections.unmodifiableMap(routesAtStopTmp);
-        this.tripsByRouteAtWeekend = Collections.unmodifiableMap(tripsByRouteWeekendTmp);
-        this.tripsByRouteAtWeekday = Collections.unmodifiableMap(tripsByRouteWeekdayTmp);
+    private int[] stops(int stop) {
+        return stop == NO_STOP ? new int[0] : new int[]{stop};
+    }
 
-        Map<Route, Map<Stop, Integer>> frozen = new HashMap<>();
-        for (var e : routeStopIndexTmp.entrySet()) {
-            frozen.put(e.getKey(), Collections.unmodifiableMap(e.getValue()));
+    private int[] indexesOf(Timetable timetable, List<Stop> stops) {
+        return stops.stream()
+                .mapToInt(timetable::indexOf)
+                .filter(stop -> stop != NO_STOP)
+                .distinct()
+                .toArray();
+    }
+
+    // целевая остановка с самым ранним прибытием в раунде k; NO_STOP, если ни одна не достигнута
+    private int closestTarget(RaptorContext context, int k, int[] targets) {
+        int[] roundTimes = context.arrivals(k);
+        int closest = NO_STOP;
+        for (int target : targets) {
+            if (roundTimes[target] != UNREACHED
+                    && (closest == NO_STOP || roundTimes[target] < roundTimes[closest])) {
+                closest = target;
+            }
         }
-        this.routeStopIndex = Collections.unmodifiableMap(frozen);
+        return closest;
     }
 
-    public List<List<PathDto>> planAllPaths(UUID originId,
-                                            UUID targetId,
-                                            LocalTime startTime,
-                                            Day day) {
+    // лучшее известное прибытие в любую из целевых остановок (или предел времени поиска), используется для отсечения
+    private int targetBound(RaptorContext context, int[] bound, int[] targets) {
+        int best = context.getArrivalLimit();
+        for (int target : targets) {
+            best = Math.min(best, bound[target]);
+        }
+        return best;
+    }
+
+    // самое позднее отправление, при котором пассажир прибывает не позже arrivalTime
+    public List<PathDto> planArriveBy(UUID originId, UUID targetId, LocalTime arrivalTime, LocalDate date) {
         if (originId.equals(targetId)) {
             throw new IllegalArgumentException(
                     "Начальная и конечная остановки совпадают!"
             );
         }
 
-        Stop origin = stopService.findById(originId);
-        Stop target = stopService.findById(targetId);
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
 
-        runRaptorAlgorithm(origin, target, startTime, day, false);
-        return buildAllPaths(origin, target);
+        List<PathDto> path = indexes(timetable).reverseRaptor()
+                .search(origin, target, Timetable.toSeconds(arrivalTime), timetable.serviceDay(date), maxTransfers);
+        if (path.isEmpty()) {
+            throw new NoSuchElementException("Маршрут не найден");
+        }
+        return path;
     }
 
-    public List<PathDto> plan(UUID originId, UUID targetId, LocalTime startTime, Day day) {
+    // Парето-оптимальные варианты по времени прибытия, пересадкам, времени в транспорте и пешком
+    public List<List<PathDto>> planPareto(UUID originId,
+                                          UUID targetId,
+                                          LocalTime startTime,
+                                          LocalDate date) {
         if (originId.equals(targetId)) {
             throw new IllegalArgumentException(
                     "Начальная и конечная остановки совпадают!"
             );
         }
 
-        Stop origin = stopService.findById(originId);
-        Stop target = stopService.findById(targetId);
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
 
-        runRaptorAlgorithm(origin, target, startTime, day, true);
+        List<List<PathDto>> paths = indexes(timetable).mcRaptor()
+                .search(origin, target, Timetable.toSeconds(startTime), timetable.serviceDay(date), maxTransfers);
+        if (paths.isEmpty()) {
+            throw new NoSuchElementException(
+                    "Маршрут между остановками не найден. Возможно, они не связаны транспортом или нет рейсов в указанное время"
+            );
+        }
+        return paths;
+    }
 
-        int k = findFirstRoundWithTarget(target);
-        return buildPath(origin, target, k);
+    // все остановки, достижимые не дольше чем за maxTravelTime: полный RAPTOR без целевой остановки,
+    // ответ — параллельные массивы, отсортированные по времени в пути
+    public ReachResponseDto reach(UUID originId, LocalTime startTime, LocalDate date, Duration maxTravelTime) {
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int start = Timetable.toSeconds(startTime);
+
+        RaptorContext context = acquireContext(timetable);
+        try {
+            int limit = (int) Math.min(start + maxTravelTime.toSeconds() + 1, UNREACHED);
+            runRaptorAlgorithm(context, stops(origin), new int[0], start, timetable.serviceDay(date), limit, false);
+            return collectReachable(context, originId, startTime, start, maxTravelTime);
+        } finally {
+            releaseContext(context);
+        }
     }
 
-    private void runRaptorAlgorithm(Stop origin,
-                                    Stop target,
-                                    LocalTime startTime,
-                                    Day day,
-                                    boolean stopOnFirstFound) {
-        Map<Stop, LocalTime> bestTimes = new HashMap<>();
-        Set<Stop> markedStops = new HashSet<>();
-
-        bestTimes.put(origin, startTime);
-        markedStops.add(origin);
-
-        kBestTimes.clear();
-        previousTrip.clear();
-        boardingStop.clear();
-
-        kBestTimes.put(0, Map.of(origin, startTime));
-        previousTrip.put(0, new HashMap<>());
-        boardingStop.put(0, new HashMap<>());
-
-        for (int k = 1; !markedStops.isEmpty(); k++) {
-            Map<Stop, LocalTime> roundTimes = new HashMap<>();
-            Map<Stop, Trip> prevTripThisRound = new HashMap<>();
-            Map<Stop, Stop> boardingStopThisRound = new HashMap<>();
-            Set<Route> scannedRoutes = new HashSet<>();
-
-            Queue<Stop> queue = new ArrayDeque<>(markedStops);
-            markedStops.clear();
-
-            while (!queue.isEmpty()) {
-
-                Stop stop = queue.poll();
-                LocalTime bestTimeAtStop = bestTimes.get(stop);
-
-                for (Route route : routesAtStop.getOrDefault(stop, Set.of())) {
-
-                    if (!scannedRoutes.add(route)) {  // пропускаем дубликаты
-                        continue;
-                    }
-
-                    Trip previousTripAtStop = null;
-                    if (k > 1 && previousTrip.containsKey(k - 1)) {
-                        previousTripAtStop = previousTrip.get(k - 1).get(stop);
-                    }
-
-                    scanRoute(
-                            route,
-                            stop,
-                            bestTimeAtStop,
-                            bestTimes,
-                            roundTimes,
-                            prevTripThisRound,
-                            boardingStopThisRound,
-                            day,
-                            previousTripAtStop,
-                            target
-                    );
+    // строка OD-матрицы: поиск от origin ко всем остановкам, из которого берутся только targets
+    public MatrixRowDto travelTimesFrom(Stop origin, List<Stop> targets, LocalTime startTime, LocalDate date) {
+        Timetable timetable = timetables.get();
+        int start = Timetable.toSeconds(startTime);
+
+        RaptorContext context = acquireContext(timetable);
+        try {
+            runRaptorAlgorithm(context, stops(timetable.indexOf(origin)), new int[0], start, timetable.serviceDay(date), UNREACHED, false);
+
+            int[] bestTimes = context.getBestTimes();
+            int[] travelTimes = new int[targets.size()];
+            int[] transfers = new int[targets.size()];
+            for (int i = 0; i < travelTimes.length; i++) {
+                int stop = timetable.indexOf(targets.get(i));
+                int time = stop == NO_STOP ? UNREACHED : bestTimes[stop];
+                if (time == UNREACHED) {
+                    travelTimes[i] = NOT_REACHED;
+                    transfers[i] = NOT_REACHED;
+                    continue;
                 }
+                travelTimes[i] = time - start;
+                transfers[i] = Math.max(firstRoundWithTime(context, stop, time) - 1, 0);
             }
 
-            for (var e : roundTimes.entrySet()) {
-                Stop stop = e.getKey();
-                LocalTime time = e.getValue();
+            return MatrixRowDto.builder()
+                    .originStopId(origin.id())
+                    .travelTimes(travelTimes)
+                    .transfers(transfers)
+                    .build();
+        } finally {
+            releaseContext(context);
+        }
+    }
 
-                if (!bestTimes.containsKey(stop) || time.isBefore(bestTimes.get(stop))) {
-                    bestTimes.put(stop, time);
-                    markedStops.add(stop);
-                }
+    private ReachResponseDto collectReachable(RaptorContext context,
+                                              UUID originId,
+                                              LocalTime startTime,
+                                              int start,
+                                              Duration maxTravelTime) {
+        int[] bestTimes = context.getBestTimes();
+        long limit = start + maxTravelTime.toSeconds();
+
+        // время в пути и остановка упакованы в long, чтобы сортировать без упаковки в объекты
+        long[] reached = new long[bestTimes.length];
+        int count = 0;
+        for (int stop = 0; stop < bestTimes.length; stop++) {
+            int time = bestTimes[stop];
+            if (time != UNREACHED && time <= limit) {
+                reached[count++] = ((long) (time - start) << 32) | stop;
             }
+        }
+        Arrays.sort(reached, 0, count);
+
+        UUID[] stopIds = new UUID[count];
+        int[] travelTimes = new int[count];
+        int[] transfers = new int[count];
+        for (int i = 0; i < count; i++) {
+            int stop = (int) reached[i];
+            stopIds[i] = context.getTimetable().stop(stop).id();
+            travelTimes[i] = (int) (reached[i] >>> 32);
+            transfers[i] = Math.max(firstRoundWithTime(context, stop, bestTimes[stop]) - 1, 0);
+        }
 
-            kBestTimes.put(k, roundTimes);
-            previousTrip.put(k, prevTripThisRound);
-            boardingStop.put(k, boardingStopThisRound);
+        return ReachResponseDto.builder()
+                .originStopId(originId)
+                .departureTime(startTime)
+                .stopIds(stopIds)
+                .travelTimes(travelTimes)
+                .transfers(transfers)
+                .build();
+    }
 
-            if (stopOnFirstFound && roundTimes.containsKey(target)) {
-                break;
+    // раунд, в котором остановка впервые получила своё лучшее время, равен числу поездок
+    private int firstRoundWithTime(RaptorContext context, int stop, int time) {
+        int k = 0;
+        while (context.arrivals(k)[stop] != time) {
+            k++;
+        }
+        return k;
+    }
+
+    public List<List<PathDto>> planRange(UUID originId,
+                                         UUID targetId,
+                                         LocalTime from,
+                                         LocalTime to,
+                                         LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(
+                    "Начало интервала отправления позже его окончания"
+            );
+        }
+
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
+
+        ServiceDay day = timetable.serviceDay(date);
+        int[] departures = collectDepartures(timetable, origin, Timetable.toSeconds(from), Timetable.toSeconds(to), day);
+        if (target == NO_STOP || departures.length == 0) {
+            throw new NoSuchElementException(
+                    "Маршрут между остановками не найден. Возможно, они не связаны транспортом или нет рейсов в указанное время"
+            );
+        }
+
+        RaptorContext context = acquireContext(timetable);
+        List<Journey> journeys;
+        try {
+            journeys = runRangeRaptor(context, origin, target, departures, day);
+        } finally {
+            releaseContext(context);
+        }
+
+        List<List<PathDto>> paths = paretoFront(journeys).stream()
+                .sorted(Comparator.comparingInt(Journey::departure))
+                .map(journey -> toPath(timetable, journey.legs()))
+                .toList();
+
+        if (paths.isEmpty()) {
+            throw new NoSuchElementException(
+                    "Маршрут между остановками не найден. Возможно, они не связаны транспортом или нет рейсов в указанное время"
+            );
+        }
+        return paths;
+    }
+
+    // моменты выхода на остановку, при которых пассажир успевает на очередной рейс в пределах окна
+    private int[] collectDepartures(Timetable timetable, int origin, int from, int to, ServiceDay day) {
+        if (origin == NO_STOP) {
+            return new int[0];
+        }
+
+        Set<Integer> departures = new TreeSet<>(Comparator.reverseOrder());
+        for (int i = timetable.stopPatternStart(origin); i < timetable.stopPatternEnd(origin); i++) {
+            int pattern = timetable.stopPattern(i);
+            if (!day.runs(pattern)) {
+                continue;
+            }
+
+            int position = timetable.stopPatternPosition(i);
+            for (int trip = timetable.firstTrip(pattern); trip < timetable.endTrip(pattern); trip++) {
+                int time = timetable.stopTime(trip, position);
+                int start = time - MIN_TRANSFER_TIME;
+                if (start >= from && start <= to) {
+                    departures.add(time);
+                }
+            }
+        }
+        return departures.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // оставляет поездки, для которых нет более поздней, не менее быстрой и не более пересадочной альтернативы
+    private List<Journey> paretoFront(List<Journey> journeys) {
+        List<Journey> front = new ArrayList<>();
+        for (Journey candidate : journeys) {
+            boolean dominated = false;
+            for (Journey other : journeys) {
+                if (other != candidate && other.dominates(candidate)) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated && front.stream().noneMatch(j -> j.sameAs(candidate))) {
+                front.add(candidate);
             }
         }
+        return front;
+    }
+
+    // контекст поиска принадлежит одному запросу, после завершения возвращается в пул своей версии расписания
+    private RaptorContext acquireContext(Timetable timetable) {
+        RaptorContext context = indexes(timetable).contextPool().poll();
+        return context != null
+                ? context
+                : new RaptorContext(timetable);
     }
 
-    private void scanRoute(
-            Route route,
-            Stop boardingCandidateStop,
-            LocalTime arrivalAtStop,
-            Map<Stop, LocalTime> bestTimes,
-            Map<Stop, LocalTime> roundTimes,
-            Map<Stop, Trip> prevTrip,
-            Map<Stop, Stop> boardingStop,
-            Day day,
-            Trip previousTripAtThisStop,
-            Stop target
-    ) {
-        Trip trip = day.equals(Day.WEEKDAY)
-                ? getEarliestTrip(route, boardingCandidateStop, arrivalAtStop,
-                tripsByRouteAtWeekday, previousTripAtThisStop, boardingCandidateStop)
-                : getEarliestTrip(route, boardingCandidateStop, arrivalAtStop,
-                tripsByRouteAtWeekend, previousTripAtThisStop, boardingCandidateStop);
-
-        if (trip == null) return;
-
-        int startIndex = routeStopIndex.get(route).get(boardingCandidateStop);
-        LocalTime targetBestTime = bestTimes.get(target);
-
-        for (int i = startIndex; i < trip.stops().size(); i++) {
-            StopTime st = trip.stops().get(i);
-            Stop stop = st.stop();
-            LocalTime time = st.time();
-            if (time == null) continue;
-
-            if (targetBestTime != null && !time.isBefore(targetBestTime)) {
+    private void releaseContext(RaptorContext context) {
+        context.clear();
+        indexes(context.getTimetable()).contextPool().offer(context);
+    }
+
+    private void runRaptorAlgorithm(RaptorContext context,
+                                    int[] origins,
+                                    int[] targets,
+                                    int startTime,
+                                    ServiceDay day,
+                                    int arrivalLimit,
+                                    boolean stopOnFirstFound) {
+        context.clear();
+        context.setArrivalLimit(arrivalLimit);
+        context.setLowerBounds(LowerBounds.of(day).to(targets));
+        context.startRound();
+        if (origins.length == 0) {
+            return;
+        }
+
+        int[] bestTimes = context.getBestTimes();
+
+        for (int origin : origins) {
+            context.arrivals(0)[origin] = startTime;
+            bestTimes[origin] = startTime;
+            context.getMarkedStops()[origin] = true;
+        }
+
+        relaxFootpaths(context, 0, targets, bestTimes, context.getMarkedStops());
+        int[] startTimes = context.arrivals(0);
+        for (int stop = 0; stop < startTimes.length; stop++) {
+            bestTimes[stop] = startTimes[stop];
+        }
+        if (stopOnFirstFound && targetBound(context, startTimes, targets) != UNREACHED) {
+            return;
+        }
+
+        for (int k = 1; k <= maxTransfers + 1; k++) {
+            context.startRound();
+            scanRound(context, k, day, targets, bestTimes, scanPool != null);
+            relaxFootpaths(context, k, targets, bestTimes, context.getNextMarkedStops());
+
+            int[] roundTimes = context.arrivals(k);
+            boolean[] improved = context.getNextMarkedStops();
+            for (int stop = 0; stop < roundTimes.length; stop++) {
+                if (improved[stop]) {
+                    bestTimes[stop] = roundTimes[stop];
+                }
+            }
+
+            if (!context.swapMarkedStops()) {
+                break;
+            }
+            if (stopOnFirstFound && targetBound(context, roundTimes, targets) != UNREACHED) {
                 break;
             }
+        }
+    }
+
+    // rRAPTOR: отправления перебираются от поздних к ранним, метки раундов не сбрасываются между
+    // итерациями, поэтому каждая итерация находит только поездки, улучшающие более поздние отправления
+    private List<Journey> runRangeRaptor(RaptorContext context,
+                                         int origin,
+                                         int target,
+                                         int[] departures,
+                                         ServiceDay day) {
+        context.clear();
+        int[] targets = {target};
+        context.setLowerBounds(LowerBounds.of(day).to(targets));
+        context.startRound();
+
+        List<Journey> journeys = new ArrayList<>();
+        int[] targetBefore = new int[0];
+
+        for (int departure : departures) {
+            targetBefore = snapshotTarget(context, target, targetBefore);
+
+            // отметки последнего раунда предыдущего отправления не относятся к новому
+            context.clearMarkedStops();
+            context.arrivals(0)[origin] = departure - MIN_TRANSFER_TIME;
+            context.getMarkedStops()[origin] = true;
+            relaxFootpaths(context, 0, targets, context.arrivals(0), context.getMarkedStops());
+
+            for (int k = 1; k <= maxTransfers + 1; k++) {
+                if (k == context.getRounds()) {
+                    context.startRound();
+                }
+                inheritLabels(context, k);
+                scanRound(context, k, day, targets, context.arrivals(k), false);
+                relaxFootpaths(context, k, targets, context.arrivals(k), context.getNextMarkedStops());
 
-            boolean improvesCurrentStop = bestTimes.get(stop) == null || time.isBefore(bestTimes.get(stop));
-            boolean improvesRoundStop = roundTimes.get(stop) == null || time.isBefore(roundTimes.get(stop));
+                if (!context.swapMarkedStops()) {
+                    break;
+                }
+            }
 
-            if (improvesCurrentStop && improvesRoundStop) {
-                roundTimes.put(stop, time);
-                prevTrip.put(stop, trip);
-                boardingStop.put(stop, boardingCandidateStop);
+            for (int k = 1; k < context.getRounds(); k++) {
+                int arrival = context.arrivals(k)[target];
+                int before = k < targetBefore.length ? targetBefore[k] : UNREACHED;
+                boolean reached = context.trips(k)[target] != NO_TRIP || context.walkSources(k)[target] != NO_STOP;
+                if (!reached || arrival >= before) {
+                    continue;
+                }
+                try {
+                    journeys.add(new Journey(buildLegs(context, target, k), k));
+                } catch (NoSuchElementException e) {
+                    // у метки цели нет цепочки до начальной остановки
+                }
             }
         }
+        return journeys;
+    }
+
+    private int[] snapshotTarget(RaptorContext context, int target, int[] buffer) {
+        int rounds = context.getRounds();
+        int[] snapshot = buffer.length >= rounds ? buffer : new int[rounds];
+        for (int k = 0; k < rounds; k++) {
+            snapshot[k] = context.arrivals(k)[target];
+        }
+        for (int k = rounds; k < snapshot.length; k++) {
+            snapshot[k] = UNREACHED;
+        }
+        return snapshot;
     }
 
-    private Trip getEarliestTrip(
-            Route route,
-            Stop stop,
-            LocalTime arrivalTime,
-            Map<Route, List<Trip>> tripsByRoute,
-            Trip previousTrip,
-            Stop previousStop
-    ) {
-        int index = routeStopIndex.get(route).get(stop);
-        List<Trip> trips = tripsByRoute.get(route);
-        if (trips == null) return null;
+    // в профильном режиме метка раунда k означает "не более k поездок"
+    private void inheritLabels(RaptorContext context, int k) {
+        int[] previous = context.arrivals(k - 1);
+        int[] current = context.arrivals(k);
+        int[] trips = context.trips(k);
+        int[] walkSources = context.walkSources(k);
+        for (int stop = 0; stop < current.length; stop++) {
+            if (previous[stop] < current[stop]) {
+                current[stop] = previous[stop];
+                trips[stop] = NO_TRIP;
+                walkSources[stop] = NO_STOP;
+            }
+        }
+    }
 
-        int transferTime = calculateTransferTime(route, previousTrip, previousStop);
-        LocalTime earliestDeparture = arrivalTime.plusMinutes(transferTime);
+    // фаза пешеходных переходов: от остановок, отмеченных в раунде k, пешком к соседним;
+    // переходы не продолжаются пешком, т.к. группы остановок связаны напрямую
+    private void relaxFootpaths(RaptorContext context, int k, int[] targets, int[] bound, boolean[] marked) {
+        Timetable timetable = context.getTimetable();
+        int[] roundTimes = context.arrivals(k);
+        int[] roundTrips = context.trips(k);
+        int[] walkSources = context.walkSources(k);
+        int[] lowerBounds = context.getLowerBounds();
+
+        for (int stop = 0; stop < marked.length; stop++) {
+            if (!marked[stop] || walkSources[stop] != NO_STOP || (k > 0 && roundTrips[stop] == NO_TRIP)) {
+                continue;
+            }
 
-        for (Trip trip : trips) {
-            LocalTime time = trip.stops().get(index).time();
-            if (time == null) continue;
+            int targetBestTime = targetBound(context, bound, targets);
+            for (int i = timetable.footpathStart(stop); i < timetable.footpathEnd(stop); i++) {
+                int to = timetable.footpathTarget(i);
+                int time = roundTimes[stop] + timetable.footpathDuration(i);
 
-            if (!time.isBefore(earliestDeparture)) {
-                return trip;
+                if (time < targetBestTime - lowerBounds[to] && time < bound[to] && time < roundTimes[to]) {
+                    roundTimes[to] = time;
+                    roundTrips[to] = NO_TRIP;
+                    walkSources[to] = stop;
+                    marked[to] = true;
+                }
             }
         }
-        return null;
     }
 
-    private int calculateTransferTime(Route route, Trip previousTrip, Stop previousStop) {
-        if (previousTrip == null) {
-            return MIN_TRANSFER_TIME;
+    // один раунд RAPTOR: каждый шаблон сканируется один раз, начиная с самой ранней отмеченной позиции;
+    // метки не улучшают значение bound, найденные остановки отмечаются для следующего раунда.
+    // Шаблоны раунда читают только метки прошлого раунда, поэтому в параллельном режиме очередь
+    // делится на части со своими метками, которые затем сливаются по порядку частей
+    private void scanRound(RaptorContext context, int k, ServiceDay day, int[] targets, int[] bound, boolean parallel) {
+        int queued = queuePatterns(context, day);
+        Labels labels = context.labels(k);
+
+        int chunks = parallel ? Math.min(parallelism, queued / MIN_PARALLEL_PATTERNS) : 1;
+        if (chunks <= 1) {
+            scanPatterns(context, k, 0, queued, targets, bound, labels);
+            return;
         }
 
-        boolean sameTransport = previousTrip.route().transport() == route.transport();
-        boolean sameNumber = previousTrip.route().number().equals(route.number());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) queued * c / chunks);
+            int to = (int) ((long) queued * (c + 1) / chunks);
+            Labels chunkLabels = context.chunkLabels(c);
+            tasks.add(ForkJoinTask.adapt(() -> scanPatterns(context, k, from, to, targets, bound, chunkLabels)));
+        }
+        scanPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
 
-        if (sameTransport && sameNumber) {
-            List<StopTime> prevStops = previousTrip.stops();
-            StopTime lastStopTime = prevStops.getLast();
+        for (int c = 0; c < chunks; c++) {
+            mergeLabels(context.chunkLabels(c), labels);
+        }
+    }
 
-            //для конечных остановок, где транспорт меняет направление и сразу начинает новый маршрут
-            if (lastStopTime.stop().equals(previousStop)) {
-                return 0;
+    // шаблоны дня, проходящие через отмеченные остановки, с первой и последней отмеченной позицией
+    private int queuePatterns(RaptorContext context, ServiceDay day) {
+        Timetable timetable = context.getTimetable();
+        boolean[] markedStops = context.getMarkedStops();
+        int[] scannedPatternRound = context.getScannedPatternRound();
+        int[] patternQueue = context.getPatternQueue();
+        int[] scanPositions = context.getPatternScanPositions();
+        int[] scanEnds = context.getPatternScanEnds();
+        int stamp = context.nextScanStamp();
+        int queued = 0;
+
+        for (int stop = 0; stop < markedStops.length; stop++) {
+            if (!markedStops[stop]) {
+                continue;
+            }
+            markedStops[stop] = false;
+
+            for (int i = timetable.stopPatternStart(stop); i < timetable.stopPatternEnd(stop); i++) {
+                int pattern = timetable.stopPattern(i);
+                if (!day.runs(pattern)) {
+                    continue;
+                }
+
+                int position = timetable.stopPatternPosition(i);
+                if (scannedPatternRound[pattern] != stamp) {
+                    scannedPatternRound[pattern] = stamp;
+                    patternQueue[queued++] = pattern;
+                    scanPositions[pattern] = position;
+                    scanEnds[pattern] = position;
+                } else {
+                    scanPositions[pattern] = Math.min(scanPositions[pattern], position);
+                    scanEnds[pattern] = Math.max(scanEnds[pattern], position);
+                }
             }
         }
+        return queued;
+    }
 
-        return MIN_TRANSFER_TIME;
+    private void scanPatterns(RaptorContext context, int k, int from, int to, int[] targets, int[] bound, Labels labels) {
+        int[] patternQueue = context.getPatternQueue();
+        int[] scanPositions = context.getPatternScanPositions();
+        int[] scanEnds = context.getPatternScanEnds();
+        for (int q = from; q < to; q++) {
+            int pattern = patternQueue[q];
+            scanRoute(context, k, pattern, scanPositions[pattern], scanEnds[pattern], targets, bound, labels);
+        }
     }
 
-    private List<List<PathDto>> buildAllPaths(Stop origin, Stop target) {
-        List<List<PathDto>> allPaths = new ArrayList<>();
+    // перенос меток части в метки раунда: при равном времени остаётся метка более ранней части,
+    // как при последовательном сканировании; метки части очищаются для следующего раунда
+    private void mergeLabels(Labels chunk, Labels round) {
+        boolean[] chunkMarked = chunk.marked();
+        int[] chunkTimes = chunk.times();
+        int[] roundTimes = round.times();
+        for (int stop = 0; stop < chunkMarked.length; stop++) {
+            if (!chunkMarked[stop]) {
+                continue;
+            }
+            chunkMarked[stop] = false;
+            int time = chunkTimes[stop];
+            chunkTimes[stop] = UNREACHED;
+
+            if (time < roundTimes[stop]) {
+                roundTimes[stop] = time;
+                round.trips()[stop] = chunk.trips()[stop];
+                round.boardPositions()[stop] = chunk.boardPositions()[stop];
+                round.alightPositions()[stop] = chunk.alightPositions()[stop];
+                round.marked()[stop] = true;
+            }
+        }
+    }
+
+    // идём по шаблону от начальной позиции; на каждой остановке с меткой прошлого раунда
+    // пересаживаемся на более ранний рейс того же шаблона, если успеваем на него
+    private void scanRoute(RaptorContext context,
+                           int k,
+                           int pattern,
+                           int startPosition,
+                           int lastMarkedPosition,
+                           int[] targets,
+                           int[] bound,
+                           Labels labels) {
+        Timetable timetable = context.getTimetable();
+        int[] previousTimes = context.arrivals(k - 1);
+        int[] roundTimes = labels.times();
+        int[] roundTrips = labels.trips();
+        int[] boardPositions = labels.boardPositions();
+        int[] alightPositions = labels.alightPositions();
+        boolean[] marked = labels.marked();
+
+        int[] stopTimes = timetable.stopTimes();
+        int[] patternStops = timetable.patternStops();
+        int[] lowerBounds = context.getLowerBounds();
+        int stopOffset = timetable.patternStopOffset(pattern);
+        int size = timetable.patternSize(pattern);
+        int firstTrip = timetable.firstTrip(pattern);
+        int targetBestTime = targetBound(context, bound, targets);
+
+        int trip = NO_TRIP;
+        int timeOffset = 0;
+        int boardingPosition = 0;
+
+        for (int i = startPosition; i < size; i++) {
+            int stop = patternStops[stopOffset + i];
+            // оценка до цели не убывает вдоль рейса, поэтому после последней отмеченной остановки,
+            // где новых посадок уже не будет, текущий рейс к цели лучше не успеет
+            int latestUseful = targetBestTime - lowerBounds[stop];
+            if (trip == NO_TRIP) {
+                if (i > lastMarkedPosition) {
+                    break;
+                }
+            } else {
+                int time = stopTimes[timeOffset + i];
+                if (i > lastMarkedPosition && time >= latestUseful) {
+                    break;
+                }
+
+                if (time < latestUseful && time < bound[stop] && time < roundTimes[stop]) {
+                    roundTimes[stop] = time;
+                    roundTrips[stop] = trip;
+                    boardPositions[stop] = boardingPosition;
+                    alightPositions[stop] = i;
+                    marked[stop] = true;
+                }
+            }
 
-        for (var entry : kBestTimes.entrySet()) {
-            int k = entry.getKey();
-            if (!entry.getValue().containsKey(target)) {
+            int previous = previousTimes[stop];
+            if (previous >= latestUseful) {
+                continue;
+            }
+            // рейсы шаблона не обгоняют друг друга: если предыдущий рейс уходит раньше previous,
+            // более раннего рейса, чем текущий, здесь не поймать
+            if (trip != NO_TRIP && (trip == firstTrip || stopTimes[timeOffset - size + i] < previous)) {
                 continue;
             }
 
-            try {
-                List<PathDto> path = buildPath(origin, target, k);
+            int previousTrip = context.trips(context.labelRound(k - 1, stop))[stop];
+            int earliestDeparture = previous + Transfers.boardingTime(timetable, pattern, previousTrip, stop);
+            if (trip != NO_TRIP && stopTimes[timeOffset - size + i] < earliestDeparture) {
+                continue;
+            }
+            int candidate = timetable.earliestTrip(pattern, i, earliestDeparture);
+            if (candidate != NO_TRIP && (trip == NO_TRIP || candidate < trip)) {
+                trip = candidate;
+                timeOffset = timetable.tripTimeOffset(trip);
+                boardingPosition = i;
+            }
+        }
+    }
 
+    private List<List<PathDto>> buildAllPaths(RaptorContext context, int[] targets) {
+        // раунды без улучшения восстанавливают ту же поездку, её участки совпадают как значения
+        Set<List<Leg>> journeys = new LinkedHashSet<>();
 
-                boolean isUnique = true;
-                for (List<PathDto> existing : allPaths) {
-                    if (pathsAreEqual(existing, path)) {
-                        isUnique = false;
-                        break;
-                    }
-                }
+        for (int k = 0; k < context.getRounds(); k++) {
+            int target = closestTarget(context, k, targets);
+            if (target == NO_STOP) {
+                continue;
+            }
 
-                if (isUnique) {
-                    allPaths.add(path);
-                }
+            try {
+                journeys.add(buildLegs(context, target, k));
             } catch (Exception e) {
                 // Путь не построен
             }
         }
 
-        if (allPaths.isEmpty()) {
+        if (journeys.isEmpty()) {
             throw new NoSuchElementException(
                     "Маршрут между остановками не найден. Возможно, они не связаны транспортом или нет рейсов в указанное время"
             );
         }
 
-        return allPaths;
+        return journeys.stream()
+                .map(legs -> toPath(context.getTimetable(), legs))
+                .toList();
     }
 
-    private boolean pathsAreEqual(List<PathDto> path1, List<PathDto> path2) {
-        if (path1.size() != path2.size()) {
-            return false;
-        }
+    // поездка восстанавливается от цели назад до метки раунда 0, т.е. до одной из начальных остановок
+    private List<Leg> buildLegs(RaptorContext context, int target, int k) {
+        Timetable timetable = context.getTimetable();
+        List<Leg> legs = new ArrayList<>();
 
-        for (int i = 0; i < path1.size(); i++) {
-            PathDto p1 = path1.get(i);
-            PathDto p2 = path2.get(i);
+        int current = target;
 
-            if (!p1.stop().equals(p2.stop()) ||
-                    !p1.time().equals(p2.time()) ||
-                    !p1.directionName().equals(p2.directionName()) ||
-                    p1.number() != p2.number()) {
-                return false;
-            }
-        }
+        while (k >= 0) {
 
-        return true;
-    }
+            k = context.labelRound(k, current);
+            int walkSource = context.walkSources(k)[current];
+            if (walkSource != NO_STOP) {
+                legs.add(Leg.walk(walkSource, current, context.arrivals(k)[walkSource], context.arrivals(k)[current]));
+                current = walkSource;
+                continue;
+            }
 
-    private List<PathDto> buildPath(Stop origin, Stop target, int k) {
-        LinkedList<PathDto> path = new LinkedList<>();
+            int trip = context.trips(k)[current];
+            if (trip == NO_TRIP) {
+                if (k == 0) {
+                    break;
+                }
+                throw new NoSuchElementException("Не удалось восстановить маршрут");
+            }
 
-        Stop current = target;
+            int pattern = timetable.tripPattern(trip);
+            int exitIndex = context.alightPositions(k)[current];
+            int entryIndex = context.boardPositions(k)[current];
+            legs.add(Leg.ride(pattern, trip, entryIndex, exitIndex,
+                    timetable.stopTime(trip, entryIndex), timetable.stopTime(trip, exitIndex)));
 
-        while (k > 0 && !current.equals(origin)) {
+            current = timetable.patternStop(pattern, entryIndex);
+            k--;
+        }
+        return legs.reversed();
+    }
 
-            Trip trip = previousTrip.get(k).get(current);
-            Stop boarding = boardingStop.get(k).get(current);
+    static List<PathDto> toPath(Timetable timetable, List<Leg> legs) {
+        int size = 0;
+        for (Leg leg : legs) {
+            size += leg.pointCount();
+        }
 
-            int exitIndex = routeStopIndex.get(trip.route()).get(current);
-            int entryIndex = routeStopIndex.get(trip.route()).get(boarding);
+        List<PathDto> path = new ArrayList<>(size);
+        for (Leg leg : legs) {
+            if (leg.isWalk()) {
+                path.add(walkPoint(timetable, leg.board(), leg.departure()));
+                path.add(walkPoint(timetable, leg.alight(), leg.arrival()));
+                continue;
+            }
 
-            for (int i = exitIndex; i >= entryIndex; i--) {
-                StopTime st = trip.stops().get(i);
-                path.addFirst(
+            Route route = timetable.patternRoute(leg.pattern());
+            for (int i = leg.board(); i <= leg.alight(); i++) {
+                path.add(
                         PathDto.builder()
-                                .stop(st.stop())
-                                .time(st.time())
-                                .transport(trip.route().transport())
-                                .number(trip.route().number())
-                                .directionName(trip.route().direction())
+                                .stop(timetable.stop(timetable.patternStop(leg.pattern(), i)))
+                                .time(Timetable.toLocalTime(timetable.stopTime(leg.trip(), i)))
+                                .transport(route.transport())
+                                .number(route.number())
+                                .directionName(route.direction())
                                 .build()
                 );
             }
-            current = boarding;
-            k--;
         }
         return path;
     }
 
-    private int findFirstRoundWithTarget(Stop target) {
-        return kBestTimes.entrySet().stream()
-                .filter(e -> e.getValue().containsKey(target))
-                .mapToInt(Map.Entry::getKey)
-                .min()
-                .orElseThrow(() -> new NoSuchElementException("Маршрут не найден"));
+    private static PathDto walkPoint(Timetable timetable, int stop, int time) {
+        return PathDto.builder()
+                .stop(timetable.stop(stop))
+                .time(Timetable.toLocalTime(time))
+                .transport(Transport.WALK)
+                .number(0)
+                .directionName(WALK_DIRECTION)
+                .build();
+    }
+
+    // времена поездки — секунды дня расписания, поэтому сравнение верно и для поездок после полуночи
+    private record Journey(List<Leg> legs, int trips) {
+
+        int departure() {
+            return legs.getFirst().departure();
+        }
+
+        int arrival() {
+            return legs.getLast().arrival();
+        }
+
+        boolean dominates(Journey other) {
+            boolean notWorse = departure() >= other.departure()
+                    && arrival() <= other.arrival()
+                    && trips <= other.trips;
+            boolean better = departure() > other.departure()
+                    || arrival() < other.arrival()
+                    || trips < other.trips;
+            return notWorse && better;
+        }
+
+        boolean sameAs(Journey other) {
+            return trips == other.trips
+                    && departure() == other.departure()
+                    && arrival() == other.arrival();
+        }
+    }
+
+    // производные структуры одной версии расписания и пул контекстов поиска по ней
+    private record Indexes(McRaptor mcRaptor,
+                           ReverseRaptor reverseRaptor,
+                           Queue<RaptorContext> contextPool) {
+
+        Indexes(Timetable timetable) {
+            this(new McRaptor(timetable), new ReverseRaptor(timetable), new ConcurrentLinkedQueue<>());
+        }
     }
-}
\ No newline at end of file
+}
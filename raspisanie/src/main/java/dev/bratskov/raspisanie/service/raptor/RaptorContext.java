@@ -0,0 +1,193 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
+
+/**
+ * Рабочее состояние одного поиска RAPTOR. Экземпляр используется только одним
+ * запросом одновременно и переиспользуется через пул в {@link Raptor}.
+ * Метки раундов хранятся в массивах, индексированных id остановки из
+ * {@link Timetable}; контекст относится к одной версии расписания и весь поиск идёт по ней.
+ */
+class RaptorContext {
+
+    static final int UNREACHED = Integer.MAX_VALUE;
+    static final int NO_TRIP = -1;
+
+    private static final int INITIAL_ROUNDS = 8;
+
+    @Getter
+    private final Timetable timetable;
+    private final int stopCount;
+
+    @Getter
+    private final int[] bestTimes;
+    @Getter
+    private boolean[] markedStops;
+    @Getter
+    private boolean[] nextMarkedStops;
+    @Getter
+    private final int[] scannedPatternRound;
+    private int scanStamp;
+
+    // очередь шаблонов раунда и позиция, с которой начинается сканирование каждого из них
+    @Getter
+    private final int[] patternQueue;
+    @Getter
+    private final int[] patternScanPositions;
+    // последняя отмеченная позиция шаблона: дальше пересесть на более ранний рейс уже негде
+    @Getter
+    private final int[] patternScanEnds;
+
+    private int[][] arrivals = new int[INITIAL_ROUNDS][];
+    private int[][] trips = new int[INITIAL_ROUNDS][];
+    private int[][] boardPositions = new int[INITIAL_ROUNDS][];
+    private int[][] alightPositions = new int[INITIAL_ROUNDS][];
+    // остановка, с которой пришли пешком; NO_STOP для меток, поставленных рейсом
+    private int[][] walkSources = new int[INITIAL_ROUNDS][];
+
+    @Getter
+    private int rounds;
+
+    // метки, найденные отдельными частями очереди шаблонов при параллельном сканировании раунда
+    private Labels[] chunkLabels = new Labels[0];
+
+    // метки с прибытием не раньше этого времени не ставятся; UNREACHED — без ограничения
+    @Getter
+    @Setter
+    private int arrivalLimit;
+
+    // нижние оценки времени до цели по остановкам (см. LowerBounds); метка, которая даже с оценкой
+    // не успевает раньше лучшего прибытия в цель, не ставится
+    @Getter
+    @Setter
+    private int[] lowerBounds;
+
+    RaptorContext(Timetable timetable) {
+        int patternCount = timetable.patternCount();
+        this.timetable = timetable;
+        this.stopCount = timetable.stopCount();
+        this.bestTimes = new int[stopCount];
+        this.markedStops = new boolean[stopCount];
+        this.nextMarkedStops = new boolean[stopCount];
+        this.scannedPatternRound = new int[patternCount];
+        this.patternQueue = new int[patternCount];
+        this.patternScanPositions = new int[patternCount];
+        this.patternScanEnds = new int[patternCount];
+        clear();
+    }
+
+    void clear() {
+        Arrays.fill(bestTimes, UNREACHED);
+        clearMarkedStops();
+        Arrays.fill(scannedPatternRound, -1);
+        scanStamp = 0;
+        rounds = 0;
+        arrivalLimit = UNREACHED;
+        lowerBounds = null;
+    }
+
+    int startRound() {
+        int k = rounds++;
+        if (k == arrivals.length) {
+            int capacity = arrivals.length * 2;
+            arrivals = Arrays.copyOf(arrivals, capacity);
+            trips = Arrays.copyOf(trips, capacity);
+            boardPositions = Arrays.copyOf(boardPositions, capacity);
+            alightPositions = Arrays.copyOf(alightPositions, capacity);
+            walkSources = Arrays.copyOf(walkSources, capacity);
+        }
+        if (arrivals[k] == null) {
+            arrivals[k] = new int[stopCount];
+            trips[k] = new int[stopCount];
+            boardPositions[k] = new int[stopCount];
+            alightPositions[k] = new int[stopCount];
+            walkSources[k] = new int[stopCount];
+        }
+        Arrays.fill(arrivals[k], UNREACHED);
+        Arrays.fill(trips[k], NO_TRIP);
+        Arrays.fill(walkSources[k], NO_STOP);
+        return k;
+    }
+
+    // уникальная метка прохода по шаблонам, чтобы не очищать scannedPatternRound между раундами
+    int nextScanStamp() {
+        return ++scanStamp;
+    }
+
+    // отметки, сделанные в текущем раунде, становятся входом следующего
+    void clearMarkedStops() {
+        Arrays.fill(markedStops, false);
+        Arrays.fill(nextMarkedStops, false);
+    }
+
+    boolean swapMarkedStops() {
+        boolean[] processed = markedStops;
+        markedStops = nextMarkedStops;
+        nextMarkedStops = processed;
+
+        boolean anyMarked = false;
+        for (boolean marked : markedStops) {
+            if (marked) {
+                anyMarked = true;
+                break;
+            }
+        }
+        return anyMarked;
+    }
+
+    // раунд, в котором поставлена метка остановки; метки без рейса и перехода унаследованы из предыдущих раундов
+    int labelRound(int k, int stop) {
+        while (k > 0 && trips[k][stop] == NO_TRIP && walkSources[k][stop] == NO_STOP) {
+            k--;
+        }
+        return k;
+    }
+
+    int[] arrivals(int k) {
+        return arrivals[k];
+    }
+
+    int[] trips(int k) {
+        return trips[k];
+    }
+
+    int[] boardPositions(int k) {
+        return boardPositions[k];
+    }
+
+    int[] alightPositions(int k) {
+        return alightPositions[k];
+    }
+
+    int[] walkSources(int k) {
+        return walkSources[k];
+    }
+
+    // метки раунда k, которые ставит сканирование шаблонов
+    Labels labels(int k) {
+        return new Labels(arrivals[k], trips[k], boardPositions[k], alightPositions[k], nextMarkedStops);
+    }
+
+    // собственные метки части очереди; между раундами они пусты (см. Raptor#mergeLabels)
+    Labels chunkLabels(int chunk) {
+        if (chunk >= chunkLabels.length) {
+            chunkLabels = Arrays.copyOf(chunkLabels, chunk + 1);
+        }
+        if (chunkLabels[chunk] == null) {
+            int[] times = new int[stopCount];
+            Arrays.fill(times, UNREACHED);
+            chunkLabels[chunk] = new Labels(times, new int[stopCount], new int[stopCount], new int[stopCount],
+                    new boolean[stopCount]);
+        }
+        return chunkLabels[chunk];
+    }
+
+    record Labels(int[] times, int[] trips, int[] boardPositions, int[] alightPositions, boolean[] marked) {
+    }
+}
@@ -0,0 +1,283 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+import static dev.bratskov.raspisanie.service.raptor.Transfers.MIN_TRANSFER_TIME;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
+
+/**
+ * RAPTOR в обратном направлении: от целевой остановки и крайнего времени прибытия к начальной.
+ * Метки раундов хранят время отправления со знаком минус, поэтому {@link RaptorContext}
+ * используется без изменений: меньшее значение означает более позднее отправление.
+ * Метки отсекаются нижними оценками времени от начальной остановки ({@link LowerBounds#from}):
+ * отправление, с которым от начала не успеть позже уже найденного, не рассматривается.
+ */
+class ReverseRaptor {
+
+    private final Timetable timetable;
+    private final Queue<RaptorContext> contextPool = new ConcurrentLinkedQueue<>();
+
+    ReverseRaptor(Timetable timetable) {
+        this.timetable = timetable;
+    }
+
+    // поездка с самым поздним отправлением, прибывающая не позже arrivalTime, не больше чем
+    // с maxTransfers пересадками; пустой список, если её нет
+    List<PathDto> search(int origin, int target, int arrivalTime, ServiceDay day, int maxTransfers) {
+        if (origin == NO_STOP || target == NO_STOP) {
+            return List.of();
+        }
+
+        RaptorContext context = acquireContext();
+        try {
+            run(context, origin, target, arrivalTime, day, maxTransfers);
+
+            int k = findLatestDepartureRound(context, origin);
+            return k < 0 ? List.of() : buildPath(context, origin, target, k);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    private RaptorContext acquireContext() {
+        RaptorContext context = contextPool.poll();
+        return context != null
+                ? context
+                : new RaptorContext(timetable);
+    }
+
+    private void releaseContext(RaptorContext context) {
+        context.clear();
+        contextPool.offer(context);
+    }
+
+    private void run(RaptorContext context, int origin, int target, int arrivalTime, ServiceDay day, int maxTransfers) {
+        context.clear();
+        context.setLowerBounds(LowerBounds.of(day).from(origin));
+        context.startRound();
+
+        int[] bestTimes = context.getBestTimes();
+
+        context.arrivals(0)[target] = -arrivalTime;
+        bestTimes[target] = -arrivalTime;
+        context.getMarkedStops()[target] = true;
+
+        relaxFootpaths(context, 0, origin, bestTimes, context.getMarkedStops());
+        int[] startTimes = context.arrivals(0);
+        for (int stop = 0; stop < startTimes.length; stop++) {
+            bestTimes[stop] = startTimes[stop];
+        }
+
+        for (int k = 1; k <= maxTransfers + 1; k++) {
+            context.startRound();
+            scanRound(context, k, day, origin, bestTimes);
+            relaxFootpaths(context, k, origin, bestTimes, context.getNextMarkedStops());
+
+            int[] roundTimes = context.arrivals(k);
+            boolean[] improved = context.getNextMarkedStops();
+            for (int stop = 0; stop < roundTimes.length; stop++) {
+                if (improved[stop]) {
+                    bestTimes[stop] = roundTimes[stop];
+                }
+            }
+
+            if (!context.swapMarkedStops()) {
+                break;
+            }
+        }
+    }
+
+    // каждый шаблон сканируется один раз за раунд, начиная с самой поздней отмеченной позиции
+    private void scanRound(RaptorContext context, int k, ServiceDay day, int origin, int[] bound) {
+        boolean[] markedStops = context.getMarkedStops();
+        int[] scannedPatternRound = context.getScannedPatternRound();
+        int[] patternQueue = context.getPatternQueue();
+        int[] scanPositions = context.getPatternScanPositions();
+        int stamp = context.nextScanStamp();
+        int queued = 0;
+
+        for (int stop = 0; stop < markedStops.length; stop++) {
+            if (!markedStops[stop]) {
+                continue;
+            }
+            markedStops[stop] = false;
+
+            for (int i = timetable.stopPatternStart(stop); i < timetable.stopPatternEnd(stop); i++) {
+                int pattern = timetable.stopPattern(i);
+                if (!day.runs(pattern)) {
+                    continue;
+                }
+
+                int position = timetable.stopPatternPosition(i);
+                if (scannedPatternRound[pattern] != stamp) {
+                    scannedPatternRound[pattern] = stamp;
+                    patternQueue[queued++] = pattern;
+                    scanPositions[pattern] = position;
+                } else if (position > scanPositions[pattern]) {
+                    scanPositions[pattern] = position;
+                }
+            }
+        }
+
+        for (int q = 0; q < queued; q++) {
+            scanRouteBackwards(context, k, patternQueue[q], scanPositions[patternQueue[q]], origin, bound);
+        }
+    }
+
+    // идём от конца шаблона к началу; на каждой остановке с меткой прошлого раунда пересаживаемся
+    // на более поздний рейс, если он успевает на продолжение поездки
+    private void scanRouteBackwards(RaptorContext context, int k, int pattern, int startPosition, int origin, int[] bound) {
+        int[] previousTimes = context.arrivals(k - 1);
+        int[] roundTimes = context.arrivals(k);
+        int[] roundTrips = context.trips(k);
+        int[] boardPositions = context.boardPositions(k);
+        int[] alightPositions = context.alightPositions(k);
+        boolean[] marked = context.getNextMarkedStops();
+        int[] lowerBounds = context.getLowerBounds();
+
+        int trip = NO_TRIP;
+        int alightPosition = 0;
+
+        for (int i = startPosition; i >= 0; i--) {
+            int stop = timetable.patternStop(pattern, i);
+
+            if (trip != NO_TRIP) {
+                int time = timetable.stopTime(trip, i);
+                if (canImprove(-time, bound[origin], lowerBounds[stop])
+                        && -time < bound[stop] && -time < roundTimes[stop]) {
+                    roundTimes[stop] = -time;
+                    roundTrips[stop] = trip;
+                    boardPositions[stop] = i;
+                    alightPositions[stop] = alightPosition;
+                    marked[stop] = true;
+                }
+            }
+
+            if (previousTimes[stop] == UNREACHED || !canImprove(previousTimes[stop], bound[origin], lowerBounds[stop])) {
+                continue;
+            }
+
+            int nextTrip = context.trips(context.labelRound(k - 1, stop))[stop];
+            int transfer = nextTrip == NO_TRIP
+                    ? 0
+                    : Transfers.transferTime(timetable, pattern, timetable.tripPattern(nextTrip), stop);
+            int candidate = timetable.latestTrip(pattern, i, -previousTimes[stop] - transfer);
+            if (candidate != NO_TRIP && (trip == NO_TRIP || candidate > trip)) {
+                trip = candidate;
+                alightPosition = i;
+            }
+        }
+    }
+
+    // переход пешком к остановке, с которой уезжает найденный рейс; перед посадкой нужен запас на пересадку,
+    // кроме перехода к самой цели
+    private void relaxFootpaths(RaptorContext context, int k, int origin, int[] bound, boolean[] marked) {
+        int[] roundTimes = context.arrivals(k);
+        int[] roundTrips = context.trips(k);
+        int[] walkSources = context.walkSources(k);
+        int[] lowerBounds = context.getLowerBounds();
+        int buffer = k == 0 ? 0 : MIN_TRANSFER_TIME;
+
+        for (int stop = 0; stop < marked.length; stop++) {
+            if (!marked[stop] || walkSources[stop] != NO_STOP || (k > 0 && roundTrips[stop] == NO_TRIP)) {
+                continue;
+            }
+
+            for (int i = timetable.footpathStart(stop); i < timetable.footpathEnd(stop); i++) {
+                int to = timetable.footpathTarget(i);
+                int value = roundTimes[stop] + timetable.footpathDuration(i) + buffer;
+
+                if (canImprove(value, bound[origin], lowerBounds[to])
+                        && value < bound[to] && value < roundTimes[to]) {
+                    roundTimes[to] = value;
+                    roundTrips[to] = NO_TRIP;
+                    walkSources[to] = stop;
+                    marked[to] = true;
+                }
+            }
+        }
+    }
+
+    // отправление -value с остановки, до которой от начала не меньше lowerBound, может дать отправление
+    // с начальной остановки позже уже найденного; недостижимые от начала остановки отсекаются
+    private static boolean canImprove(int value, int originBound, int lowerBound) {
+        return lowerBound != UNREACHED && (long) value + lowerBound < originBound;
+    }
+
+    private int findLatestDepartureRound(RaptorContext context, int origin) {
+        int best = -1;
+        int bestTime = UNREACHED;
+        for (int k = 0; k < context.getRounds(); k++) {
+            int time = context.arrivals(k)[origin];
+            boolean labeled = context.trips(k)[origin] != NO_TRIP || context.walkSources(k)[origin] != NO_STOP;
+            if (labeled && time < bestTime) {
+                best = k;
+                bestTime = time;
+            }
+        }
+        return best;
+    }
+
+    private List<PathDto> buildPath(RaptorContext context, int origin, int target, int k) {
+        List<PathDto> path = new ArrayList<>();
+
+        int current = origin;
+        while (k >= 0 && current != target) {
+            k = context.labelRound(k, current);
+            int walkTarget = context.walkSources(k)[current];
+            if (walkTarget != NO_STOP) {
+                int departure = -context.arrivals(k)[current];
+                path.add(walkPoint(current, departure));
+                path.add(walkPoint(walkTarget, departure + timetable.walkTime(current, walkTarget)));
+                current = walkTarget;
+                continue;
+            }
+
+            int trip = context.trips(k)[current];
+            if (trip == NO_TRIP) {
+                throw new IllegalStateException("Не удалось восстановить маршрут");
+            }
+
+            int pattern = timetable.tripPattern(trip);
+            Route route = timetable.patternRoute(pattern);
+            int entryIndex = context.boardPositions(k)[current];
+            int exitIndex = context.alightPositions(k)[current];
+
+            for (int i = entryIndex; i <= exitIndex; i++) {
+                path.add(
+                        PathDto.builder()
+                                .stop(timetable.stop(timetable.patternStop(pattern, i)))
+                                .time(Timetable.toLocalTime(timetable.stopTime(trip, i)))
+                                .transport(route.transport())
+                                .number(route.number())
+                                .directionName(route.direction())
+                                .build()
+                );
+            }
+            current = timetable.patternStop(pattern, exitIndex);
+            k--;
+        }
+        return path;
+    }
+
+    private PathDto walkPoint(int stop, int time) {
+        return PathDto.builder()
+                .stop(timetable.stop(stop))
+                .time(Timetable.toLocalTime(time))
+                .transport(Transport.WALK)
+                .number(0)
+                .directionName(Raptor.WALK_DIRECTION)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Поиск маршрута с отправлением не раньше заданного времени.
+ * Реализация выбирается настройкой {@code routing.engine}: {@code raptor} (по умолчанию),
+ * {@code csa} или {@code tb}.
+ */
+public interface RoutingEngine {
+
+    // поездка с наименьшим числом пересадок, среди них — с самым ранним прибытием
+    List<PathDto> plan(UUID originId, UUID targetId, LocalTime startTime, LocalDate date);
+
+    // лучшая поездка для каждого числа пересадок, если она прибывает раньше вариантов с меньшим их числом
+    List<List<PathDto>> planAllPaths(UUID originId, UUID targetId, LocalTime startTime, LocalDate date);
+
+    // индексы движка для новой версии расписания строятся до её публикации, а не первым запросом
+    void prepare(Timetable timetable);
+}
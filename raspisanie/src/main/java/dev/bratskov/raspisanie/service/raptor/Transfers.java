@@ -0,0 +1,33 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+
+final class Transfers {
+
+    static final int MIN_TRANSFER_TIME = 4 * 60;
+
+    private Transfers() {
+    }
+
+    // время на пересадку перед посадкой на шаблон pattern после рейса previousTrip на остановке previousStop
+    static int boardingTime(Timetable timetable, int pattern, int previousTrip, int previousStop) {
+        if (previousTrip == NO_TRIP) {
+            return MIN_TRANSFER_TIME;
+        }
+
+        return transferTime(timetable, timetable.tripPattern(previousTrip), pattern, previousStop);
+    }
+
+    // время на пересадку с шаблона previousPattern на шаблон nextPattern на остановке stop
+    static int transferTime(Timetable timetable, int previousPattern, int nextPattern, int stop) {
+        //для конечных остановок, где транспорт меняет направление и сразу начинает новый маршрут
+        if (timetable.patternLine(previousPattern) == timetable.patternLine(nextPattern)
+                && timetable.lastStop(previousPattern) == stop) {
+            return 0;
+        }
+
+        return MIN_TRANSFER_TIME;
+    }
+}
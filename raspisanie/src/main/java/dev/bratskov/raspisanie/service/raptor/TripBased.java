@@ -0,0 +1,368 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.raptor.TripBasedContext.NO_ENTRY;
+import static dev.bratskov.raspisanie.service.raptor.Transfers.MIN_TRANSFER_TIME;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_STOP;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_TIME;
+
+/**
+ * Trip-Based Public Transit Routing. Полезные пересадки между рейсами вычисляются один раз
+ * на набор сервисов дня ({@link TripTransfers}), запрос — обход в ширину по отрезкам рейсов: на шаге n
+ * просматриваются рейсы, достижимые за n поездок, и по готовым пересадкам ставятся рейсы шага n + 1.
+ * <p>
+ * Правила пересадок и пеших переходов те же, что в {@link Raptor}, как и ответы {@link #plan}
+ * и {@link #planAllPaths}. Включается настройкой {@code routing.engine=tb}.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "routing.engine", havingValue = "tb")
+public class TripBased implements RoutingEngine {
+
+    private final Supplier<Timetable> timetables;
+    private final StopService stopService;
+
+    public TripBased(TimetableRepo timetableRepo, StopService stopService) {
+        this.timetables = timetableRepo::getTimetable;
+        this.stopService = stopService;
+        prepare(timetables.get());
+    }
+
+    @Override
+    public void prepare(Timetable timetable) {
+        indexes(timetable);
+        transfers(timetable.serviceDay(LocalDate.now()));
+    }
+
+    private static Indexes indexes(Timetable timetable) {
+        return timetable.index(Indexes.class, Indexes::build);
+    }
+
+    // пересадки строятся между шаблонами, которые ходят в один день
+    private static TripTransfers transfers(ServiceDay day) {
+        return day.index(TripTransfers.class, d -> {
+            long start = System.nanoTime();
+            TripTransfers transfers = new TripTransfers(d);
+            log.info("Пересадки между рейсами: {} за {} мс", transfers.size(), (System.nanoTime() - start) / 1_000_000);
+            return transfers;
+        });
+    }
+
+    @Override
+    public List<PathDto> plan(UUID originId, UUID targetId, LocalTime startTime, LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
+
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
+        int start = Timetable.toSeconds(startTime);
+
+        TripBasedContext context = acquireContext(timetable);
+        try {
+            run(context, origin, target, start, timetable.serviceDay(date), true);
+
+            for (int n = 0; n < context.getRounds(); n++) {
+                if (context.reached(n)) {
+                    return buildPath(context, origin, target, start, n);
+                }
+            }
+            throw new NoSuchElementException("Маршрут не найден");
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    @Override
+    public List<List<PathDto>> planAllPaths(UUID originId, UUID targetId, LocalTime startTime, LocalDate date) {
+        if (originId.equals(targetId)) {
+            throw new IllegalArgumentException(
+                    "Начальная и конечная остановки совпадают!"
+            );
+        }
+
+        Timetable timetable = timetables.get();
+        int origin = timetable.indexOf(stopService.findById(originId));
+        int target = timetable.indexOf(stopService.findById(targetId));
+        int start = Timetable.toSeconds(startTime);
+
+        TripBasedContext context = acquireContext(timetable);
+        try {
+            run(context, origin, target, start, timetable.serviceDay(date), false);
+
+            List<List<PathDto>> paths = new ArrayList<>();
+            for (int n = 0; n < context.getRounds(); n++) {
+                if (context.reached(n)) {
+                    paths.add(buildPath(context, origin, target, start, n));
+                }
+            }
+            if (paths.isEmpty()) {
+                throw new NoSuchElementException(
+                        "Маршрут между остановками не найден. Возможно, они не связаны транспортом или нет рейсов в указанное время"
+                );
+            }
+            return paths;
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    private TripBasedContext acquireContext(Timetable timetable) {
+        TripBasedContext context = indexes(timetable).contextPool().poll();
+        return context != null
+                ? context
+                : new TripBasedContext(timetable);
+    }
+
+    private void releaseContext(TripBasedContext context) {
+        context.clear();
+        indexes(context.getTimetable()).contextPool().offer(context);
+    }
+
+    // fewestTrips: поиск заканчивается на первом числе поездок, с которым достигнута цель
+    private void run(TripBasedContext context, int origin, int target, int start, ServiceDay day, boolean fewestTrips) {
+        context.clear();
+        if (origin == NO_STOP || target == NO_STOP) {
+            return;
+        }
+
+        Timetable timetable = context.getTimetable();
+        Indexes indexes = indexes(timetable);
+        TripTransfers transfers = transfers(day);
+        int[] incomingOffsets = indexes.incomingOffsets();
+        int[] targetWalks = context.getTargetWalks();
+        targetWalks[target] = 0;
+        for (int i = incomingOffsets[target]; i < incomingOffsets[target + 1]; i++) {
+            targetWalks[indexes.incomingSources()[i]] = indexes.incomingDurations()[i];
+        }
+
+        int best = UNREACHED;
+        int walk = timetable.walkTime(origin, target);
+        if (walk != NO_TIME) {
+            best = start + walk;
+            context.reach(0, best, NO_ENTRY, NO_STOP);
+            if (fewestTrips) {
+                return;
+            }
+        }
+
+        boardAt(context, origin, start + MIN_TRANSFER_TIME, day);
+        for (int i = timetable.footpathStart(origin); i < timetable.footpathEnd(origin); i++) {
+            boardAt(context, timetable.footpathTarget(i), start + timetable.footpathDuration(i) + MIN_TRANSFER_TIME, day);
+        }
+
+        int roundStart = 0;
+        for (int n = 1; roundStart < context.getSize(); n++) {
+            int roundEnd = context.getSize();
+            for (int entry = roundStart; entry < roundEnd; entry++) {
+                best = scanEntry(context, transfers, entry, n, best, !(fewestTrips && context.reached(n)));
+            }
+            if (fewestTrips && context.reached(n)) {
+                return;
+            }
+            roundStart = roundEnd;
+        }
+    }
+
+    // посадка на самые ранние рейсы всех шаблонов остановки, отправляющиеся не раньше ready
+    private void boardAt(TripBasedContext context, int stop, int ready, ServiceDay day) {
+        Timetable timetable = context.getTimetable();
+        for (int i = timetable.stopPatternStart(stop); i < timetable.stopPatternEnd(stop); i++) {
+            int pattern = timetable.stopPattern(i);
+            int position = timetable.stopPatternPosition(i);
+            if (!day.runs(pattern) || position == timetable.patternSize(pattern) - 1) {
+                continue;
+            }
+
+            int trip = timetable.earliestTrip(pattern, position, ready);
+            if (trip != NO_TRIP) {
+                enqueue(context, trip, position, NO_ENTRY, NO_STOP);
+            }
+        }
+    }
+
+    // отрезок рейса от позиции посадки до позиции, с которой рейс уже был достигнут;
+    // более поздние рейсы того же шаблона с этой позиции заведомо не лучше
+    private void enqueue(TripBasedContext context, int trip, int position, int parent, int parentAlight) {
+        int[] boardedFrom = context.getBoardedFrom();
+        if (position >= boardedFrom[trip]) {
+            return;
+        }
+
+        Timetable timetable = context.getTimetable();
+        int pattern = timetable.tripPattern(trip);
+        context.add(trip, position, Math.min(boardedFrom[trip], timetable.patternSize(pattern)), parent, parentAlight);
+        int end = timetable.endTrip(pattern);
+        for (int later = trip; later < end && boardedFrom[later] > position; later++) {
+            boardedFrom[later] = position;
+        }
+    }
+
+    // просмотр отрезка на шаге n: прибытие в цель и пересадки на шаг n + 1; возвращает лучшее прибытие в цель
+    private int scanEntry(TripBasedContext context, TripTransfers transfers, int entry, int n, int best, boolean expand) {
+        Timetable timetable = context.getTimetable();
+        int trip = context.trip(entry);
+        int[] targetWalks = context.getTargetWalks();
+        int[] stopTimes = timetable.stopTimes();
+        int[] patternStops = timetable.patternStops();
+        int[] offsets = transfers.offsets();
+        int[] targets = transfers.targets();
+        int timeOffset = timetable.tripTimeOffset(trip);
+        int stopOffset = timetable.patternStopOffset(timetable.tripPattern(trip));
+
+        for (int k = context.start(entry) + 1; k < context.end(entry); k++) {
+            int arrival = stopTimes[timeOffset + k];
+            if (arrival >= best) {
+                break;
+            }
+
+            int walk = targetWalks[patternStops[stopOffset + k]];
+            if (walk != NO_TIME && arrival + walk < best) {
+                best = arrival + walk;
+                context.reach(n, best, entry, k);
+            }
+
+            if (expand) {
+                for (int i = offsets[timeOffset + k]; i < offsets[timeOffset + k + 1]; i++) {
+                    enqueue(context, targets[2 * i], targets[2 * i + 1], entry, k);
+                }
+            }
+        }
+        return best;
+    }
+
+    // путь собирается от цели назад по цепочке отрезков; смена остановки между отрезками — пеший переход
+    private List<PathDto> buildPath(TripBasedContext context, int origin, int target, int start, int n) {
+        Timetable timetable = context.getTimetable();
+        LinkedList<PathDto> path = new LinkedList<>();
+
+        int entry = context.roundEntry(n);
+        if (entry == NO_ENTRY) {
+            path.add(walkPoint(timetable, origin, start));
+            path.add(walkPoint(timetable, target, context.roundArrival(n)));
+            return path;
+        }
+
+        int alight = context.roundAlight(n);
+        int alightStop = stopOf(timetable, context.trip(entry), alight);
+        if (alightStop != target) {
+            path.addFirst(walkPoint(timetable, target, context.roundArrival(n)));
+            path.addFirst(walkPoint(timetable, alightStop, timetable.stopTime(context.trip(entry), alight)));
+        }
+
+        while (true) {
+            int trip = context.trip(entry);
+            int pattern = timetable.tripPattern(trip);
+            Route route = timetable.patternRoute(pattern);
+            int board = context.start(entry);
+
+            for (int i = alight; i >= board; i--) {
+                path.addFirst(
+                        PathDto.builder()
+                                .stop(timetable.stop(timetable.patternStop(pattern, i)))
+                                .time(Timetable.toLocalTime(timetable.stopTime(trip, i)))
+                                .transport(route.transport())
+                                .number(route.number())
+                                .directionName(route.direction())
+                                .build()
+                );
+            }
+
+            int boardStop = timetable.patternStop(pattern, board);
+            int parent = context.parent(entry);
+            if (parent == NO_ENTRY) {
+                if (boardStop != origin) {
+                    path.addFirst(walkPoint(timetable, boardStop, start + timetable.walkTime(origin, boardStop)));
+                    path.addFirst(walkPoint(timetable, origin, start));
+                }
+                return path;
+            }
+
+            alight = context.parentAlight(entry);
+            int parentTrip = context.trip(parent);
+            int parentStop = stopOf(timetable, parentTrip, alight);
+            if (parentStop != boardStop) {
+                int arrival = timetable.stopTime(parentTrip, alight);
+                path.addFirst(walkPoint(timetable, boardStop, arrival + timetable.walkTime(parentStop, boardStop)));
+                path.addFirst(walkPoint(timetable, parentStop, arrival));
+            }
+            entry = parent;
+        }
+    }
+
+    private int stopOf(Timetable timetable, int trip, int position) {
+        return timetable.patternStop(timetable.tripPattern(trip), position);
+    }
+
+    private PathDto walkPoint(Timetable timetable, int stop, int time) {
+        return PathDto.builder()
+                .stop(timetable.stop(stop))
+                .time(Timetable.toLocalTime(time))
+                .transport(Transport.WALK)
+                .number(0)
+                .directionName(Raptor.WALK_DIRECTION)
+                .build();
+    }
+
+    // переходы, ведущие в остановку (нужны, чтобы отметить остановки рядом с целью), одной версии
+    // расписания и пул контекстов поиска
+    private record Indexes(int[] incomingOffsets,
+                           int[] incomingSources,
+                           int[] incomingDurations,
+                           Queue<TripBasedContext> contextPool) {
+
+        static Indexes build(Timetable timetable) {
+            int stopCount = timetable.stopCount();
+            int[] incomingOffsets = new int[stopCount + 1];
+            for (int from = 0; from < stopCount; from++) {
+                for (int i = timetable.footpathStart(from); i < timetable.footpathEnd(from); i++) {
+                    incomingOffsets[timetable.footpathTarget(i) + 1]++;
+                }
+            }
+            for (int stop = 0; stop < stopCount; stop++) {
+                incomingOffsets[stop + 1] += incomingOffsets[stop];
+            }
+            int[] incomingSources = new int[incomingOffsets[stopCount]];
+            int[] incomingDurations = new int[incomingSources.length];
+            int[] fill = new int[stopCount];
+            for (int from = 0; from < stopCount; from++) {
+                for (int i = timetable.footpathStart(from); i < timetable.footpathEnd(from); i++) {
+                    int to = timetable.footpathTarget(i);
+                    int index = incomingOffsets[to] + fill[to]++;
+                    incomingSources[index] = from;
+                    incomingDurations[index] = timetable.footpathDuration(i);
+                }
+            }
+            return new Indexes(incomingOffsets, incomingSources, incomingDurations,
+                    new ConcurrentLinkedQueue<>());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.timetable.Timetable.NO_TIME;
+
+/**
+ * Рабочее состояние одного поиска Trip-Based. Очередь — отрезки рейсов (рейс, позиция посадки,
+ * граница отрезка) со ссылкой на отрезок, с которого на них пересели; отрезки одного числа поездок
+ * идут в очереди подряд. Для каждого рейса хранится самая ранняя позиция, с которой он уже достигнут.
+ * Контекст относится к одной версии расписания.
+ */
+class TripBasedContext {
+
+    static final int NO_ENTRY = -1;
+    static final int NOT_BOARDED = Integer.MAX_VALUE;
+
+    private static final int INITIAL_ENTRIES = 256;
+    private static final int INITIAL_ROUNDS = 8;
+
+    @Getter
+    private final Timetable timetable;
+    @Getter
+    private final int[] boardedFrom;
+    // время пешком до целевой остановки, NO_TIME если перехода нет
+    @Getter
+    private final int[] targetWalks;
+
+    private int[] entryTrips = new int[INITIAL_ENTRIES];
+    private int[] entryStarts = new int[INITIAL_ENTRIES];
+    private int[] entryEnds = new int[INITIAL_ENTRIES];
+    private int[] entryParents = new int[INITIAL_ENTRIES];
+    private int[] entryParentAlights = new int[INITIAL_ENTRIES];
+    @Getter
+    private int size;
+
+    // лучшее прибытие в цель за каждое число поездок: время, отрезок и позиция выхода
+    private int[] roundArrivals = new int[INITIAL_ROUNDS];
+    private int[] roundEntries = new int[INITIAL_ROUNDS];
+    private int[] roundAlights = new int[INITIAL_ROUNDS];
+    @Getter
+    private int rounds;
+
+    TripBasedContext(Timetable timetable) {
+        this.timetable = timetable;
+        this.boardedFrom = new int[timetable.tripCount()];
+        this.targetWalks = new int[timetable.stopCount()];
+        Arrays.fill(boardedFrom, NOT_BOARDED);
+        Arrays.fill(targetWalks, NO_TIME);
+    }
+
+    void clear() {
+        Arrays.fill(boardedFrom, NOT_BOARDED);
+        Arrays.fill(targetWalks, NO_TIME);
+        size = 0;
+        rounds = 0;
+    }
+
+    void add(int trip, int start, int end, int parent, int parentAlight) {
+        if (size == entryTrips.length) {
+            int capacity = size * 2;
+            entryTrips = Arrays.copyOf(entryTrips, capacity);
+            entryStarts = Arrays.copyOf(entryStarts, capacity);
+            entryEnds = Arrays.copyOf(entryEnds, capacity);
+            entryParents = Arrays.copyOf(entryParents, capacity);
+            entryParentAlights = Arrays.copyOf(entryParentAlights, capacity);
+        }
+        entryTrips[size] = trip;
+        entryStarts[size] = start;
+        entryEnds[size] = end;
+        entryParents[size] = parent;
+        entryParentAlights[size] = parentAlight;
+        size++;
+    }
+
+    int trip(int entry) {
+        return entryTrips[entry];
+    }
+
+    int start(int entry) {
+        return entryStarts[entry];
+    }
+
+    int end(int entry) {
+        return entryEnds[entry];
+    }
+
+    int parent(int entry) {
+        return entryParents[entry];
+    }
+
+    int parentAlight(int entry) {
+        return entryParentAlights[entry];
+    }
+
+    void reach(int round, int arrival, int entry, int alight) {
+        while (rounds <= round) {
+            if (rounds == roundArrivals.length) {
+                int capacity = rounds * 2;
+                roundArrivals = Arrays.copyOf(roundArrivals, capacity);
+                roundEntries = Arrays.copyOf(roundEntries, capacity);
+                roundAlights = Arrays.copyOf(roundAlights, capacity);
+            }
+            roundArrivals[rounds++] = UNREACHED;
+        }
+        roundArrivals[round] = arrival;
+        roundEntries[round] = entry;
+        roundAlights[round] = alight;
+    }
+
+    boolean reached(int round) {
+        return round < rounds && roundArrivals[round] != UNREACHED;
+    }
+
+    int roundArrival(int round) {
+        return roundArrivals[round];
+    }
+
+    int roundEntry(int round) {
+        return roundEntries[round];
+    }
+
+    int roundAlight(int round) {
+        return roundAlights[round];
+    }
+}
@@ -0,0 +1,227 @@
+package dev.bratskov.raspisanie.service.raptor;
+
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.NO_TRIP;
+import static dev.bratskov.raspisanie.service.raptor.RaptorContext.UNREACHED;
+import static dev.bratskov.raspisanie.service.raptor.Transfers.MIN_TRANSFER_TIME;
+
+/**
+ * Пересадки между рейсами одного дня ({@link ServiceDay}) для {@link TripBased}. Для каждой остановки
+ * рейса этого дня хранится список (рейс, позиция посадки) — самые ранние рейсы каждого шаблона дня,
+ * на которые можно пересесть на этой остановке или пройдя пешком к соседней, с учётом {@link Transfers}.
+ * <p>
+ * Список сокращается при построении: отбрасываются пересадки "туда и обратно" и пересадки,
+ * после которых ни одна остановка не достигается раньше, чем оставаясь в рейсе или пересев
+ * на более поздней остановке. Пересадки хранятся в CSR-виде по индексу времени в
+ * {@link Timetable#stopTimes()}.
+ */
+final class TripTransfers {
+
+    private static final int NO_LINE = -1;
+
+    private final Timetable timetable;
+    private final ServiceDay day;
+
+    // по индексу времени рейса в stopTimes — начало его пересадок в targets
+    private final int[] offsets;
+    // пары (рейс, позиция посадки) подряд, чтобы пересадка читалась из одной строки кэша
+    private final int[] targets;
+
+    TripTransfers(ServiceDay day) {
+        this.timetable = day.timetable();
+        this.day = day;
+
+        int tripCount = timetable.tripCount();
+
+        // рейсы обрабатываются независимо, у каждого потока свои рабочие массивы
+        ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(() -> new Workspace(timetable.stopCount()));
+        int[][] tripTransfers = IntStream.range(0, tripCount)
+                .parallel()
+                .mapToObj(trip -> transfersOf(trip, workspaces.get()))
+                .toArray(int[][]::new);
+
+        this.offsets = new int[timetable.stopTimes().length + 1];
+        int total = 0;
+        for (int trip = 0; trip < tripCount; trip++) {
+            int[] transfers = tripTransfers[trip];
+            for (int i = 0; i < transfers.length; i += 3) {
+                offsets[timetable.tripTimeOffset(trip) + transfers[i] + 1]++;
+            }
+            total += transfers.length / 3;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        this.targets = new int[total * 2];
+        int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int trip = 0; trip < tripCount; trip++) {
+            int[] transfers = tripTransfers[trip];
+            for (int i = 0; i < transfers.length; i += 3) {
+                int index = fill[timetable.tripTimeOffset(trip) + transfers[i]]++;
+                targets[2 * index] = transfers[i + 1];
+                targets[2 * index + 1] = transfers[i + 2];
+            }
+        }
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    int size() {
+        return targets.length / 2;
+    }
+
+    // тройки (позиция выхода, рейс, позиция посадки); позиции обходятся от конца рейса к началу,
+    // чтобы к моменту проверки пересадки были известны все более поздние способы доехать
+    private int[] transfersOf(int trip, Workspace workspace) {
+        workspace.clear();
+
+        int pattern = timetable.tripPattern(trip);
+        if (!day.runs(pattern)) {
+            return new int[0];
+        }
+        for (int i = timetable.patternSize(pattern) - 1; i > 0; i--) {
+            int arrival = timetable.stopTime(trip, i);
+            int stop = timetable.patternStop(pattern, i);
+            reach(workspace, pattern, stop, arrival);
+
+            addTransfers(workspace, trip, i, stop, arrival, 0);
+            for (int w = timetable.footpathStart(stop); w < timetable.footpathEnd(stop); w++) {
+                addTransfers(workspace, trip, i, timetable.footpathTarget(w), arrival, timetable.footpathDuration(w));
+            }
+        }
+        return Arrays.copyOf(workspace.transfers, workspace.count);
+    }
+
+    // пересадки с позиции i рейса trip на шаблоны остановки stop, до которой идти walk секунд
+    private void addTransfers(Workspace workspace, int trip, int i, int stop, int arrival, int walk) {
+        int pattern = timetable.tripPattern(trip);
+        int alightStop = timetable.patternStop(pattern, i);
+
+        for (int s = timetable.stopPatternStart(stop); s < timetable.stopPatternEnd(stop); s++) {
+            int next = timetable.stopPattern(s);
+            int position = timetable.stopPatternPosition(s);
+            if (!day.runs(next)
+                    || position == timetable.patternSize(next) - 1) {
+                continue;
+            }
+
+            int ready = walk == 0
+                    ? arrival + Transfers.transferTime(timetable, pattern, next, alightStop)
+                    : arrival + walk + MIN_TRANSFER_TIME;
+            int target = timetable.earliestTrip(next, position, ready);
+            if (target == NO_TRIP) {
+                continue;
+            }
+            // остаться в рейсе не хуже, чем пересесть на него же или на более поздний рейс шаблона
+            if (next == pattern && position >= i && target >= trip) {
+                continue;
+            }
+            if (walk == 0 && isUTurn(trip, i, target, position)) {
+                continue;
+            }
+            if (improves(workspace, target, position)) {
+                workspace.add(i, target, position);
+            }
+        }
+    }
+
+    // выйти и сразу вернуться туда, откуда приехали: на ту же остановку можно было пересесть раньше
+    private boolean isUTurn(int trip, int i, int target, int position) {
+        int pattern = timetable.tripPattern(trip);
+        int targetPattern = timetable.tripPattern(target);
+        // с первой позиции пересадки не строятся, вернуться там не к чему
+        if (i < 2 || position + 1 >= timetable.patternSize(targetPattern)) {
+            return false;
+        }
+
+        int arrival = timetable.stopTime(trip, i - 1);
+        int departure = timetable.stopTime(target, position + 1);
+        int stop = timetable.patternStop(pattern, i - 1);
+        if (stop != timetable.patternStop(targetPattern, position + 1)) {
+            return false;
+        }
+        return arrival + Transfers.transferTime(timetable, pattern, targetPattern, stop) <= departure;
+    }
+
+    // улучшает ли поездка рейсом trip от позиции position прибытие хоть куда-нибудь
+    private boolean improves(Workspace workspace, int trip, int position) {
+        int pattern = timetable.tripPattern(trip);
+        boolean improved = false;
+        for (int k = position + 1; k < timetable.patternSize(pattern); k++) {
+            improved |= reach(workspace, pattern, timetable.patternStop(pattern, k), timetable.stopTime(trip, k));
+        }
+        return improved;
+    }
+
+    // метки прибытия на остановку и на соседние пешком
+    private boolean reach(Workspace workspace, int pattern, int stop, int arrival) {
+        // на конечной пересадка на ту же линию бесплатна, такое прибытие учитывается отдельно
+        int line = timetable.lastStop(pattern) == stop ? timetable.patternLine(pattern) : NO_LINE;
+        boolean improved = workspace.update(stop, arrival, line);
+        for (int w = timetable.footpathStart(stop); w < timetable.footpathEnd(stop); w++) {
+            improved |= workspace.update(timetable.footpathTarget(w), arrival + timetable.footpathDuration(w), NO_LINE);
+        }
+        return improved;
+    }
+
+    // рабочие массивы одного потока: лучшее прибытие на остановки, лучшее прибытие на конечную
+    // (с линией) и найденные пересадки текущего рейса
+    private static final class Workspace {
+        private final int[] arrivals;
+        private final int[] terminalArrivals;
+        private final int[] terminalLines;
+        private int[] transfers = new int[48];
+        private int count;
+
+        Workspace(int stopCount) {
+            this.arrivals = new int[stopCount];
+            this.terminalArrivals = new int[stopCount];
+            this.terminalLines = new int[stopCount];
+        }
+
+        void clear() {
+            Arrays.fill(arrivals, UNREACHED);
+            Arrays.fill(terminalArrivals, UNREACHED);
+            count = 0;
+        }
+
+        void add(int position, int trip, int targetPosition) {
+            if (count + 3 > transfers.length) {
+                transfers = Arrays.copyOf(transfers, transfers.length * 2);
+            }
+            transfers[count++] = position;
+            transfers[count++] = trip;
+            transfers[count++] = targetPosition;
+        }
+
+        boolean update(int stop, int arrival, int terminalLine) {
+            int best = arrivals[stop];
+            boolean improved = false;
+            if (arrival < best) {
+                arrivals[stop] = arrival;
+                improved = true;
+            }
+            // прибытие на конечную полезно, пока бесплатная пересадка даёт выигрыш перед лучшим прибытием;
+            // хранится одна линия на остановку, при вытеснении пересадки лишь перестают отсеиваться
+            if (terminalLine != NO_LINE && arrival < best + MIN_TRANSFER_TIME
+                    && (terminalLines[stop] != terminalLine || arrival < terminalArrivals[stop])) {
+                terminalArrivals[stop] = arrival;
+                terminalLines[stop] = terminalLine;
+                improved = true;
+            }
+            return improved;
+        }
+    }
+}
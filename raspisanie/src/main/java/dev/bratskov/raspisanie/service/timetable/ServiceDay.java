@@ -0,0 +1,41 @@
+package dev.bratskov.raspisanie.service.timetable;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Сервисы календаря, действующие в одну дату, над одной версией расписания: какие шаблоны ходят
+ * в этот день. Даты с одинаковым набором сервисов получают один экземпляр ({@link Timetable#serviceDay}),
+ * поэтому производные индексы алгоритмов для дня ({@link #index}) строятся один раз на набор, а не на дату.
+ */
+public final class ServiceDay {
+
+    private final Timetable timetable;
+    // слоты сервисов шаблонов, действующие в этот день: сервисы даты и ночные хвосты сервисов накануне
+    private final BitSet services;
+    private final Map<Class<?>, Object> indexes = new ConcurrentHashMap<>();
+
+    ServiceDay(Timetable timetable, BitSet services) {
+        this.timetable = timetable;
+        this.services = services;
+    }
+
+    public Timetable timetable() {
+        return timetable;
+    }
+
+    public boolean runs(int pattern) {
+        return services.get(timetable.patternService(pattern));
+    }
+
+    // индекс алгоритма над шаблонами этого дня, по одному на тип; строится при первом обращении
+    public <T> T index(Class<T> type, Function<ServiceDay, T> factory) {
+        Object index = indexes.get(type);
+        if (index == null) {
+            index = indexes.computeIfAbsent(type, k -> factory.apply(this));
+        }
+        return type.cast(index);
+    }
+}
@@ -0,0 +1,577 @@
+package dev.bratskov.raspisanie.service.timetable;
+
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Скомпилированное расписание для алгоритмов маршрутизации.
+ * <p>
+ * Остановки, шаблоны маршрутов (pattern) и рейсы получают плотные int-идентификаторы.
+ * Шаблон объединяет рейсы одного маршрута и сервиса календаря с одинаковой последовательностью
+ * остановок, на которых они действительно останавливаются; проезд без остановки в шаблон не входит,
+ * поэтому у каждой позиции шаблона есть время. Рейсы внутри шаблона отсортированы по отправлению
+ * и не обгоняют друг друга, времена хранятся в секундах от полуночи дня расписания в плоском массиве
+ * {@code stopTimes} и вдоль рейса не убывают: после полуночи они продолжаются за 24 часа.
+ * Часть рейса после полуночи дополнительно попадает в расписание как отдельный рейс со временами,
+ * сдвинутыми на сутки назад, — так ранним утром доступны поздние рейсы предыдущего дня. Хвост ходит
+ * в дату, если сервис рейса действует накануне: ночь после пятницы обслуживают пятничные рейсы,
+ * а не субботние.
+ * Даты действия сервисов хранит {@link ServiceCalendar}; шаблоны, которые ходят в дату, даёт {@link #serviceDay}.
+ * Связи "остановка → (шаблон, позиция)" — по записи на каждое прохождение остановки — и
+ * "шаблон → остановки" хранятся в CSR-виде (offsets + values),
+ * так же хранятся пешеходные переходы "остановка → соседние остановки" с временем в секундах.
+ * <p>
+ * Экземпляр неизменяем и соответствует одной версии данных; производные индексы алгоритмов
+ * маршрутизации хранятся при нём ({@link #index}) и уходят вместе с версией при перезагрузке.
+ */
+public class Timetable {
+
+    public static final int NO_TIME = -1;
+    public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    public static final int NO_STOP = -1;
+    // сколько наборов сервисов держать с их индексами дня; у trips.txt их всего несколько,
+    // у GTFS с календарём на год — почти на каждую дату, а запросы приходятся на ближайшие дни
+    public static final int SERVICE_DAY_CACHE_SIZE = 16;
+
+    // признак ночного хвоста в слоте сервиса шаблона
+    private static final int TAIL = 1;
+
+    private final Stop[] stops;
+    private final Map<UUID, Integer> stopIndexById;
+
+    private final ServiceCalendar calendar;
+    private final String[] services;
+
+    private final Route[] patternRoutes;
+    // слот сервиса шаблона: номер сервиса в services, сдвинутый на бит; младший бит — ночной хвост,
+    // который ходит по сервису предыдущей даты
+    private final int[] patternServices;
+    private final int[] patternLines;
+    private final int[] patternStopOffsets;
+    private final int[] patternStops;
+    private final int[] patternTripOffsets;
+
+    private final int[] tripPatterns;
+    private final int[] tripTimeOffsets;
+    private final int[] stopTimes;
+
+    private final int[] stopPatternOffsets;
+    private final int[] stopPatterns;
+    private final int[] stopPatternPositions;
+
+    private final int[] footpathOffsets;
+    private final int[] footpathTargets;
+    private final int[] footpathDurations;
+
+    private final Map<Class<?>, Object> indexes = new ConcurrentHashMap<>();
+    private final Map<BitSet, ServiceDay> serviceDays = new LinkedHashMap<>(SERVICE_DAY_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BitSet, ServiceDay> eldest) {
+            return size() > SERVICE_DAY_CACHE_SIZE;
+        }
+    };
+
+    public Timetable(Map<String, Stop> stopMap, List<Trip> trips) {
+        this(stopMap, trips, List.of());
+    }
+
+    // будни и выходные по дням недели
+    public Timetable(Map<String, Stop> stopMap, List<Trip> trips, List<Footpath> footpaths) {
+        this(stopMap, trips, footpaths, ServiceCalendar.weekly());
+    }
+
+    public Timetable(Map<String, Stop> stopMap, List<Trip> trips, List<Footpath> footpaths, ServiceCalendar calendar) {
+        this.calendar = calendar;
+        Map<String, Integer> serviceIndex = new LinkedHashMap<>();
+        Map<Stop, Integer> stopIndex = new HashMap<>();
+        List<Stop> stopList = new ArrayList<>(stopMap.values());
+        stopList.sort(Comparator.comparing(Stop::description));
+        for (Stop stop : stopList) {
+            stopIndex.put(stop, stopIndex.size());
+        }
+
+        Map<PatternKey, List<int[]>> tripsByPattern = new LinkedHashMap<>();
+        int tripCount = 0;
+        for (Trip trip : trips) {
+            // остановки, где рейс не останавливается (нет времени), в шаблон не попадают
+            int[] stopIds = new int[trip.stops().size()];
+            int[] times = new int[stopIds.length];
+            int size = 0;
+            int shift = trip.afterMidnight() ? SECONDS_PER_DAY : 0;
+            for (StopTime st : trip.stops()) {
+                if (st.time() == null) {
+                    continue;
+                }
+                Stop unified = stopMap.getOrDefault(st.stop().description(), st.stop());
+                if (!stopIndex.containsKey(unified)) {
+                    stopIndex.put(unified, stopList.size());
+                    stopList.add(unified);
+                }
+                int time = toSeconds(st.time()) + shift;
+                // переход через полночь: дальше время рейса отсчитывается за пределами суток
+                if (size > 0 && time < times[size - 1]) {
+                    shift += SECONDS_PER_DAY;
+                    time += SECONDS_PER_DAY;
+                }
+                stopIds[size] = stopIndex.get(unified);
+                times[size] = time;
+                size++;
+            }
+            // по рейсу меньше чем из двух остановок никуда не доехать
+            if (size < 2) {
+                continue;
+            }
+
+            int service = serviceIndex.computeIfAbsent(trip.service(), k -> serviceIndex.size()) << 1;
+            PatternKey key = new PatternKey(trip.route(), service, Arrays.stream(stopIds, 0, size).boxed().toList());
+            tripsByPattern.computeIfAbsent(key, k -> new ArrayList<>()).add(Arrays.copyOf(times, size));
+            tripCount++;
+
+            // ночной хвост рейса вчерашнего дня: та же часть рейса со временами, сдвинутыми на сутки назад
+            int first = 0;
+            while (first < size && times[first] < SECONDS_PER_DAY) {
+                first++;
+            }
+            if (size - first >= 2) {
+                int[] tail = Arrays.copyOfRange(times, first, size);
+                for (int i = 0; i < tail.length; i++) {
+                    tail[i] -= SECONDS_PER_DAY;
+                }
+                PatternKey tailKey = new PatternKey(trip.route(), service | TAIL, Arrays.stream(stopIds, first, size).boxed().toList());
+                tripsByPattern.computeIfAbsent(tailKey, k -> new ArrayList<>()).add(tail);
+                tripCount++;
+            }
+        }
+
+        List<PatternData> patterns = new ArrayList<>();
+        for (var e : tripsByPattern.entrySet()) {
+            for (List<int[]> lane : splitOvertakingTrips(e.getValue())) {
+                patterns.add(new PatternData(e.getKey(), lane));
+            }
+        }
+
+        this.stops = stopList.toArray(Stop[]::new);
+        this.stopIndexById = indexById(stops);
+        this.services = serviceIndex.keySet().toArray(String[]::new);
+
+        int patternCount = patterns.size();
+        this.patternRoutes = new Route[patternCount];
+        this.patternServices = new int[patternCount];
+        this.patternLines = new int[patternCount];
+        this.patternStopOffsets = new int[patternCount + 1];
+        this.patternTripOffsets = new int[patternCount + 1];
+
+        int stopRefs = 0;
+        int timeCount = 0;
+        for (PatternData data : patterns) {
+            stopRefs += data.key().stops().size();
+            timeCount += data.key().stops().size() * data.trips().size();
+        }
+
+        this.patternStops = new int[stopRefs];
+        this.tripPatterns = new int[tripCount];
+        this.tripTimeOffsets = new int[tripCount];
+        this.stopTimes = new int[timeCount];
+
+        Map<String, Integer> lineIds = new HashMap<>();
+        int[] occurrencesPerStop = new int[stops.length];
+
+        int trip = 0;
+        int stopRef = 0;
+        int timeRef = 0;
+        for (int pattern = 0; pattern < patternCount; pattern++) {
+            PatternData data = patterns.get(pattern);
+            Route route = data.key().route();
+
+            patternRoutes[pattern] = route;
+            patternServices[pattern] = data.key().service();
+            patternLines[pattern] = lineIds.computeIfAbsent(
+                    route.transport() + "_" + route.number(), k -> lineIds.size());
+
+            patternStopOffsets[pattern] = stopRef;
+            for (int stopId : data.key().stops()) {
+                occurrencesPerStop[stopId]++;
+                patternStops[stopRef++] = stopId;
+            }
+
+            patternTripOffsets[pattern] = trip;
+            for (int[] times : data.trips()) {
+                tripPatterns[trip] = pattern;
+                tripTimeOffsets[trip] = timeRef;
+                System.arraycopy(times, 0, stopTimes, timeRef, times.length);
+                timeRef += times.length;
+                trip++;
+            }
+        }
+        patternStopOffsets[patternCount] = stopRef;
+        patternTripOffsets[patternCount] = trip;
+
+        this.stopPatternOffsets = new int[stops.length + 1];
+        for (int s = 0; s < stops.length; s++) {
+            stopPatternOffsets[s + 1] = stopPatternOffsets[s] + occurrencesPerStop[s];
+        }
+        this.stopPatterns = new int[stopPatternOffsets[stops.length]];
+        this.stopPatternPositions = new int[stopPatterns.length];
+
+        // кольцевой шаблон проходит остановку несколько раз, каждое прохождение — отдельная запись
+        int[] fill = new int[stops.length];
+        for (int p = 0; p < patternCount; p++) {
+            for (int pos = 0; pos < patternSize(p); pos++) {
+                int stopId = patternStop(p, pos);
+                int index = stopPatternOffsets[stopId] + fill[stopId]++;
+                stopPatterns[index] = p;
+                stopPatternPositions[index] = pos;
+            }
+        }
+
+        List<int[]> walks = new ArrayList<>();
+        for (Footpath footpath : footpaths) {
+            int from = indexOf(footpath.from());
+            int to = indexOf(footpath.to());
+            if (from != NO_STOP && to != NO_STOP && from != to) {
+                walks.add(new int[]{from, to, (int) footpath.duration().toSeconds()});
+            }
+        }
+        walks.sort(Comparator.<int[]>comparingInt(w -> w[0]).thenComparingInt(w -> w[2]));
+
+        this.footpathOffsets = new int[stops.length + 1];
+        this.footpathTargets = new int[walks.size()];
+        this.footpathDurations = new int[walks.size()];
+        for (int i = 0; i < walks.size(); i++) {
+            int[] walk = walks.get(i);
+            footpathOffsets[walk[0] + 1]++;
+            footpathTargets[i] = walk[1];
+            footpathDurations[i] = walk[2];
+        }
+        for (int s = 0; s < stops.length; s++) {
+            footpathOffsets[s + 1] += footpathOffsets[s];
+        }
+    }
+
+    // чтение из снимка: остановки расписания идут первыми в списке остановок снимка
+    // календарь в снимке не хранится: даты сервисов берутся из текущего календаря
+    public Timetable(ByteBuffer in, List<Stop> snapshotStops, List<Route> snapshotRoutes, ServiceCalendar calendar) {
+        this.calendar = calendar;
+        this.stops = snapshotStops.subList(0, in.getInt()).toArray(Stop[]::new);
+        this.stopIndexById = indexById(stops);
+
+        this.services = new String[in.getInt()];
+        for (int service = 0; service < services.length; service++) {
+            services[service] = TimetableSnapshot.readString(in);
+        }
+        int patternCount = in.getInt();
+        this.patternRoutes = new Route[patternCount];
+        for (int pattern = 0; pattern < patternCount; pattern++) {
+            patternRoutes[pattern] = snapshotRoutes.get(in.getInt());
+        }
+        this.patternServices = TimetableSnapshot.readInts(in);
+        this.patternLines = TimetableSnapshot.readInts(in);
+        this.patternStopOffsets = TimetableSnapshot.readInts(in);
+        this.patternStops = TimetableSnapshot.readInts(in);
+        this.patternTripOffsets = TimetableSnapshot.readInts(in);
+        this.tripPatterns = TimetableSnapshot.readInts(in);
+        this.tripTimeOffsets = TimetableSnapshot.readInts(in);
+        this.stopTimes = TimetableSnapshot.readInts(in);
+        this.stopPatternOffsets = TimetableSnapshot.readInts(in);
+        this.stopPatterns = TimetableSnapshot.readInts(in);
+        this.stopPatternPositions = TimetableSnapshot.readInts(in);
+        this.footpathOffsets = TimetableSnapshot.readInts(in);
+        this.footpathTargets = TimetableSnapshot.readInts(in);
+        this.footpathDurations = TimetableSnapshot.readInts(in);
+    }
+
+    // запись в снимок в том же порядке; маршруты шаблонов — индексами в списке маршрутов снимка
+    public void write(DataOutputStream out, Map<Route, Integer> routeIndexes) throws IOException {
+        out.writeInt(stops.length);
+        out.writeInt(services.length);
+        for (String service : services) {
+            TimetableSnapshot.writeString(out, service);
+        }
+        out.writeInt(patternRoutes.length);
+        for (Route route : patternRoutes) {
+            out.writeInt(routeIndexes.get(route));
+        }
+        TimetableSnapshot.writeInts(out, patternServices);
+        TimetableSnapshot.writeInts(out, patternLines);
+        TimetableSnapshot.writeInts(out, patternStopOffsets);
+        TimetableSnapshot.writeInts(out, patternStops);
+        TimetableSnapshot.writeInts(out, patternTripOffsets);
+        TimetableSnapshot.writeInts(out, tripPatterns);
+        TimetableSnapshot.writeInts(out, tripTimeOffsets);
+        TimetableSnapshot.writeInts(out, stopTimes);
+        TimetableSnapshot.writeInts(out, stopPatternOffsets);
+        TimetableSnapshot.writeInts(out, stopPatterns);
+        TimetableSnapshot.writeInts(out, stopPatternPositions);
+        TimetableSnapshot.writeInts(out, footpathOffsets);
+        TimetableSnapshot.writeInts(out, footpathTargets);
+        TimetableSnapshot.writeInts(out, footpathDurations);
+    }
+
+    private static Map<UUID, Integer> indexById(Stop[] stops) {
+        Map<UUID, Integer> index = new HashMap<>();
+        for (int i = 0; i < stops.length; i++) {
+            index.put(stops[i].id(), i);
+        }
+        return index;
+    }
+
+    // Сортирует рейсы по времени отправления и раскладывает их на "полосы", в которых
+    // ни один рейс не обгоняет предыдущий. Внутри полосы времена на каждой остановке
+    // не убывают, что позволяет искать рейс для посадки бинарным поиском.
+    private static List<List<int[]>> splitOvertakingTrips(List<int[]> trips) {
+        List<int[]> sorted = new ArrayList<>(trips);
+        sorted.sort(Arrays::compare);
+
+        List<List<int[]>> lanes = new ArrayList<>();
+        for (int[] times : sorted) {
+            List<int[]> lane = lanes.stream()
+                    .filter(l -> notAfter(l.getLast(), times))
+                    .findFirst()
+                    .orElse(null);
+            if (lane == null) {
+                lane = new ArrayList<>();
+                lanes.add(lane);
+            }
+            lane.add(times);
+        }
+        return lanes;
+    }
+
+    private static boolean notAfter(int[] earlier, int[] later) {
+        for (int i = 0; i < earlier.length; i++) {
+            if (earlier[i] > later[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int toSeconds(LocalTime time) {
+        return time == null ? NO_TIME : time.toSecondOfDay();
+    }
+
+    public static LocalTime toLocalTime(int seconds) {
+        return seconds == NO_TIME ? null : LocalTime.ofSecondOfDay(seconds % SECONDS_PER_DAY);
+    }
+
+    public int stopCount() {
+        return stops.length;
+    }
+
+    public int patternCount() {
+        return patternRoutes.length;
+    }
+
+    public int tripCount() {
+        return tripPatterns.length;
+    }
+
+    public Stop stop(int stopId) {
+        return stops[stopId];
+    }
+
+    public int indexOf(Stop stop) {
+        return stop == null ? NO_STOP : stopIndexById.getOrDefault(stop.id(), NO_STOP);
+    }
+
+    public Route patternRoute(int pattern) {
+        return patternRoutes[pattern];
+    }
+
+    public int patternService(int pattern) {
+        return patternServices[pattern];
+    }
+
+    public ServiceCalendar calendar() {
+        return calendar;
+    }
+
+    // шаблоны, которые ходят в дату: по биту календаря на каждый сервис расписания в эту дату
+    // и накануне — для ночных хвостов
+    public ServiceDay serviceDay(LocalDate date) {
+        LocalDate previous = date.minusDays(1);
+        BitSet running = new BitSet(services.length << 1);
+        for (int service = 0; service < services.length; service++) {
+            if (calendar.runs(services[service], date)) {
+                running.set(service << 1);
+            }
+            if (calendar.runs(services[service], previous)) {
+                running.set(service << 1 | TAIL);
+            }
+        }
+        // вытесненный набор строится заново вместе с индексами; запросы, которые уже его держат, дорабатывают
+        synchronized (serviceDays) {
+            return serviceDays.computeIfAbsent(running, k -> new ServiceDay(this, running));
+        }
+    }
+
+    public int patternLine(int pattern) {
+        return patternLines[pattern];
+    }
+
+    public int patternSize(int pattern) {
+        return patternStopOffsets[pattern + 1] - patternStopOffsets[pattern];
+    }
+
+    public int patternStop(int pattern, int position) {
+        return patternStops[patternStopOffsets[pattern] + position];
+    }
+
+    public int patternStopOffset(int pattern) {
+        return patternStopOffsets[pattern];
+    }
+
+    public int lastStop(int pattern) {
+        return patternStops[patternStopOffsets[pattern + 1] - 1];
+    }
+
+    public int firstTrip(int pattern) {
+        return patternTripOffsets[pattern];
+    }
+
+    public int endTrip(int pattern) {
+        return patternTripOffsets[pattern + 1];
+    }
+
+    // рейсы шаблона отсортированы и не обгоняют друг друга, поэтому ищем первый подходящий бинарным поиском;
+    // -1, если такого рейса нет
+    public int earliestTrip(int pattern, int position, int earliestDeparture) {
+        int low = patternTripOffsets[pattern];
+        int end = patternTripOffsets[pattern + 1];
+        if (low == end) {
+            return -1;
+        }
+
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (stopTime(mid, position) < earliestDeparture) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < end ? low : -1;
+    }
+
+    // последний рейс шаблона, который находится на позиции не позже latestTime; -1, если такого рейса нет
+    public int latestTrip(int pattern, int position, int latestTime) {
+        int first = patternTripOffsets[pattern];
+        int end = patternTripOffsets[pattern + 1];
+        if (first == end) {
+            return -1;
+        }
+
+        int low = first;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (stopTime(mid, position) <= latestTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low > first ? low - 1 : -1;
+    }
+
+    public int tripPattern(int trip) {
+        return tripPatterns[trip];
+    }
+
+    public int tripTimeOffset(int trip) {
+        return tripTimeOffsets[trip];
+    }
+
+    public int stopTime(int trip, int position) {
+        return stopTimes[tripTimeOffsets[trip] + position];
+    }
+
+    public int[] stopTimes() {
+        return stopTimes;
+    }
+
+    public int[] patternStops() {
+        return patternStops;
+    }
+
+    public int stopPatternStart(int stop) {
+        return stopPatternOffsets[stop];
+    }
+
+    public int stopPatternEnd(int stop) {
+        return stopPatternOffsets[stop + 1];
+    }
+
+    public int stopPattern(int index) {
+        return stopPatterns[index];
+    }
+
+    public int stopPatternPosition(int index) {
+        return stopPatternPositions[index];
+    }
+
+    public int footpathStart(int stop) {
+        return footpathOffsets[stop];
+    }
+
+    public int footpathEnd(int stop) {
+        return footpathOffsets[stop + 1];
+    }
+
+    public int footpathTarget(int index) {
+        return footpathTargets[index];
+    }
+
+    public int footpathDuration(int index) {
+        return footpathDurations[index];
+    }
+
+    // индекс алгоритма над этим расписанием, по одному на тип; строится при первом обращении
+    public <T> T index(Class<T> type, Function<Timetable, T> factory) {
+        Object index = indexes.get(type);
+        if (index == null) {
+            index = indexes.computeIfAbsent(type, k -> factory.apply(this));
+        }
+        return type.cast(index);
+    }
+
+    // время перехода между остановками в секундах, NO_TIME если перехода нет
+    public int walkTime(int from, int to) {
+        for (int i = footpathOffsets[from]; i < footpathOffsets[from + 1]; i++) {
+            if (footpathTargets[i] == to) {
+                return footpathDurations[i];
+            }
+        }
+        return NO_TIME;
+    }
+
+    // рейсы одного шаблона останавливаются на одинаковой последовательности остановок
+    private record PatternKey(Route route, int service, List<Integer> stops) {
+    }
+
+    private record PatternData(PatternKey key, List<int[]> trips) {
+    }
+}
@@ -0,0 +1,181 @@
+package dev.bratskov.raspisanie.benchmark;
+
+import dev.bratskov.raspisanie.mapper.GtfsImporter;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Время и пиковый объём кучи при импорте GTFS-архива с более чем миллионом строк stop_times.txt
+ * и при компиляции расписания из импортированной модели. Архив генерируется: сеть из
+ * {@link #ROUTES} маршрутов по {@link #ROUTE_STOPS} остановок в обоих направлениях, рейсы будних и выходных дней.
+ * Не входит в обычный прогон тестов: {@code mvn test -Dtest=GtfsImportBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GtfsImportBenchmarkTest {
+
+    private static final int WARMUP_PASSES = 2;
+    private static final int MEASURED_PASSES = 3;
+    private static final int STOPS = 2000;
+    private static final int ROUTES = 80;
+    private static final int ROUTE_STOPS = 26;
+    // рейсов в каждом направлении маршрута на каждый сервис: 80 * 2 * 2 * 125 * 26 = 1 040 000 строк stop_times
+    private static final int TRIPS_PER_DIRECTION = 125;
+    private static final int HEADWAY_SECONDS = 7 * 60;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importLargeFeed() throws IOException {
+        String feed = generateFeed();
+        GtfsImporter.Feed result = null;
+        for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+            result = importFeed(feed);
+        }
+
+        long bestImport = Long.MAX_VALUE;
+        long bestCompile = Long.MAX_VALUE;
+        long peakImport = Long.MAX_VALUE;
+        long retained = 0;
+        for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+            result = null;
+            long before = usedHeapAfterGc();
+            resetPeaks();
+            long start = System.nanoTime();
+            result = importFeed(feed);
+            bestImport = Math.min(bestImport, System.nanoTime() - start);
+            peakImport = Math.min(peakImport, peakHeap() - before);
+            retained = usedHeapAfterGc() - before;
+
+            start = System.nanoTime();
+            Timetable timetable = new Timetable(result.stopMap(), result.trips(), List.of(), result.calendar());
+            bestCompile = Math.min(bestCompile, System.nanoTime() - start);
+            assertThat(timetable.tripCount()).isPositive();
+        }
+
+        // пик — сумма пиков по областям кучи сверх занятого до импорта, без учёта освобождённого сборщиком
+        System.out.printf("GtfsImporter.read: %.1f мс, пик кучи %.1f МБ, модель в куче %.1f МБ; "
+                        + "остановок %d, маршрутов %d, рейсов %d%n",
+                bestImport / 1_000_000.0, peakImport / 1024.0 / 1024.0, retained / 1024.0 / 1024.0,
+                result.stopMap().size(), result.routeMap().size(), result.trips().size());
+        System.out.printf("Timetable из GTFS: %.1f мс%n", bestCompile / 1_000_000.0);
+        assertThat(result.trips()).hasSize(ROUTES * 2 * 2 * TRIPS_PER_DIRECTION);
+    }
+
+    private GtfsImporter.Feed importFeed(String feed) throws IOException {
+        return new GtfsImporter(new TextFileReader(new DefaultResourceLoader())).read(feed);
+    }
+
+    private String generateFeed() throws IOException {
+        Path feed = dir.resolve("feed.zip");
+        try (OutputStream out = Files.newOutputStream(feed);
+             ZipOutputStream zip = new ZipOutputStream(out);
+             Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8)) {
+            zip.putNextEntry(new ZipEntry("stops.txt"));
+            writer.write("stop_id,stop_name,stop_lat,stop_lon\n");
+            for (int stop = 0; stop < STOPS; stop++) {
+                writer.write("s" + stop + ",Остановка " + stop + ",53.6,23.8\n");
+            }
+            writer.flush();
+
+            zip.putNextEntry(new ZipEntry("routes.txt"));
+            writer.write("route_id,route_short_name,route_type\n");
+            for (int route = 0; route < ROUTES; route++) {
+                writer.write("r" + route + "," + (route + 1) + "," + (route % 4 == 0 ? 11 : 3) + "\n");
+            }
+            writer.flush();
+
+            zip.putNextEntry(new ZipEntry("calendar.txt"));
+            writer.write("service_id,monday,tuesday,wednesday,thursday,friday,saturday,sunday,start_date,end_date\n");
+            writer.write("WD,1,1,1,1,1,0,0,20260101,20271231\nWE,0,0,0,0,0,1,1,20260101,20271231\n");
+            writer.flush();
+
+            zip.putNextEntry(new ZipEntry("trips.txt"));
+            writer.write("route_id,service_id,trip_id,direction_id\n");
+            for (String trip : tripIds()) {
+                String[] parts = trip.split("_");
+                writer.write(parts[0] + "," + parts[1] + "," + trip + "," + parts[2] + "\n");
+            }
+            writer.flush();
+
+            zip.putNextEntry(new ZipEntry("stop_times.txt"));
+            writer.write("trip_id,arrival_time,departure_time,stop_id,stop_sequence\n");
+            StringBuilder line = new StringBuilder();
+            for (String trip : tripIds()) {
+                String[] parts = trip.split("_");
+                int route = Integer.parseInt(parts[0].substring(1));
+                boolean back = parts[2].equals("1");
+                int departure = 5 * 3600 + route * 37 + Integer.parseInt(parts[3]) * HEADWAY_SECONDS;
+                for (int i = 0; i < ROUTE_STOPS; i++) {
+                    int position = back ? ROUTE_STOPS - 1 - i : i;
+                    int stop = (route * 17 + position * 13) % STOPS;
+                    String time = time(departure + i * 90);
+                    line.setLength(0);
+                    line.append(trip).append(',').append(time).append(',').append(time)
+                            .append(",s").append(stop).append(',').append(i + 1).append('\n');
+                    writer.append(line);
+                }
+            }
+            writer.flush();
+        }
+        return feed.toUri().toString();
+    }
+
+    private List<String> tripIds() {
+        List<String> trips = new ArrayList<>();
+        for (int route = 0; route < ROUTES; route++) {
+            for (String service : List.of("WD", "WE")) {
+                for (int direction = 0; direction < 2; direction++) {
+                    for (int trip = 0; trip < TRIPS_PER_DIRECTION; trip++) {
+                        trips.add("r" + route + "_" + service + "_" + direction + "_" + trip);
+                    }
+                }
+            }
+        }
+        return trips;
+    }
+
+    private static String time(int seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    private static void resetPeaks() {
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeap() {
+        return heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return heapPools().stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+    }
+}
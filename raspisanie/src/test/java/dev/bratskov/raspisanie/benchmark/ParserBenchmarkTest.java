@@ -0,0 +1,91 @@
+package dev.bratskov.raspisanie.benchmark;
+
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Время и объём выделенной памяти при разборе полного trips.txt на старте приложения,
+ * последовательно и параллельно по блокам маршрутов (по умолчанию по числу ядер, -Dparallelism=N).
+ * Не входит в обычный прогон тестов: {@code mvn test -Dtest=ParserBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ParserBenchmarkTest {
+
+    private static final int WARMUP_PASSES = 5;
+    private static final int MEASURED_PASSES = 10;
+    private static final int PARALLELISM = Integer.getInteger("parallelism", Runtime.getRuntime().availableProcessors());
+    // региональный фид: trips.txt, повторённый несколько раз
+    private static final int FEED_COPIES = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parseTripsFile() {
+        report("classpath:trips.txt", 1);
+    }
+
+    @Test
+    void parseTripsFileInParallel() {
+        report("classpath:trips.txt", PARALLELISM);
+    }
+
+    @Test
+    void parseLargeFeed() throws IOException {
+        String feed = largeFeed();
+        report(feed, 1);
+        report(feed, PARALLELISM);
+    }
+
+    private void report(String location, int parallelism) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+            parse(location, parallelism);
+        }
+
+        long bestTime = Long.MAX_VALUE;
+        long bestAllocated = Long.MAX_VALUE;
+        int trips = 0;
+        for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            trips = parse(location, parallelism).getTrips().size();
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+            bestAllocated = Math.min(bestAllocated, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+
+        // при параллельном разборе память выделяют и потоки пула, здесь учтён только вызывающий поток
+        System.out.printf("Parser.init x%d: %.1f мс, выделено %.1f МБ, рейсов %d%n",
+                parallelism, bestTime / 1_000_000.0, bestAllocated / 1024.0 / 1024.0, trips);
+        assertThat(trips).isPositive();
+    }
+
+    private Parser parse(String location, int parallelism) {
+        Parser parser = new Parser(new TextFileReader(new DefaultResourceLoader()));
+        ReflectionTestUtils.setField(parser, "filePath", location);
+        ReflectionTestUtils.setField(parser, "parallelism", parallelism);
+        parser.init();
+        return parser;
+    }
+
+    private String largeFeed() throws IOException {
+        String trips = new TextFileReader(new DefaultResourceLoader()).read("classpath:trips.txt");
+        Path feed = dir.resolve("feed.txt");
+        Files.writeString(feed, (trips + "\n").repeat(FEED_COPIES));
+        return feed.toUri().toString();
+    }
+}
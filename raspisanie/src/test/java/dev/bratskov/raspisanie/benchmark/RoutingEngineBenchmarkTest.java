@@ -0,0 +1,138 @@
+package dev.bratskov.raspisanie.benchmark;
+
+import dev.bratskov.raspisanie.fixture.TimetableFixture;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.raptor.ConnectionScan;
+import dev.bratskov.raspisanie.service.raptor.Raptor;
+import dev.bratskov.raspisanie.service.raptor.RoutingEngine;
+import dev.bratskov.raspisanie.service.raptor.TripBased;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение RAPTOR, CSA и Trip-Based, а также параллельного сканирования RAPTOR, на полном расписании
+ * trips.txt. Не входит в обычный прогон тестов:
+ * {@code mvn test -Dtest=RoutingEngineBenchmarkTest -Dbenchmark=true [-Dparallelism=N]}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RoutingEngineBenchmarkTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 10, 17);
+
+    private static final int QUERIES = 2000;
+    private static final int WARMUP_PASSES = 3;
+    private static final int MEASURED_PASSES = 5;
+    private static final int PARALLELISM = Integer.getInteger("parallelism", Runtime.getRuntime().availableProcessors());
+
+    private Raptor raptor;
+    private Raptor parallelRaptor;
+    private ConnectionScan csa;
+    private TripBased tripBased;
+    private List<Query> queries;
+
+    @BeforeEach
+    void setUp() {
+        TimetableFixture fixture = TimetableFixture.load("classpath:trips.txt");
+        TimetableRepo timetableRepo = fixture.timetableRepo();
+        StopService stopService = fixture.stopService();
+
+        raptor = new Raptor(timetableRepo, stopService);
+        parallelRaptor = new Raptor(timetableRepo, stopService);
+        ReflectionTestUtils.setField(parallelRaptor, "parallelism", PARALLELISM);
+        parallelRaptor.init();
+        csa = new ConnectionScan(timetableRepo, stopService);
+        tripBased = new TripBased(timetableRepo, stopService);
+
+        List<Stop> stops = fixture.stopRepo().getStops().stream()
+                .sorted(Comparator.comparing(Stop::description))
+                .toList();
+        Random random = new Random(42);
+        queries = new ArrayList<>();
+        while (queries.size() < QUERIES) {
+            Stop origin = stops.get(random.nextInt(stops.size()));
+            Stop target = stops.get(random.nextInt(stops.size()));
+            if (!origin.equals(target)) {
+                queries.add(new Query(origin, target,
+                        LocalTime.of(5 + random.nextInt(18), random.nextInt(60)),
+                        random.nextBoolean() ? WEDNESDAY : SATURDAY));
+            }
+        }
+    }
+
+    @Test
+    void compareEngines() {
+        report("plan", (engine, q) -> engine.plan(q.origin().id(), q.target().id(), q.time(), q.date()));
+        report("planAllPaths", (engine, q) -> engine.planAllPaths(q.origin().id(), q.target().id(), q.time(), q.date()));
+    }
+
+    // сканирование шаблонов раунда в пуле (по умолчанию по числу ядер, -Dparallelism=N) против одного потока
+    @Test
+    void compareParallelScan() {
+        try {
+            report("planAllPaths", List.of(raptor, parallelRaptor),
+                    (engine, q) -> engine.planAllPaths(q.origin().id(), q.target().id(), q.time(), q.date()));
+            report("reach", List.of(raptor, parallelRaptor),
+                    (engine, q) -> ((Raptor) engine).reach(q.origin().id(), q.time(), q.date(), Duration.ofHours(2)));
+        } finally {
+            parallelRaptor.shutdown();
+        }
+    }
+
+    private void report(String method, BiConsumer<RoutingEngine, Query> call) {
+        report(method, List.of(raptor, csa, tripBased), call);
+    }
+
+    private void report(String method, List<RoutingEngine> engines, BiConsumer<RoutingEngine, Query> call) {
+        for (RoutingEngine engine : engines) {
+            for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+                run(engine, call);
+            }
+
+            long best = Long.MAX_VALUE;
+            int found = 0;
+            for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+                long start = System.nanoTime();
+                found = run(engine, call);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+
+            String name = engine == parallelRaptor ? "Raptor x" + PARALLELISM : engine.getClass().getSimpleName();
+            System.out.printf("%-14s %-15s %8.1f мкс/запрос, найдено %d из %d%n",
+                    name, method, best / 1000.0 / queries.size(), found, queries.size());
+            assertThat(found).isPositive();
+        }
+    }
+
+    private int run(RoutingEngine engine, BiConsumer<RoutingEngine, Query> call) {
+        int found = 0;
+        for (Query query : queries) {
+            try {
+                call.accept(engine, query);
+                found++;
+            } catch (NoSuchElementException | IllegalStateException e) {
+                // маршрута нет
+            }
+        }
+        return found;
+    }
+
+    private record Query(Stop origin, Stop target, LocalTime time, LocalDate date) {
+    }
+}
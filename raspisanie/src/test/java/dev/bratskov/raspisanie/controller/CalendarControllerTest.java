@@ -0,0 +1,56 @@
+package dev.bratskov.raspisanie.controller;
+
+import dev.bratskov.raspisanie.service.CalendarService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CalendarController.class)
+class CalendarControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CalendarService calendarService;
+
+    @Test
+    void getServiceDay_shouldReturnServicesForDate() throws Exception {
+        LocalDate date = LocalDate.of(2026, 5, 1);
+        when(calendarService.findServices(date)).thenReturn(List.of("WEEKEND"));
+
+        mockMvc.perform(get("/api/v1/calendar")
+                        .param("date", "2026-05-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value("2026-05-01"))
+                .andExpect(jsonPath("$.services[0]").value("WEEKEND"));
+    }
+
+    @Test
+    void getServiceDay_shouldUseToday_whenDateNotProvided() throws Exception {
+        LocalDate today = LocalDate.now();
+        when(calendarService.findServices(today)).thenReturn(List.of("WEEKDAY"));
+
+        mockMvc.perform(get("/api/v1/calendar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value(today.toString()))
+                .andExpect(jsonPath("$.services[0]").value("WEEKDAY"));
+    }
+
+    @Test
+    void getServiceDay_shouldReturnBadRequest_whenDateHasWrongFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/calendar")
+                        .param("date", "01.01.2030"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -2,13 +2,19 @@
 package dev.bratskov.raspisanie.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.bratskov.raspisanie.dto.MatrixRequestDto;
 import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.dto.ReachRequestDto;
+import dev.bratskov.raspisanie.dto.ReachResponseDto;
+import dev.bratskov.raspisanie.dto.RoutingArrivalRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingGroupRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingRangeRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingResponseDto;
 import dev.bratskov.raspisanie.dto.SegmentDto;
 import dev.bratskov.raspisanie.model.Stop;
-import dev.bratskov.raspisanie.model.enums.Day;
 import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.service.MatrixService;
 import dev.bratskov.raspisanie.service.RoutingService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +22,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -24,13 +33,18 @@ import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @WebMvcTest(RoutingController.class)
 class RoutingControllerTest {
 
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -40,13 +54,16 @@ class RoutingControllerTest {
     @MockitoBean
     private RoutingService routingService;
 
+    @MockitoBean
+    private MatrixService matrixService;
+
     @Test
     void getPlan_shouldReturnRoute_whenValidRequest() throws Exception {
         RoutingRequestDto request = new RoutingRequestDto(
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 LocalTime.of(8, 30),
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
         Stop stop1 = Stop.builder()
@@ -108,7 +125,7 @@ class RoutingControllerTest {
                 null,
                 UUID.randomUUID(),
                 LocalTime.of(8, 30),
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
         mockMvc.perform(post("/api/v1/routing/plan")
@@ -125,7 +142,7 @@ class RoutingControllerTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 null,
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
         mockMvc.perform(post("/api/v1/routing/plan")
@@ -141,7 +158,7 @@ class RoutingControllerTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 LocalTime.of(8, 30),
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
         when(routingService.findPath(any(RoutingRequestDto.class)))
@@ -161,7 +178,7 @@ class RoutingControllerTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 LocalTime.of(8, 30),
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
 
@@ -193,6 +210,245 @@ class RoutingControllerTest {
                 .andExpect(jsonPath("$[1].routeTime").value("00:30"));
     }
 
+    @Test
+    void getArriveByPlan_shouldReturnRoute() throws Exception {
+        RoutingArrivalRequestDto request = RoutingArrivalRequestDto.builder()
+                .originStopId(UUID.randomUUID())
+                .targetStopId(UUID.randomUUID())
+                .arrivalTime(LocalTime.of(8, 50))
+                .date(WEDNESDAY)
+                .build();
+
+        RoutingResponseDto response = RoutingResponseDto.builder()
+                .routeTime("00:35")
+                .totalStops(7)
+                .transfers(1)
+                .fullPath(List.of())
+                .segments(List.of())
+                .build();
+
+        when(routingService.findArriveByPath(any(RoutingArrivalRequestDto.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/routing/plan/arrive-by")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routeTime").value("00:35"))
+                .andExpect(jsonPath("$.transfers").value(1));
+    }
+
+    @Test
+    void getGroupPlan_shouldReturnRoute() throws Exception {
+        RoutingGroupRequestDto request = RoutingGroupRequestDto.builder()
+                .originName("ПОЧТА")
+                .targetGroupId(UUID.randomUUID())
+                .time(LocalTime.of(8, 0))
+                .date(WEDNESDAY)
+                .build();
+
+        RoutingResponseDto response = RoutingResponseDto.builder()
+                .routeTime("00:15")
+                .totalStops(4)
+                .transfers(0)
+                .fullPath(List.of())
+                .segments(List.of())
+                .build();
+
+        when(routingService.findGroupPath(any(RoutingGroupRequestDto.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/routing/plan/group")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routeTime").value("00:15"));
+    }
+
+    @Test
+    void getGroupPlan_shouldReturn400_whenGroupNotSpecified() throws Exception {
+        RoutingGroupRequestDto request = RoutingGroupRequestDto.builder()
+                .originName("ПОЧТА")
+                .time(LocalTime.of(8, 0))
+                .date(WEDNESDAY)
+                .build();
+
+        when(routingService.findGroupPath(any(RoutingGroupRequestDto.class)))
+                .thenThrow(new IllegalArgumentException("Укажите название или ID целевой остановки"));
+
+        mockMvc.perform(post("/api/v1/routing/plan/group")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getReachableStops_shouldReturnCompactArrays() throws Exception {
+        UUID originId = UUID.randomUUID();
+        UUID stopId = UUID.randomUUID();
+        ReachRequestDto request = new ReachRequestDto(originId, LocalTime.of(8, 0), WEDNESDAY, 30);
+
+        ReachResponseDto response = ReachResponseDto.builder()
+                .originStopId(originId)
+                .departureTime(LocalTime.of(8, 0))
+                .stopIds(new UUID[]{originId, stopId})
+                .travelTimes(new int[]{0, 600})
+                .transfers(new int[]{0, 0})
+                .build();
+
+        when(routingService.findReachableStops(any(ReachRequestDto.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/routing/reach")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stopIds[1]").value(stopId.toString()))
+                .andExpect(jsonPath("$.travelTimes[1]").value(600));
+    }
+
+    @Test
+    void getReachableStops_shouldReturn400_whenBudgetIsNotPositive() throws Exception {
+        ReachRequestDto request = new ReachRequestDto(UUID.randomUUID(), LocalTime.of(8, 0), WEDNESDAY, 0);
+
+        mockMvc.perform(post("/api/v1/routing/reach")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getMatrix_shouldStreamNdjsonRows() throws Exception {
+        MatrixRequestDto request = new MatrixRequestDto(
+                List.of(UUID.randomUUID()), List.of(UUID.randomUUID()), LocalTime.of(8, 0), WEDNESDAY);
+        StreamingResponseBody body = output -> output.write("{\"travelTimes\":[600]}\n".getBytes());
+
+        when(matrixService.streamMatrix(any(MatrixRequestDto.class))).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/routing/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"travelTimes\":[600]}\n"));
+    }
+
+    @Test
+    void getMatrix_shouldReturn400_whenOriginsAreEmpty() throws Exception {
+        MatrixRequestDto request = new MatrixRequestDto(
+                List.of(), List.of(UUID.randomUUID()), LocalTime.of(8, 0), WEDNESDAY);
+
+        mockMvc.perform(post("/api/v1/routing/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getArriveByPlan_shouldReturn400_whenArrivalTimeIsNull() throws Exception {
+        RoutingArrivalRequestDto request = RoutingArrivalRequestDto.builder()
+                .originStopId(UUID.randomUUID())
+                .targetStopId(UUID.randomUUID())
+                .date(WEDNESDAY)
+                .build();
+
+        mockMvc.perform(post("/api/v1/routing/plan/arrive-by")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getParetoPlans_shouldReturnAllAlternatives() throws Exception {
+        RoutingRequestDto request = new RoutingRequestDto(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                LocalTime.of(8, 30),
+                WEDNESDAY
+        );
+
+        RoutingResponseDto fastest = RoutingResponseDto.builder()
+                .routeTime("00:25")
+                .totalStops(6)
+                .transfers(1)
+                .fullPath(List.of())
+                .segments(List.of())
+                .build();
+
+        RoutingResponseDto direct = RoutingResponseDto.builder()
+                .routeTime("00:40")
+                .totalStops(8)
+                .transfers(0)
+                .fullPath(List.of())
+                .segments(List.of())
+                .build();
+
+        when(routingService.findParetoPaths(any(RoutingRequestDto.class)))
+                .thenReturn(List.of(fastest, direct));
+
+        mockMvc.perform(post("/api/v1/routing/plan/pareto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].transfers").value(1))
+                .andExpect(jsonPath("$[1].transfers").value(0));
+    }
+
+    @Test
+    void getRangePlans_shouldReturnRoutesSortedByService() throws Exception {
+        RoutingRangeRequestDto request = RoutingRangeRequestDto.builder()
+                .originStopId(UUID.randomUUID())
+                .targetStopId(UUID.randomUUID())
+                .from(LocalTime.of(8, 0))
+                .to(LocalTime.of(9, 0))
+                .date(WEDNESDAY)
+                .build();
+
+        RoutingResponseDto early = RoutingResponseDto.builder()
+                .routeTime("00:20")
+                .totalStops(3)
+                .transfers(0)
+                .fullPath(List.of())
+                .segments(List.of())
+                .build();
+
+        RoutingResponseDto late = RoutingResponseDto.builder()
+                .routeTime("00:15")
+                .totalStops(2)
+                .transfers(0)
+                .fullPath(List.of())
+                .segments(List.of())
+                .build();
+
+        when(routingService.findPathsInRange(any(RoutingRangeRequestDto.class)))
+                .thenReturn(List.of(early, late));
+
+        mockMvc.perform(post("/api/v1/routing/plan/range")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].routeTime").value("00:20"))
+                .andExpect(jsonPath("$[1].routeTime").value("00:15"));
+    }
+
+    @Test
+    void getRangePlans_shouldReturn400_whenWindowEndIsNull() throws Exception {
+        RoutingRangeRequestDto request = RoutingRangeRequestDto.builder()
+                .originStopId(UUID.randomUUID())
+                .targetStopId(UUID.randomUUID())
+                .from(LocalTime.of(8, 0))
+                .date(WEDNESDAY)
+                .build();
+
+        mockMvc.perform(post("/api/v1/routing/plan/range")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getPlan_shouldReturn400_whenSameOriginAndTarget() throws Exception {
         UUID sameId = UUID.randomUUID();
@@ -200,7 +456,7 @@ class RoutingControllerTest {
                 sameId,
                 sameId,
                 LocalTime.of(8, 30),
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
         when(routingService.findPath(any(RoutingRequestDto.class)))
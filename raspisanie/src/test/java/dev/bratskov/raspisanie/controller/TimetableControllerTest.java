@@ -0,0 +1,74 @@
+package dev.bratskov.raspisanie.controller;
+
+import dev.bratskov.raspisanie.dto.TimetableVersionDto;
+import dev.bratskov.raspisanie.service.TimetableReloadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = TimetableController.class, properties = "data.reload.admin-token=" + TimetableControllerTest.ADMIN_TOKEN)
+class TimetableControllerTest {
+
+    static final String ADMIN_TOKEN = "secret";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TimetableReloadService reloadService;
+
+    @Test
+    void getVersion_shouldReturnCurrentVersion() throws Exception {
+        when(reloadService.currentVersion()).thenReturn(version(1));
+
+        mockMvc.perform(get("/api/v1/timetable"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.stops").value(120))
+                .andExpect(jsonPath("$.routes").value(8))
+                .andExpect(jsonPath("$.trips").value(300));
+    }
+
+    @Test
+    void reload_shouldAcceptAndReturnVersionToPoll() throws Exception {
+        when(reloadService.requestReload()).thenReturn(2L);
+
+        mockMvc.perform(post("/api/v1/timetable/reload").header("X-Admin-Token", ADMIN_TOKEN))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/timetable"))
+                .andExpect(jsonPath("$.version").value(2));
+    }
+
+    @Test
+    void reload_shouldReturnForbidden_whenTokenMissingOrWrong() throws Exception {
+        mockMvc.perform(post("/api/v1/timetable/reload"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/timetable/reload").header("X-Admin-Token", "wrong"))
+                .andExpect(status().isForbidden());
+
+        verify(reloadService, never()).requestReload();
+    }
+
+    private TimetableVersionDto version(long version) {
+        return TimetableVersionDto.builder()
+                .version(version)
+                .loadedAt(Instant.parse("2026-10-17T08:00:00Z"))
+                .stops(120)
+                .routes(8)
+                .trips(300)
+                .build();
+    }
+}
@@ -3,7 +3,6 @@ package dev.bratskov.raspisanie.e2e.scenario;
 import dev.bratskov.raspisanie.dto.RoutingRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingResponseDto;
 import dev.bratskov.raspisanie.e2e.support.StopTestSupport;
-import dev.bratskov.raspisanie.model.enums.Day;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +12,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.List;
@@ -25,6 +25,8 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 public class BuildRouteTest {
 
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
     @Autowired
     private TestRestTemplate testTemplate;
 
@@ -44,7 +46,7 @@ public class BuildRouteTest {
                 .originStopId(originStopId)
                 .targetStopId(targetStopId)
                 .time(LocalTime.of(11, 54))
-                .day(Day.WEEKDAY)
+                .date(WEDNESDAY)
                 .build();
 
         ResponseEntity<RoutingResponseDto> response = testTemplate.postForEntity(
@@ -69,7 +71,7 @@ public class BuildRouteTest {
                 .originStopId(originStopId)
                 .targetStopId(targetStopId)
                 .time(LocalTime.of(11, 54))
-                .day(Day.WEEKDAY)
+                .date(WEDNESDAY)
                 .build();
 
         ResponseEntity<RoutingResponseDto[]> response = testTemplate.exchange(
@@ -0,0 +1,57 @@
+package dev.bratskov.raspisanie.fixture;
+
+import dev.bratskov.raspisanie.mapper.FootpathParser;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.mapper.RouteMapper;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.repo.FootpathRepo;
+import dev.bratskov.raspisanie.repo.RouteRepo;
+import dev.bratskov.raspisanie.repo.StopRepo;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.repo.TripRepo;
+import dev.bratskov.raspisanie.service.RouteService;
+import dev.bratskov.raspisanie.service.StopSearchService;
+import dev.bratskov.raspisanie.service.StopService;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Репозитории и сервисы поверх одного разобранного файла, собранные так же, как в контексте Spring,
+ * но без него: для тестов алгоритмов и бенчмарков.
+ */
+public record TimetableFixture(
+        Parser parser,
+        FootpathParser footpathParser,
+        TimetableRepo timetableRepo,
+        StopRepo stopRepo,
+        RouteRepo routeRepo,
+        TripRepo tripRepo,
+        FootpathRepo footpathRepo,
+        StopService stopService
+) {
+
+    public static TimetableFixture load(String file) {
+        Parser parser = new Parser(new TextFileReader(new DefaultResourceLoader()));
+        ReflectionTestUtils.setField(parser, "filePath", file);
+        parser.init();
+        return of(parser);
+    }
+
+    public static TimetableFixture of(Parser parser) {
+        FootpathParser footpathParser = new FootpathParser(parser, new TextFileReader(new DefaultResourceLoader()));
+        ReflectionTestUtils.setField(footpathParser, "sameNameWalkMinutes", 5);
+        footpathParser.init();
+
+        TimetableRepo timetableRepo = new TimetableRepo(parser, footpathParser, new TimetableSnapshot());
+        StopRepo stopRepo = new StopRepo(timetableRepo);
+        RouteRepo routeRepo = new RouteRepo(timetableRepo);
+        StopService stopService = new StopService(
+                stopRepo,
+                new RouteService(routeRepo, new RouteMapper()),
+                new StopSearchService(stopRepo)
+        );
+        return new TimetableFixture(parser, footpathParser, timetableRepo, stopRepo, routeRepo,
+                new TripRepo(timetableRepo), new FootpathRepo(timetableRepo), stopService);
+    }
+}
@@ -0,0 +1,79 @@
+package dev.bratskov.raspisanie.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import dev.bratskov.raspisanie.dto.RoutingRequestDto;
+import dev.bratskov.raspisanie.service.raptor.ConnectionScan;
+import dev.bratskov.raspisanie.service.raptor.RoutingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "routing.engine=csa")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ConnectionScanIntegrationTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoutingEngine routingEngine;
+
+    @Test
+    void routingEngine_shouldBeSelectedByConfiguration() {
+        assertThat(routingEngine).isInstanceOf(ConnectionScan.class);
+    }
+
+    @Test
+    void getAllPlans_shouldUseConnectionScan() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/stops"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<String> ids = JsonPath.read(response,
+                "$[?(@.name=='ВИШНЕВЕЦ' && @.description=='ВИШНЕВЕЦ _КОНЕЧНАЯ')].id");
+        String originStopId = ids.getFirst();
+
+        ids = JsonPath.read(response,
+                "$[?(@.name=='УНИВЕРСИТЕТ' && @.description=='УНИВЕРСИТЕТ _ТЕАТР КУКОЛ')].id");
+        String targetStopId = ids.getFirst();
+
+        RoutingRequestDto request = RoutingRequestDto.builder()
+                .originStopId(UUID.fromString(originStopId))
+                .targetStopId(UUID.fromString(targetStopId))
+                .date(WEDNESDAY)
+                .time(LocalTime.of(13, 30))
+                .build();
+
+        mockMvc.perform(post("/api/v1/routing/plan/all")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$[0].routeTime").exists());
+    }
+}
@@ -2,8 +2,10 @@ package dev.bratskov.raspisanie.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
+import dev.bratskov.raspisanie.dto.ReachRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingArrivalRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingRangeRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingRequestDto;
-import dev.bratskov.raspisanie.model.enums.Day;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -12,10 +14,12 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -27,6 +31,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 public class RoutingControllerIntegrationTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -52,7 +59,7 @@ public class RoutingControllerIntegrationTest {
         RoutingRequestDto request = RoutingRequestDto.builder()
                 .originStopId(UUID.fromString(originStopId))
                 .targetStopId(UUID.fromString(targetStopId))
-                .day(Day.WEEKDAY)
+                .date(WEDNESDAY)
                 .time(LocalTime.of(13, 30))
                 .build();
 
@@ -65,6 +72,109 @@ public class RoutingControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].routeTime").exists());
     }
 
+    @Test
+    void getArriveByPlan_shouldArriveBeforeRequestedTime() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/stops"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<String> ids = JsonPath.read(response,
+                "$[?(@.name=='ВИШНЕВЕЦ' && @.description=='ВИШНЕВЕЦ _КОНЕЧНАЯ')].id");
+        String originStopId = ids.getFirst();
+
+        ids = JsonPath.read(response,
+                "$[?(@.name=='УНИВЕРСИТЕТ' && @.description=='УНИВЕРСИТЕТ _ТЕАТР КУКОЛ')].id");
+        String targetStopId = ids.getFirst();
+
+        RoutingArrivalRequestDto request = RoutingArrivalRequestDto.builder()
+                .originStopId(UUID.fromString(originStopId))
+                .targetStopId(UUID.fromString(targetStopId))
+                .date(WEDNESDAY)
+                .arrivalTime(LocalTime.of(14, 0))
+                .build();
+
+        String result = mockMvc.perform(post("/api/v1/routing/plan/arrive-by")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routeTime").exists())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String arrival = JsonPath.read(result, "$.fullPath[-1].time");
+        assertThat(LocalTime.parse(arrival)).isBeforeOrEqualTo(LocalTime.of(14, 0));
+    }
+
+    @Test
+    void getRangePlans_shouldReturnJourneysWithinWindow() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/stops"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<String> ids = JsonPath.read(response,
+                "$[?(@.name=='ВИШНЕВЕЦ' && @.description=='ВИШНЕВЕЦ _КОНЕЧНАЯ')].id");
+        String originStopId = ids.getFirst();
+
+        ids = JsonPath.read(response,
+                "$[?(@.name=='УНИВЕРСИТЕТ' && @.description=='УНИВЕРСИТЕТ _ТЕАТР КУКОЛ')].id");
+        String targetStopId = ids.getFirst();
+
+        RoutingRangeRequestDto request = RoutingRangeRequestDto.builder()
+                .originStopId(UUID.fromString(originStopId))
+                .targetStopId(UUID.fromString(targetStopId))
+                .date(WEDNESDAY)
+                .from(LocalTime.of(13, 0))
+                .to(LocalTime.of(14, 0))
+                .build();
+
+        mockMvc.perform(post("/api/v1/routing/plan/range")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$.length()", greaterThan(1)))
+                .andExpect(jsonPath("$[0].routeTime").exists());
+    }
+
+    @Test
+    void getReachableStops_shouldReturnSortedParallelArrays() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/stops"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<String> ids = JsonPath.read(response,
+                "$[?(@.name=='ВИШНЕВЕЦ' && @.description=='ВИШНЕВЕЦ _КОНЕЧНАЯ')].id");
+
+        ReachRequestDto request = ReachRequestDto.builder()
+                .originStopId(UUID.fromString(ids.getFirst()))
+                .time(LocalTime.of(13, 30))
+                .date(WEDNESDAY)
+                .maxTravelMinutes(60)
+                .build();
+
+        String body = mockMvc.perform(post("/api/v1/routing/reach")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stopIds.length()", greaterThan(1)))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<Integer> travelTimes = JsonPath.read(body, "$.travelTimes");
+        List<Integer> transfers = JsonPath.read(body, "$.transfers");
+        List<String> stopIds = JsonPath.read(body, "$.stopIds");
+        assertThat(travelTimes).hasSameSizeAs(stopIds).hasSameSizeAs(transfers);
+        assertThat(travelTimes).isSorted().allMatch(time -> time <= 60 * 60);
+    }
+
     @Test
     void getPlan_shouldReturn400_whenRouteNotFound() throws Exception {
         String response = mockMvc.perform(get("/api/v1/stops"))
@@ -80,7 +190,7 @@ public class RoutingControllerIntegrationTest {
         RoutingRequestDto request = RoutingRequestDto.builder()
                 .originStopId(UUID.fromString(originStopId))
                 .targetStopId(UUID.fromString(originStopId))
-                .day(Day.WEEKDAY)
+                .date(WEDNESDAY)
                 .time(LocalTime.of(13, 30))
                 .build();
 
@@ -96,7 +206,7 @@ public class RoutingControllerIntegrationTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 LocalTime.of(3, 0),
-                Day.WEEKDAY
+                WEDNESDAY
         );
 
         mockMvc.perform(post("/api/v1/routing/plan")
@@ -125,7 +235,7 @@ public class RoutingControllerIntegrationTest {
         RoutingRequestDto request = RoutingRequestDto.builder()
                 .originStopId(UUID.fromString(originStopId))
                 .targetStopId(UUID.fromString(targetStopId))
-                .day(Day.WEEKDAY)
+                .date(WEDNESDAY)
                 .time(LocalTime.of(13, 30))
                 .build();
 
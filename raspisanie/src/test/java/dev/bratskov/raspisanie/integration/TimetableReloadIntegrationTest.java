@@ -0,0 +1,168 @@
+package dev.bratskov.raspisanie.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import dev.bratskov.raspisanie.dto.RoutingRequestDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class TimetableReloadIntegrationTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
+    // первый блок тестовых данных: автобус 1 по будням, два рейса
+    private static final int FIRST_BLOCK_LINES = 5;
+    private static final String ADMIN_TOKEN = "test-admin-token";
+
+    @TempDir
+    static Path dir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void tripsFile(DynamicPropertyRegistry registry) throws IOException {
+        Path trips = dir.resolve("trips.txt");
+        try (InputStream in = new ClassPathResource("test-trips.txt").getInputStream()) {
+            Files.copy(in, trips);
+        }
+        registry.add("data.trips-file", () -> trips.toUri().toString());
+        registry.add("data.reload.admin-token", () -> ADMIN_TOKEN);
+    }
+
+    @Test
+    void reload_shouldBeForbidden_withoutAdminToken() throws Exception {
+        mockMvc.perform(post("/api/v1/timetable/reload"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/timetable/reload").header("X-Admin-Token", "wrong"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void reload_shouldPublishNewVersion_andKeepIt_whenNextFileInvalid() throws Exception {
+        mockMvc.perform(get("/api/v1/timetable"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+        UUID university = stopId("УНИВЕРСИТЕТ");
+        assertThat(university).isNotNull();
+        UUID vishnevets = stopId("ВИШНЕВЕЦ");
+
+        List<String> lines = Files.readAllLines(dir.resolve("trips.txt"), StandardCharsets.UTF_8);
+        Files.write(dir.resolve("trips.txt"), lines.subList(0, FIRST_BLOCK_LINES), StandardCharsets.UTF_8);
+
+        reload()
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.version").value(2));
+        assertThat(awaitVersion(2)).isSubsetOf(1L, 2L);
+        mockMvc.perform(get("/api/v1/timetable"))
+                .andExpect(jsonPath("$.routes").value(1))
+                .andExpect(jsonPath("$.trips").value(2));
+
+        // остановки и маршрутизация видят одну и ту же новую версию
+        assertThat(stopId("УНИВЕРСИТЕТ")).isNull();
+        // оставшиеся остановки сохраняют id прежней версии
+        assertThat(stopId("ВИШНЕВЕЦ")).isEqualTo(vishnevets);
+        plan(stopId("ВИШНЕВЕЦ"), stopId("БЕЛКАРД"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routeTime").exists());
+        plan(stopId("ВИШНЕВЕЦ"), university)
+                .andExpect(status().isNotFound());
+
+        Files.writeString(dir.resolve("trips.txt"), "не расписание\n", StandardCharsets.UTF_8);
+
+        reload()
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.version").value(3));
+        plan(stopId("ВИШНЕВЕЦ"), stopId("БЕЛКАРД"))
+                .andExpect(status().isOk());
+
+        // перезагрузки выполняются по очереди: когда видна версия 4, неудачная версия 3 уже отработала
+        Files.write(dir.resolve("trips.txt"), lines.subList(0, FIRST_BLOCK_LINES), StandardCharsets.UTF_8);
+        reload()
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.version").value(4));
+        assertThat(awaitVersion(4)).isSubsetOf(2L, 4L);
+    }
+
+    private ResultActions reload() throws Exception {
+        return mockMvc.perform(post("/api/v1/timetable/reload").header("X-Admin-Token", ADMIN_TOKEN));
+    }
+
+    // опрашивает текущую версию, пока не опубликована version; возвращает все увиденные версии
+    private Set<Long> awaitVersion(long version) throws Exception {
+        Set<Long> seen = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            String response = mockMvc.perform(get("/api/v1/timetable"))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            long current = ((Number) JsonPath.read(response, "$.version")).longValue();
+            seen.add(current);
+            if (current >= version) {
+                return seen;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Версия " + version + " не опубликована, видны " + seen);
+    }
+
+    private UUID stopId(String name) throws Exception {
+        String response = mockMvc.perform(get("/api/v1/stops"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        List<String> ids = JsonPath.read(response, "$[?(@.name=='" + name + "')].id");
+        return ids.isEmpty() ? null : UUID.fromString(ids.getFirst());
+    }
+
+    private ResultActions plan(UUID originStopId, UUID targetStopId) throws Exception {
+        RoutingRequestDto request = RoutingRequestDto.builder()
+                .originStopId(originStopId)
+                .targetStopId(targetStopId)
+                .date(WEDNESDAY)
+                .time(LocalTime.of(12, 50))
+                .build();
+
+        return mockMvc.perform(post("/api/v1/routing/plan")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+}
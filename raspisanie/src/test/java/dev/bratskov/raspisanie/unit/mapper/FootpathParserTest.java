@@ -0,0 +1,130 @@
+package dev.bratskov.raspisanie.unit.mapper;
+
+import dev.bratskov.raspisanie.exception.DataInitializationException;
+import dev.bratskov.raspisanie.mapper.FootpathParser;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FootpathParserTest {
+
+    @Mock
+    private Parser parser;
+    @Mock
+    private TextFileReader reader;
+
+    private FootpathParser footpathParser;
+    private Stop postNorth, postSouth, park, factory;
+
+    @BeforeEach
+    void setUp() {
+        postNorth = createStop("ПОЧТА", "ПОЧТА _ВИШНЕВЕЦ-1");
+        postSouth = createStop("ПОЧТА", "ПОЧТА _ЦЕНТР");
+        park = createStop("ПАРК", "ПАРК _ЖИЛИБЕРА");
+        factory = createStop("ЗАВОД", "ЗАВОД _КОНЕЧНАЯ");
+
+        when(parser.getStopMap()).thenReturn(Map.of(
+                postNorth.description(), postNorth,
+                postSouth.description(), postSouth,
+                park.description(), park,
+                factory.description(), factory
+        ));
+
+        footpathParser = new FootpathParser(parser, reader);
+        ReflectionTestUtils.setField(footpathParser, "sameNameWalkMinutes", 5);
+    }
+
+    @Test
+    void init_shouldConnectStopsWithSameName() {
+        footpathParser.init();
+
+        List<Footpath> footpaths = footpathParser.getFootpaths();
+
+        assertThat(footpaths).hasSize(2);
+        assertThat(footpaths).allMatch(f -> f.duration().equals(Duration.ofMinutes(5)));
+        assertThat(footpaths).extracting(Footpath::from).containsExactlyInAnyOrder(postNorth, postSouth);
+    }
+
+    @Test
+    void init_shouldAddExplicitFootpathsInBothDirections() throws IOException {
+        ReflectionTestUtils.setField(footpathParser, "filePath", "footpaths.txt");
+        when(reader.read("footpaths.txt")).thenReturn("""
+                # переходы
+                ПОЧТА _ЦЕНТР -> ПАРК _ЖИЛИБЕРА;3
+                ПОЧТА _ВИШНЕВЕЦ-1 -> ПОЧТА _ЦЕНТР;2
+                """);
+
+        footpathParser.init();
+
+        assertThat(findDuration(park, postSouth)).isEqualTo(Duration.ofMinutes(3));
+        assertThat(findDuration(postSouth, park)).isEqualTo(Duration.ofMinutes(3));
+        assertThat(findDuration(postNorth, postSouth)).isEqualTo(Duration.ofMinutes(2));
+    }
+
+    @Test
+    void init_shouldConnectOnlyStopsWithinWalkingDistance() throws IOException {
+        ReflectionTestUtils.setField(footpathParser, "filePath", "footpaths.txt");
+        when(reader.read("footpaths.txt")).thenReturn("""
+                ПАРК _ЖИЛИБЕРА;53.6800;23.8300
+                ЗАВОД _КОНЕЧНАЯ;53.6818;23.8300
+                ПОЧТА _ЦЕНТР;53.7000;23.8300
+                """);
+
+        footpathParser.init();
+
+        // 0.0018 градуса широты — около 200 метров, при 1.2 м/с около 167 секунд
+        assertThat(findDuration(park, factory)).isBetween(Duration.ofSeconds(160), Duration.ofSeconds(175));
+        assertThat(findDuration(factory, park)).isEqualTo(findDuration(park, factory));
+        assertThat(findDuration(park, postSouth)).isNull();
+    }
+
+    @Test
+    void init_shouldSkipUnknownStops() throws IOException {
+        ReflectionTestUtils.setField(footpathParser, "filePath", "footpaths.txt");
+        when(reader.read("footpaths.txt")).thenReturn("НЕТ ТАКОЙ -> ПАРК _ЖИЛИБЕРА;3\n");
+
+        footpathParser.init();
+
+        assertThat(footpathParser.getFootpaths()).hasSize(2);
+    }
+
+    @Test
+    void init_shouldThrowException_whenFileCannotBeRead() throws IOException {
+        ReflectionTestUtils.setField(footpathParser, "filePath", "footpaths.txt");
+        when(reader.read("footpaths.txt")).thenThrow(new IOException("нет файла"));
+
+        assertThatThrownBy(() -> footpathParser.init())
+                .isInstanceOf(DataInitializationException.class)
+                .hasMessageContaining("footpaths.txt");
+    }
+
+    private Duration findDuration(Stop from, Stop to) {
+        return footpathParser.getFootpaths().stream()
+                .filter(f -> f.from().equals(from) && f.to().equals(to))
+                .map(Footpath::duration)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Stop createStop(String name, String description) {
+        return Stop.builder().id(UUID.randomUUID()).name(name).description(description).build();
+    }
+}
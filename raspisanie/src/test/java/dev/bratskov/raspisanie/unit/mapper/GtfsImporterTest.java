@@ -0,0 +1,354 @@
+package dev.bratskov.raspisanie.unit.mapper;
+
+import dev.bratskov.raspisanie.exception.DataInitializationException;
+import dev.bratskov.raspisanie.mapper.GtfsImporter;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.reader.WorkdayCalendarReader;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GtfsImporterTest {
+
+    private static final String STOPS = """
+            \uFEFFstop_id,stop_name,location_type,parent_station
+            ST,Вокзал,1,
+            A,Вокзал,0,ST
+            B,"Площадь, центр",0,
+            C,Завод,,
+            """;
+    private static final String ROUTES = """
+            route_id,route_short_name,route_long_name,route_type
+            R12,12А,Вокзал - Завод,3
+            T3,Т3,Троллейбус,11
+            N,,Ночной,3
+            """;
+    private static final String CALENDAR = """
+            service_id,monday,tuesday,wednesday,thursday,friday,saturday,sunday,start_date,end_date
+            WD,1,1,1,1,1,0,0,20260101,20261231
+            WE,0,0,0,0,0,1,1,20260101,20261231
+            ALL,1,1,1,1,1,1,1,20260101,20261231
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final TextFileReader reader = new TextFileReader(new DefaultResourceLoader());
+
+    @Test
+    void read_shouldMapStopsRoutesAndTrips() throws IOException {
+        String feed = feed(Map.of(
+                "trips.txt", """
+                        route_id,service_id,trip_id,trip_headsign
+                        R12,WD,t1,Завод
+                        T3,WE,t2,
+                        R12,ALL,t3,Завод
+                        """,
+                "stop_times.txt", """
+                        trip_id,arrival_time,departure_time,stop_id,stop_sequence
+                        t1,08:00:00,08:00:00,A,1
+                        t1,,,B,2
+                        t1,08:20:00,08:20:30,C,3
+                        t2,9:00:00,9:00:00,C,1
+                        t2,09:15:00,09:15:00,B,2
+                        t3,10:00:00,10:00:00,A,1
+                        t3,10:20:00,10:20:00,C,2
+                        """));
+
+        GtfsImporter.Feed result = new GtfsImporter(reader).read(feed);
+
+        assertThat(result.stopMap()).containsOnlyKeys("Вокзал _A", "Площадь, центр _B", "Завод _C");
+        assertThat(result.stopMap().get("Вокзал _A").name()).isEqualTo("Вокзал");
+
+        Route bus = result.routeMap().get("R12_Завод");
+        assertThat(bus.number()).isEqualTo(12);
+        assertThat(bus.transport()).isEqualTo(Transport.BUS);
+        assertThat(bus.stops()).extracting(Stop::name).containsExactly("Вокзал", "Площадь, центр", "Завод");
+        // без trip_headsign направление — конечная остановка рейса
+        Route trolleybus = result.routeMap().get("T3_Площадь, центр");
+        assertThat(trolleybus.number()).isEqualTo(3);
+        assertThat(trolleybus.transport()).isEqualTo(Transport.TROLLEYBUS);
+
+        // один рейс на каждый рейс trips.txt, сервис — его service_id
+        assertThat(result.trips()).extracting(trip -> trip.route().direction() + " " + trip.service() + " " + trip.day())
+                .containsExactly("Завод WD WEEKDAY", "Площадь, центр WE WEEKEND", "Завод ALL WEEKDAY");
+        Trip first = result.trips().getFirst();
+        assertThat(first.afterMidnight()).isFalse();
+        assertThat(first.stops()).extracting(StopTime::time)
+                .containsExactly(LocalTime.of(8, 0), null, LocalTime.of(8, 20, 30));
+        assertThat(result.trips()).extracting(Trip::id).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void read_shouldRunTripsPastMidnight_onNextDay() throws IOException {
+        String feed = feed(Map.of(
+                "trips.txt", """
+                        route_id,service_id,trip_id,trip_headsign
+                        R12,WD,late,Завод
+                        R12,WD,night,Завод
+                        """,
+                "stop_times.txt", """
+                        trip_id,arrival_time,departure_time,stop_id,stop_sequence
+                        late,23:50:00,23:50:00,A,1
+                        late,24:10:00,24:10:00,C,2
+                        night,24:30:00,24:30:00,A,1
+                        night,25:05:00,25:05:00,C,2
+                        """));
+
+        List<Trip> trips = new GtfsImporter(reader).read(feed).trips();
+
+        assertThat(trips.get(0).afterMidnight()).isFalse();
+        assertThat(trips.get(0).stops()).extracting(StopTime::time).containsExactly(LocalTime.of(23, 50), LocalTime.of(0, 10));
+        assertThat(trips.get(1).afterMidnight()).isTrue();
+        assertThat(trips.get(1).stops()).extracting(StopTime::time).containsExactly(LocalTime.of(0, 30), LocalTime.of(1, 5));
+    }
+
+    @Test
+    void read_shouldOrderStopTimesBySequence_whenRowsAreShuffled() throws IOException {
+        String feed = feed(Map.of(
+                "trips.txt", """
+                        route_id,service_id,trip_id
+                        R12,WD,t1
+                        N,WD,t2
+                        """,
+                "stop_times.txt", """
+                        trip_id,arrival_time,departure_time,stop_id,stop_sequence
+                        t1,08:20:00,08:20:00,C,30
+                        t2,07:00:00,07:00:00,B,1
+                        t1,08:00:00,08:00:00,A,10
+                        t2,07:10:00,07:10:00,A,2
+                        t1,08:10:00,08:10:00,B,20
+                        """));
+
+        GtfsImporter.Feed result = new GtfsImporter(reader).read(feed);
+
+        assertThat(result.trips().getFirst().stops()).extracting(st -> st.stop().name())
+                .containsExactly("Вокзал", "Площадь, центр", "Завод");
+        // у маршрута без числа в названии номер следующий после наибольшего
+        assertThat(result.trips().get(1).route().number()).isEqualTo(13);
+    }
+
+    @Test
+    void read_shouldBuildServiceDates_fromCalendarDates() throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("stops.txt", STOPS);
+        files.put("routes.txt", ROUTES);
+        // 2026-03-02 — понедельник, 2026-03-06 — пятница, 2026-03-07 — суббота
+        files.put("calendar_dates.txt", """
+                service_id,date,exception_type
+                MON,20260302,1
+                FRI,20260306,1
+                SAT,20260307,2
+                """);
+        files.put("trips.txt", """
+                route_id,service_id,trip_id
+                R12,MON,t1
+                R12,FRI,t2
+                R12,SAT,t3
+                """);
+        files.put("stop_times.txt", """
+                trip_id,arrival_time,departure_time,stop_id,stop_sequence
+                t1,08:00:00,08:00:00,A,1
+                t1,08:20:00,08:20:00,C,2
+                t2,08:00:00,08:00:00,A,1
+                t2,08:20:00,08:20:00,C,2
+                t3,08:00:00,08:00:00,A,1
+                t3,08:20:00,08:20:00,C,2
+                """);
+
+        GtfsImporter.Feed result = new GtfsImporter(reader).read(zip(files));
+
+        // сервис без единой добавленной даты не ходит
+        assertThat(result.trips()).extracting(Trip::service).containsExactly("MON", "FRI");
+        assertThat(result.trips()).extracting(Trip::day).containsOnly(Day.WEEKDAY);
+        ServiceCalendar calendar = result.calendar();
+        assertThat(calendar.runs("MON", LocalDate.of(2026, 3, 2))).isTrue();
+        assertThat(calendar.runs("MON", LocalDate.of(2026, 3, 9))).isFalse();
+        assertThat(calendar.runs("FRI", LocalDate.of(2026, 3, 6))).isTrue();
+        assertThat(calendar.runs("FRI", LocalDate.of(2026, 3, 13))).isFalse();
+    }
+
+    @Test
+    void read_shouldLimitServices_toCalendarPeriod_withAddedAndRemovedDates() throws IOException {
+        Map<String, String> files = files(Map.of(
+                "trips.txt", "route_id,service_id,trip_id\nR12,SUMMER,t1\n",
+                "stop_times.txt", "trip_id,arrival_time,departure_time,stop_id,stop_sequence\n"
+                        + "t1,08:00:00,08:00:00,A,1\nt1,08:20:00,08:20:00,C,2\n"));
+        files.put("calendar.txt", CALENDAR + "SUMMER,1,1,1,1,1,0,0,20260601,20260831\n");
+        // 2026-06-12 — пятница, праздник; 2026-06-13 — рабочая суббота
+        files.put("calendar_dates.txt", """
+                service_id,date,exception_type
+                SUMMER,20260612,2
+                SUMMER,20260613,1
+                """);
+
+        GtfsImporter.Feed result = new GtfsImporter(reader).read(zip(files));
+
+        ServiceCalendar calendar = result.calendar();
+        assertThat(calendar.runs("SUMMER", LocalDate.of(2026, 6, 11))).isTrue();
+        assertThat(calendar.runs("SUMMER", LocalDate.of(2026, 6, 12))).isFalse();
+        assertThat(calendar.runs("SUMMER", LocalDate.of(2026, 6, 13))).isTrue();
+        assertThat(calendar.runs("SUMMER", LocalDate.of(2026, 6, 14))).isFalse();
+        // вне дат сервиса и вне дат фида рейс не ходит
+        assertThat(calendar.runs("SUMMER", LocalDate.of(2026, 5, 29))).isFalse();
+        assertThat(calendar.runs("SUMMER", LocalDate.of(2026, 9, 1))).isFalse();
+        assertThat(calendar.runs("WD", LocalDate.of(2027, 1, 4))).isFalse();
+        assertThat(calendar.servicesOn(LocalDate.of(2026, 6, 12))).containsExactlyInAnyOrder("WD", "ALL");
+    }
+
+    @Test
+    void read_shouldReadZipStream_whenResourceIsNotFile() throws IOException {
+        ResourceLoader loader = mock(ResourceLoader.class);
+        when(loader.getResource("feed")).thenReturn(new ByteArrayResource(zipBytes(files(Map.of(
+                "trips.txt", "route_id,service_id,trip_id\nR12,WE,t1\n",
+                "stop_times.txt", "trip_id,arrival_time,departure_time,stop_id,stop_sequence\n"
+                        + "t1,08:00:00,08:00:00,A,1\nt1,08:20:00,08:20:00,C,2\n")))));
+
+        List<Trip> trips = new GtfsImporter(new TextFileReader(loader)).read("feed").trips();
+
+        assertThat(trips).singleElement().extracting(Trip::day).isEqualTo(Day.WEEKEND);
+    }
+
+    @Test
+    void read_shouldThrowException_whenRequiredFileOrColumnMissing() throws IOException {
+        Map<String, String> files = files(Map.of(
+                "trips.txt", "route_id,service_id,trip_id\n",
+                "stop_times.txt", "trip_id,stop_id,stop_sequence\n"));
+        String withoutTimes = zip(files);
+        files.remove("stops.txt");
+        String withoutStops = zip(files);
+
+        assertThatThrownBy(() -> new GtfsImporter(reader).read(withoutTimes))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("arrival_time");
+        assertThatThrownBy(() -> new GtfsImporter(reader).read(withoutStops))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("stops.txt");
+    }
+
+    @Test
+    void init_shouldLoadGtfsFeed_whenFormatIsGtfs() throws IOException {
+        String feed = feed(Map.of(
+                "trips.txt", "route_id,service_id,trip_id\nR12,ALL,t1\n",
+                "stop_times.txt", "trip_id,arrival_time,departure_time,stop_id,stop_sequence\n"
+                        + "t1,08:00:00,08:00:00,A,1\nt1,08:10:00,08:10:00,B,2\nt1,08:20:00,08:20:00,C,3\n"));
+
+        Parser parser = gtfsParser(feed);
+        Parser again = gtfsParser(feed);
+
+        assertThat(parser.getStopMap()).hasSize(3);
+        assertThat(parser.getTrips()).singleElement().extracting(Trip::service).isEqualTo("ALL");
+        assertThat(again.getTrips()).extracting(Trip::id)
+                .containsExactlyElementsOf(parser.getTrips().stream().map(Trip::id).toList());
+        assertThat(parser.getCalendar().runs("ALL", LocalDate.of(2026, 10, 17))).isTrue();
+        assertThat(parser.getCalendar().runs("ALL", LocalDate.of(2027, 10, 16))).isFalse();
+        assertThat(new Timetable(parser.getStopMap(), parser.getTrips(), List.of(), parser.getCalendar()).tripCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void init_shouldReadFeedCalendar_whenModelLoadedFromSnapshot() throws IOException {
+        String feed = feed(Map.of(
+                "trips.txt", "route_id,service_id,trip_id\nR12,WD,t1\n",
+                "stop_times.txt", "trip_id,arrival_time,departure_time,stop_id,stop_sequence\n"
+                        + "t1,08:00:00,08:00:00,A,1\nt1,08:20:00,08:20:00,C,2\n"));
+        TimetableSnapshot snapshot = new TimetableSnapshot();
+        ReflectionTestUtils.setField(snapshot, "filePath", dir.resolve("snapshot.bin").toString());
+        Parser parser = gtfsParser(feed, snapshot);
+        snapshot.save(parser.getSnapshot(), parser.getStopMap(), parser.getRouteMap(), parser.getTrips(),
+                new Timetable(parser.getStopMap(), parser.getTrips(), List.of(), parser.getCalendar()), 0);
+
+        Parser cached = gtfsParser(feed, snapshot);
+
+        assertThat(cached.getSnapshot().loaded()).isPresent();
+        assertThat(cached.getTrips()).extracting(Trip::service).containsExactly("WD");
+        assertThat(cached.getCalendar().runs("WD", LocalDate.of(2026, 10, 14))).isTrue();
+        assertThat(cached.getCalendar().runs("WD", LocalDate.of(2027, 10, 13))).isFalse();
+    }
+
+    @Test
+    void init_shouldThrowException_whenFormatIsUnknown() {
+        Parser parser = new Parser(reader);
+        ReflectionTestUtils.setField(parser, "filePath", "feed.zip");
+        ReflectionTestUtils.setField(parser, "format", "netex");
+
+        assertThatThrownBy(parser::init)
+                .isInstanceOf(DataInitializationException.class)
+                .hasMessageContaining("data.format");
+    }
+
+    private Parser gtfsParser(String feed) {
+        return gtfsParser(feed, new TimetableSnapshot());
+    }
+
+    private Parser gtfsParser(String feed, TimetableSnapshot snapshot) {
+        Parser parser = new Parser(reader, snapshot, new WorkdayCalendarReader());
+        ReflectionTestUtils.setField(parser, "filePath", feed);
+        ReflectionTestUtils.setField(parser, "format", "gtfs");
+        parser.init();
+        return parser;
+    }
+
+    // stops.txt, routes.txt и calendar.txt общие, trips.txt и stop_times.txt — свои у каждого теста
+    private Map<String, String> files(Map<String, String> trips) {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("stops.txt", STOPS);
+        files.put("routes.txt", ROUTES);
+        files.put("calendar.txt", CALENDAR);
+        files.putAll(trips);
+        return files;
+    }
+
+    private String feed(Map<String, String> trips) throws IOException {
+        return zip(files(trips));
+    }
+
+    private String zip(Map<String, String> files) throws IOException {
+        Path feed = Files.createTempFile(dir, "feed", ".zip");
+        Files.write(feed, zipBytes(files));
+        return feed.toUri().toString();
+    }
+
+    private byte[] zipBytes(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (var file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
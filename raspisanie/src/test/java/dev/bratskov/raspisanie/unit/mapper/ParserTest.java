@@ -3,11 +3,14 @@ package dev.bratskov.raspisanie.unit.mapper;
 import dev.bratskov.raspisanie.exception.DataInitializationException;
 import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
 import dev.bratskov.raspisanie.model.Stop;
 import dev.bratskov.raspisanie.model.Trip;
 import dev.bratskov.raspisanie.model.enums.Day;
 import dev.bratskov.raspisanie.model.enums.Transport;
 import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.reader.WorkdayCalendarReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,13 +18,21 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,7 +58,7 @@ class ParserTest {
                 06:48-06:50-06:52
                 """;
 
-        when(reader.read("test-data.txt")).thenReturn(testData);
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
 
         parser.init();
 
@@ -74,7 +85,7 @@ class ParserTest {
                 ТРАНСПОРТ: ТРОЛЛЕЙБУС -- НОМЕР: 2 -- НАПРАВЛЕНИЕ: КСМ - ГРОДНО АЗОТ -- ДЕНЬ: Выходной -- ОСТАНОВКИ: КСМ -> ГРОНИТЕКС -> АВТОВОКЗАЛ -- 10:00-10:05-10:10
                 """;
 
-        when(reader.read("test-data.txt")).thenReturn(testData);
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
 
         parser.init();
 
@@ -94,7 +105,7 @@ class ParserTest {
                 ТРАНСПОРТ: АВТОБУС -- НОМЕР: 1 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ПОЧТА _ВИШНЕВЕЦ-1 -> МАГАЗИН "КВАСОВСКИЙ" _ПРОСПЕКТ КЛЕЦКОВА -- 08:00-08:05
                 """;
 
-        when(reader.read("test-data.txt")).thenReturn(testData);
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
 
         parser.init();
 
@@ -113,7 +124,7 @@ class ParserTest {
                 ТРАНСПОРТ: АВТОБУС -- НОМЕР: 5 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ОСТ1 -> ОСТ2 -> ОСТ3 -- 08:00-(XXX)-08:10
                 """;
 
-        when(reader.read("test-data.txt")).thenReturn(testData);
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
 
         parser.init();
 
@@ -125,6 +136,27 @@ class ParserTest {
         assertThat(trip.stops().get(2).time()).isEqualTo(LocalTime.of(8, 10));
     }
 
+    @Test
+    void init_shouldMarkTripsAfterMidnight() throws IOException {
+        String testData = """
+                ТРАНСПОРТ: АВТОБУС -- НОМЕР: 5 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ОСТ1 -> ОСТ2 --
+                22:00-22:10
+                23:50-00:05
+                00:20-00:30
+                """;
+
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
+
+        parser.init();
+
+        List<Trip> trips = parser.getTrips();
+
+        assertThat(trips).hasSize(3);
+        assertThat(trips.get(0).afterMidnight()).isFalse();
+        assertThat(trips.get(1).afterMidnight()).isFalse();
+        assertThat(trips.get(2).afterMidnight()).isTrue();
+    }
+
     @Test
     void init_shouldCreateUniqueRoutes_forDifferentDirections() throws IOException {
         String testData = """
@@ -132,7 +164,7 @@ class ParserTest {
                 ТРАНСПОРТ: АВТОБУС -- НОМЕР: 1 -- НАПРАВЛЕНИЕ: B - A -- ДЕНЬ: Будний -- ОСТАНОВКИ: B -> A -- 09:00-09:10
                 """;
 
-        when(reader.read("test-data.txt")).thenReturn(testData);
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
 
         parser.init();
 
@@ -143,6 +175,41 @@ class ParserTest {
         assertThat(routes.keySet()).anyMatch(k -> k.contains("B - A"));
     }
 
+    @Test
+    void init_shouldSkipTimeLinesWithWrongNumberOfTimes() throws IOException {
+        String testData = """
+                ТРАНСПОРТ: АВТОБУС --
+                НОМЕР: 5 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний --
+                ОСТАНОВКИ: ОСТ1 -> ОСТ2 -> ОСТ3 --
+                08:00-08:05
+
+                09:00-9:05-25:00
+                """;
+
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
+
+        parser.init();
+
+        List<Trip> trips = parser.getTrips();
+
+        assertThat(trips).hasSize(1);
+        assertThat(trips.getFirst().stops().get(0).time()).isEqualTo(LocalTime.of(9, 0));
+        assertThat(trips.getFirst().stops().get(1).time()).isNull();
+        assertThat(trips.getFirst().stops().get(2).time()).isNull();
+    }
+
+    @Test
+    void init_shouldThrowException_whenBlockHeaderIsIncomplete() throws IOException {
+        String testData = """
+                ТРАНСПОРТ: АВТОБУС -- НОМЕР: 5 -- НАПРАВЛЕНИЕ: A - B
+                """;
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
+
+        assertThatThrownBy(() -> parser.init())
+                .isInstanceOf(DataInitializationException.class)
+                .hasMessageContaining("Ошибка при обработке данных");
+    }
+
     @Test
     void init_shouldThrowException_whenFileIsEmptyOrNull() {
         ReflectionTestUtils.setField(parser, "filePath", null);
@@ -153,10 +220,131 @@ class ParserTest {
     @Test
     void init_shouldThrowException_whenFormatIsInvalid() throws IOException {
         String invalidData = "ПРОСТО КАКОЙ-ТО ТЕКСТ БЕЗ ФОРМАТА";
-        when(reader.read("test-data.txt")).thenReturn(invalidData);
+        when(reader.open("test-data.txt")).thenReturn(lines(invalidData));
 
         assertThatThrownBy(() -> parser.init())
                 .isInstanceOf(DataInitializationException.class)
                 .hasMessageContaining("Не найдено");
     }
-}
\ No newline at end of file
+
+    @Test
+    void init_shouldParseInParallel_sameAsSequential() throws IOException {
+        // перевод строки CRLF, пустая строка, блок с начала строки времён и рейс после полуночи
+        String testData = "ТРАНСПОРТ: АВТОБУС -- НОМЕР: 1 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ОСТ1 -> ОСТ2 --\r\n"
+                + "23:40-23:50\r\n00:10-00:20\r\n\r\n"
+                + "ТРАНСПОРТ: ТРОЛЛЕЙБУС -- НОМЕР: 2 -- НАПРАВЛЕНИЕ: B - A -- ДЕНЬ: Выходной -- ОСТАНОВКИ: ОСТ2 -> ОСТ3 -> ОСТ1 -- 10:00-(XXX)-10:10\n"
+                + "11:00-11:05-11:10 ТРАНСПОРТ: АВТОБУС -- НОМЕР: 1 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Выходной -- ОСТАНОВКИ: ОСТ1 -> ОСТ3 --\n"
+                + "12:00-12:30";
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
+        when(reader.read("test-data.txt")).thenReturn(testData);
+        Parser parallel = new Parser(reader);
+        ReflectionTestUtils.setField(parallel, "filePath", "test-data.txt");
+        ReflectionTestUtils.setField(parallel, "parallelism", 4);
+
+        parser.init();
+        parallel.init();
+
+        assertThat(parallel.getStopMap().keySet()).isEqualTo(parser.getStopMap().keySet());
+        assertThat(parallel.getRouteMap().keySet()).isEqualTo(parser.getRouteMap().keySet());
+        assertThat(describe(parallel)).isEqualTo(describe(parser)).hasSize(5);
+        assertThat(parallel.getTrips().get(1).afterMidnight()).isTrue();
+        assertThat(parallel.getRouteMap().get("1_A - B").stops()).extracting(Stop::description).containsExactly("ОСТ1", "ОСТ2");
+    }
+
+    @Test
+    void init_shouldAssignSameIds_onEveryParse() throws IOException {
+        String testData = """
+                ТРАНСПОРТ: АВТОБУС -- НОМЕР: 1 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ОСТ1 -> ОСТ2 --
+                08:00-08:10
+                09:00-09:10
+                ТРАНСПОРТ: АВТОБУС -- НОМЕР: 1 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ОСТ1 -> ОСТ2 --
+                10:00-10:10
+                ТРАНСПОРТ: ТРОЛЛЕЙБУС -- НОМЕР: 2 -- НАПРАВЛЕНИЕ: B - A -- ДЕНЬ: Выходной -- ОСТАНОВКИ: ОСТ2 -> ОСТ1 --
+                08:00-08:10
+                """;
+        when(reader.open("test-data.txt")).thenAnswer(invocation -> lines(testData));
+        when(reader.read("test-data.txt")).thenReturn(testData);
+        Parser again = new Parser(reader);
+        ReflectionTestUtils.setField(again, "filePath", "test-data.txt");
+        ReflectionTestUtils.setField(again, "parallelism", 4);
+
+        parser.init();
+        again.init();
+
+        assertThat(again.getStopMap().get("ОСТ1").id()).isEqualTo(parser.getStopMap().get("ОСТ1").id());
+        assertThat(again.getRouteMap().get("1_A - B").id()).isEqualTo(parser.getRouteMap().get("1_A - B").id());
+        assertThat(again.getTrips()).extracting(Trip::id)
+                .containsExactlyElementsOf(parser.getTrips().stream().map(Trip::id).toList())
+                .doesNotHaveDuplicates();
+        assertThat(parser.getStopMap().get("ОСТ1").id()).isNotEqualTo(parser.getStopMap().get("ОСТ2").id());
+    }
+
+    @Test
+    void init_shouldLoadDataFromSnapshot_withoutParsingFile() throws IOException {
+        Stop stop = Stop.builder().id(UUID.randomUUID()).name("ОСТ1").description("ОСТ1").build();
+        Route route = Route.builder().id(UUID.randomUUID()).number(5).transport(Transport.BUS)
+                .direction("A - B").stops(List.of(stop)).build();
+        Trip trip = Trip.builder().id(UUID.randomUUID()).route(route).stops(List.of()).day(Day.WEEKDAY).build();
+        TimetableSnapshot snapshot = mock(TimetableSnapshot.class);
+        when(snapshot.isEnabled()).thenReturn(true);
+        when(reader.checksum("test-data.txt")).thenReturn(7L);
+        TimetableSnapshot.Handle handle = new TimetableSnapshot.Handle(7L, new TimetableSnapshot.Model(
+                Map.of("ОСТ1", stop), Map.of("5_A - B", route), List.of(trip), List.of(stop), List.of(route)), 3L, 0);
+        when(snapshot.loadModel(7L)).thenReturn(handle);
+        parser = new Parser(reader, snapshot, new WorkdayCalendarReader());
+        ReflectionTestUtils.setField(parser, "filePath", "test-data.txt");
+
+        parser.init();
+
+        assertThat(parser.getStopMap()).containsEntry("ОСТ1", stop);
+        assertThat(parser.getRouteMap()).containsEntry("5_A - B", route);
+        assertThat(parser.getTrips()).containsExactly(trip);
+        assertThat(parser.getSnapshot()).isSameAs(handle);
+        verify(reader, never()).open(anyString());
+    }
+
+    @Test
+    void init_shouldApplyConfiguredHolidaysAndWorkingDays_toCalendar() throws IOException {
+        String testData = """
+                ТРАНСПОРТ: АВТОБУС --
+                НОМЕР: 5 -- НАПРАВЛЕНИЕ: A - B -- ДЕНЬ: Будний -- ОСТАНОВКИ: ОСТ1 -> ОСТ2 --
+                06:10-06:12
+                """;
+        when(reader.open("test-data.txt")).thenReturn(lines(testData));
+        // 2026-05-01 — пятница, праздник; 2026-01-17 — суббота, объявленная рабочей
+        WorkdayCalendarReader workdays = new WorkdayCalendarReader(
+                new String[]{"2026-05-01", " 2026-07-03 "}, new String[]{"2026-01-17"});
+        parser = new Parser(reader, new TimetableSnapshot(), workdays);
+        ReflectionTestUtils.setField(parser, "filePath", "test-data.txt");
+
+        parser.init();
+
+        ServiceCalendar calendar = parser.getCalendar();
+        assertThat(calendar.start()).isEqualTo(LocalDate.of(2026, 1, 1));
+        assertThat(calendar.end()).isEqualTo(LocalDate.of(2026, 12, 31));
+        assertThat(calendar.servicesOn(LocalDate.of(2026, 5, 1))).containsExactly(Day.WEEKEND.name());
+        assertThat(calendar.servicesOn(LocalDate.of(2026, 1, 17))).containsExactly(Day.WEEKDAY.name());
+        assertThat(calendar.servicesOn(LocalDate.of(2026, 5, 4))).containsExactly(Day.WEEKDAY.name());
+        assertThat(calendar.servicesOn(LocalDate.of(2030, 5, 1))).containsExactly(Day.WEEKDAY.name());
+    }
+
+    @Test
+    void workdayCalendar_shouldRejectMalformedDate() {
+        assertThatThrownBy(() -> new WorkdayCalendarReader(new String[]{"01.05.2026"}, new String[0]))
+                .isInstanceOf(DataInitializationException.class)
+                .hasMessageContaining("01.05.2026");
+    }
+
+    private List<String> describe(Parser parser) {
+        return parser.getTrips().stream()
+                .map(trip -> trip.route().number() + " " + trip.route().direction() + " " + trip.day() + " "
+                        + trip.afterMidnight() + " " + trip.stops().stream()
+                        .map(st -> st.stop().description() + "@" + st.time())
+                        .toList())
+                .toList();
+    }
+
+    private BufferedReader lines(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+}
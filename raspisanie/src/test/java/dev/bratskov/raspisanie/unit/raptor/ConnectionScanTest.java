@@ -0,0 +1,216 @@
+package dev.bratskov.raspisanie.unit.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.raptor.ConnectionScan;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionScanTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 10, 17);
+
+    @Mock
+    private TimetableRepo timetableRepo;
+    @Mock
+    private StopService stopService;
+
+    private Map<String, Stop> stopMap;
+    private List<Trip> trips;
+    private List<Footpath> footpaths = List.of();
+
+    private ConnectionScan csa;
+    private Stop stopA, stopB, stopC, stopD;
+    private Route route1, route2;
+    private Trip trip1, trip2;
+
+    @BeforeEach
+    void setUp() {
+        stopA = createStop("A");
+        stopB = createStop("B");
+        stopC = createStop("C");
+        stopD = createStop("D");
+
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD
+        );
+
+        route1 = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS).direction("C").build();
+        route2 = Route.builder().id(UUID.randomUUID()).number(2).transport(Transport.BUS).direction("D").build();
+
+        trip1 = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 0),
+                        createStopTime(stopB, 10, 10),
+                        createStopTime(stopC, 10, 20)
+                )).build();
+
+        trip2 = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopC, 10, 30),
+                        createStopTime(stopD, 10, 45)
+                )).build();
+
+        trips = List.of(trip1, trip2);
+        csa = createConnectionScan();
+    }
+
+    @Test
+    void plan_shouldFindDirectPath() {
+        mockStops(stopA, stopC);
+
+        List<PathDto> path = csa.plan(stopA.id(), stopC.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 20));
+    }
+
+    @Test
+    void plan_shouldFindPathWithTransfer() {
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = csa.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC, stopC, stopD);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void plan_shouldFailWhenTransferTimeTooShort() {
+        Trip fastTrip = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopC, 10, 22), createStopTime(stopD, 10, 40)))
+                .build();
+        trips = List.of(trip1, fastTrip);
+        csa = createConnectionScan();
+        mockStops(stopA, stopD);
+
+        assertThatThrownBy(() -> csa.plan(stopA.id(), stopD.id(), LocalTime.of(9, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void plan_shouldIgnoreTripsOfOtherDayAndBeforeStart() {
+        mockStops(stopA, stopB);
+
+        assertThatThrownBy(() -> csa.plan(stopA.id(), stopB.id(), LocalTime.of(8, 0), SATURDAY))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> csa.plan(stopA.id(), stopB.id(), LocalTime.of(11, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void plan_shouldPreferFewerTripsLikeRaptor() {
+        useSlowDirectTrip();
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = csa.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::number).containsOnly(3);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(11, 30));
+    }
+
+    @Test
+    void planAllPaths_shouldReturnBestJourneyForEachNumberOfTrips() {
+        useSlowDirectTrip();
+        mockStops(stopA, stopD);
+
+        List<List<PathDto>> paths = csa.planAllPaths(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(paths).hasSize(2);
+        assertThat(paths.get(0).getLast().time()).isEqualTo(LocalTime.of(11, 30));
+        assertThat(paths.get(1).getLast().time()).isEqualTo(LocalTime.of(10, 45));
+        assertThat(paths.get(1)).extracting(PathDto::number).containsExactly(1, 1, 1, 2, 2);
+    }
+
+    @Test
+    void plan_shouldWalkToNearbyStopForTransfer() {
+        Stop stopE = createStop("E");
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD, "Desc E", stopE
+        );
+        Trip fromE = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopE, 10, 30), createStopTime(stopD, 10, 45)))
+                .build();
+        trips = List.of(trip1, fromE);
+        footpaths = List.of(
+                Footpath.builder().from(stopC).to(stopE).duration(Duration.ofMinutes(3)).build()
+        );
+        csa = createConnectionScan();
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = csa.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::transport)
+                .containsExactly(Transport.BUS, Transport.BUS, Transport.BUS,
+                        Transport.WALK, Transport.WALK, Transport.BUS, Transport.BUS);
+        assertThat(path.get(4).stop()).isEqualTo(stopE);
+        assertThat(path.get(4).time()).isEqualTo(LocalTime.of(10, 23));
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void plan_shouldThrowExceptionForSameOriginAndTarget() {
+        assertThatThrownBy(() -> csa.plan(stopA.id(), stopA.id(), LocalTime.of(9, 0), WEDNESDAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // прямой, но медленный рейс A → D в дополнение к пересадке C
+    private void useSlowDirectTrip() {
+        Route route3 = Route.builder().id(UUID.randomUUID()).number(3).transport(Transport.BUS).direction("D").build();
+        Trip direct = Trip.builder()
+                .id(UUID.randomUUID()).route(route3).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 10, 5), createStopTime(stopD, 11, 30)))
+                .build();
+        trips = List.of(trip1, trip2, direct);
+        csa = createConnectionScan();
+    }
+
+    private void mockStops(Stop origin, Stop target) {
+        when(stopService.findById(origin.id())).thenReturn(origin);
+        when(stopService.findById(target.id())).thenReturn(target);
+    }
+
+    // движок читает расписание через TimetableRepo, как в приложении
+    private ConnectionScan createConnectionScan() {
+        when(timetableRepo.getTimetable()).thenReturn(new Timetable(stopMap, trips, footpaths));
+        return new ConnectionScan(timetableRepo, stopService);
+    }
+
+    private Stop createStop(String name) {
+        return Stop.builder().id(UUID.randomUUID()).name(name).description("Desc " + name).build();
+    }
+
+    private StopTime createStopTime(Stop stop, int h, int m) {
+        return StopTime.builder().stop(stop).time(LocalTime.of(h, m)).build();
+    }
+}
@@ -0,0 +1,180 @@
+package dev.bratskov.raspisanie.unit.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.fixture.TimetableFixture;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.raptor.Raptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RaptorConcurrencyTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 10, 17);
+
+    private static final int QUERIES = 2000;
+
+    private Raptor raptor;
+    private List<Stop> stops;
+
+    @BeforeEach
+    void setUp() {
+        TimetableFixture fixture = TimetableFixture.load("classpath:test-trips.txt");
+        raptor = createRaptor(fixture);
+        stops = sortedStops(fixture);
+    }
+
+    @Test
+    void plan_shouldReturnSameResultsUnderParallelLoad() throws Exception {
+        List<Query> queries = generateQueries();
+
+        assertParallelMatchesSequential(queries,
+                q -> raptor.plan(q.origin().id(), q.target().id(), q.time(), q.date()));
+    }
+
+    @Test
+    void planAllPaths_shouldReturnSameResultsUnderParallelLoad() throws Exception {
+        List<Query> queries = generateQueries();
+
+        assertParallelMatchesSequential(queries,
+                q -> raptor.planAllPaths(q.origin().id(), q.target().id(), q.time(), q.date()));
+    }
+
+    @Test
+    void plan_shouldReturnSameResults_whileTimetableReplaced() throws Exception {
+        TimetableFixture fixture = TimetableFixture.load("classpath:test-trips.txt");
+        TimetableRepo timetableRepo = fixture.timetableRepo();
+        Raptor reloaded = new Raptor(timetableRepo, fixture.stopService());
+        stops = sortedStops(fixture);
+        List<Query> queries = generateQueries();
+
+        // версии из одного разбора: те же остановки, но новое расписание, индексы и пул контекстов
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger published = new AtomicInteger();
+        Thread reloader = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                TimetableData next = timetableRepo.build(fixture.parser(), fixture.footpathParser(), timetableRepo.nextVersion());
+                reloaded.prepare(next.timetable());
+                timetableRepo.publish(next);
+                published.incrementAndGet();
+            }
+        });
+        try {
+            assertParallelMatchesSequential(queries,
+                    q -> reloaded.plan(q.origin().id(), q.target().id(), q.time(), q.date()));
+        } finally {
+            running.set(false);
+            reloader.join();
+        }
+        assertThat(published.get()).isPositive();
+    }
+
+    @Test
+    void parallelScan_shouldMatchSequentialScan() {
+        // на маленьком test-trips.txt в раунде слишком мало шаблонов, чтобы делить очередь
+        TimetableFixture fixture = TimetableFixture.load("classpath:trips.txt");
+        Raptor sequential = createRaptor(fixture);
+        Raptor parallel = createRaptor(fixture);
+        ReflectionTestUtils.setField(parallel, "parallelism", 4);
+        parallel.init();
+        stops = sortedStops(fixture);
+
+        try {
+            for (Query query : generateQueries().subList(0, 200)) {
+                assertThat(runQuery(query, q -> parallel.planAllPaths(q.origin().id(), q.target().id(), q.time(), q.date())))
+                        .as("запрос %s", query)
+                        .isEqualTo(runQuery(query, q -> sequential.planAllPaths(q.origin().id(), q.target().id(), q.time(), q.date())));
+                assertThat(parallel.reach(query.origin().id(), query.time(), query.date(), Duration.ofHours(1)))
+                        .as("запрос %s", query)
+                        .usingRecursiveComparison()
+                        .isEqualTo(sequential.reach(query.origin().id(), query.time(), query.date(), Duration.ofHours(1)));
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    private Raptor createRaptor(TimetableFixture fixture) {
+        return new Raptor(fixture.timetableRepo(), fixture.stopService());
+    }
+
+    private List<Stop> sortedStops(TimetableFixture fixture) {
+        return fixture.stopRepo().getStops().stream()
+                .sorted(Comparator.comparing(Stop::description))
+                .toList();
+    }
+
+    private <T> void assertParallelMatchesSequential(List<Query> queries, Function<Query, T> search)
+            throws Exception {
+        List<Object> expected = new ArrayList<>();
+        for (Query query : queries) {
+            expected.add(runQuery(query, search));
+        }
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Query query : queries) {
+                futures.add(executor.submit(() -> runQuery(query, search)));
+            }
+
+            for (int i = 0; i < queries.size(); i++) {
+                assertThat(futures.get(i).get())
+                        .as("запрос %s", queries.get(i))
+                        .isEqualTo(expected.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> Object runQuery(Query query, Function<Query, T> search) {
+        try {
+            return search.apply(query);
+        } catch (NoSuchElementException e) {
+            return "NOT_FOUND";
+        }
+    }
+
+    private List<Query> generateQueries() {
+        Random random = new Random(42);
+        List<Query> queries = new ArrayList<>();
+
+        while (queries.size() < QUERIES) {
+            Stop origin = stops.get(random.nextInt(stops.size()));
+            Stop target = stops.get(random.nextInt(stops.size()));
+            if (origin.equals(target)) {
+                continue;
+            }
+
+            LocalTime time = LocalTime.of(10 + random.nextInt(5), random.nextInt(60));
+            LocalDate date = random.nextBoolean() ? WEDNESDAY : SATURDAY;
+            queries.add(new Query(origin, target, time, date));
+        }
+        return queries;
+    }
+
+    private record Query(Stop origin, Stop target, LocalTime time, LocalDate date) {
+    }
+}
@@ -1,22 +1,28 @@
 package dev.bratskov.raspisanie.unit.raptor;
 
+import dev.bratskov.raspisanie.dto.MatrixRowDto;
 import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.dto.ReachResponseDto;
+import dev.bratskov.raspisanie.model.Footpath;
 import dev.bratskov.raspisanie.model.Stop;
 import dev.bratskov.raspisanie.model.Route;
 import dev.bratskov.raspisanie.model.StopTime;
 import dev.bratskov.raspisanie.model.Trip;
 import dev.bratskov.raspisanie.model.enums.Day;
 import dev.bratskov.raspisanie.model.enums.Transport;
-import dev.bratskov.raspisanie.repo.StopRepo;
-import dev.bratskov.raspisanie.repo.TripRepo;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
 import dev.bratskov.raspisanie.service.StopService;
 import dev.bratskov.raspisanie.service.raptor.Raptor;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.UUID;
 import java.util.Map;
@@ -30,13 +36,18 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class RaptorTest {
 
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 10, 17);
+
     @Mock
-    private StopRepo stopRepo;
-    @Mock
-    private TripRepo tripRepo;
+    private TimetableRepo timetableRepo;
     @Mock
     private StopService stopService;
 
+    private Map<String, Stop> stopMap;
+    private List<Trip> trips;
+    private List<Footpath> footpaths = List.of();
+
     private Raptor raptor;
     private Stop stopA, stopB, stopC, stopD;
     private Route route1, route2;
@@ -48,10 +59,9 @@ class RaptorTest {
         stopC = createStop("C");
         stopD = createStop("D");
 
-        Map<String, Stop> stopMap = Map.of(
+        stopMap = Map.of(
                 "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD
         );
-        when(stopRepo.getStopsMap()).thenReturn(stopMap);
 
         route1 = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS).direction("C").build();
         route2 = Route.builder().id(UUID.randomUUID()).number(2).transport(Transport.BUS).direction("D").build();
@@ -71,8 +81,8 @@ class RaptorTest {
                         createStopTime(stopD, 10, 45)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(trip1, trip2));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(trip1, trip2);
+        raptor = createRaptor();
     }
 
     @Test
@@ -80,7 +90,7 @@ class RaptorTest {
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopC.id())).thenReturn(stopC);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(9, 30), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(9, 30), WEDNESDAY);
 
         assertThat(path).hasSize(3);
         assertThat(path.getLast().stop()).isEqualTo(stopC);
@@ -92,13 +102,23 @@ class RaptorTest {
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopD.id())).thenReturn(stopD);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
 
         assertThat(path).isNotEmpty();
         assertThat(path.getLast().stop()).isEqualTo(stopD);
         assertThat(path.stream().anyMatch(p -> p.stop().equals(stopC))).isTrue();
     }
 
+    @Test
+    void plan_shouldNotSearchBeyondMaxTransfers() {
+        ReflectionTestUtils.setField(raptor, "maxTransfers", 0);
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
     @Test
     void plan_shouldChooseEarlierTrip() {
         Trip earlierTrip = Trip.builder()
@@ -116,13 +136,13 @@ class RaptorTest {
                         createStopTime(stopC, 10, 20)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(earlierTrip, trip1FromSetUp));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(earlierTrip, trip1FromSetUp);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopC.id())).thenReturn(stopC);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(8, 0), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(8, 0), WEDNESDAY);
 
         assertThat(path.getLast().time()).isEqualTo(LocalTime.of(9, 30));
     }
@@ -143,13 +163,13 @@ class RaptorTest {
                         createStopTime(stopD, 10, 40)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(tripArrival, fastTripDeparture));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(tripArrival, fastTripDeparture);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopD.id())).thenReturn(stopD);
 
-        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 0), Day.WEEKDAY))
+        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 0), WEDNESDAY))
                 .isInstanceOf(NoSuchElementException.class);
     }
 
@@ -158,7 +178,7 @@ class RaptorTest {
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopB.id())).thenReturn(stopB);
 
-        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopB.id(), LocalTime.of(8, 0), Day.WEEKEND))
+        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopB.id(), LocalTime.of(8, 0), SATURDAY))
                 .isInstanceOf(NoSuchElementException.class);
     }
 
@@ -167,7 +187,7 @@ class RaptorTest {
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopB.id())).thenReturn(stopB);
 
-        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopB.id(), LocalTime.of(11, 0), Day.WEEKDAY))
+        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopB.id(), LocalTime.of(11, 0), WEDNESDAY))
                 .isInstanceOf(NoSuchElementException.class);
     }
 
@@ -176,7 +196,7 @@ class RaptorTest {
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopC.id())).thenReturn(stopC);
 
-        List<List<PathDto>> result = raptor.planAllPaths(stopA.id(), stopC.id(), LocalTime.of(9, 0), Day.WEEKDAY);
+        List<List<PathDto>> result = raptor.planAllPaths(stopA.id(), stopC.id(), LocalTime.of(9, 0), WEDNESDAY);
 
         assertThat(result).isNotEmpty();
         assertThat(result.getFirst()).isNotEmpty();
@@ -184,19 +204,19 @@ class RaptorTest {
 
     @Test
     void plan_shouldThrowExceptionForSameOriginAndTarget() {
-        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopA.id(), LocalTime.now(), Day.WEEKDAY))
+        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopA.id(), LocalTime.now(), WEDNESDAY))
                 .isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
-    void plan_shouldHandleEmptyTripRepo() {
-        when(tripRepo.getTrips()).thenReturn(List.of());
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+    void plan_shouldHandleTimetableWithoutTrips() {
+        trips = List.of();
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopB.id())).thenReturn(stopB);
 
-        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopB.id(), LocalTime.now(), Day.WEEKDAY))
+        assertThatThrownBy(() -> raptor.plan(stopA.id(), stopB.id(), LocalTime.now(), WEDNESDAY))
                 .isInstanceOf(NoSuchElementException.class);
     }
 
@@ -211,13 +231,13 @@ class RaptorTest {
                         createStopTime(stopA, 11, 30)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(circularTrip));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(circularTrip);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopC.id())).thenReturn(stopC);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(10, 0), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(10, 0), WEDNESDAY);
         assertThat(path).hasSize(3);
         assertThat(path.getLast().time()).isEqualTo(LocalTime.of(11, 20));
     }
@@ -238,13 +258,13 @@ class RaptorTest {
                         createStopTime(stopA, 10, 40)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(tripOut, tripReturn));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(tripOut, tripReturn);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopB.id())).thenReturn(stopB);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopB.id(), LocalTime.of(9, 0), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopB.id(), LocalTime.of(9, 0), WEDNESDAY);
         assertThat(path).isNotEmpty();
     }
 
@@ -264,13 +284,13 @@ class RaptorTest {
                         createStopTime(stopC, 10, 35)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(slowTrip, expressTrip));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(slowTrip, expressTrip);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopC.id())).thenReturn(stopC);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(9, 0), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopC.id(), LocalTime.of(9, 0), WEDNESDAY);
 
         assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 35));
     }
@@ -281,7 +301,7 @@ class RaptorTest {
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(isolated.id())).thenReturn(isolated);
 
-        assertThatThrownBy(() -> raptor.planAllPaths(stopA.id(), isolated.id(), LocalTime.of(8, 0), Day.WEEKDAY))
+        assertThatThrownBy(() -> raptor.planAllPaths(stopA.id(), isolated.id(), LocalTime.of(8, 0), WEDNESDAY))
                 .isInstanceOf(NoSuchElementException.class)
                 .hasMessageContaining("не связаны транспортом");
     }
@@ -295,17 +315,83 @@ class RaptorTest {
                         createStopTime(stopB, 23, 59)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(nightTrip));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(nightTrip);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopB.id())).thenReturn(stopB);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopB.id(), LocalTime.of(23, 45), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopB.id(), LocalTime.of(23, 45), WEDNESDAY);
         assertThat(path).hasSize(2);
         assertThat(path.getLast().time()).isEqualTo(LocalTime.of(23, 59));
     }
 
+    @Test
+    void plan_shouldRideTripPastMidnight() {
+        Trip nightTrip = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 23, 50),
+                        createStopTime(stopB, 23, 58),
+                        createStopTime(stopC, 0, 10),
+                        createStopTime(stopD, 0, 20)
+                )).build();
+
+        trips = List.of(nightTrip);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(23, 45), WEDNESDAY);
+        assertThat(path).hasSize(4);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(0, 20));
+    }
+
+    @Test
+    void plan_shouldUsePreviousDayTripAfterMidnight() {
+        Trip nightTrip = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 23, 50),
+                        createStopTime(stopB, 23, 58),
+                        createStopTime(stopC, 0, 10),
+                        createStopTime(stopD, 0, 20)
+                )).build();
+
+        trips = List.of(nightTrip);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.plan(stopC.id(), stopD.id(), LocalTime.of(0, 5), WEDNESDAY);
+        assertThat(path).hasSize(2);
+        assertThat(path.getFirst().time()).isEqualTo(LocalTime.of(0, 10));
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(0, 20));
+    }
+
+    @Test
+    void plan_shouldRunNightTailByPreviousDateService() {
+        Trip nightTrip = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 23, 50),
+                        createStopTime(stopC, 0, 10),
+                        createStopTime(stopD, 0, 20)
+                )).build();
+
+        trips = List.of(nightTrip);
+        raptor = createRaptor();
+
+        // ночь после пятницы обслуживает будничный рейс пятницы; после воскресенья ждать до ночи понедельника
+        MatrixRowDto saturday = raptor.travelTimesFrom(stopC, List.of(stopD), LocalTime.of(0, 5), SATURDAY);
+        MatrixRowDto monday = raptor.travelTimesFrom(stopC, List.of(stopD), LocalTime.of(0, 5), SATURDAY.plusDays(2));
+
+        assertThat(saturday.travelTimes()).containsExactly(15 * 60);
+        assertThat(monday.travelTimes()).containsExactly(Timetable.SECONDS_PER_DAY + 15 * 60);
+    }
+
     @Test
     void plan_shouldHandleRouteWithMultiplePassesOfSameStop() {
         Trip loopTrip = Trip.builder()
@@ -318,17 +404,537 @@ class RaptorTest {
                         createStopTime(stopD, 10, 40)
                 )).build();
 
-        when(tripRepo.getTrips()).thenReturn(List.of(loopTrip));
-        raptor = new Raptor(stopRepo, stopService, tripRepo);
+        trips = List.of(loopTrip);
+        raptor = createRaptor();
 
         when(stopService.findById(stopA.id())).thenReturn(stopA);
         when(stopService.findById(stopD.id())).thenReturn(stopD);
 
-        List<PathDto> path = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 0), Day.WEEKDAY);
+        List<PathDto> path = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 0), WEDNESDAY);
 
         assertThat(path).hasSize(5);
         assertThat(path.getLast().stop()).isEqualTo(stopD);
     }
+    @Test
+    void plan_shouldBoardEarliestTripRegardlessOfInputOrder() {
+        Trip late = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 12, 0),
+                        createStopTime(stopB, 12, 10)
+                )).build();
+
+        Trip early = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 0),
+                        createStopTime(stopB, 10, 10)
+                )).build();
+
+        trips = List.of(late, early);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopB.id())).thenReturn(stopB);
+
+        List<PathDto> path = raptor.plan(stopA.id(), stopB.id(), LocalTime.of(9, 0), WEDNESDAY);
+
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 10));
+    }
+
+    @Test
+    void plan_shouldUseOvertakingExpressTrip() {
+        Trip slow = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 0),
+                        createStopTime(stopB, 10, 50)
+                )).build();
+
+        Trip express = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 10),
+                        createStopTime(stopB, 10, 30)
+                )).build();
+
+        trips = List.of(slow, express);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopB.id())).thenReturn(stopB);
+
+        List<PathDto> path = raptor.plan(stopA.id(), stopB.id(), LocalTime.of(9, 0), WEDNESDAY);
+
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 30));
+    }
+
+    @Test
+    void plan_shouldHopOntoEarlierTripAtLaterStopOfRoute() {
+        Stop stopE = createStop("E");
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD, "Desc E", stopE
+        );
+        Route toA = Route.builder().id(UUID.randomUUID()).number(3).transport(Transport.BUS).direction("A").build();
+        Route toC = Route.builder().id(UUID.randomUUID()).number(4).transport(Transport.BUS).direction("C").build();
+
+        // до A доезжаем поздно и успеваем только на второй рейс, до C — рано и успеваем на первый
+        trips = List.of(
+                Trip.builder().id(UUID.randomUUID()).route(toA).day(Day.WEEKDAY)
+                        .stops(List.of(createStopTime(stopE, 10, 0), createStopTime(stopA, 10, 20))).build(),
+                Trip.builder().id(UUID.randomUUID()).route(toC).day(Day.WEEKDAY)
+                        .stops(List.of(createStopTime(stopE, 9, 50), createStopTime(stopC, 10, 5))).build(),
+                Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                        .stops(List.of(
+                                createStopTime(stopA, 10, 0), createStopTime(stopB, 10, 10),
+                                createStopTime(stopC, 10, 20), createStopTime(stopD, 10, 30)
+                        )).build(),
+                Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                        .stops(List.of(
+                                createStopTime(stopA, 10, 30), createStopTime(stopB, 10, 40),
+                                createStopTime(stopC, 10, 50), createStopTime(stopD, 11, 0)
+                        )).build()
+        );
+        raptor = createRaptor();
+
+        when(stopService.findById(stopE.id())).thenReturn(stopE);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.plan(stopE.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopE, stopC, stopC, stopD);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 30));
+    }
+
+    @Test
+    void planRange_shouldReturnJourneyForEachDepartureInWindow() {
+        Trip first = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 0), createStopTime(stopC, 8, 20))).build();
+        Trip second = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 30), createStopTime(stopC, 8, 50))).build();
+        Trip outOfWindow = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 9, 0), createStopTime(stopC, 9, 20))).build();
+
+        trips = List.of(first, second, outOfWindow);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+
+        List<List<PathDto>> result = raptor.planRange(stopA.id(), stopC.id(),
+                LocalTime.of(7, 50), LocalTime.of(8, 40), WEDNESDAY);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getFirst().time()).isEqualTo(LocalTime.of(8, 0));
+        assertThat(result.get(1).getFirst().time()).isEqualTo(LocalTime.of(8, 30));
+    }
+
+    @Test
+    void planRange_shouldDropJourneysDominatedByLaterDeparture() {
+        Trip slow = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 0), createStopTime(stopC, 9, 0))).build();
+        Trip fast = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 10), createStopTime(stopC, 8, 30))).build();
+
+        trips = List.of(slow, fast);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+
+        List<List<PathDto>> result = raptor.planRange(stopA.id(), stopC.id(),
+                LocalTime.of(7, 50), LocalTime.of(8, 10), WEDNESDAY);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.getFirst().getFirst().time()).isEqualTo(LocalTime.of(8, 10));
+        assertThat(result.getFirst().getLast().time()).isEqualTo(LocalTime.of(8, 30));
+    }
+
+    @Test
+    void planRange_shouldKeepLaterJourneyArrivingAfterMidnight() {
+        Trip evening = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 23, 30), createStopTime(stopC, 23, 58))).build();
+        Trip night = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 23, 45), createStopTime(stopC, 0, 5))).build();
+
+        trips = List.of(evening, night);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+
+        List<List<PathDto>> result = raptor.planRange(stopA.id(), stopC.id(),
+                LocalTime.of(23, 0), LocalTime.of(23, 45), WEDNESDAY);
+
+        // прибытие в 00:05 позже, чем в 23:58, поэтому поздняя поездка не вытесняет раннюю
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getLast().time()).isEqualTo(LocalTime.of(23, 58));
+        assertThat(result.get(1).getLast().time()).isEqualTo(LocalTime.of(0, 5));
+    }
+
+    @Test
+    void planRange_shouldKeepDirectAndFasterTransferJourneys() {
+        Trip slowDirect = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 8, 0),
+                        createStopTime(stopB, 8, 10),
+                        createStopTime(stopD, 9, 30)
+                )).build();
+        Trip connection = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopB, 8, 20), createStopTime(stopD, 8, 40))).build();
+
+        trips = List.of(slowDirect, connection);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<List<PathDto>> result = raptor.planRange(stopA.id(), stopD.id(),
+                LocalTime.of(7, 50), LocalTime.of(8, 0), WEDNESDAY);
+
+        assertThat(result).hasSize(2);
+        assertThat(result).extracting(path -> path.getLast().time())
+                .containsExactlyInAnyOrder(LocalTime.of(9, 30), LocalTime.of(8, 40));
+    }
+
+    @Test
+    void planRange_shouldThrowWhenWindowIsInverted() {
+        assertThatThrownBy(() -> raptor.planRange(stopA.id(), stopC.id(),
+                LocalTime.of(9, 0), LocalTime.of(8, 0), WEDNESDAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void planRange_shouldThrowWhenNoDeparturesInWindow() {
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+
+        assertThatThrownBy(() -> raptor.planRange(stopA.id(), stopC.id(),
+                LocalTime.of(11, 0), LocalTime.of(12, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void planPareto_shouldReturnFasterTransferAndSlowerDirectJourneys() {
+        Trip slowDirect = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 8, 0),
+                        createStopTime(stopB, 8, 10),
+                        createStopTime(stopD, 9, 0)
+                )).build();
+        Trip connection = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopB, 8, 20), createStopTime(stopD, 8, 40))).build();
+
+        trips = List.of(slowDirect, connection);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<List<PathDto>> result = raptor.planPareto(stopA.id(), stopD.id(), LocalTime.of(7, 50), WEDNESDAY);
+        List<PathDto> direct = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(7, 50), WEDNESDAY);
+
+        assertThat(direct.getLast().time()).isEqualTo(LocalTime.of(9, 0));
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getLast().time()).isEqualTo(LocalTime.of(8, 40));
+        assertThat(result.get(0)).extracting(PathDto::number).contains(1, 2);
+        assertThat(result.get(1).getLast().time()).isEqualTo(LocalTime.of(9, 0));
+        assertThat(result.get(1)).extracting(PathDto::number).containsOnly(1);
+    }
+
+    @Test
+    void planPareto_shouldKeepJourneyWithLessRideTime() {
+        Trip longRide = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 0), createStopTime(stopC, 8, 50))).build();
+        Trip shortRide = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 40), createStopTime(stopC, 8, 55))).build();
+
+        trips = List.of(longRide, shortRide);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+
+        List<List<PathDto>> result = raptor.planPareto(stopA.id(), stopC.id(), LocalTime.of(7, 50), WEDNESDAY);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getFirst().time()).isEqualTo(LocalTime.of(8, 0));
+        assertThat(result.get(1).getFirst().time()).isEqualTo(LocalTime.of(8, 40));
+    }
+
+    @Test
+    void planPareto_shouldKeepDirectJourneyArrivingMuchLater() {
+        Trip fast = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 8, 0), createStopTime(stopB, 8, 10))).build();
+        Trip connection = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopB, 8, 20), createStopTime(stopD, 8, 40))).build();
+        Trip lateDirect = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 9, 0), createStopTime(stopD, 10, 0))).build();
+
+        trips = List.of(fast, connection, lateDirect);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<List<PathDto>> result = raptor.planPareto(stopA.id(), stopD.id(), LocalTime.of(7, 50), WEDNESDAY);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getLast().time()).isEqualTo(LocalTime.of(8, 40));
+        assertThat(result.get(1).getLast().time()).isEqualTo(LocalTime.of(10, 0));
+        assertThat(result.get(1)).extracting(PathDto::number).containsOnly(1);
+    }
+
+    @Test
+    void planPareto_shouldNotSearchBeyondMaxTransfers() {
+        ReflectionTestUtils.setField(raptor, "maxTransfers", 0);
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        assertThatThrownBy(() -> raptor.planPareto(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void planPareto_shouldThrowWhenNoRouteFound() {
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+
+        assertThatThrownBy(() -> raptor.planPareto(stopD.id(), stopA.id(), LocalTime.of(9, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void planArriveBy_shouldReturnTransferJourneyArrivingInTime() {
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.planArriveBy(stopA.id(), stopD.id(), LocalTime.of(11, 0), WEDNESDAY);
+
+        assertThat(path.getFirst().stop()).isEqualTo(stopA);
+        assertThat(path.getFirst().time()).isEqualTo(LocalTime.of(10, 0));
+        assertThat(path.getLast().stop()).isEqualTo(stopD);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void planArriveBy_shouldPickLatestDepartureThatCatchesConnection() {
+        Trip early = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 9, 0), createStopTime(stopC, 9, 20))).build();
+        Trip inTime = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 9, 40), createStopTime(stopC, 10, 0))).build();
+        Trip tooLate = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 10, 0), createStopTime(stopC, 10, 28))).build();
+        Trip connection = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopC, 10, 30), createStopTime(stopD, 10, 45))).build();
+
+        trips = List.of(early, inTime, tooLate, connection);
+        raptor = createRaptor();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.planArriveBy(stopA.id(), stopD.id(), LocalTime.of(10, 50), WEDNESDAY);
+
+        assertThat(path.getFirst().time()).isEqualTo(LocalTime.of(9, 40));
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void planArriveBy_shouldThrowWhenNothingArrivesInTime() {
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        assertThatThrownBy(() -> raptor.planArriveBy(stopA.id(), stopD.id(), LocalTime.of(10, 40), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Маршрут не найден");
+    }
+
+    @Test
+    void planArriveBy_shouldNotSearchBeyondMaxTransfers() {
+        ReflectionTestUtils.setField(raptor, "maxTransfers", 0);
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        assertThatThrownBy(() -> raptor.planArriveBy(stopA.id(), stopD.id(), LocalTime.of(11, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void planArriveBy_shouldThrowWhenSameStop() {
+        assertThatThrownBy(() -> raptor.planArriveBy(stopA.id(), stopA.id(), LocalTime.of(10, 40), WEDNESDAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void plan_shouldWalkToNearbyStopForTransfer() {
+        Stop stopE = useWalkBetweenCAndE();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC, stopC, stopE, stopE, stopD);
+        assertThat(path.get(3).transport()).isEqualTo(Transport.WALK);
+        assertThat(path.get(4).time()).isEqualTo(LocalTime.of(10, 23));
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void planPareto_shouldIncludeWalkingLeg() {
+        useWalkBetweenCAndE();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<List<PathDto>> paths = raptor.planPareto(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(paths).hasSize(1);
+        assertThat(paths.getFirst()).extracting(PathDto::transport).contains(Transport.WALK);
+        assertThat(paths.getFirst().getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void planArriveBy_shouldWalkToNearbyStopForTransfer() {
+        Stop stopE = useWalkBetweenCAndE();
+
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopD.id())).thenReturn(stopD);
+
+        List<PathDto> path = raptor.planArriveBy(stopA.id(), stopD.id(), LocalTime.of(11, 0), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC, stopC, stopE, stopE, stopD);
+        assertThat(path.getFirst().time()).isEqualTo(LocalTime.of(10, 0));
+        assertThat(path.get(3).transport()).isEqualTo(Transport.WALK);
+    }
+
+    @Test
+    void planBetweenGroups_shouldStartFromAnyOriginPlatform() {
+        Stop stopA2 = createStop("A2");
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc A2", stopA2, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD
+        );
+        Trip slow = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 10, 0), createStopTime(stopC, 10, 40))).build();
+        Trip fast = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA2, 10, 5), createStopTime(stopC, 10, 15))).build();
+        trips = List.of(slow, fast);
+        raptor = createRaptor();
+
+        List<PathDto> path = raptor.planBetweenGroups(
+                List.of(stopA, stopA2), List.of(stopC), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path.getFirst().stop()).isEqualTo(stopA2);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 15));
+    }
+
+    @Test
+    void planBetweenGroups_shouldEndAtEarliestTargetPlatform() {
+        List<PathDto> path = raptor.planBetweenGroups(
+                List.of(stopA), List.of(stopD, stopC), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path.getLast().stop()).isEqualTo(stopC);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 20));
+    }
+
+    @Test
+    void planBetweenGroups_shouldThrowWhenGroupsOverlap() {
+        assertThatThrownBy(() -> raptor.planBetweenGroups(
+                List.of(stopA, stopB), List.of(stopB), LocalTime.of(9, 30), WEDNESDAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reach_shouldReturnStopsWithinBudgetSortedByTravelTime() {
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+
+        ReachResponseDto reach = raptor.reach(stopA.id(), LocalTime.of(9, 30), WEDNESDAY, Duration.ofMinutes(60));
+
+        assertThat(reach.stopIds()).containsExactly(stopA.id(), stopB.id(), stopC.id());
+        assertThat(reach.travelTimes()).containsExactly(0, 40 * 60, 50 * 60);
+        assertThat(reach.transfers()).containsExactly(0, 0, 0);
+    }
+
+    @Test
+    void reach_shouldCountTransfers() {
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+
+        ReachResponseDto reach = raptor.reach(stopA.id(), LocalTime.of(9, 30), WEDNESDAY, Duration.ofMinutes(75));
+
+        assertThat(reach.stopIds()).containsExactly(stopA.id(), stopB.id(), stopC.id(), stopD.id());
+        assertThat(reach.travelTimes()[3]).isEqualTo(75 * 60);
+        assertThat(reach.transfers()[3]).isEqualTo(1);
+    }
+
+    @Test
+    void travelTimesFrom_shouldReturnRowInTargetOrder() {
+        Stop unknown = createStop("Z");
+
+        MatrixRowDto row = raptor.travelTimesFrom(stopA, List.of(stopD, stopB, unknown), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(row.originStopId()).isEqualTo(stopA.id());
+        assertThat(row.travelTimes()).containsExactly(75 * 60, 40 * 60, -1);
+        assertThat(row.transfers()).containsExactly(1, 0, -1);
+    }
+
+    // второй рейс уходит не от C, а от соседней остановки E, до которой 3 минуты пешком
+    private Stop useWalkBetweenCAndE() {
+        Stop stopE = createStop("E");
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD, "Desc E", stopE
+        );
+
+        Trip trip1 = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 0),
+                        createStopTime(stopB, 10, 10),
+                        createStopTime(stopC, 10, 20)
+                )).build();
+        Trip trip2 = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopE, 10, 30), createStopTime(stopD, 10, 45))).build();
+        trips = List.of(trip1, trip2);
+
+        Duration walk = Duration.ofMinutes(3);
+        footpaths = List.of(
+                Footpath.builder().from(stopC).to(stopE).duration(walk).build(),
+                Footpath.builder().from(stopE).to(stopC).duration(walk).build()
+        );
+
+        raptor = createRaptor();
+        return stopE;
+    }
+
+    // движок читает расписание через TimetableRepo, как в приложении
+    private Raptor createRaptor() {
+        when(timetableRepo.getTimetable()).thenReturn(new Timetable(stopMap, trips, footpaths));
+        return new Raptor(timetableRepo, stopService);
+    }
+
     private Stop createStop(String name) {
         return Stop.builder().id(UUID.randomUUID()).name(name).description("Desc " + name).build();
     }
@@ -0,0 +1,292 @@
+package dev.bratskov.raspisanie.unit.raptor;
+
+import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.raptor.TripBased;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TripBasedTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 10, 17);
+
+    @Mock
+    private TimetableRepo timetableRepo;
+    @Mock
+    private StopService stopService;
+
+    private Map<String, Stop> stopMap;
+    private List<Trip> trips;
+    private List<Footpath> footpaths = List.of();
+
+    private TripBased tripBased;
+    private Stop stopA, stopB, stopC, stopD;
+    private Route route1, route2;
+    private Trip trip1, trip2;
+
+    @BeforeEach
+    void setUp() {
+        stopA = createStop("A");
+        stopB = createStop("B");
+        stopC = createStop("C");
+        stopD = createStop("D");
+
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD
+        );
+
+        route1 = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS).direction("C").build();
+        route2 = Route.builder().id(UUID.randomUUID()).number(2).transport(Transport.BUS).direction("D").build();
+
+        trip1 = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 0),
+                        createStopTime(stopB, 10, 10),
+                        createStopTime(stopC, 10, 20)
+                )).build();
+
+        trip2 = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopC, 10, 30),
+                        createStopTime(stopD, 10, 45)
+                )).build();
+
+        trips = List.of(trip1, trip2);
+        tripBased = createTripBased();
+    }
+
+    @Test
+    void plan_shouldFindDirectPath() {
+        mockStops(stopA, stopC);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopC.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 20));
+    }
+
+    @Test
+    void plan_shouldFindPathWithTransfer() {
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC, stopC, stopD);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void plan_shouldFailWhenTransferTimeTooShort() {
+        Trip fastTrip = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopC, 10, 22), createStopTime(stopD, 10, 40)))
+                .build();
+        trips = List.of(trip1, fastTrip);
+        tripBased = createTripBased();
+        mockStops(stopA, stopD);
+
+        assertThatThrownBy(() -> tripBased.plan(stopA.id(), stopD.id(), LocalTime.of(9, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void plan_shouldIgnoreTripsOfOtherDayAndBeforeStart() {
+        mockStops(stopA, stopB);
+
+        assertThatThrownBy(() -> tripBased.plan(stopA.id(), stopB.id(), LocalTime.of(8, 0), SATURDAY))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> tripBased.plan(stopA.id(), stopB.id(), LocalTime.of(11, 0), WEDNESDAY))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void plan_shouldPreferFewerTrips() {
+        useSlowDirectTrip();
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::number).containsOnly(3);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(11, 30));
+    }
+
+    @Test
+    void planAllPaths_shouldReturnBestJourneyForEachNumberOfTrips() {
+        useSlowDirectTrip();
+        mockStops(stopA, stopD);
+
+        List<List<PathDto>> paths = tripBased.planAllPaths(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(paths).hasSize(2);
+        assertThat(paths.get(0).getLast().time()).isEqualTo(LocalTime.of(11, 30));
+        assertThat(paths.get(1).getLast().time()).isEqualTo(LocalTime.of(10, 45));
+        assertThat(paths.get(1)).extracting(PathDto::number).containsExactly(1, 1, 1, 2, 2);
+    }
+
+    @Test
+    void plan_shouldWalkToNearbyStopForTransfer() {
+        Stop stopE = createStop("E");
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD, "Desc E", stopE
+        );
+        Trip fromE = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopE, 10, 30), createStopTime(stopD, 10, 45)))
+                .build();
+        trips = List.of(trip1, fromE);
+        footpaths = List.of(
+                Footpath.builder().from(stopC).to(stopE).duration(Duration.ofMinutes(3)).build()
+        );
+        tripBased = createTripBased();
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::transport)
+                .containsExactly(Transport.BUS, Transport.BUS, Transport.BUS,
+                        Transport.WALK, Transport.WALK, Transport.BUS, Transport.BUS);
+        assertThat(path.get(4).stop()).isEqualTo(stopE);
+        assertThat(path.get(4).time()).isEqualTo(LocalTime.of(10, 23));
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 45));
+    }
+
+    @Test
+    void plan_shouldWalkFromOriginAndToTarget() {
+        Stop stopE = createStop("E");
+        Stop stopF = createStop("F");
+        stopMap = Map.of(
+                "Desc A", stopA, "Desc B", stopB, "Desc C", stopC, "Desc D", stopD,
+                "Desc E", stopE, "Desc F", stopF
+        );
+        footpaths = List.of(
+                Footpath.builder().from(stopE).to(stopA).duration(Duration.ofMinutes(2)).build(),
+                Footpath.builder().from(stopC).to(stopF).duration(Duration.ofMinutes(3)).build()
+        );
+        tripBased = createTripBased();
+        mockStops(stopE, stopF);
+
+        List<PathDto> path = tripBased.plan(stopE.id(), stopF.id(), LocalTime.of(9, 50), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop)
+                .containsExactly(stopE, stopA, stopA, stopB, stopC, stopC, stopF);
+        assertThat(path.get(1).time()).isEqualTo(LocalTime.of(9, 52));
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 23));
+    }
+
+    @Test
+    void plan_shouldContinueOnSameLineAtTerminusWithoutTransferTime() {
+        Trip backTrip = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopC, 10, 20), createStopTime(stopD, 10, 35)))
+                .build();
+        trips = List.of(trip1, backTrip);
+        tripBased = createTripBased();
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopD.id(), LocalTime.of(9, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopB, stopC, stopC, stopD);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 35));
+    }
+
+    @Test
+    void plan_shouldBoardLoopRouteOnItsSecondPassThroughOrigin() {
+        // кольцевой рейс уже ушёл с A, но ещё раз проходит через неё
+        Trip loop = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        createStopTime(stopA, 10, 0), createStopTime(stopB, 10, 10),
+                        createStopTime(stopA, 10, 20), createStopTime(stopC, 10, 30)
+                )).build();
+        trips = List.of(loop);
+        tripBased = createTripBased();
+        mockStops(stopA, stopC);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopC.id(), LocalTime.of(10, 5), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopC);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(10, 30));
+    }
+
+    @Test
+    void plan_shouldTransferOntoTripAfterMidnight() {
+        Trip late = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 23, 40), createStopTime(stopC, 23, 55))).build();
+        Trip night = Trip.builder()
+                .id(UUID.randomUUID()).route(route2).day(Day.WEEKDAY).afterMidnight(true)
+                .stops(List.of(createStopTime(stopC, 0, 5), createStopTime(stopD, 0, 20))).build();
+        trips = List.of(late, night);
+        tripBased = createTripBased();
+        mockStops(stopA, stopD);
+
+        List<PathDto> path = tripBased.plan(stopA.id(), stopD.id(), LocalTime.of(23, 30), WEDNESDAY);
+
+        assertThat(path).extracting(PathDto::stop).containsExactly(stopA, stopC, stopC, stopD);
+        assertThat(path.getLast().time()).isEqualTo(LocalTime.of(0, 20));
+    }
+
+    @Test
+    void plan_shouldThrowExceptionForSameOriginAndTarget() {
+        assertThatThrownBy(() -> tripBased.plan(stopA.id(), stopA.id(), LocalTime.of(9, 0), WEDNESDAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // прямой, но медленный рейс A → D в дополнение к пересадке C
+    private void useSlowDirectTrip() {
+        Route route3 = Route.builder().id(UUID.randomUUID()).number(3).transport(Transport.BUS).direction("D").build();
+        Trip direct = Trip.builder()
+                .id(UUID.randomUUID()).route(route3).day(Day.WEEKDAY)
+                .stops(List.of(createStopTime(stopA, 10, 5), createStopTime(stopD, 11, 30)))
+                .build();
+        trips = List.of(trip1, trip2, direct);
+        tripBased = createTripBased();
+    }
+
+    private void mockStops(Stop origin, Stop target) {
+        when(stopService.findById(origin.id())).thenReturn(origin);
+        when(stopService.findById(target.id())).thenReturn(target);
+    }
+
+    // движок читает расписание через TimetableRepo, как в приложении
+    private TripBased createTripBased() {
+        when(timetableRepo.getTimetable()).thenReturn(new Timetable(stopMap, trips, footpaths));
+        return new TripBased(timetableRepo, stopService);
+    }
+
+    private Stop createStop(String name) {
+        return Stop.builder().id(UUID.randomUUID()).name(name).description("Desc " + name).build();
+    }
+
+    private StopTime createStopTime(Stop stop, int h, int m) {
+        return StopTime.builder().stop(stop).time(LocalTime.of(h, m)).build();
+    }
+}
@@ -0,0 +1,196 @@
+package dev.bratskov.raspisanie.unit.reader;
+
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableSnapshotTest {
+
+    private static final long SOURCE_CHECKSUM = 42;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private Map<String, Stop> stopMap;
+    private Map<String, Route> routeMap;
+    private List<Trip> trips;
+    private List<Footpath> footpaths;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("timetable.snapshot");
+
+        Stop stopA = createStop("A");
+        Stop stopB = createStop("B");
+        Stop stopC = createStop("C");
+        stopMap = Map.of("Desc A", stopA, "Desc B", stopB, "Desc C", stopC);
+
+        Route route = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS)
+                .direction("C").stops(List.of(stopA, stopB, stopC)).build();
+        routeMap = Map.of("1_C", route);
+
+        trips = List.of(
+                createTrip(route, Day.WEEKDAY, false, stopA, LocalTime.of(10, 0), stopB, null, stopC, LocalTime.of(10, 20)),
+                createTrip(route, Day.WEEKEND, false, stopA, LocalTime.of(23, 50), stopB, LocalTime.of(23, 59), stopC, LocalTime.of(0, 10)),
+                createTrip(route, Day.WEEKDAY, true, stopA, LocalTime.of(0, 30), stopB, LocalTime.of(0, 35), stopC, LocalTime.of(0, 40))
+        );
+        footpaths = List.of(Footpath.builder().from(stopA).to(stopC).duration(Duration.ofMinutes(5)).build());
+    }
+
+    @Test
+    void loadModel_shouldReturnSavedStopsRoutesAndTrips() {
+        save();
+
+        Optional<TimetableSnapshot.Model> model = snapshot().loadModel(SOURCE_CHECKSUM).loaded();
+
+        assertThat(model).isPresent();
+        assertThat(model.get().stopMap()).isEqualTo(stopMap);
+        assertThat(model.get().routeMap()).isEqualTo(routeMap);
+        assertThat(model.get().trips()).isEqualTo(trips);
+    }
+
+    @Test
+    void loadTimetable_shouldMatchCompiledTimetable() {
+        Timetable compiled = save();
+
+        TimetableSnapshot snapshot = snapshot();
+        TimetableSnapshot.Handle handle = snapshot.loadModel(SOURCE_CHECKSUM);
+        Optional<Timetable> loaded = snapshot.loadTimetable(handle, TimetableSnapshot.checksum(footpaths), ServiceCalendar.weekly());
+
+        assertThat(loaded).isPresent();
+        assertSameTimetable(loaded.get(), compiled);
+    }
+
+    @Test
+    void loadTimetable_shouldLoadEachHandleIndependently() {
+        Timetable compiled = save();
+        TimetableSnapshot snapshot = snapshot();
+        long footpathChecksum = TimetableSnapshot.checksum(footpaths);
+
+        TimetableSnapshot.Handle first = snapshot.loadModel(SOURCE_CHECKSUM);
+        TimetableSnapshot.Handle second = snapshot.loadModel(SOURCE_CHECKSUM);
+
+        assertThat(snapshot.loadTimetable(second, footpathChecksum, ServiceCalendar.weekly())).isPresent();
+        Optional<Timetable> loaded = snapshot.loadTimetable(first, footpathChecksum, ServiceCalendar.weekly());
+        assertThat(loaded).isPresent();
+        assertSameTimetable(loaded.get(), compiled);
+    }
+
+    @Test
+    void loadModel_shouldReturnEmpty_whenSourceChanged() {
+        save();
+
+        assertThat(snapshot().loadModel(SOURCE_CHECKSUM + 1).loaded()).isEmpty();
+    }
+
+    @Test
+    void loadTimetable_shouldReturnEmpty_whenFootpathsChanged() {
+        save();
+        List<Footpath> changed = List.of(Footpath.builder()
+                .from(footpaths.getFirst().from())
+                .to(footpaths.getFirst().to())
+                .duration(Duration.ofMinutes(6))
+                .build());
+
+        TimetableSnapshot snapshot = snapshot();
+        TimetableSnapshot.Handle handle = snapshot.loadModel(SOURCE_CHECKSUM);
+        assertThat(handle.loaded()).isPresent();
+        assertThat(snapshot.loadTimetable(handle, TimetableSnapshot.checksum(changed), ServiceCalendar.weekly())).isEmpty();
+    }
+
+    @Test
+    void loadModel_shouldReturnEmpty_whenFileIsCorrupted() throws IOException {
+        save();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThat(snapshot().loadModel(SOURCE_CHECKSUM).loaded()).isEmpty();
+    }
+
+    @Test
+    void save_shouldDoNothing_whenSnapshotDisabled() {
+        TimetableSnapshot snapshot = new TimetableSnapshot();
+        TimetableSnapshot.Handle handle = snapshot.loadModel(SOURCE_CHECKSUM);
+        snapshot.save(handle, stopMap, routeMap, trips, new Timetable(stopMap, trips, footpaths), TimetableSnapshot.checksum(footpaths));
+
+        assertThat(snapshot.isEnabled()).isFalse();
+        assertThat(file).doesNotExist();
+    }
+
+    private Timetable save() {
+        TimetableSnapshot snapshot = snapshot();
+        TimetableSnapshot.Handle handle = snapshot.loadModel(SOURCE_CHECKSUM);
+        assertThat(handle.loaded()).isEmpty();
+        Timetable timetable = new Timetable(stopMap, trips, footpaths);
+        snapshot.save(handle, stopMap, routeMap, trips, timetable, TimetableSnapshot.checksum(footpaths));
+        assertThat(file).exists();
+        return timetable;
+    }
+
+    private TimetableSnapshot snapshot() {
+        TimetableSnapshot snapshot = new TimetableSnapshot();
+        ReflectionTestUtils.setField(snapshot, "filePath", file.toString());
+        return snapshot;
+    }
+
+    private void assertSameTimetable(Timetable actual, Timetable expected) {
+        assertThat(actual.stopCount()).isEqualTo(expected.stopCount());
+        for (int stop = 0; stop < expected.stopCount(); stop++) {
+            assertThat(actual.stop(stop)).isEqualTo(expected.stop(stop));
+            assertThat(actual.indexOf(expected.stop(stop))).isEqualTo(stop);
+            assertThat(actual.stopPatternStart(stop)).isEqualTo(expected.stopPatternStart(stop));
+            assertThat(actual.footpathStart(stop)).isEqualTo(expected.footpathStart(stop));
+            assertThat(actual.footpathEnd(stop)).isEqualTo(expected.footpathEnd(stop));
+        }
+        assertThat(actual.patternCount()).isEqualTo(expected.patternCount());
+        for (int pattern = 0; pattern < expected.patternCount(); pattern++) {
+            assertThat(actual.patternRoute(pattern)).isEqualTo(expected.patternRoute(pattern));
+            assertThat(actual.patternService(pattern)).isEqualTo(expected.patternService(pattern));
+            assertThat(actual.patternLine(pattern)).isEqualTo(expected.patternLine(pattern));
+            assertThat(actual.firstTrip(pattern)).isEqualTo(expected.firstTrip(pattern));
+            assertThat(actual.endTrip(pattern)).isEqualTo(expected.endTrip(pattern));
+        }
+        assertThat(actual.tripCount()).isEqualTo(expected.tripCount());
+        assertThat(actual.patternStops()).isEqualTo(expected.patternStops());
+        assertThat(actual.stopTimes()).isEqualTo(expected.stopTimes());
+        assertThat(actual.walkTime(0, 2)).isEqualTo(expected.walkTime(0, 2));
+    }
+
+    private Stop createStop(String name) {
+        return Stop.builder().id(UUID.randomUUID()).name(name).description("Desc " + name).build();
+    }
+
+    private Trip createTrip(Route route, Day day, boolean afterMidnight, Object... stopsAndTimes) {
+        List<StopTime> stopTimes = new ArrayList<>();
+        for (int i = 0; i < stopsAndTimes.length; i += 2) {
+            stopTimes.add(StopTime.builder().stop((Stop) stopsAndTimes[i]).time((LocalTime) stopsAndTimes[i + 1]).build());
+        }
+        return Trip.builder().id(UUID.randomUUID()).route(route).stops(stopTimes).day(day).afterMidnight(afterMidnight).build();
+    }
+}
@@ -1,14 +1,17 @@
 package dev.bratskov.raspisanie.unit.repo;
 
-import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Route;
 import dev.bratskov.raspisanie.repo.RouteRepo;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -17,12 +20,16 @@ import static org.mockito.Mockito.when;
 class RouteRepoTest {
 
     @Mock
-    private Parser parser;
+    private TimetableRepo timetableRepo;
 
     private RouteRepo routeRepo;
 
+    private void useRoutes(Set<Route> routes) {
+        when(timetableRepo.getData()).thenReturn(TimetableData.builder().routes(routes).build());
+    }
+
     @Test
-    void constructor_shouldInitializeRoutesFromParser() {
+    void getRoutes_shouldReadCurrentData() {
         Route route1 = Route.builder().number(1).build();
         Route route2 = Route.builder().number(2).build();
 
@@ -31,19 +38,19 @@ class RouteRepoTest {
                 "r2", route2
         );
 
-        when(parser.getRouteMap()).thenReturn(routeMap);
+        useRoutes(new HashSet<>(routeMap.values()));
 
-        routeRepo = new RouteRepo(parser);
+        routeRepo = new RouteRepo(timetableRepo);
 
         assertThat(routeRepo.getRoutes()).hasSize(2);
         assertThat(routeRepo.getRoutes()).contains(route1, route2);
     }
 
     @Test
-    void constructor_shouldHandleEmptyParserData() {
-        when(parser.getRouteMap()).thenReturn(Map.of());
+    void getRoutes_shouldHandleEmptyData() {
+        useRoutes(Set.of());
 
-        routeRepo = new RouteRepo(parser);
+        routeRepo = new RouteRepo(timetableRepo);
 
         assertThat(routeRepo.getRoutes()).isEmpty();
     }
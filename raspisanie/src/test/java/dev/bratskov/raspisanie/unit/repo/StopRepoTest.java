@@ -1,14 +1,16 @@
 package dev.bratskov.raspisanie.unit.repo;
 
-import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Stop;
 import dev.bratskov.raspisanie.repo.StopRepo;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.UUID;
 
@@ -19,12 +21,19 @@ import static org.mockito.Mockito.when;
 class StopRepoTest {
 
     @Mock
-    private Parser parser;
+    private TimetableRepo timetableRepo;
 
     private StopRepo stopRepo;
 
+    private void useStops(Map<String, Stop> stopMap) {
+        when(timetableRepo.getData()).thenReturn(TimetableData.builder()
+                .stops(new HashSet<>(stopMap.values()))
+                .stopsMap(stopMap)
+                .build());
+    }
+
     @Test
-    void constructor_shouldInitializeStopsFromParser() {
+    void getStops_shouldReadCurrentData() {
         UUID id1 = UUID.randomUUID();
         UUID id2 = UUID.randomUUID();
         Stop stop1 = Stop.builder().id(id1).name("Stop 1").build();
@@ -34,9 +43,9 @@ class StopRepoTest {
         stopMap.put("s1", stop1);
         stopMap.put("s2", stop2);
 
-        when(parser.getStopMap()).thenReturn(stopMap);
+        useStops(stopMap);
 
-        stopRepo = new StopRepo(parser);
+        stopRepo = new StopRepo(timetableRepo);
 
         assertThat(stopRepo.getStopsMap()).hasSize(2).containsValues(stop1, stop2);
         assertThat(stopRepo.getStops()).hasSize(2).contains(stop1, stop2);
@@ -49,9 +58,9 @@ class StopRepoTest {
         Stop otherStop = Stop.builder().id(UUID.randomUUID()).name("Other Stop").build();
 
         Map<String, Stop> stopMap = Map.of("key1", targetStop, "key2", otherStop);
-        when(parser.getStopMap()).thenReturn(stopMap);
+        useStops(stopMap);
 
-        stopRepo = new StopRepo(parser);
+        stopRepo = new StopRepo(timetableRepo);
 
         Stop result = stopRepo.getStopById(targetId);
 
@@ -64,8 +73,8 @@ class StopRepoTest {
     void getStopById_shouldReturnNull_whenNotFound() {
         Stop stop = Stop.builder().id(UUID.randomUUID()).name("Existing Stop").build();
 
-        when(parser.getStopMap()).thenReturn(Map.of("key", stop));
-        stopRepo = new StopRepo(parser);
+        useStops(Map.of("key", stop));
+        stopRepo = new StopRepo(timetableRepo);
 
         Stop result = stopRepo.getStopById(UUID.randomUUID());
 
@@ -0,0 +1,117 @@
+package dev.bratskov.raspisanie.unit.repo;
+
+import dev.bratskov.raspisanie.mapper.FootpathParser;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.reader.TimetableSnapshot;
+import dev.bratskov.raspisanie.repo.RouteRepo;
+import dev.bratskov.raspisanie.repo.StopRepo;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.repo.TripRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TimetableRepoTest {
+
+    @Mock
+    private Parser parser;
+
+    @Mock
+    private Parser reloadedParser;
+
+    @Mock
+    private FootpathParser footpathParser;
+
+    private TimetableRepo timetableRepo;
+
+    @BeforeEach
+    void setUp() {
+        mockData(parser, "A", "B");
+        when(footpathParser.getFootpaths()).thenReturn(List.of());
+        timetableRepo = new TimetableRepo(parser, footpathParser, new TimetableSnapshot());
+    }
+
+    @Test
+    void constructor_shouldPublishFirstVersion() {
+        TimetableData data = timetableRepo.getData();
+
+        assertThat(data.version()).isEqualTo(1);
+        assertThat(data.stops()).extracting(Stop::name).containsExactlyInAnyOrder("A", "B");
+        assertThat(data.routes()).hasSize(1);
+        assertThat(data.trips()).hasSize(1);
+        assertThat(timetableRepo.getTimetable()).isSameAs(data.timetable());
+        assertThat(timetableRepo.getTimetable().stopCount()).isEqualTo(2);
+    }
+
+    @Test
+    void build_shouldNotReplaceCurrentVersion_untilPublished() {
+        TimetableData first = timetableRepo.getData();
+        mockData(reloadedParser, "A", "B", "C");
+
+        TimetableData next = timetableRepo.build(reloadedParser, footpathParser, timetableRepo.nextVersion());
+
+        assertThat(next.version()).isEqualTo(2);
+        assertThat(next.timetable().stopCount()).isEqualTo(3);
+        assertThat(timetableRepo.getData()).isSameAs(first);
+
+        timetableRepo.publish(next);
+
+        assertThat(timetableRepo.getData()).isSameAs(next);
+        assertThat(timetableRepo.getTimetable()).isSameAs(next.timetable());
+    }
+
+    @Test
+    void repos_shouldReadPublishedVersion() {
+        StopRepo stopRepo = new StopRepo(timetableRepo);
+        RouteRepo routeRepo = new RouteRepo(timetableRepo);
+        TripRepo tripRepo = new TripRepo(timetableRepo);
+        assertThat(stopRepo.getStops()).hasSize(2);
+
+        mockData(reloadedParser, "A", "B", "C");
+        TimetableData next = timetableRepo.build(reloadedParser, footpathParser, timetableRepo.nextVersion());
+        timetableRepo.publish(next);
+
+        assertThat(stopRepo.getStops()).isSameAs(next.stops()).hasSize(3);
+        assertThat(stopRepo.getStopsMap()).containsKey("Desc C");
+        assertThat(routeRepo.getRoutes()).isSameAs(next.routes());
+        assertThat(tripRepo.getTrips()).isSameAs(next.trips());
+    }
+
+    private void mockData(Parser parser, String... names) {
+        Map<String, Stop> stopMap = new HashMap<>();
+        List<StopTime> stopTimes = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            Stop stop = Stop.builder().id(UUID.randomUUID()).name(names[i]).description("Desc " + names[i]).build();
+            stopMap.put(stop.description(), stop);
+            stopTimes.add(StopTime.builder().stop(stop).time(LocalTime.of(10, i)).build());
+        }
+        Route route = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS)
+                .direction(names[names.length - 1]).stops(stopTimes.stream().map(StopTime::stop).toList()).build();
+        Trip trip = Trip.builder().id(UUID.randomUUID()).route(route).stops(stopTimes).day(Day.WEEKDAY).build();
+
+        when(parser.getStopMap()).thenReturn(stopMap);
+        when(parser.getRouteMap()).thenReturn(new HashMap<>(Map.of("1_" + route.direction(), route)));
+        when(parser.getTrips()).thenReturn(List.of(trip));
+        when(parser.getSnapshot()).thenReturn(TimetableSnapshot.Handle.none());
+    }
+}
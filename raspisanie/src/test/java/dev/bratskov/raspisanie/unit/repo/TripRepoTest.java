@@ -1,7 +1,8 @@
 package dev.bratskov.raspisanie.unit.repo;
 
-import dev.bratskov.raspisanie.mapper.Parser;
 import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
 import dev.bratskov.raspisanie.repo.TripRepo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,30 +20,34 @@ import static org.mockito.Mockito.when;
 class TripRepoTest {
 
     @Mock
-    private Parser parser;
+    private TimetableRepo timetableRepo;
 
     private TripRepo tripRepo;
 
+    private void useTrips(List<Trip> trips) {
+        when(timetableRepo.getData()).thenReturn(TimetableData.builder().trips(trips).build());
+    }
+
     @Test
-    void constructor_shouldInitializeTripsFromParser() {
+    void getTrips_shouldReadCurrentData() {
         Trip trip1 = mock(Trip.class);
         Trip trip2 = mock(Trip.class);
 
         List<Trip> tripList = List.of(trip1, trip2);
 
-        when(parser.getTrips()).thenReturn(tripList);
+        useTrips(tripList);
 
-        tripRepo = new TripRepo(parser);
+        tripRepo = new TripRepo(timetableRepo);
 
         assertThat(tripRepo.getTrips()).hasSize(2);
         assertThat(tripRepo.getTrips()).isEqualTo(tripList);
     }
 
     @Test
-    void constructor_shouldHandleEmptyList() {
-        when(parser.getTrips()).thenReturn(Collections.emptyList());
+    void getTrips_shouldHandleEmptyList() {
+        useTrips(Collections.emptyList());
 
-        tripRepo = new TripRepo(parser);
+        tripRepo = new TripRepo(timetableRepo);
 
         assertThat(tripRepo.getTrips()).isEmpty();
     }
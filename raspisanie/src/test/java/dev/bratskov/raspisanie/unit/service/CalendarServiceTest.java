@@ -0,0 +1,100 @@
+package dev.bratskov.raspisanie.unit.service;
+
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.CalendarService;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarServiceTest {
+
+    @Mock
+    private TimetableRepo timetableRepo;
+
+    private CalendarService calendarService;
+
+    @BeforeEach
+    void setUp() {
+        calendarService = new CalendarService(timetableRepo);
+    }
+
+    private void useCalendar(ServiceCalendar calendar) {
+        when(timetableRepo.getTimetable()).thenReturn(new Timetable(Map.of(), List.of(), List.of(), calendar));
+    }
+
+    private static ServiceCalendar productionCalendar() {
+        return ServiceCalendar.weekly(LocalDate.of(2026, 1, 1), LocalDate.of(2027, 12, 31), Map.of(
+                LocalDate.of(2026, 1, 1), Day.WEEKEND,
+                LocalDate.of(2026, 1, 7), Day.WEEKEND,
+                LocalDate.of(2026, 1, 10), Day.WEEKDAY));
+    }
+
+    @Test
+    void findServices_shouldReturnWeekday_forOrdinaryWorkingDay() {
+        useCalendar(productionCalendar());
+
+        assertThat(calendarService.findServices(LocalDate.of(2026, 1, 2))).containsExactly("WEEKDAY");
+        assertThat(calendarService.findServices(LocalDate.of(2026, 3, 31))).containsExactly("WEEKDAY");
+    }
+
+    @Test
+    void findServices_shouldReturnWeekend_forSaturdayAndSunday() {
+        useCalendar(productionCalendar());
+
+        assertThat(calendarService.findServices(LocalDate.of(2026, 1, 3))).containsExactly("WEEKEND");
+        assertThat(calendarService.findServices(LocalDate.of(2026, 1, 4))).containsExactly("WEEKEND");
+    }
+
+    @Test
+    void findServices_shouldReturnWeekend_forHolidayOnWorkingDay() {
+        useCalendar(productionCalendar());
+
+        assertThat(calendarService.findServices(LocalDate.of(2026, 1, 1))).containsExactly("WEEKEND");
+        assertThat(calendarService.findServices(LocalDate.of(2026, 1, 7))).containsExactly("WEEKEND");
+    }
+
+    @Test
+    void findServices_shouldReturnWeekday_forTransferredWorkingSaturday() {
+        useCalendar(productionCalendar());
+
+        assertThat(calendarService.findServices(LocalDate.of(2026, 1, 10))).containsExactly("WEEKDAY");
+    }
+
+    @Test
+    void findServices_shouldFallBackToDayOfWeek_whenDateOutsidePeriod() {
+        useCalendar(productionCalendar());
+
+        assertThat(calendarService.findServices(LocalDate.of(2028, 1, 5))).containsExactly("WEEKDAY");
+        assertThat(calendarService.findServices(LocalDate.of(2028, 1, 8))).containsExactly("WEEKEND");
+        assertThat(calendarService.findServices(LocalDate.of(2025, 12, 31))).containsExactly("WEEKDAY");
+    }
+
+    @Test
+    void findServices_shouldNotExtendGtfsServiceBeyondItsDates() {
+        useCalendar(ServiceCalendar.builder(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31))
+                .weekly("WD", Day.WEEKDAY.daysOfWeek(), LocalDate.of(2026, 1, 1), LocalDate.of(2026, 6, 30))
+                .weekly("SUMMER", Day.WEEKDAY.daysOfWeek(), LocalDate.of(2026, 7, 1), LocalDate.of(2026, 8, 31))
+                .add("EXTRA", LocalDate.of(2026, 7, 4))
+                .remove("SUMMER", LocalDate.of(2026, 7, 3))
+                .build());
+
+        assertThat(calendarService.findServices(LocalDate.of(2026, 6, 30))).containsExactly("WD");
+        assertThat(calendarService.findServices(LocalDate.of(2026, 7, 2))).containsExactly("SUMMER");
+        assertThat(calendarService.findServices(LocalDate.of(2026, 7, 3))).isEmpty();
+        assertThat(calendarService.findServices(LocalDate.of(2026, 7, 4))).containsExactly("EXTRA");
+        assertThat(calendarService.findServices(LocalDate.of(2027, 1, 4))).isEmpty();
+    }
+}
@@ -0,0 +1,178 @@
+package dev.bratskov.raspisanie.unit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.bratskov.raspisanie.dto.MatrixRequestDto;
+import dev.bratskov.raspisanie.dto.MatrixRowDto;
+import dev.bratskov.raspisanie.exception.ResourceNotFoundException;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.service.MatrixService;
+import dev.bratskov.raspisanie.service.StopService;
+import dev.bratskov.raspisanie.service.raptor.Raptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MatrixServiceTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
+    private static final LocalTime TIME = LocalTime.of(8, 0);
+
+    @Mock
+    private Raptor raptor;
+
+    @Mock
+    private StopService stopService;
+
+    private MatrixService matrixService;
+
+    private Stop stopA;
+    private Stop stopB;
+    private Stop stopC;
+
+    @BeforeEach
+    void setUp() {
+        matrixService = new MatrixService(raptor, stopService, new ObjectMapper());
+        stopA = createStop("A");
+        stopB = createStop("B");
+        stopC = createStop("C");
+    }
+
+    @AfterEach
+    void tearDown() {
+        matrixService.shutdown();
+    }
+
+    @Test
+    void computeRows_shouldEmitRowForEachOrigin() {
+        List<Stop> targets = List.of(stopC);
+        MatrixRowDto rowA = row(stopA, 600);
+        MatrixRowDto rowB = row(stopB, -1);
+        when(raptor.travelTimesFrom(stopA, targets, TIME, WEDNESDAY)).thenReturn(rowA);
+        when(raptor.travelTimesFrom(stopB, targets, TIME, WEDNESDAY)).thenReturn(rowB);
+
+        List<MatrixRowDto> rows = new CopyOnWriteArrayList<>();
+        matrixService.computeRows(List.of(stopA, stopB), targets, TIME, WEDNESDAY, rows::add);
+
+        assertThat(rows).containsExactlyInAnyOrder(rowA, rowB);
+    }
+
+    @Test
+    void computeRows_shouldRethrowRowFailure() {
+        when(raptor.travelTimesFrom(eq(stopA), any(), eq(TIME), eq(WEDNESDAY)))
+                .thenThrow(new IllegalStateException("сбой"));
+
+        assertThatThrownBy(() -> matrixService.computeRows(List.of(stopA), List.of(stopC), TIME, WEDNESDAY, row -> {
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("сбой");
+    }
+
+    @Test
+    void computeRows_shouldCancelRunningRows_whenSinkFails() throws Exception {
+        Stop stopD = createStop("D");
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger interrupted = new AtomicInteger();
+        when(raptor.travelTimesFrom(any(), any(), eq(TIME), eq(WEDNESDAY))).thenAnswer(invocation -> {
+            Stop origin = invocation.getArgument(0);
+            if (origin == stopA) {
+                return row(stopA, 600);
+            }
+            started.incrementAndGet();
+            try {
+                Thread.sleep(30_000);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+            }
+            return row(origin, 600);
+        });
+
+        assertThatThrownBy(() -> matrixService.computeRows(List.of(stopA, stopB, stopC, stopD), List.of(stopC),
+                TIME, WEDNESDAY, row -> {
+                    awaitStarted(started);
+                    throw new UncheckedIOException(new IOException("клиент отключился"));
+                }))
+                .isInstanceOf(UncheckedIOException.class);
+
+        // строки, которые уже считались, прерваны; остальные не запускались
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (interrupted.get() < started.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(started.get()).isPositive();
+        assertThat(interrupted.get()).isEqualTo(started.get());
+    }
+
+    // клиент отключается, когда хотя бы одна следующая строка уже считается
+    private static void awaitStarted(AtomicInteger started) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (started.get() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void streamMatrix_shouldWriteOneJsonLinePerOrigin() throws Exception {
+        when(stopService.findById(stopA.id())).thenReturn(stopA);
+        when(stopService.findById(stopC.id())).thenReturn(stopC);
+        when(raptor.travelTimesFrom(stopA, List.of(stopC), TIME, WEDNESDAY)).thenReturn(row(stopA, 600));
+
+        MatrixRequestDto request = new MatrixRequestDto(List.of(stopA.id()), List.of(stopC.id()), TIME, WEDNESDAY);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        matrixService.streamMatrix(request).writeTo(output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"originStopId\":\"" + stopA.id() + "\",\"travelTimes\":[600],\"transfers\":[0]}\n");
+    }
+
+    @Test
+    void streamMatrix_shouldThrowBeforeStreaming_whenStopNotFound() {
+        UUID unknownId = UUID.randomUUID();
+        when(stopService.findById(unknownId)).thenThrow(new ResourceNotFoundException("не найдена"));
+
+        MatrixRequestDto request = new MatrixRequestDto(List.of(unknownId), List.of(stopC.id()), TIME, WEDNESDAY);
+
+        assertThatThrownBy(() -> matrixService.streamMatrix(request))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(raptor);
+    }
+
+    private MatrixRowDto row(Stop origin, int travelTime) {
+        return MatrixRowDto.builder()
+                .originStopId(origin.id())
+                .travelTimes(new int[]{travelTime})
+                .transfers(new int[]{travelTime < 0 ? -1 : 0})
+                .build();
+    }
+
+    private Stop createStop(String name) {
+        return Stop.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .description("Desc " + name)
+                .build();
+    }
+}
@@ -1,20 +1,28 @@
 package dev.bratskov.raspisanie.unit.service;
 
 import dev.bratskov.raspisanie.dto.PathDto;
+import dev.bratskov.raspisanie.dto.ReachRequestDto;
+import dev.bratskov.raspisanie.dto.ReachResponseDto;
+import dev.bratskov.raspisanie.dto.RoutingArrivalRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingGroupRequestDto;
+import dev.bratskov.raspisanie.dto.RoutingRangeRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingRequestDto;
 import dev.bratskov.raspisanie.dto.RoutingResponseDto;
 import dev.bratskov.raspisanie.dto.SegmentDto;
 import dev.bratskov.raspisanie.model.Stop;
-import dev.bratskov.raspisanie.model.enums.Day;
 import dev.bratskov.raspisanie.model.enums.Transport;
 import dev.bratskov.raspisanie.service.RoutingService;
+import dev.bratskov.raspisanie.service.StopService;
 import dev.bratskov.raspisanie.service.raptor.Raptor;
+import dev.bratskov.raspisanie.service.raptor.RoutingEngine;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,20 +36,33 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class RoutingServiceTest {
 
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+
     @Mock
     private Raptor raptor;
 
-    @InjectMocks
+    @Mock
+    private RoutingEngine routingEngine;
+
+    @Mock
+    private StopService stopService;
+
     private RoutingService routingService;
 
+    // Raptor тоже реализует RoutingEngine, поэтому зависимости передаются явно, а не через @InjectMocks
+    @BeforeEach
+    void setUp() {
+        routingService = new RoutingService(raptor, routingEngine, stopService);
+    }
+
     @Test
     void findPath_shouldReturnRoutingResponse_whenPathExists() {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 30);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -85,7 +106,7 @@ class RoutingServiceTest {
                         .build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -96,7 +117,7 @@ class RoutingServiceTest {
         assertThat(result.routeTime()).isEqualTo("00:30");
         assertThat(result.segments()).hasSize(1);
 
-        verify(raptor).plan(originId, targetId, departureTime, day);
+        verify(routingEngine).plan(originId, targetId, departureTime, date);
     }
 
     @Test
@@ -104,9 +125,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(23, 30);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -137,7 +158,7 @@ class RoutingServiceTest {
                         .build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -149,9 +170,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -208,7 +229,7 @@ class RoutingServiceTest {
                         .build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -228,16 +249,54 @@ class RoutingServiceTest {
         assertThat(segment2.stopsCount()).isEqualTo(2);
     }
 
+    @Test
+    void findPath_shouldNotCountWalkingSegmentAsTransfer() {
+        UUID originId = UUID.randomUUID();
+        UUID targetId = UUID.randomUUID();
+        LocalTime departureTime = LocalTime.of(8, 0);
+        LocalDate date = WEDNESDAY;
+
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
+
+        Stop stop1 = Stop.builder().id(UUID.randomUUID()).name("Stop A").description("Description A").build();
+        Stop stop2 = Stop.builder().id(UUID.randomUUID()).name("Stop B").description("Description B").build();
+        Stop stop3 = Stop.builder().id(UUID.randomUUID()).name("Stop B").description("Description B2").build();
+        Stop stop4 = Stop.builder().id(UUID.randomUUID()).name("Stop C").description("Description C").build();
+
+        List<PathDto> path = List.of(
+                PathDto.builder().stop(stop1).time(LocalTime.of(8, 0))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 15))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 15))
+                        .transport(Transport.WALK).number(0).directionName("Пешком").build(),
+                PathDto.builder().stop(stop3).time(LocalTime.of(8, 20))
+                        .transport(Transport.WALK).number(0).directionName("Пешком").build(),
+                PathDto.builder().stop(stop3).time(LocalTime.of(8, 25))
+                        .transport(Transport.TROLLEYBUS).number(10).directionName("Direction 2").build(),
+                PathDto.builder().stop(stop4).time(LocalTime.of(8, 40))
+                        .transport(Transport.TROLLEYBUS).number(10).directionName("Direction 2").build()
+        );
+
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
+
+        RoutingResponseDto result = routingService.findPath(request);
+
+        assertThat(result.segments()).hasSize(3);
+        assertThat(result.segments().get(1).transport()).isEqualTo(Transport.WALK);
+        assertThat(result.transfers()).isEqualTo(1);
+    }
+
     @Test
     void findPath_shouldThrowException_whenPathIsEmpty() {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(List.of());
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(List.of());
 
         assertThatThrownBy(() -> routingService.findPath(request))
                 .isInstanceOf(IllegalStateException.class)
@@ -249,9 +308,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -301,13 +360,13 @@ class RoutingServiceTest {
 
         List<List<PathDto>> paths = List.of(fastestPath, leastStopsPath);
 
-        when(raptor.planAllPaths(originId, targetId, departureTime, day)).thenReturn(paths);
+        when(routingEngine.planAllPaths(originId, targetId, departureTime, date)).thenReturn(paths);
 
         List<RoutingResponseDto> results = routingService.findAllPaths(request);
 
         assertThat(results).hasSize(2);
 
-        verify(raptor).planAllPaths(originId, targetId, departureTime, day);
+        verify(routingEngine).planAllPaths(originId, targetId, departureTime, date);
     }
 
     @Test
@@ -315,25 +374,219 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
-        when(raptor.planAllPaths(originId, targetId, departureTime, day)).thenReturn(List.of());
+        when(routingEngine.planAllPaths(originId, targetId, departureTime, date)).thenReturn(List.of());
 
         List<RoutingResponseDto> results = routingService.findAllPaths(request);
 
         assertThat(results).isEmpty();
     }
 
+    @Test
+    void findArriveByPath_shouldBuildResponseFromReversePlan() {
+        UUID originId = UUID.randomUUID();
+        UUID targetId = UUID.randomUUID();
+        LocalTime arrivalTime = LocalTime.of(8, 50);
+        LocalDate date = WEDNESDAY;
+
+        RoutingArrivalRequestDto request = new RoutingArrivalRequestDto(originId, targetId, arrivalTime, date);
+
+        Stop stop1 = Stop.builder()
+                .id(UUID.randomUUID())
+                .name("Stop A")
+                .description("Description A")
+                .build();
+
+        Stop stop2 = Stop.builder()
+                .id(UUID.randomUUID())
+                .name("Stop B")
+                .description("Description B")
+                .build();
+
+        List<PathDto> path = List.of(
+                PathDto.builder().stop(stop1).time(LocalTime.of(8, 10))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 45))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build()
+        );
+
+        when(raptor.planArriveBy(originId, targetId, arrivalTime, date)).thenReturn(path);
+
+        RoutingResponseDto result = routingService.findArriveByPath(request);
+
+        assertThat(result.routeTime()).isEqualTo("00:35");
+        assertThat(result.transfers()).isZero();
+        assertThat(result.segments().getFirst().exitTime()).isEqualTo(LocalTime.of(8, 45));
+    }
+
+    @Test
+    void findGroupPath_shouldResolveOriginByNameAndTargetById() {
+        UUID targetId = UUID.randomUUID();
+        LocalTime departureTime = LocalTime.of(8, 0);
+        LocalDate date = WEDNESDAY;
+
+        Stop north = Stop.builder().id(UUID.randomUUID()).name("ПОЧТА").description("ПОЧТА _СЕВЕР").build();
+        Stop south = Stop.builder().id(UUID.randomUUID()).name("ПОЧТА").description("ПОЧТА _ЮГ").build();
+        Stop target = Stop.builder().id(targetId).name("ПАРК").description("ПАРК _ЦЕНТР").build();
+
+        RoutingGroupRequestDto request = RoutingGroupRequestDto.builder()
+                .originName("почта")
+                .targetGroupId(targetId)
+                .time(departureTime)
+                .date(date)
+                .build();
+
+        List<PathDto> path = List.of(
+                PathDto.builder().stop(south).time(LocalTime.of(8, 10))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(target).time(LocalTime.of(8, 25))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build()
+        );
+
+        when(stopService.findGroupByName("почта")).thenReturn(List.of(north, south));
+        when(stopService.findGroupById(targetId)).thenReturn(List.of(target));
+        when(raptor.planBetweenGroups(List.of(north, south), List.of(target), departureTime, date)).thenReturn(path);
+
+        RoutingResponseDto result = routingService.findGroupPath(request);
+
+        assertThat(result.segments().getFirst().boardingStop()).isEqualTo(south);
+        assertThat(result.routeTime()).isEqualTo("00:15");
+    }
+
+    @Test
+    void findGroupPath_shouldThrowException_whenTargetNotSpecified() {
+        RoutingGroupRequestDto request = RoutingGroupRequestDto.builder()
+                .originName("ПОЧТА")
+                .time(LocalTime.of(8, 0))
+                .date(WEDNESDAY)
+                .build();
+
+        when(stopService.findGroupByName("ПОЧТА")).thenReturn(List.of());
+
+        assertThatThrownBy(() -> routingService.findGroupPath(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("целевой");
+    }
+
+    @Test
+    void findReachableStops_shouldPassBudgetInMinutes() {
+        UUID originId = UUID.randomUUID();
+        LocalTime departureTime = LocalTime.of(8, 0);
+        ReachRequestDto request = new ReachRequestDto(originId, departureTime, WEDNESDAY, 30);
+
+        ReachResponseDto response = ReachResponseDto.builder()
+                .originStopId(originId)
+                .departureTime(departureTime)
+                .stopIds(new UUID[]{originId})
+                .travelTimes(new int[]{0})
+                .transfers(new int[]{0})
+                .build();
+
+        when(raptor.reach(originId, departureTime, WEDNESDAY, Duration.ofMinutes(30))).thenReturn(response);
+
+        assertThat(routingService.findReachableStops(request)).isSameAs(response);
+    }
+
+    @Test
+    void findParetoPaths_shouldKeepRaptorOrder() {
+        UUID originId = UUID.randomUUID();
+        UUID targetId = UUID.randomUUID();
+        LocalTime departureTime = LocalTime.of(8, 0);
+        LocalDate date = WEDNESDAY;
+
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
+
+        Stop stop1 = Stop.builder()
+                .id(UUID.randomUUID())
+                .name("Stop A")
+                .description("Description A")
+                .build();
+
+        Stop stop2 = Stop.builder()
+                .id(UUID.randomUUID())
+                .name("Stop B")
+                .description("Description B")
+                .build();
+
+        List<PathDto> fastest = List.of(
+                PathDto.builder().stop(stop1).time(LocalTime.of(8, 5))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 40))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build()
+        );
+
+        List<PathDto> shortestRide = List.of(
+                PathDto.builder().stop(stop1).time(LocalTime.of(8, 35))
+                        .transport(Transport.TROLLEYBUS).number(3).directionName("Direction 2").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 50))
+                        .transport(Transport.TROLLEYBUS).number(3).directionName("Direction 2").build()
+        );
+
+        when(raptor.planPareto(originId, targetId, departureTime, date)).thenReturn(List.of(fastest, shortestRide));
+
+        List<RoutingResponseDto> results = routingService.findParetoPaths(request);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).routeTime()).isEqualTo("00:35");
+        assertThat(results.get(1).routeTime()).isEqualTo("00:15");
+    }
+
+    @Test
+    void findPathsInRange_shouldMapEveryJourney() {
+        UUID originId = UUID.randomUUID();
+        UUID targetId = UUID.randomUUID();
+        LocalTime from = LocalTime.of(8, 0);
+        LocalTime to = LocalTime.of(9, 0);
+        LocalDate date = WEDNESDAY;
+
+        RoutingRangeRequestDto request = new RoutingRangeRequestDto(originId, targetId, from, to, date);
+
+        Stop stop1 = Stop.builder()
+                .id(UUID.randomUUID())
+                .name("Stop A")
+                .description("Description A")
+                .build();
+
+        Stop stop2 = Stop.builder()
+                .id(UUID.randomUUID())
+                .name("Stop B")
+                .description("Description B")
+                .build();
+
+        List<PathDto> early = List.of(
+                PathDto.builder().stop(stop1).time(LocalTime.of(8, 0))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 20))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build()
+        );
+
+        List<PathDto> late = List.of(
+                PathDto.builder().stop(stop1).time(LocalTime.of(8, 40))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build(),
+                PathDto.builder().stop(stop2).time(LocalTime.of(8, 55))
+                        .transport(Transport.BUS).number(5).directionName("Direction 1").build()
+        );
+
+        when(raptor.planRange(originId, targetId, from, to, date)).thenReturn(List.of(early, late));
+
+        List<RoutingResponseDto> results = routingService.findPathsInRange(request);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).routeTime()).isEqualTo("00:20");
+        assertThat(results.get(1).routeTime()).isEqualTo("00:15");
+    }
+
     @Test
     void findPath_shouldCalculateTotalStopsCorrectly() {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -371,7 +624,7 @@ class RoutingServiceTest {
                         .build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -383,9 +636,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(7, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -416,7 +669,7 @@ class RoutingServiceTest {
                         .build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -428,9 +681,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -480,7 +733,7 @@ class RoutingServiceTest {
         );
 
         List<List<PathDto>> paths = List.of(slowPath, fastPath);
-        when(raptor.planAllPaths(originId, targetId, departureTime, day)).thenReturn(paths);
+        when(routingEngine.planAllPaths(originId, targetId, departureTime, date)).thenReturn(paths);
 
         List<RoutingResponseDto> results = routingService.findAllPaths(request);
 
@@ -494,9 +747,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(23, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -545,7 +798,7 @@ class RoutingServiceTest {
         );
 
         List<List<PathDto>> paths = List.of(midnightPath, normalPath);
-        when(raptor.planAllPaths(originId, targetId, departureTime, day)).thenReturn(paths);
+        when(routingEngine.planAllPaths(originId, targetId, departureTime, date)).thenReturn(paths);
 
         List<RoutingResponseDto> results = routingService.findAllPaths(request);
 
@@ -559,9 +812,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -599,7 +852,7 @@ class RoutingServiceTest {
             ));
         }
 
-        when(raptor.planAllPaths(originId, targetId, departureTime, day)).thenReturn(paths);
+        when(routingEngine.planAllPaths(originId, targetId, departureTime, date)).thenReturn(paths);
 
         List<RoutingResponseDto> results = routingService.findAllPaths(request);
 
@@ -617,9 +870,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stopA = Stop.builder()
                 .id(UUID.randomUUID())
@@ -657,7 +910,7 @@ class RoutingServiceTest {
                         .build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -669,9 +922,9 @@ class RoutingServiceTest {
         UUID originId = UUID.randomUUID();
         UUID targetId = UUID.randomUUID();
         LocalTime departureTime = LocalTime.of(8, 0);
-        Day day = Day.WEEKDAY;
+        LocalDate date = WEDNESDAY;
 
-        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, day);
+        RoutingRequestDto request = new RoutingRequestDto(originId, targetId, departureTime, date);
 
         Stop stop1 = Stop.builder()
                 .id(UUID.randomUUID())
@@ -720,7 +973,7 @@ class RoutingServiceTest {
                         .transport(Transport.BUS).number(15).directionName("Dir 3").build()
         );
 
-        when(raptor.plan(originId, targetId, departureTime, day)).thenReturn(path);
+        when(routingEngine.plan(originId, targetId, departureTime, date)).thenReturn(path);
 
         RoutingResponseDto result = routingService.findPath(request);
 
@@ -89,6 +89,39 @@ public class StopServiceTest {
                 .hasMessageContaining("не найдена");
     }
 
+    @Test
+    void findGroupByName_shouldReturnAllPlatformsWithSameName() {
+        Stop north = Stop.builder().id(UUID.randomUUID()).name("ПОЧТА").description("ПОЧТА _СЕВЕР").build();
+        Stop south = Stop.builder().id(UUID.randomUUID()).name("ПОЧТА").description("ПОЧТА _ЮГ").build();
+        Stop other = Stop.builder().id(UUID.randomUUID()).name("ПОЧТАМТ").description("ПОЧТАМТ _ЦЕНТР").build();
+
+        when(stopRepo.getStops()).thenReturn(new HashSet<>(Arrays.asList(south, other, north)));
+
+        List<Stop> result = stopService.findGroupByName(" почта ");
+
+        assertThat(result).containsExactly(north, south);
+    }
+
+    @Test
+    void findGroupById_shouldReturnGroupOfStop() {
+        Stop north = Stop.builder().id(UUID.randomUUID()).name("ПОЧТА").description("ПОЧТА _СЕВЕР").build();
+        Stop south = Stop.builder().id(UUID.randomUUID()).name("ПОЧТА").description("ПОЧТА _ЮГ").build();
+
+        when(stopRepo.getStopById(south.id())).thenReturn(south);
+        when(stopRepo.getStops()).thenReturn(new HashSet<>(Arrays.asList(south, north)));
+
+        assertThat(stopService.findGroupById(south.id())).containsExactly(north, south);
+    }
+
+    @Test
+    void findGroupByName_shouldThrowException_whenNoStopHasName() {
+        when(stopRepo.getStops()).thenReturn(Collections.emptySet());
+
+        assertThatThrownBy(() -> stopService.findGroupByName("НЕТ ТАКОЙ"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("не найдена");
+    }
+
     @Test
     void findByRouteIdAndTransportType_shouldReturnListsOfStops() {
         int number = 5;
@@ -0,0 +1,144 @@
+package dev.bratskov.raspisanie.unit.service;
+
+import dev.bratskov.raspisanie.dto.TimetableVersionDto;
+import dev.bratskov.raspisanie.exception.DataInitializationException;
+import dev.bratskov.raspisanie.mapper.FootpathParser;
+import dev.bratskov.raspisanie.mapper.Parser;
+import dev.bratskov.raspisanie.reader.TextFileReader;
+import dev.bratskov.raspisanie.repo.TimetableData;
+import dev.bratskov.raspisanie.repo.TimetableRepo;
+import dev.bratskov.raspisanie.service.TimetableReloadService;
+import dev.bratskov.raspisanie.service.raptor.RoutingEngine;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TimetableReloadServiceTest {
+
+    @Mock
+    private Parser parser;
+
+    @Mock
+    private Parser reloadedParser;
+
+    @Mock
+    private FootpathParser footpathParser;
+
+    @Mock
+    private FootpathParser reloadedFootpathParser;
+
+    @Mock
+    private TimetableRepo timetableRepo;
+
+    @Mock
+    private RoutingEngine engine;
+
+    @Mock
+    private TextFileReader reader;
+
+    private TimetableReloadService reloadService;
+
+    @BeforeEach
+    void setUp() {
+        reloadService = new TimetableReloadService(parser, footpathParser, timetableRepo, List.of(engine), reader);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reloadService.shutdown();
+    }
+
+    @Test
+    void reload_shouldPrepareEnginesBeforePublishing() {
+        Timetable timetable = new Timetable(Map.of(), List.of());
+        TimetableData data = data(2, timetable);
+        when(timetableRepo.nextVersion()).thenReturn(2L);
+        when(parser.reload()).thenReturn(reloadedParser);
+        when(footpathParser.reload(reloadedParser)).thenReturn(reloadedFootpathParser);
+        when(timetableRepo.build(reloadedParser, reloadedFootpathParser, 2L)).thenReturn(data);
+
+        assertThat(reloadService.reload().join()).isSameAs(data);
+
+        InOrder order = inOrder(engine, timetableRepo);
+        order.verify(engine).prepare(timetable);
+        order.verify(timetableRepo).publish(data);
+    }
+
+    @Test
+    void reload_shouldKeepCurrentVersion_whenDataInvalid() {
+        when(timetableRepo.nextVersion()).thenReturn(2L);
+        when(parser.reload()).thenThrow(new DataInitializationException("Не найдено ни одной остановки в файле"));
+        when(timetableRepo.getData()).thenReturn(data(1, null));
+
+        assertThatThrownBy(() -> reloadService.reload().join())
+                .hasCauseInstanceOf(DataInitializationException.class)
+                .hasMessageContaining("Не найдено ни одной остановки");
+
+        verify(timetableRepo, never()).publish(any());
+    }
+
+    @Test
+    void requestReload_shouldReturnReservedVersion_withoutWaiting() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(timetableRepo.nextVersion()).thenReturn(5L);
+        when(parser.reload()).thenAnswer(invocation -> {
+            release.await();
+            throw new DataInitializationException("Не найдено ни одного рейса в файле");
+        });
+        when(timetableRepo.getData()).thenReturn(data(4, null));
+
+        long version = reloadService.requestReload();
+
+        assertThat(version).isEqualTo(5);
+        verify(timetableRepo, never()).publish(any());
+        release.countDown();
+        verify(timetableRepo, timeout(5000)).getData();
+        verify(timetableRepo, never()).publish(any());
+    }
+
+    @Test
+    void currentVersion_shouldDescribePublishedData() {
+        when(timetableRepo.getData()).thenReturn(data(3, null));
+
+        TimetableVersionDto version = reloadService.currentVersion();
+
+        assertThat(version.version()).isEqualTo(3);
+        assertThat(version.stops()).isZero();
+        assertThat(version.routes()).isZero();
+        assertThat(version.trips()).isZero();
+    }
+
+    private TimetableData data(long version, Timetable timetable) {
+        return TimetableData.builder()
+                .version(version)
+                .loadedAt(Instant.parse("2026-10-17T08:00:00Z"))
+                .stops(Set.of())
+                .stopsMap(Map.of())
+                .routes(Set.of())
+                .trips(List.of())
+                .footpaths(List.of())
+                .timetable(timetable)
+                .build();
+    }
+}
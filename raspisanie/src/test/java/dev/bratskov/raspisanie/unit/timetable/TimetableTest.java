@@ -0,0 +1,325 @@
+package dev.bratskov.raspisanie.unit.timetable;
+
+import dev.bratskov.raspisanie.model.Footpath;
+import dev.bratskov.raspisanie.model.Route;
+import dev.bratskov.raspisanie.model.ServiceCalendar;
+import dev.bratskov.raspisanie.model.Stop;
+import dev.bratskov.raspisanie.model.StopTime;
+import dev.bratskov.raspisanie.model.Trip;
+import dev.bratskov.raspisanie.model.enums.Day;
+import dev.bratskov.raspisanie.model.enums.Transport;
+import dev.bratskov.raspisanie.service.timetable.ServiceDay;
+import dev.bratskov.raspisanie.service.timetable.Timetable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate SATURDAY = LocalDate.of(2026, 10, 17);
+    private static final LocalDate MONDAY = LocalDate.of(2026, 10, 19);
+
+    private Stop stopA, stopB, stopC;
+    private Route route1, route2;
+    private Map<String, Stop> stopMap;
+
+    @BeforeEach
+    void setUp() {
+        stopA = createStop("A");
+        stopB = createStop("B");
+        stopC = createStop("C");
+        stopMap = Map.of("Desc A", stopA, "Desc B", stopB, "Desc C", stopC);
+
+        route1 = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS).direction("C").build();
+        route2 = Route.builder().id(UUID.randomUUID()).number(2).transport(Transport.BUS).direction("A").build();
+    }
+
+    @Test
+    void constructor_shouldAssignDenseStopIds() {
+        Timetable timetable = new Timetable(stopMap, List.of());
+
+        assertThat(timetable.stopCount()).isEqualTo(3);
+        assertThat(timetable.indexOf(stopA)).isEqualTo(0);
+        assertThat(timetable.indexOf(stopC)).isEqualTo(2);
+        assertThat(timetable.stop(1)).isEqualTo(stopB);
+        assertThat(timetable.indexOf(createStop("X"))).isEqualTo(Timetable.NO_STOP);
+    }
+
+    @Test
+    void constructor_shouldGroupTripsOfSameRouteDayAndStopsIntoOnePattern() {
+        Trip first = createTrip(route1, Day.WEEKDAY, stopA, 10, 0, stopB, 10, 10);
+        Trip second = createTrip(route1, Day.WEEKDAY, stopA, 11, 0, stopB, 11, 10);
+        Trip weekend = createTrip(route1, Day.WEEKEND, stopA, 12, 0, stopB, 12, 10);
+
+        Timetable timetable = new Timetable(stopMap, List.of(first, second, weekend));
+
+        assertThat(timetable.patternCount()).isEqualTo(2);
+        assertThat(timetable.tripPattern(0)).isEqualTo(timetable.tripPattern(1));
+        assertThat(timetable.serviceDay(SATURDAY).runs(timetable.tripPattern(2))).isTrue();
+        assertThat(timetable.serviceDay(WEDNESDAY).runs(timetable.tripPattern(2))).isFalse();
+        assertThat(timetable.endTrip(0) - timetable.firstTrip(0)).isEqualTo(2);
+    }
+
+    @Test
+    void constructor_shouldStoreStopTimesAsSecondsOfDay() {
+        Trip trip = createTrip(route1, Day.WEEKDAY, stopA, 10, 0, stopB, 10, 10);
+
+        Timetable timetable = new Timetable(stopMap, List.of(trip));
+
+        assertThat(timetable.stopTime(0, 0)).isEqualTo(10 * 3600);
+        assertThat(timetable.stopTime(0, 1)).isEqualTo(10 * 3600 + 600);
+        assertThat(Timetable.toLocalTime(timetable.stopTime(0, 1))).isEqualTo(LocalTime.of(10, 10));
+    }
+
+    @Test
+    void constructor_shouldContinueStopTimesPastMidnight() {
+        Trip trip = createTrip(route1, Day.WEEKDAY, stopA, 23, 50, stopB, 0, 10);
+
+        Timetable timetable = new Timetable(stopMap, List.of(trip));
+
+        assertThat(timetable.tripCount()).isEqualTo(1);
+        assertThat(timetable.stopTime(0, 0)).isEqualTo(23 * 3600 + 50 * 60);
+        assertThat(timetable.stopTime(0, 1)).isEqualTo(Timetable.SECONDS_PER_DAY + 600);
+        assertThat(Timetable.toLocalTime(timetable.stopTime(0, 1))).isEqualTo(LocalTime.of(0, 10));
+    }
+
+    @Test
+    void constructor_shouldStartTripAfterMidnightOnNextDay() {
+        Trip trip = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY).afterMidnight(true)
+                .stops(List.of(
+                        StopTime.builder().stop(stopA).time(LocalTime.of(0, 10)).build(),
+                        StopTime.builder().stop(stopB).time(LocalTime.of(0, 20)).build()
+                )).build();
+
+        Timetable timetable = new Timetable(stopMap, List.of(trip));
+
+        // рейс этого дня целиком после полуночи и его хвост, который ходит по сервису накануне
+        assertThat(timetable.tripCount()).isEqualTo(2);
+        int tail = timetable.stopTime(0, 0) < Timetable.SECONDS_PER_DAY ? 0 : 1;
+        assertThat(timetable.stopTime(tail, 0)).isEqualTo(600);
+        assertThat(timetable.stopTime(1 - tail, 0)).isEqualTo(Timetable.SECONDS_PER_DAY + 600);
+        assertThat(timetable.serviceDay(SATURDAY).runs(timetable.tripPattern(tail))).isTrue();
+        assertThat(timetable.serviceDay(SATURDAY).runs(timetable.tripPattern(1 - tail))).isFalse();
+    }
+
+    @Test
+    void constructor_shouldAddPreviousDayTailOfTripPastMidnight() {
+        Trip trip = Trip.builder()
+                .id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        StopTime.builder().stop(stopA).time(LocalTime.of(23, 50)).build(),
+                        StopTime.builder().stop(stopB).time(LocalTime.of(0, 10)).build(),
+                        StopTime.builder().stop(stopC).time(LocalTime.of(0, 20)).build()
+                )).build();
+
+        Timetable timetable = new Timetable(stopMap, List.of(trip));
+
+        assertThat(timetable.tripCount()).isEqualTo(2);
+        int tail = timetable.patternSize(timetable.tripPattern(0)) == 2 ? 0 : 1;
+        int pattern = timetable.tripPattern(tail);
+        assertThat(timetable.serviceDay(SATURDAY).runs(pattern)).isTrue();
+        assertThat(timetable.serviceDay(MONDAY).runs(pattern)).isFalse();
+        assertThat(timetable.serviceDay(SATURDAY).runs(timetable.tripPattern(1 - tail))).isFalse();
+        assertThat(timetable.patternStop(pattern, 0)).isEqualTo(timetable.indexOf(stopB));
+        assertThat(timetable.stopTime(tail, 0)).isEqualTo(600);
+        assertThat(timetable.stopTime(tail, 1)).isEqualTo(1200);
+    }
+
+    @Test
+    void constructor_shouldDropStopsWithoutTimeFromPattern() {
+        List<StopTime> stops = new ArrayList<>();
+        stops.add(StopTime.builder().stop(stopA).time(LocalTime.of(10, 0)).build());
+        stops.add(StopTime.builder().stop(stopB).time(null).build());
+        stops.add(StopTime.builder().stop(stopC).time(LocalTime.of(10, 20)).build());
+        Trip trip = Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY).stops(stops).build();
+
+        Timetable timetable = new Timetable(stopMap, List.of(trip));
+
+        assertThat(timetable.patternSize(0)).isEqualTo(2);
+        assertThat(timetable.patternStop(0, 1)).isEqualTo(timetable.indexOf(stopC));
+        assertThat(timetable.stopTime(0, 1)).isEqualTo(10 * 3600 + 1200);
+        int b = timetable.indexOf(stopB);
+        assertThat(timetable.stopPatternEnd(b) - timetable.stopPatternStart(b)).isZero();
+    }
+
+    @Test
+    void constructor_shouldSkipTripsWithLessThanTwoTimedStops() {
+        List<StopTime> stops = new ArrayList<>();
+        stops.add(StopTime.builder().stop(stopA).time(LocalTime.of(10, 0)).build());
+        stops.add(StopTime.builder().stop(stopB).time(null).build());
+        Trip single = Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY).stops(stops).build();
+        Trip regular = createTrip(route2, Day.WEEKDAY, stopB, 10, 20, stopC, 10, 30);
+
+        Timetable timetable = new Timetable(stopMap, List.of(single, regular));
+
+        assertThat(timetable.tripCount()).isEqualTo(1);
+        assertThat(timetable.patternCount()).isEqualTo(1);
+        assertThat(timetable.patternRoute(0)).isEqualTo(route2);
+    }
+
+    @Test
+    void constructor_shouldIndexEveryPassOfLoopPatternThroughStop() {
+        Trip loop = Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        StopTime.builder().stop(stopA).time(LocalTime.of(10, 0)).build(),
+                        StopTime.builder().stop(stopB).time(LocalTime.of(10, 10)).build(),
+                        StopTime.builder().stop(stopA).time(LocalTime.of(10, 20)).build(),
+                        StopTime.builder().stop(stopC).time(LocalTime.of(10, 30)).build()
+                )).build();
+
+        Timetable timetable = new Timetable(stopMap, List.of(loop));
+
+        int a = timetable.indexOf(stopA);
+        assertThat(timetable.stopPatternEnd(a) - timetable.stopPatternStart(a)).isEqualTo(2);
+        assertThat(timetable.stopPatternPosition(timetable.stopPatternStart(a))).isZero();
+        assertThat(timetable.stopPatternPosition(timetable.stopPatternStart(a) + 1)).isEqualTo(2);
+    }
+
+    @Test
+    void constructor_shouldIndexPatternsServingStop() {
+        Trip trip1 = createTrip(route1, Day.WEEKDAY, stopA, 10, 0, stopB, 10, 10);
+        Trip trip2 = createTrip(route2, Day.WEEKDAY, stopB, 10, 20, stopC, 10, 30);
+
+        Timetable timetable = new Timetable(stopMap, List.of(trip1, trip2));
+
+        int b = timetable.indexOf(stopB);
+        assertThat(timetable.stopPatternEnd(b) - timetable.stopPatternStart(b)).isEqualTo(2);
+
+        int first = timetable.stopPatternStart(b);
+        assertThat(timetable.stopPatternPosition(first)).isEqualTo(1);
+        assertThat(timetable.stopPatternPosition(first + 1)).isEqualTo(0);
+        assertThat(timetable.lastStop(timetable.stopPattern(first))).isEqualTo(b);
+    }
+
+    @Test
+    void constructor_shouldShareLineIdBetweenDirectionsOfSameNumber() {
+        Route back = Route.builder().id(UUID.randomUUID()).number(1).transport(Transport.BUS).direction("A").build();
+        Trip there = createTrip(route1, Day.WEEKDAY, stopA, 10, 0, stopB, 10, 10);
+        Trip returning = createTrip(back, Day.WEEKDAY, stopB, 10, 20, stopA, 10, 30);
+        Trip other = createTrip(route2, Day.WEEKDAY, stopB, 10, 20, stopC, 10, 30);
+
+        Timetable timetable = new Timetable(stopMap, List.of(there, returning, other));
+
+        assertThat(timetable.patternLine(0)).isEqualTo(timetable.patternLine(1));
+        assertThat(timetable.patternLine(2)).isNotEqualTo(timetable.patternLine(0));
+    }
+
+    @Test
+    void constructor_shouldSortTripsByDeparture() {
+        Trip late = createTrip(route1, Day.WEEKDAY, stopA, 12, 0, stopB, 12, 10);
+        Trip early = createTrip(route1, Day.WEEKDAY, stopA, 10, 0, stopB, 10, 10);
+
+        Timetable timetable = new Timetable(stopMap, List.of(late, early));
+
+        assertThat(timetable.patternCount()).isEqualTo(1);
+        assertThat(timetable.stopTime(0, 0)).isEqualTo(10 * 3600);
+        assertThat(timetable.stopTime(1, 0)).isEqualTo(12 * 3600);
+    }
+
+    @Test
+    void constructor_shouldSplitOvertakingTripsIntoSeparatePatterns() {
+        Trip slow = createTrip(route1, Day.WEEKDAY, stopA, 10, 0, stopB, 10, 40);
+        Trip express = createTrip(route1, Day.WEEKDAY, stopA, 10, 10, stopB, 10, 30);
+        Trip next = createTrip(route1, Day.WEEKDAY, stopA, 11, 0, stopB, 11, 30);
+
+        Timetable timetable = new Timetable(stopMap, List.of(slow, express, next));
+
+        assertThat(timetable.patternCount()).isEqualTo(2);
+        for (int p = 0; p < timetable.patternCount(); p++) {
+            for (int trip = timetable.firstTrip(p) + 1; trip < timetable.endTrip(p); trip++) {
+                assertThat(timetable.stopTime(trip, 1)).isGreaterThanOrEqualTo(timetable.stopTime(trip - 1, 1));
+            }
+        }
+    }
+
+    @Test
+    void constructor_shouldSeparateTripsSkippingDifferentStops() {
+        List<StopTime> skipping = new ArrayList<>();
+        skipping.add(StopTime.builder().stop(stopA).time(LocalTime.of(11, 0)).build());
+        skipping.add(StopTime.builder().stop(stopB).time(null).build());
+        skipping.add(StopTime.builder().stop(stopC).time(LocalTime.of(11, 20)).build());
+        Trip full = Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY)
+                .stops(List.of(
+                        StopTime.builder().stop(stopA).time(LocalTime.of(10, 0)).build(),
+                        StopTime.builder().stop(stopB).time(LocalTime.of(10, 10)).build(),
+                        StopTime.builder().stop(stopC).time(LocalTime.of(10, 20)).build()
+                )).build();
+        Trip partial = Trip.builder().id(UUID.randomUUID()).route(route1).day(Day.WEEKDAY).stops(skipping).build();
+
+        Timetable timetable = new Timetable(stopMap, List.of(full, partial));
+
+        assertThat(timetable.patternCount()).isEqualTo(2);
+        assertThat(timetable.patternSize(timetable.tripPattern(1))).isEqualTo(2);
+    }
+
+    @Test
+    void constructor_shouldIndexFootpathsBySourceStop() {
+        List<Footpath> footpaths = List.of(
+                Footpath.builder().from(stopA).to(stopC).duration(Duration.ofMinutes(5)).build(),
+                Footpath.builder().from(stopA).to(stopB).duration(Duration.ofMinutes(2)).build(),
+                Footpath.builder().from(stopC).to(stopA).duration(Duration.ofMinutes(5)).build()
+        );
+
+        Timetable timetable = new Timetable(stopMap, List.of(), footpaths);
+
+        int a = timetable.indexOf(stopA);
+        assertThat(timetable.footpathEnd(a) - timetable.footpathStart(a)).isEqualTo(2);
+        assertThat(timetable.footpathTarget(timetable.footpathStart(a))).isEqualTo(timetable.indexOf(stopB));
+        assertThat(timetable.footpathDuration(timetable.footpathStart(a))).isEqualTo(120);
+        assertThat(timetable.walkTime(timetable.indexOf(stopC), a)).isEqualTo(300);
+        assertThat(timetable.walkTime(timetable.indexOf(stopB), a)).isEqualTo(Timetable.NO_TIME);
+    }
+
+    @Test
+    void serviceDay_shouldKeepRecentServiceSets_andEvictLeastRecentlyUsed() {
+        // у каждого сервиса своя дата, поэтому у каждой даты свой набор сервисов, как у GTFS с календарём на год
+        int services = Timetable.SERVICE_DAY_CACHE_SIZE + 1;
+        ServiceCalendar.Builder calendar = ServiceCalendar.builder(MONDAY, MONDAY.plusDays(2L * services));
+        List<Trip> trips = new ArrayList<>();
+        for (int i = 0; i < services; i++) {
+            calendar.add("S" + i, MONDAY.plusDays(2L * i));
+            trips.add(Trip.builder()
+                    .id(UUID.randomUUID()).route(route1).service("S" + i)
+                    .stops(List.of(
+                            StopTime.builder().stop(stopA).time(LocalTime.of(10, i)).build(),
+                            StopTime.builder().stop(stopB).time(LocalTime.of(11, i)).build()
+                    )).build());
+        }
+        Timetable timetable = new Timetable(stopMap, trips, List.of(), calendar.build());
+
+        ServiceDay first = timetable.serviceDay(MONDAY);
+        assertThat(timetable.serviceDay(MONDAY)).isSameAs(first);
+        for (int i = 1; i < services; i++) {
+            timetable.serviceDay(MONDAY.plusDays(2L * i));
+        }
+
+        ServiceDay rebuilt = timetable.serviceDay(MONDAY);
+        assertThat(rebuilt).isNotSameAs(first);
+        assertThat(rebuilt.runs(timetable.tripPattern(0))).isTrue();
+        assertThat(rebuilt.runs(timetable.tripPattern(1))).isFalse();
+    }
+
+    private Trip createTrip(Route route, Day day, Stop from, int h1, int m1, Stop to, int h2, int m2) {
+        return Trip.builder()
+                .id(UUID.randomUUID()).route(route).day(day)
+                .stops(List.of(
+                        StopTime.builder().stop(from).time(LocalTime.of(h1, m1)).build(),
+                        StopTime.builder().stop(to).time(LocalTime.of(h2, m2)).build()
+                )).build();
+    }
+
+    private Stop createStop(String name) {
+        return Stop.builder().id(UUID.randomUUID()).name(name).description("Desc " + name).build();
+    }
+}
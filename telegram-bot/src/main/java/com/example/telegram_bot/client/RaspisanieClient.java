@@ -1,5 +1,6 @@
 package com.example.telegram_bot.client;
 
+import com.example.telegram_bot.dto.RoutingGroupRequestDto;
 import com.example.telegram_bot.dto.RoutingResponseDto;
 import com.example.telegram_bot.dto.RoutingRequestDto;
 import com.example.telegram_bot.dto.ShortRouteDto;
@@ -54,6 +55,9 @@ public interface RaspisanieClient {
     @PostMapping("/api/v1/routing/plan")
     RoutingResponseDto planRoute(@RequestBody RoutingRequestDto request);
 
+    @PostMapping("/api/v1/routing/plan/group")
+    RoutingResponseDto planGroupRoute(@RequestBody RoutingGroupRequestDto request);
+
     @PostMapping("/api/v1/routing/plan/all")
     List<RoutingResponseDto> getAllPlans(@RequestBody RoutingRequestDto request);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.telegram_bot.dto;
+
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Builder
+public record RoutingGroupRequestDto(
+        String originName,
+        UUID originGroupId,
+        String targetName,
+        UUID targetGroupId,
+        LocalTime time,
+        LocalDate date
+) {
+}
@@ -1,9 +1,9 @@
 package com.example.telegram_bot.dto;
 
 
-import com.example.telegram_bot.model.enums.Day;
 import lombok.Builder;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.UUID;
 
@@ -12,6 +12,6 @@ public record RoutingRequestDto(
         UUID originStopId,
         UUID targetStopId,
         LocalTime time,
-        Day day
+        LocalDate date
 ) {
 }
\ No newline at end of file
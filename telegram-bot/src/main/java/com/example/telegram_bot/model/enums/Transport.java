@@ -2,5 +2,6 @@ package com.example.telegram_bot.model.enums;
 
 public enum Transport {
     BUS,
-    TROLLEYBUS
+    TROLLEYBUS,
+    WALK
 }
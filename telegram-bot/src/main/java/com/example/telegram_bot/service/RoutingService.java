@@ -1,14 +1,18 @@
 package com.example.telegram_bot.service;
 
 import com.example.telegram_bot.client.RaspisanieClient;
+import com.example.telegram_bot.dto.RoutingGroupRequestDto;
 import com.example.telegram_bot.dto.RoutingRequestDto;
 import com.example.telegram_bot.dto.RoutingResponseDto;
 import com.example.telegram_bot.dto.SegmentDto;
 import com.example.telegram_bot.model.UserSession;
+import com.example.telegram_bot.model.enums.Transport;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -18,7 +22,6 @@ import java.util.List;
 public class RoutingService {
 
     private final RaspisanieClient client;
-    private final DayService dayService;
 
     public String buildAndFormatRoute(UserSession session) {
         try {
@@ -26,10 +29,22 @@ public class RoutingService {
                     session.getOriginId(),
                     session.getDestId(),
                     LocalTime.now(),
-                    dayService.getDayType()
+                    // праздники и переносы по дате учитывает календарь сервиса расписания
+                    LocalDate.now()
             );
 
-            List<RoutingResponseDto> responses = client.getAllPlans(request);
+            List<RoutingResponseDto> responses;
+            try {
+                responses = client.getAllPlans(request);
+            } catch (FeignException.NotFound e) {
+                // с выбранной платформы маршрута нет — ищем между всеми платформами с теми же названиями
+                responses = List.of(client.planGroupRoute(RoutingGroupRequestDto.builder()
+                        .originGroupId(session.getOriginId())
+                        .targetGroupId(session.getDestId())
+                        .time(request.time())
+                        .date(request.date())
+                        .build()));
+            }
 
             if (responses.isEmpty()) {
                 return "⚠️ Маршруты не найдены. Попробуйте другие остановки.";
@@ -94,6 +109,18 @@ public class RoutingService {
         for (int i = 0; i < segments.size(); i++) {
             SegmentDto segment = segments.get(i);
 
+            if (segment.transport() == Transport.WALK) {
+                sb.append("🚶 <b>Пешком</b>\n");
+                sb.append("   ├ <b>От:</b> ").append(segment.boardingStop().name())
+                        .append(" <code>").append(segment.boardingTime()).append("</code>\n");
+                sb.append("   └ <b>До:</b> ").append(segment.exitStop().name())
+                        .append(" <code>").append(segment.exitTime()).append("</code>\n");
+                if (i < segments.size() - 1) {
+                    sb.append("\n");
+                }
+                continue;
+            }
+
             String emoji = segment.transport().name().equals("BUS") ? "🚌" : "🚎";
 
             sb.append(emoji).append(" <b>№").append(segment.routeNumber()).append("</b>");